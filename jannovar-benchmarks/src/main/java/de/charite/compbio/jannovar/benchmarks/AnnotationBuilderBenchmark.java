@@ -0,0 +1,68 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.charite.compbio.jannovar.annotation.InvalidGenomeVariant;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderDispatcher;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.benchmarks.SyntheticDatabase.VariantOnTranscript;
+import de.charite.compbio.jannovar.reference.GenomeVariantType;
+
+/**
+ * Throughput of {@link AnnotationBuilderDispatcher} per variant class
+ *
+ * The dispatcher forwards SNVs, insertions, deletions, and block substitutions to the corresponding annotation builder,
+ * so each value of {@link #variantType} measures one builder. The transcript is known beforehand, such that no
+ * interval queries are included.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnnotationBuilderBenchmark {
+
+	/** Number of variants annotated per benchmark invocation */
+	static final int NUM_VARIANTS = 1024;
+
+	/** Type of the variants to annotate */
+	@Param({ "SNV", "INSERTION", "DELETION", "BLOCK_SUBSTITUTION" })
+	public GenomeVariantType variantType;
+
+	/** Variants to annotate */
+	private List<VariantOnTranscript> variants;
+
+	/** Configuration for the annotation builders */
+	private final AnnotationBuilderOptions options = new AnnotationBuilderOptions();
+
+	@Setup
+	public void setUp() {
+		variants = new SyntheticDatabase(1000, 42).randomVariants(variantType, NUM_VARIANTS);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_VARIANTS)
+	public void annotate(Blackhole blackhole) throws InvalidGenomeVariant {
+		for (VariantOnTranscript v : variants)
+			blackhole.consume(new AnnotationBuilderDispatcher(v.getTranscript(), v.getVariant(), options).build());
+	}
+
+}
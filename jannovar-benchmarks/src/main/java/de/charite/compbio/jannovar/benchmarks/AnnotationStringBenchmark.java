@@ -0,0 +1,78 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.charite.compbio.jannovar.annotation.Annotation;
+import de.charite.compbio.jannovar.annotation.InvalidGenomeVariant;
+import de.charite.compbio.jannovar.annotation.VCFAnnotationEncoder;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderDispatcher;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.benchmarks.SyntheticDatabase.VariantOnTranscript;
+import de.charite.compbio.jannovar.reference.GenomeVariantType;
+
+/**
+ * Throughput of {@link Annotation#toVCFAnnoString} and of the {@link VCFAnnotationEncoder} with a reused buffer for
+ * writing the <code>ANN</code> field
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnnotationStringBenchmark {
+
+	/** Number of annotations per benchmark invocation */
+	static final int NUM_ANNOTATIONS = 1024;
+
+	/** Type of the annotated variants */
+	@Param({ "SNV", "INSERTION", "DELETION", "BLOCK_SUBSTITUTION" })
+	public GenomeVariantType variantType;
+
+	/** The annotations to convert */
+	private List<Annotation> annotations;
+
+	@Setup
+	public void setUp() throws InvalidGenomeVariant {
+		final AnnotationBuilderOptions options = new AnnotationBuilderOptions();
+		annotations = new ArrayList<>(NUM_ANNOTATIONS);
+		for (VariantOnTranscript v : new SyntheticDatabase(1000, 42).randomVariants(variantType, NUM_ANNOTATIONS))
+			annotations.add(new AnnotationBuilderDispatcher(v.getTranscript(), v.getVariant(), options).build());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_ANNOTATIONS)
+	public void toVCFAnnoString(Blackhole blackhole) {
+		for (Annotation annotation : annotations)
+			blackhole.consume(annotation.toVCFAnnoString(annotation.getGenomeVariant().getAlt()));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_ANNOTATIONS)
+	public void encoder(Blackhole blackhole) {
+		for (Annotation annotation : annotations) {
+			final StringBuilder builder = VCFAnnotationEncoder.getThreadLocalBuilder();
+			blackhole.consume(VCFAnnotationEncoder.append(builder, annotation,
+					annotation.getGenomeVariant().getAlt(), true));
+		}
+	}
+
+}
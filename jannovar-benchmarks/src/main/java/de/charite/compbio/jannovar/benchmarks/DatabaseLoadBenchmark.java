@@ -0,0 +1,85 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.data.SerializationException;
+
+/**
+ * Time for loading a database with {@link JannovarDataSerializer#load}
+ *
+ * The synthetic database is written to a temporary file in the binary and the legacy format before the benchmark.
+ * The bundled <code>hg19_small.ser</code> database is in the legacy format.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatabaseLoadBenchmark {
+
+	/** Database to load */
+	@Param({ "synthetic", "synthetic_legacy", "hg19_small" })
+	public String database;
+
+	/** Number of transcripts in the synthetic database */
+	@Param({ "50000" })
+	public int numTranscripts;
+
+	/** Temporary file with the database */
+	private File file;
+
+	@Setup
+	public void setUp() throws IOException, SerializationException {
+		file = File.createTempFile("jannovar-benchmark", ".ser");
+		switch (database) {
+		case "synthetic":
+			new JannovarDataSerializer(file.getPath()).save(new SyntheticDatabase(numTranscripts, 42).getData());
+			break;
+		case "synthetic_legacy":
+			new JannovarDataSerializer(file.getPath())
+					.saveLegacy(new SyntheticDatabase(numTranscripts, 42).getData());
+			break;
+		default:
+			try (InputStream in = DatabaseLoadBenchmark.class.getResourceAsStream("/" + database + ".ser")) {
+				if (in == null)
+					throw new IOException("Unknown database " + database);
+				Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			break;
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Benchmark
+	public JannovarData load() throws SerializationException {
+		return new JannovarDataSerializer(file.getPath()).load();
+	}
+
+}
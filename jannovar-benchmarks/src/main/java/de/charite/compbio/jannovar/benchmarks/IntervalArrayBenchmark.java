@@ -0,0 +1,106 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.reference.TranscriptIntervalEndExtractor;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Throughput of point and interval queries to an {@link IntervalArray} of transcripts
+ *
+ * The queries are distributed uniformly over the synthetic contig, so both queries hitting transcripts and queries
+ * between transcripts (that have to look for the neighbours) are included.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntervalArrayBenchmark {
+
+	/** Number of queries per benchmark invocation */
+	static final int NUM_QUERIES = 1024;
+
+	/** Number of transcripts in the interval array */
+	@Param({ "1000", "50000" })
+	public int numTranscripts;
+
+	/** The interval array to query */
+	private IntervalArray<TranscriptModel> intervals;
+
+	/** Begin positions of the queries */
+	private int[] begins;
+
+	/** End positions of the interval queries */
+	private int[] ends;
+
+	/** Reusable buffer for the allocation-free queries */
+	private final IntervalArray.QueryBuffer<TranscriptModel> buffer = new IntervalArray.QueryBuffer<>();
+
+	@Setup
+	public void setUp() {
+		final SyntheticDatabase db = new SyntheticDatabase(numTranscripts, 42);
+		intervals = new IntervalArray<>(db.getTranscripts(), new TranscriptIntervalEndExtractor());
+
+		final int contigLength = db.getData().getRefDict().getContigIDToLength().get(SyntheticDatabase.CONTIG_ID);
+		final Random random = new Random(42);
+		begins = new int[NUM_QUERIES];
+		ends = new int[NUM_QUERIES];
+		for (int i = 0; i < NUM_QUERIES; ++i) {
+			begins[i] = random.nextInt(contigLength - 100);
+			ends[i] = begins[i] + 1 + random.nextInt(100);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_QUERIES)
+	public void pointQuery(Blackhole blackhole) {
+		for (int i = 0; i < NUM_QUERIES; ++i)
+			blackhole.consume(intervals.findOverlappingWithPoint(begins[i]));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_QUERIES)
+	public void pointQueryBuffer(Blackhole blackhole) {
+		for (int i = 0; i < NUM_QUERIES; ++i) {
+			intervals.findOverlappingWithPoint(begins[i], buffer);
+			blackhole.consume(buffer.getEntries().size());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_QUERIES)
+	public void intervalQuery(Blackhole blackhole) {
+		for (int i = 0; i < NUM_QUERIES; ++i)
+			blackhole.consume(intervals.findOverlappingWithInterval(begins[i], ends[i]));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_QUERIES)
+	public void intervalQueryBuffer(Blackhole blackhole) {
+		for (int i = 0; i < NUM_QUERIES; ++i) {
+			intervals.findOverlappingWithInterval(begins[i], ends[i], buffer);
+			blackhole.consume(buffer.getEntries().size());
+		}
+	}
+
+}
@@ -0,0 +1,262 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.data.ReferenceDictionaryBuilder;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.GenomeVariantType;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+
+/**
+ * Deterministic synthetic transcript database and variants for the benchmarks
+ *
+ * All transcripts are on one contig, alternating between the forward and reverse strand. Each transcript has the same
+ * exon structure and a coding sequence from the first to the last exon, with random codons. Variants are placed into
+ * the exons, with reference alleles matching the transcript sequences.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class SyntheticDatabase {
+
+	/** Name of the synthetic contig */
+	public static final String CONTIG_NAME = "chr1";
+
+	/** ID of the synthetic contig */
+	public static final int CONTIG_ID = 1;
+
+	/** Number of exons per transcript */
+	private static final int NUM_EXONS = 10;
+
+	/** Length of each exon */
+	private static final int EXON_LENGTH = 153;
+
+	/** Length of each intron */
+	private static final int INTRON_LENGTH = 300;
+
+	/** Length of 5' and 3' UTR, such that the CDS length is divisible by three */
+	private static final int UTR_LENGTH = 51;
+
+	/** Distance between the begin positions of consecutive transcripts */
+	private static final int TRANSCRIPT_DISTANCE = 10_000;
+
+	/** Codons that are used in the CDS, no stop codons */
+	private static final String[] CODONS;
+
+	static {
+		final List<String> codons = new ArrayList<>();
+		final String bases = "ACGT";
+		for (char a : bases.toCharArray())
+			for (char b : bases.toCharArray())
+				for (char c : bases.toCharArray()) {
+					final String codon = new String(new char[] { a, b, c });
+					if (!codon.equals("TAA") && !codon.equals("TAG") && !codon.equals("TGA"))
+						codons.add(codon);
+				}
+		CODONS = codons.toArray(new String[0]);
+	}
+
+	/** The generated database */
+	private final JannovarData data;
+
+	/** Exonic sequence of each transcript, on the forward strand */
+	private final List<String> forwardSequences = new ArrayList<>();
+
+	/** The generated transcripts, in the order of their positions */
+	private final List<TranscriptModel> transcripts = new ArrayList<>();
+
+	/** Random number generator for variants */
+	private final Random random;
+
+	/**
+	 * Generate database
+	 *
+	 * @param numTranscripts
+	 *            number of transcripts to generate
+	 * @param seed
+	 *            seed for the random number generator
+	 */
+	public SyntheticDatabase(int numTranscripts, long seed) {
+		this.random = new Random(seed);
+
+		final ReferenceDictionaryBuilder refDictBuilder = new ReferenceDictionaryBuilder();
+		refDictBuilder.putContigID(CONTIG_NAME, CONTIG_ID);
+		refDictBuilder.putContigName(CONTIG_ID, CONTIG_NAME);
+		refDictBuilder.putContigLength(CONTIG_ID, (numTranscripts + 1) * TRANSCRIPT_DISTANCE);
+		final ReferenceDictionary refDict = refDictBuilder.build();
+
+		for (int i = 0; i < numTranscripts; ++i)
+			transcripts.add(buildTranscript(refDict, i));
+		this.data = new JannovarData(refDict, ImmutableList.copyOf(transcripts));
+	}
+
+	/** Build the <code>i</code>-th transcript */
+	private TranscriptModel buildTranscript(ReferenceDictionary refDict, int i) {
+		final Strand strand = (i % 2 == 0) ? Strand.FWD : Strand.REV;
+		final int txBegin = (i + 1) * TRANSCRIPT_DISTANCE;
+		final int txEnd = txBegin + NUM_EXONS * EXON_LENGTH + (NUM_EXONS - 1) * INTRON_LENGTH;
+
+		// Build sequence in transcript orientation: UTR, start codon, random codons, stop codon, UTR
+		final StringBuilder seq = new StringBuilder();
+		appendRandomBases(seq, UTR_LENGTH);
+		seq.append("ATG");
+		final int numCodons = (NUM_EXONS * EXON_LENGTH - 2 * UTR_LENGTH) / 3 - 2;
+		for (int j = 0; j < numCodons; ++j)
+			seq.append(CODONS[random.nextInt(CODONS.length)]);
+		seq.append("TAA");
+		appendRandomBases(seq, UTR_LENGTH);
+		final String txSeq = seq.toString();
+		forwardSequences.add(strand == Strand.FWD ? txSeq : reverseComplement(txSeq));
+
+		final TranscriptModelBuilder builder = new TranscriptModelBuilder();
+		builder.setStrand(strand);
+		builder.setAccession("NM_" + (100000 + i) + ".1");
+		builder.setGeneSymbol("GENE" + i);
+		builder.setGeneID(Integer.toString(1000 + i));
+		builder.setTXRegion(new GenomeInterval(refDict, Strand.FWD, CONTIG_ID, txBegin, txEnd));
+		builder.setCDSRegion(
+				new GenomeInterval(refDict, Strand.FWD, CONTIG_ID, txBegin + UTR_LENGTH, txEnd - UTR_LENGTH));
+		for (int j = 0; j < NUM_EXONS; ++j) {
+			final int exonBegin = txBegin + j * (EXON_LENGTH + INTRON_LENGTH);
+			builder.addExonRegion(
+					new GenomeInterval(refDict, Strand.FWD, CONTIG_ID, exonBegin, exonBegin + EXON_LENGTH));
+		}
+		builder.setSequence(txSeq);
+		return builder.build();
+	}
+
+	/** @return the generated database */
+	public JannovarData getData() {
+		return data;
+	}
+
+	/** @return the generated transcripts, in the order of their positions */
+	public List<TranscriptModel> getTranscripts() {
+		return transcripts;
+	}
+
+	/**
+	 * Generate random exonic variants
+	 *
+	 * @param type
+	 *            type of the variants to generate, one of SNV, insertion, deletion, and block substitution
+	 * @param count
+	 *            number of variants to generate
+	 * @return list of <code>count</code> variants, together with the transcript they fall into
+	 */
+	public List<VariantOnTranscript> randomVariants(GenomeVariantType type, int count) {
+		final ReferenceDictionary refDict = data.getRefDict();
+		final List<VariantOnTranscript> result = new ArrayList<>(count);
+		for (int i = 0; i < count; ++i) {
+			final int txIdx = random.nextInt(transcripts.size());
+			final TranscriptModel tm = transcripts.get(txIdx);
+			final String fwdSeq = forwardSequences.get(txIdx);
+
+			// Pick position in exon such that a variant of up to 6 bases fits into it
+			final int exon = random.nextInt(NUM_EXONS);
+			final int offset = random.nextInt(EXON_LENGTH - 6);
+			final int seqPos = exon * EXON_LENGTH + offset;
+			final int pos = tm.getTXRegion().withStrand(Strand.FWD).getBeginPos() + exon * (EXON_LENGTH + INTRON_LENGTH)
+					+ offset;
+
+			final String ref;
+			final String alt;
+			switch (type) {
+			case SNV:
+				ref = fwdSeq.substring(seqPos, seqPos + 1);
+				alt = complement(ref);
+				break;
+			case INSERTION:
+				ref = "";
+				alt = randomBases(1 + random.nextInt(6));
+				break;
+			case DELETION:
+				ref = fwdSeq.substring(seqPos, seqPos + 1 + random.nextInt(6));
+				alt = "";
+				break;
+			case BLOCK_SUBSTITUTION:
+			default:
+				ref = fwdSeq.substring(seqPos, seqPos + 2 + random.nextInt(5));
+				alt = complement(ref);
+				break;
+			}
+
+			final GenomePosition gPos = new GenomePosition(refDict, Strand.FWD, CONTIG_ID, pos);
+			result.add(new VariantOnTranscript(new GenomeVariant(gPos, ref, alt), tm));
+		}
+		return result;
+	}
+
+	/** Append <code>count</code> random bases to <code>builder</code> */
+	private void appendRandomBases(StringBuilder builder, int count) {
+		for (int i = 0; i < count; ++i)
+			builder.append("ACGT".charAt(random.nextInt(4)));
+	}
+
+	/** @return string of <code>count</code> random bases */
+	private String randomBases(int count) {
+		final StringBuilder builder = new StringBuilder();
+		appendRandomBases(builder, count);
+		return builder.toString();
+	}
+
+	/** @return complement of <code>seq</code>, each base differs from the input */
+	private static String complement(String seq) {
+		final StringBuilder builder = new StringBuilder(seq.length());
+		for (char c : seq.toCharArray()) {
+			switch (c) {
+			case 'A':
+				builder.append('T');
+				break;
+			case 'C':
+				builder.append('G');
+				break;
+			case 'G':
+				builder.append('C');
+				break;
+			default:
+				builder.append('A');
+				break;
+			}
+		}
+		return builder.toString();
+	}
+
+	/** @return reverse complement of <code>seq</code> */
+	private static String reverseComplement(String seq) {
+		return new StringBuilder(complement(seq)).reverse().toString();
+	}
+
+	/**
+	 * Pair of a {@link GenomeVariant} and the {@link TranscriptModel} that it falls into
+	 */
+	public static final class VariantOnTranscript {
+		/** the variant */
+		private final GenomeVariant variant;
+		/** the transcript that the variant falls into */
+		private final TranscriptModel transcript;
+
+		public VariantOnTranscript(GenomeVariant variant, TranscriptModel transcript) {
+			this.variant = variant;
+			this.transcript = transcript;
+		}
+
+		public GenomeVariant getVariant() {
+			return variant;
+		}
+
+		public TranscriptModel getTranscript() {
+			return transcript;
+		}
+	}
+
+}
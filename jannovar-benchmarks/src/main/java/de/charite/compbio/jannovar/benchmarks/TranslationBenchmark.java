@@ -0,0 +1,123 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ImmutableMap;
+
+import de.charite.compbio.jannovar.hgvs.GeneticCode;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Throughput of DNA translation with the {@link GeneticCode} lookup tables, compared to the string-keyed codon map that
+ * was used by <code>Translator</code> before
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TranslationBenchmark {
+
+	/** Number of sequences per benchmark invocation */
+	static final int NUM_SEQUENCES = 256;
+
+	/** Length of the translated sequences, a single codon or a full transcript */
+	@Param({ "3", "1500" })
+	public int length;
+
+	/** The sequences to translate */
+	private List<String> sequences;
+
+	/** The sequences to translate, as ASCII bytes */
+	private List<byte[]> byteSequences;
+
+	/** Output buffer for translating byte sequences */
+	private byte[] outBuffer;
+
+	/** Codon map as used before the lookup tables */
+	private ImmutableMap<String, String> codonMap;
+
+	@Setup
+	public void setUp() {
+		sequences = new ArrayList<>(NUM_SEQUENCES);
+		byteSequences = new ArrayList<>(NUM_SEQUENCES);
+		int i = 0;
+		for (TranscriptModel tm : new SyntheticDatabase(NUM_SEQUENCES, 42).getTranscripts()) {
+			final int begin = (i++ * 3) % (tm.getSequence().length() - length);
+			final String seq = tm.getSequence().substring(begin, begin + length);
+			sequences.add(seq);
+			byteSequences.add(seq.getBytes(StandardCharsets.US_ASCII));
+		}
+		outBuffer = new byte[length / 3];
+
+		final ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+		final String bases = "ACGT";
+		for (char a : bases.toCharArray())
+			for (char b : bases.toCharArray())
+				for (char c : bases.toCharArray()) {
+					final String codon = new String(new char[] { a, b, c });
+					builder.put(codon, Character.toString(GeneticCode.STANDARD.translateCodon(codon, 0)));
+				}
+		codonMap = builder.build();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_SEQUENCES)
+	public void codonMap(Blackhole blackhole) {
+		for (String seq : sequences)
+			blackhole.consume(translateWithMap(seq));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_SEQUENCES)
+	public void lookupTable(Blackhole blackhole) {
+		for (String seq : sequences)
+			blackhole.consume(GeneticCode.STANDARD.translate(seq));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_SEQUENCES)
+	public void lookupTableBytes(Blackhole blackhole) {
+		for (byte[] seq : byteSequences)
+			blackhole.consume(GeneticCode.STANDARD.translate(seq, 0, seq.length, outBuffer, 0));
+	}
+
+	/** Translation through the codon map, as implemented by <code>Translator</code> before */
+	private String translateWithMap(String dnaseq) {
+		StringBuilder aminoAcidSeq = new StringBuilder();
+		final int len = dnaseq.length() - (dnaseq.length() % 3);
+		for (int i = 0; i < len; i += 3) {
+			String nt3 = dnaseq.substring(i, i + 3);
+			String aa = codonMap.get(nt3);
+			if (aa == null) {
+				if (nt3.contains("N"))
+					aa = "X";
+				else
+					break;
+			}
+			aminoAcidSeq.append(aa);
+		}
+		return aminoAcidSeq.toString();
+	}
+
+}
@@ -0,0 +1,111 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.charite.compbio.jannovar.annotation.AnnotationException;
+import de.charite.compbio.jannovar.annotation.VariantAnnotationsBatch;
+import de.charite.compbio.jannovar.annotation.VariantAnnotator;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.benchmarks.SyntheticDatabase.VariantOnTranscript;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.GenomeVariantType;
+
+/**
+ * Throughput of {@link VariantAnnotator#buildAnnotations} per variant class
+ *
+ * In contrast to {@link AnnotationBuilderBenchmark}, this includes the lookup of the overlapping transcripts. The
+ * sorted variants are annotated one by one, with the sweep of {@link VariantAnnotator#buildAnnotationsSorted}, and
+ * through the batch API with a reused {@link VariantAnnotationsBatch}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VariantAnnotatorBenchmark {
+
+	/** Number of variants annotated per benchmark invocation */
+	static final int NUM_VARIANTS = 1024;
+
+	/** Type of the variants to annotate */
+	@Param({ "SNV", "INSERTION", "DELETION", "BLOCK_SUBSTITUTION" })
+	public GenomeVariantType variantType;
+
+	/** Number of transcripts in the synthetic database */
+	@Param({ "1000", "50000" })
+	public int numTranscripts;
+
+	/** The annotator to use */
+	private VariantAnnotator annotator;
+
+	/** Variants to annotate */
+	private List<GenomeVariant> variants;
+
+	/** {@link #variants}, sorted by position */
+	private List<GenomeVariant> sortedVariants;
+
+	/** Reused container for the batch results */
+	private VariantAnnotationsBatch batch;
+
+	@Setup
+	public void setUp() {
+		final SyntheticDatabase db = new SyntheticDatabase(numTranscripts, 42);
+		final JannovarData data = db.getData();
+		annotator = new VariantAnnotator(data.getRefDict(), data.getChromosomes(), new AnnotationBuilderOptions());
+		variants = new ArrayList<>(NUM_VARIANTS);
+		for (VariantOnTranscript v : db.randomVariants(variantType, NUM_VARIANTS))
+			variants.add(v.getVariant());
+		sortedVariants = new ArrayList<>(variants);
+		sortedVariants.sort(Comparator.comparingInt(GenomeVariant::getPos));
+		batch = new VariantAnnotationsBatch();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_VARIANTS)
+	public void buildAnnotations(Blackhole blackhole) throws AnnotationException {
+		for (GenomeVariant variant : variants)
+			blackhole.consume(annotator.buildAnnotations(variant));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_VARIANTS)
+	public void buildAnnotationsSorted(Blackhole blackhole) throws AnnotationException {
+		for (GenomeVariant variant : sortedVariants)
+			blackhole.consume(annotator.buildAnnotations(variant));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_VARIANTS)
+	public void buildAnnotationsSortedSweep(Blackhole blackhole) throws AnnotationException {
+		for (GenomeVariant variant : sortedVariants)
+			blackhole.consume(annotator.buildAnnotationsSorted(variant));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_VARIANTS)
+	public void buildAnnotationsBatch(Blackhole blackhole) {
+		blackhole.consume(annotator.buildAnnotations(sortedVariants, batch));
+	}
+
+}
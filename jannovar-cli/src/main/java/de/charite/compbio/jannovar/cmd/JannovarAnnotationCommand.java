@@ -1,5 +1,7 @@
 package de.charite.compbio.jannovar.cmd;
 
+import java.util.Collection;
+
 import com.google.common.collect.ImmutableMap;
 
 import de.charite.compbio.jannovar.JannovarException;
@@ -36,7 +38,28 @@ public abstract class JannovarAnnotationCommand extends JannovarCommand {
 	 */
 	protected void deserializeTranscriptDefinitionFile(String pathToDataFile)
 			throws JannovarException, HelpRequestedException {
-		this.jannovarData = new JannovarDataSerializer(pathToDataFile).load();
+		deserializeTranscriptDefinitionFile(pathToDataFile, null);
+	}
+
+	/**
+	 * Deserialize the transcript definition file from {@link pathToDataFile}, restricted to the transcripts of the
+	 * given contigs.
+	 *
+	 * For the binary database format, only the blocks of the given contigs are decoded. The other contigs are present
+	 * in {@link #chromosomeMap} but have no transcripts.
+	 *
+	 * @param pathToDataFile
+	 *            String with the path to the data file to deserialize
+	 * @param contigNames
+	 *            names of the contigs to load the transcripts for, <code>null</code> for all contigs
+	 * @throws JannovarException
+	 *             when there is a problem with the deserialization
+	 * @throws HelpRequestedException
+	 *             when the user requested the help page
+	 */
+	protected void deserializeTranscriptDefinitionFile(String pathToDataFile, Collection<String> contigNames)
+			throws JannovarException, HelpRequestedException {
+		this.jannovarData = new JannovarDataSerializer(pathToDataFile).load(contigNames);
 		this.refDict = this.jannovarData.getRefDict();
 		this.chromosomeMap = this.jannovarData.getChromosomes();
 	}
@@ -1,13 +1,21 @@
 package de.charite.compbio.jannovar.cmd.annotate_vcf;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 
 import de.charite.compbio.jannovar.Jannovar;
@@ -18,6 +26,10 @@ import de.charite.compbio.jannovar.cmd.JannovarAnnotationCommand;
 import de.charite.compbio.jannovar.filter.facade.ThresholdFilterAnnotator;
 import de.charite.compbio.jannovar.filter.facade.ThresholdFilterHeaderExtender;
 import de.charite.compbio.jannovar.filter.facade.ThresholdFilterOptions;
+import de.charite.compbio.jannovar.htsjdk.BlockCompressedFileConcatenator;
+import de.charite.compbio.jannovar.htsjdk.ParallelBlockCompressedOutputStream;
+import de.charite.compbio.jannovar.htsjdk.TabixIndexConstructionHelper;
+import de.charite.compbio.jannovar.htsjdk.VCFShardWriter;
 import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
 import de.charite.compbio.jannovar.htsjdk.VariantContextWriterConstructionHelper;
 import de.charite.compbio.jannovar.htsjdk.VariantEffectHeaderExtender;
@@ -26,6 +38,7 @@ import de.charite.compbio.jannovar.mendel.bridge.MendelVCFHeaderExtender;
 import de.charite.compbio.jannovar.mendel.filter.ConsumerProcessor;
 import de.charite.compbio.jannovar.mendel.filter.CoordinateSortingChecker;
 import de.charite.compbio.jannovar.mendel.filter.GeneWiseMendelianAnnotationProcessor;
+import de.charite.compbio.jannovar.mendel.filter.ParallelMappingProcessor;
 import de.charite.compbio.jannovar.mendel.filter.VariantContextFilterException;
 import de.charite.compbio.jannovar.mendel.filter.VariantContextProcessor;
 import de.charite.compbio.jannovar.pedigree.Disease;
@@ -36,16 +49,27 @@ import de.charite.compbio.jannovar.pedigree.PedPerson;
 import de.charite.compbio.jannovar.pedigree.Pedigree;
 import de.charite.compbio.jannovar.pedigree.Person;
 import de.charite.compbio.jannovar.pedigree.Sex;
+import de.charite.compbio.jannovar.progress.GenomeRegion;
 import de.charite.compbio.jannovar.progress.GenomeRegionListFactoryFromSAMSequenceDictionary;
 import de.charite.compbio.jannovar.progress.ProgressReporter;
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import de.charite.compbio.jannovar.vardbs.base.NormalizationCache;
 import de.charite.compbio.jannovar.vardbs.facade.DBVariantContextAnnotator;
 import de.charite.compbio.jannovar.vardbs.facade.DBVariantContextAnnotatorFactory;
 import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.AsyncBufferedIterator;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.Interval;
+import htsjdk.tribble.AbstractFeatureReader;
+import htsjdk.tribble.FeatureReader;
+import htsjdk.tribble.TribbleException;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.AsyncVariantContextWriter;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFCodec;
 import htsjdk.variant.vcf.VCFContigHeaderLine;
 import htsjdk.variant.vcf.VCFFileReader;
 import htsjdk.variant.vcf.VCFHeader;
@@ -69,6 +93,21 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 	/** Configuration */
 	private JannovarAnnotateVCFOptions options;
 
+	/**
+	 * Memoized normalization shared by the variant database annotators of the current run, <code>null</code> if no
+	 * variant database is used
+	 */
+	private NormalizationCache normalizationCache = null;
+
+	/** Number of buffers of {@link JannovarAnnotateVCFOptions#getBatchSize} records to read ahead */
+	private static final int READ_AHEAD_BUFFERS = 2;
+
+	/** Number of records to queue for the background writer */
+	private static final int WRITE_BEHIND_QUEUE_SIZE = 2000;
+
+	/** End position to use for shards on contigs of unknown length, "some large number" */
+	private static final int MAX_CONTIG_LENGTH = 1000 * 1000 * 1000;
+
 	public AnnotateVCFCommand(String[] argv, Namespace args) throws CommandLineParsingException {
 		this.argv = argv;
 		this.options = new JannovarAnnotateVCFOptions();
@@ -84,20 +123,44 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 	 */
 	@Override
 	public void run() throws JannovarException {
+		try (NormalizationCache normalizationCache = buildNormalizationCache()) {
+			this.normalizationCache = normalizationCache;
+			annotate();
+		} catch (IOException e) {
+			throw new JannovarException("Problem closing reference FASTA file", e);
+		} finally {
+			this.normalizationCache = null;
+		}
+	}
+
+	/**
+	 * Annotate the input VCF file, using the {@link #normalizationCache} of the run
+	 *
+	 * @throws JannovarException
+	 *             on problems with the annotation
+	 */
+	private void annotate() throws JannovarException {
 		System.err.println("Options");
 		System.err.println(options.toString());
 
-		System.err.println("Deserializing transcripts...");
-		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath());
-
 		final String vcfPath = options.getPathInputVCF();
 
 		// whether or not to require availability of an index
 		final boolean useInterval =
 				(options.getInterval() != null && !options.getInterval().equals(""));
 
-		try (VCFFileReader vcfReader = new VCFFileReader(new File(vcfPath), useInterval)) {
-			if (this.options.getVerbosity() >= 1) {
+		// Only decode the transcripts of the contigs that are read
+		final List<String> contigNames = getInputContigs(useInterval);
+		if (contigNames == null)
+			System.err.println("Deserializing transcripts...");
+		else
+			System.err.println("Deserializing transcripts of " + contigNames.size() + " contigs...");
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), contigNames);
+
+		try (VCFFileReader vcfReader =
+				new VCFFileReader(new File(vcfPath), useInterval || options.isSharded())) {
+			// The shards are processed concurrently, there is no single current position to report
+			if (this.options.getVerbosity() >= 1 && !options.isSharded()) {
 				final SAMSequenceDictionary seqDict =
 						VCFFileReader.getSequenceDictionary(new File(vcfPath));
 				if (seqDict != null) {
@@ -118,9 +181,12 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 			System.err.println("Annotating VCF...");
 			final long startTime = System.nanoTime();
 
-			// Jump to interval if given, otherwise start at beginning
+			// Jump to interval if given, otherwise start at beginning; the shards open their own readers
 			CloseableIterator<VariantContext> iter;
-			if (useInterval) {
+			if (options.isSharded()) {
+				System.err.println("Will read input file in shards");
+				iter = null;
+			} else if (useInterval) {
 				Interval itv = RegionParser.parse(options.getInterval());
 				int end = 1000 * 1000 * 1000; // "some large number"
 				for (VCFContigHeaderLine line : vcfHeader.getContigLines()) {
@@ -136,85 +202,25 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 				iter = vcfReader.iterator();
 			}
 
-			// Obtain Java 8 stream from iterator
-			Stream<VariantContext> stream = iter.stream();
-
-			// If configured, annotate using dbSNP VCF file (extend header to use for writing out)
-			if (options.pathVCFDBSNP != null) {
-				DBAnnotationOptions dbSNPOptions = DBAnnotationOptions.createDefaults();
-				dbSNPOptions.setIdentifierPrefix(options.prefixDBSNP);
-				DBVariantContextAnnotator dbSNPAnno = new DBVariantContextAnnotatorFactory()
-						.constructDBSNP(options.pathVCFDBSNP, options.pathFASTARef, dbSNPOptions);
-				dbSNPAnno.extendHeader(vcfHeader);
-				stream = stream.map(dbSNPAnno::annotateVariantContext);
-			}
+			// Parse records in a background thread if configured
+			if (iter != null && options.isAsyncIO())
+				iter = new AsyncBufferedIterator<>(iter, options.getBatchSize(), READ_AHEAD_BUFFERS);
 
-			// If configured, annotate using ExAC VCF file (extend header to use for writing out)
-			if (options.pathVCFExac != null) {
-				DBAnnotationOptions exacOptions = DBAnnotationOptions.createDefaults();
-				exacOptions.setIdentifierPrefix(options.prefixExac);
-				DBVariantContextAnnotator exacAnno = new DBVariantContextAnnotatorFactory()
-						.constructExac(options.pathVCFExac, options.pathFASTARef, exacOptions);
-				exacAnno.extendHeader(vcfHeader);
-				stream = stream.map(exacAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using gnomAD exomes VCF file (extend header to use for
-			// writing out)
-			if (options.pathVCFGnomadExomes != null) {
-				DBAnnotationOptions gnomadOptions = DBAnnotationOptions.createDefaults();
-				gnomadOptions.setIdentifierPrefix(options.prefixGnomadExomes);
-				DBVariantContextAnnotator gnomadExomesAnno =
-						new DBVariantContextAnnotatorFactory().constructGnomad(
-								options.pathVCFGnomadExomes, options.pathFASTARef, gnomadOptions);
-				gnomadExomesAnno.extendHeader(vcfHeader);
-				stream = stream.map(gnomadExomesAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using gnomAD genomes VCF file (extend header to use for
-			// writing out)
-			if (options.pathVCFGnomadGenomes != null) {
-				DBAnnotationOptions gnomadOptions = DBAnnotationOptions.createDefaults();
-				gnomadOptions.setIdentifierPrefix(options.prefixGnomadGenomes);
-				DBVariantContextAnnotator gnomadGenomesAnno =
-						new DBVariantContextAnnotatorFactory().constructGnomad(
-								options.pathVCFGnomadGenomes, options.pathFASTARef, gnomadOptions);
-				gnomadGenomesAnno.extendHeader(vcfHeader);
-				stream = stream.map(gnomadGenomesAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using UK10K VCF file (extend header to use for writing out)
-			if (options.pathVCFUK10K != null) {
-				DBAnnotationOptions exacOptions = DBAnnotationOptions.createDefaults();
-				exacOptions.setIdentifierPrefix(options.prefixUK10K);
-				DBVariantContextAnnotator uk10kAnno = new DBVariantContextAnnotatorFactory()
-						.constructUK10K(options.pathVCFUK10K, options.pathFASTARef, exacOptions);
-				uk10kAnno.extendHeader(vcfHeader);
-				stream = stream.map(uk10kAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using ClinVar VCF file (extend header to use for writing out)
-			if (options.pathClinVar != null) {
-				DBAnnotationOptions clinVarOptions = DBAnnotationOptions.createDefaults();
-				clinVarOptions.setIdentifierPrefix(options.prefixClinVar);
-				DBVariantContextAnnotator clinvarAnno =
-						new DBVariantContextAnnotatorFactory().constructClinVar(options.pathClinVar,
-								options.pathFASTARef, clinVarOptions);
-				clinvarAnno.extendHeader(vcfHeader);
-				stream = stream.map(clinvarAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using COSMIC VCF file (extend header to use for writing out)
-			if (options.pathCosmic != null) {
-				DBAnnotationOptions cosmicOptions = DBAnnotationOptions.createDefaults();
-				cosmicOptions.setIdentifierPrefix(options.prefixCosmic);
-				DBVariantContextAnnotator cosmicAnno = new DBVariantContextAnnotatorFactory()
-						.constructCosmic(options.pathCosmic, options.pathFASTARef, cosmicOptions);
-				cosmicAnno.extendHeader(vcfHeader);
-				stream = stream.map(cosmicAnno::annotateVariantContext);
-			}
+			// Obtain Java 8 stream from iterator
+			Stream<VariantContext> stream = (iter == null) ? Stream.empty() : iter.stream();
+
+			// If configured, annotate using the variant databases (extend header to use for writing
+			// out). The header is extended without opening the databases. The annotators are only
+			// built here in the single-threaded case, the workers and shards open their own.
+			extendHeaderWithDBs(vcfHeader);
+			final List<DBVariantContextAnnotator> dbAnnotators;
+			if (options.getNumThreads() == 1 && !options.isSharded())
+				dbAnnotators = buildDBAnnotators();
+			else
+				dbAnnotators = new ArrayList<>();
 
 			// If configured, use threshold-based annotation (extend headr to use for writing out)
+			ThresholdFilterAnnotator thresholdFilterAnno = null;
 			if (options.useThresholdFilters) {
 				// Build options object for threshold filter
 				ThresholdFilterOptions thresholdFilterOptions = new ThresholdFilterOptions(
@@ -262,9 +268,7 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 										+ "only genotype FT");
 					}
 				}
-				ThresholdFilterAnnotator thresholdFilterAnno =
-						new ThresholdFilterAnnotator(thresholdFilterOptions, affecteds);
-				stream = stream.map(thresholdFilterAnno::annotateVariantContext);
+				thresholdFilterAnno = new ThresholdFilterAnnotator(thresholdFilterOptions, affecteds);
 			}
 
 			// Add step for annotating with variant effect
@@ -276,7 +280,16 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 							options.isOffTargetFilterEnabled(),
 							options.isOffTargetFilterUtrIsOffTarget(),
 							options.isOffTargetFilterIntronicSpliceIsOffTarget()));
-			stream = stream.map(annotator::annotateVariantContext);
+
+			// In the single-threaded case, the annotation steps are applied in the stream directly.
+			// Otherwise, they are applied by ParallelMappingProcessor in front of the sink.
+			if (options.getNumThreads() == 1) {
+				for (DBVariantContextAnnotator dbAnno : dbAnnotators)
+					stream = stream.map(dbAnno::annotateVariantContext);
+				if (thresholdFilterAnno != null)
+					stream = stream.map(thresholdFilterAnno::annotateVariantContext);
+				stream = stream.map(annotator::annotateVariantContext);
+			}
 
 			// Extend header with INHERITANCE filter
 			if (options.pathPedFile != null || options.annotateAsSingletonPedigree) {
@@ -290,22 +303,30 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 							new VCFHeaderLine("jannovarCommand", Joiner.on(' ').join(argv)));
 
 			// Construct VariantContextWriter and start annotationg pipeline
-			try (VariantContextWriter vcfWriter = VariantContextWriterConstructionHelper
-					.openVariantContextWriter(vcfHeader, options.getPathOutputVCF(), jvHeaderLines);
-					VariantContextProcessor sink = buildMendelianProcessors(vcfWriter, vcfHeader)) {
-				// Make current VC available to progress printer
-				if (this.progressReporter != null)
-					stream = stream.peek(vc -> this.progressReporter.setCurrentVC(vc));
-
-				stream.forEachOrdered(sink::put);
-			} catch (IOException e) {
-				throw new JannovarException("Problem opening file", e);
+			if (options.isSharded()) {
+				annotateShards(vcfHeader, jvHeaderLines, thresholdFilterAnno, annotator);
+			} else {
+				try (Closeable dbAnnotatorsCloser = () -> closeDBAnnotators(dbAnnotators);
+						VariantContextWriter vcfWriter = openVariantContextWriter(vcfHeader, jvHeaderLines);
+						VariantContextProcessor sink = buildParallelProcessor(
+								buildMendelianProcessors(vcfWriter, vcfHeader, options.getNumThreads()),
+								thresholdFilterAnno, annotator)) {
+					// Make current VC available to progress printer
+					if (this.progressReporter != null)
+						stream = stream.peek(vc -> this.progressReporter.setCurrentVC(vc));
+
+					stream.forEachOrdered(sink::put);
+				} catch (IOException e) {
+					throw new JannovarException("Problem opening file", e);
+				}
 			}
 
 			System.err.println("Wrote annotations to \"" + options.getPathOutputVCF() + "\"");
 			final long endTime = System.nanoTime();
 			System.err.println(String.format("Annotation and writing took %.2f sec.",
 					(endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+			if (options.getVerbosity() >= 1)
+				printDBCacheStatistics();
 		} catch (IncompatiblePedigreeException e) {
 			if (options.pathPedFile != null)
 				System.err.println("VCF file " + vcfPath + " is not compatible to pedigree file "
@@ -330,6 +351,458 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 			progressReporter.done();
 	}
 
+	/**
+	 * Get the contigs of the input file that are annotated
+	 *
+	 * @param useInterval
+	 *            whether only the configured interval is read
+	 * @return the contig of the interval, the contigs with records according to the index of the
+	 *         input file, or <code>null</code> for all contigs if the input file is not indexed
+	 */
+	private List<String> getInputContigs(boolean useInterval) {
+		if (useInterval)
+			return ImmutableList.of(RegionParser.parse(options.getInterval()).getContig());
+		try (FeatureReader<VariantContext> reader = AbstractFeatureReader
+				.getFeatureReader(options.getPathInputVCF(), new VCFCodec(), true)) {
+			return reader.getSequenceNames();
+		} catch (IOException | TribbleException e) {
+			return null; // no index, records can be on any contig
+		}
+	}
+
+	/**
+	 * Construct the variant database annotators as configured
+	 *
+	 * The annotators hold open file handles, thus they have to be closed using
+	 * {@link #closeDBAnnotators} after use.
+	 *
+	 * @return {@link List} of {@link DBVariantContextAnnotator}s to apply, in order
+	 * @throws JannovarVarDBException
+	 *             on problems loading the database resources
+	 */
+	private List<DBVariantContextAnnotator> buildDBAnnotators() throws JannovarVarDBException {
+		final DBVariantContextAnnotatorFactory factory = new DBVariantContextAnnotatorFactory();
+		final List<DBVariantContextAnnotator> result = new ArrayList<>();
+
+		// dbSNP
+		if (options.pathVCFDBSNP != null) {
+			DBAnnotationOptions dbSNPOptions = buildDBAnnotationOptions(options.prefixDBSNP);
+			result.add(factory.constructDBSNP(options.pathVCFDBSNP, options.pathFASTARef,
+					dbSNPOptions));
+		}
+
+		// ExAC
+		if (options.pathVCFExac != null) {
+			DBAnnotationOptions exacOptions = buildDBAnnotationOptions(options.prefixExac);
+			result.add(
+					factory.constructExac(options.pathVCFExac, options.pathFASTARef, exacOptions));
+		}
+
+		// gnomAD exomes
+		if (options.pathVCFGnomadExomes != null) {
+			DBAnnotationOptions gnomadOptions = buildDBAnnotationOptions(options.prefixGnomadExomes);
+			result.add(factory.constructGnomad(options.pathVCFGnomadExomes, options.pathFASTARef,
+					gnomadOptions));
+		}
+
+		// gnomAD genomes
+		if (options.pathVCFGnomadGenomes != null) {
+			DBAnnotationOptions gnomadOptions = buildDBAnnotationOptions(options.prefixGnomadGenomes);
+			result.add(factory.constructGnomad(options.pathVCFGnomadGenomes, options.pathFASTARef,
+					gnomadOptions));
+		}
+
+		// UK10K
+		if (options.pathVCFUK10K != null) {
+			DBAnnotationOptions uk10kOptions = buildDBAnnotationOptions(options.prefixUK10K);
+			result.add(
+					factory.constructUK10K(options.pathVCFUK10K, options.pathFASTARef, uk10kOptions));
+		}
+
+		// ClinVar
+		if (options.pathClinVar != null) {
+			DBAnnotationOptions clinVarOptions = buildDBAnnotationOptions(options.prefixClinVar);
+			result.add(factory.constructClinVar(options.pathClinVar, options.pathFASTARef,
+					clinVarOptions));
+		}
+
+		// COSMIC
+		if (options.pathCosmic != null) {
+			DBAnnotationOptions cosmicOptions = buildDBAnnotationOptions(options.prefixCosmic);
+			result.add(factory.constructCosmic(options.pathCosmic, options.pathFASTARef,
+					cosmicOptions));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Extend <code>vcfHeader</code> with the INFO fields of the configured variant databases
+	 *
+	 * Uses the same header extenders as the annotators from {@link #buildDBAnnotators}, without
+	 * opening the database and reference files.
+	 *
+	 * @param vcfHeader
+	 *            {@link VCFHeader} to extend
+	 */
+	private void extendHeaderWithDBs(VCFHeader vcfHeader) {
+		final DBVariantContextAnnotatorFactory factory = new DBVariantContextAnnotatorFactory();
+		// dbSNP
+		if (options.pathVCFDBSNP != null) {
+			DBAnnotationOptions dbSNPOptions = buildDBAnnotationOptions(options.prefixDBSNP);
+			factory.constructDBSNPHeaderExtender(dbSNPOptions).addHeaders(vcfHeader,
+					dbSNPOptions.getVCFIdentifierPrefix());
+		}
+
+		// ExAC
+		if (options.pathVCFExac != null) {
+			DBAnnotationOptions exacOptions = buildDBAnnotationOptions(options.prefixExac);
+			factory.constructExacHeaderExtender(exacOptions).addHeaders(vcfHeader,
+					exacOptions.getVCFIdentifierPrefix());
+		}
+
+		// gnomAD exomes
+		if (options.pathVCFGnomadExomes != null) {
+			DBAnnotationOptions gnomadOptions = buildDBAnnotationOptions(options.prefixGnomadExomes);
+			factory.constructGnomadHeaderExtender(gnomadOptions).addHeaders(vcfHeader,
+					gnomadOptions.getVCFIdentifierPrefix());
+		}
+
+		// gnomAD genomes
+		if (options.pathVCFGnomadGenomes != null) {
+			DBAnnotationOptions gnomadOptions = buildDBAnnotationOptions(options.prefixGnomadGenomes);
+			factory.constructGnomadHeaderExtender(gnomadOptions).addHeaders(vcfHeader,
+					gnomadOptions.getVCFIdentifierPrefix());
+		}
+
+		// UK10K
+		if (options.pathVCFUK10K != null) {
+			DBAnnotationOptions uk10kOptions = buildDBAnnotationOptions(options.prefixUK10K);
+			factory.constructUK10KHeaderExtender(uk10kOptions).addHeaders(vcfHeader,
+					uk10kOptions.getVCFIdentifierPrefix());
+		}
+
+		// ClinVar
+		if (options.pathClinVar != null) {
+			DBAnnotationOptions clinVarOptions = buildDBAnnotationOptions(options.prefixClinVar);
+			factory.constructClinVarHeaderExtender(clinVarOptions).addHeaders(vcfHeader,
+					clinVarOptions.getVCFIdentifierPrefix());
+		}
+
+		// COSMIC
+		if (options.pathCosmic != null) {
+			DBAnnotationOptions cosmicOptions = buildDBAnnotationOptions(options.prefixCosmic);
+			factory.constructCosmicHeaderExtender(cosmicOptions).addHeaders(vcfHeader,
+					cosmicOptions.getVCFIdentifierPrefix());
+		}
+	}
+
+	/**
+	 * Construct {@link DBAnnotationOptions} with the given identifier prefix and the configured cache sizes
+	 *
+	 * @param identifierPrefix
+	 *            prefix for the INFO field identifiers of the database
+	 * @return the options for one variant database annotator
+	 */
+	private DBAnnotationOptions buildDBAnnotationOptions(String identifierPrefix) {
+		DBAnnotationOptions result = DBAnnotationOptions.createDefaults();
+		result.setIdentifierPrefix(identifierPrefix);
+		result.setRefCacheChunkSize(options.getRefCacheChunkSize());
+		result.setRefCacheMaxChunks(options.getRefCacheMaxChunks());
+		result.setNormalizationCacheMaxEntries(options.getNormalizationCacheMaxEntries());
+		result.setNormalizationCache(normalizationCache);
+		return result;
+	}
+
+	/**
+	 * Construct the {@link NormalizationCache} to share between the variant database annotators of the run
+	 *
+	 * @return the cache with the configured sizes, <code>null</code> if no variant database is used
+	 * @throws JannovarVarDBException
+	 *             on problems opening the FASTA/FAI file
+	 */
+	private NormalizationCache buildNormalizationCache() throws JannovarVarDBException {
+		if (options.pathVCFDBSNP == null && options.pathVCFExac == null && options.pathVCFGnomadExomes == null
+				&& options.pathVCFGnomadGenomes == null && options.pathVCFUK10K == null
+				&& options.pathClinVar == null && options.pathCosmic == null)
+			return null;
+		return NormalizationCache.create(options.pathFASTARef, buildDBAnnotationOptions(""));
+	}
+
+	/** Print hit and miss counts of the caches shared by the variant database annotators */
+	private void printDBCacheStatistics() {
+		if (normalizationCache == null)
+			return;
+		System.err.println(normalizationCache.getNormalizer().getRefCache());
+		System.err.println(normalizationCache);
+	}
+
+	/**
+	 * Close the variant database annotators
+	 *
+	 * @param dbAnnotators
+	 *            {@link List} of {@link DBVariantContextAnnotator}s to close
+	 * @throws IOException
+	 *             on problems closing the database files, after trying to close all annotators
+	 */
+	private static void closeDBAnnotators(List<DBVariantContextAnnotator> dbAnnotators)
+			throws IOException {
+		IOException exception = null;
+		for (DBVariantContextAnnotator dbAnno : dbAnnotators) {
+			try {
+				dbAnno.close();
+			} catch (IOException e) {
+				if (exception == null)
+					exception = e;
+				else
+					exception.addSuppressed(e);
+			}
+		}
+		if (exception != null)
+			throw exception;
+	}
+
+	/**
+	 * Wrap <code>sink</code> into a {@link ParallelMappingProcessor} in the multi-threaded case
+	 *
+	 * The database annotators hold open file handles and are not thread-safe. Thus, each worker
+	 * thread constructs its own set and closes it when the processor is closed. The threshold
+	 * filter and variant effect annotators are shared.
+	 *
+	 * @param sink
+	 *            the next pipeline step
+	 * @param thresholdFilterAnno
+	 *            threshold filter annotator to apply, <code>null</code> if disabled
+	 * @param annotator
+	 *            variant effect annotator to apply
+	 * @return <code>sink</code> if running single-threaded, the wrapping processor otherwise
+	 */
+	private VariantContextProcessor buildParallelProcessor(VariantContextProcessor sink,
+			ThresholdFilterAnnotator thresholdFilterAnno, VariantContextAnnotator annotator) {
+		if (options.getNumThreads() == 1)
+			return sink;
+
+		System.err.println("Annotating using " + options.getNumThreads() + " threads");
+		return new ParallelMappingProcessor(() -> {
+			final List<DBVariantContextAnnotator> dbAnnotators;
+			try {
+				dbAnnotators = buildDBAnnotators();
+			} catch (JannovarVarDBException e) {
+				throw new UncheckedJannovarException("Could not open variant databases", e);
+			}
+			return new ParallelMappingProcessor.Worker() {
+				@Override
+				public VariantContext apply(VariantContext vc) {
+					for (DBVariantContextAnnotator dbAnno : dbAnnotators)
+						vc = dbAnno.annotateVariantContext(vc);
+					if (thresholdFilterAnno != null)
+						vc = thresholdFilterAnno.annotateVariantContext(vc);
+					return annotator.annotateVariantContext(vc);
+				}
+
+				@Override
+				public void close() throws IOException {
+					closeDBAnnotators(dbAnnotators);
+				}
+			};
+		}, sink, options.getNumThreads(), options.getBatchSize());
+	}
+
+	/**
+	 * Open the {@link VariantContextWriter} for the output file
+	 *
+	 * Bgzip-compressed output is compressed using a {@link ParallelBlockCompressedOutputStream} if
+	 * more than one thread is configured for this. If configured, the writer is wrapped into an
+	 * {@link AsyncVariantContextWriter} such that encoding and compression run in the background.
+	 *
+	 * @param vcfHeader
+	 *            the fully extended {@link VCFHeader} to write out
+	 * @param jvHeaderLines
+	 *            additional {@link VCFHeaderLine}s to write out
+	 * @return the {@link VariantContextWriter} to use
+	 * @throws IOException
+	 *             on problems with opening the output file
+	 */
+	private VariantContextWriter openVariantContextWriter(VCFHeader vcfHeader,
+			List<VCFHeaderLine> jvHeaderLines) throws IOException {
+		final String path = options.getPathOutputVCF();
+		final VariantContextWriter writer;
+		if (options.getNumBGZFThreads() > 1 && AbstractFeatureReader.hasBlockCompressedExtension(path))
+			writer = VariantContextWriterConstructionHelper.openVariantContextWriter(vcfHeader,
+					new ParallelBlockCompressedOutputStream(new FileOutputStream(path),
+							options.getNumBGZFThreads()),
+					jvHeaderLines);
+		else
+			writer = VariantContextWriterConstructionHelper.openVariantContextWriter(vcfHeader, path,
+					jvHeaderLines);
+
+		if (options.isAsyncIO())
+			return new AsyncVariantContextWriter(writer, WRITE_BEHIND_QUEUE_SIZE);
+		else
+			return writer;
+	}
+
+	/**
+	 * Annotate the indexed input file in shards, using {@link JannovarAnnotateVCFOptions#getNumThreads}
+	 * concurrent workers
+	 *
+	 * Each shard is read through its own {@link VCFFileReader} and annotated with its own variant
+	 * database annotators, the threshold filter and variant effect annotators are shared. The header
+	 * and the records of each shard are written to separate BGZF files next to the output file. These
+	 * are concatenated without recompression and the result is indexed with tabix.
+	 *
+	 * @param vcfHeader
+	 *            the fully extended {@link VCFHeader} to write out
+	 * @param jvHeaderLines
+	 *            additional {@link VCFHeaderLine}s to write out
+	 * @param thresholdFilterAnno
+	 *            threshold filter annotator to apply, <code>null</code> if disabled
+	 * @param annotator
+	 *            variant effect annotator to apply
+	 * @throws JannovarException
+	 *             on problems with the annotation or writing the output
+	 */
+	private void annotateShards(VCFHeader vcfHeader, List<VCFHeaderLine> jvHeaderLines,
+			ThresholdFilterAnnotator thresholdFilterAnno, VariantContextAnnotator annotator)
+			throws JannovarException {
+		final List<GenomeRegion> shards = buildShards(vcfHeader.getSequenceDictionary());
+		System.err.println("Annotating " + shards.size() + " shards using " + options.getNumThreads()
+				+ " threads");
+
+		final File outFile = new File(options.getPathOutputVCF()).getAbsoluteFile();
+		final File tmpDir;
+		try {
+			tmpDir = Files.createTempDirectory(outFile.getParentFile().toPath(), ".jannovar-shards")
+					.toFile();
+		} catch (IOException e) {
+			throw new JannovarException("Could not create directory for shards", e);
+		}
+
+		final List<File> parts = new ArrayList<>();
+		final ExecutorService executor = Executors.newFixedThreadPool(options.getNumThreads());
+		try {
+			// Write out header, the records are encoded with the same header in the shards
+			final File headerPart = new File(tmpDir, "header.vcf.gz");
+			parts.add(headerPart);
+			VariantContextWriterConstructionHelper.openVariantContextWriter(vcfHeader,
+					new BlockCompressedOutputStream(headerPart), jvHeaderLines).close();
+			final VCFHeader shardHeader =
+					VariantContextWriterConstructionHelper.extendHeaderFields(new VCFHeader(vcfHeader));
+
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < shards.size(); ++i) {
+				final GenomeRegion shard = shards.get(i);
+				final File part = new File(tmpDir, "shard-" + i + ".vcf.gz");
+				parts.add(part);
+				futures.add(executor.submit(() -> {
+					annotateShard(shard, new VCFHeader(shardHeader), part, thresholdFilterAnno,
+							annotator);
+					return null;
+				}));
+			}
+			for (int i = 0; i < futures.size(); ++i) {
+				futures.get(i).get();
+				if (options.getVerbosity() >= 2)
+					System.err.println("Finished shard " + (i + 1) + "/" + shards.size() + " "
+							+ shards.get(i).getContig() + ":" + (shards.get(i).getBeginPos() + 1)
+							+ "-" + shards.get(i).getEndPos());
+			}
+
+			System.err.println("Concatenating and indexing shards...");
+			BlockCompressedFileConcatenator.concatenate(parts, outFile);
+			TabixIndexConstructionHelper.createTabixIndex(outFile, vcfHeader.getSequenceDictionary())
+					.writeBasedOnFeatureFile(outFile);
+		} catch (ExecutionException e) {
+			Throwables.propagateIfInstanceOf(e.getCause(), JannovarException.class);
+			Throwables.propagateIfPossible(e.getCause());
+			throw new JannovarException("Problem annotating shard", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JannovarException("Interrupted while annotating shards", e);
+		} catch (IOException e) {
+			throw new JannovarException("Problem writing output file", e);
+		} finally {
+			executor.shutdownNow();
+			for (File part : parts)
+				part.delete();
+			tmpDir.delete();
+		}
+	}
+
+	/**
+	 * Annotate one shard, the records starting in the shard are written to <code>part</code>
+	 *
+	 * The shards already run concurrently, thus inheritance annotation uses one thread per shard.
+	 *
+	 * @throws JannovarException
+	 *             on problems with opening the variant databases or the pedigree
+	 */
+	private void annotateShard(GenomeRegion shard, VCFHeader shardHeader, File part,
+			ThresholdFilterAnnotator thresholdFilterAnno, VariantContextAnnotator annotator)
+			throws JannovarException, IOException {
+		final List<DBVariantContextAnnotator> dbAnnotators = buildDBAnnotators();
+		try (Closeable dbAnnotatorsCloser = () -> closeDBAnnotators(dbAnnotators);
+				VCFFileReader reader = new VCFFileReader(new File(options.getPathInputVCF()), true);
+				CloseableIterator<VariantContext> iter = reader.query(shard.getContig(),
+						shard.getBeginPos() + 1, shard.getEndPos());
+				VariantContextWriter writer = new VCFShardWriter(shardHeader, part);
+				VariantContextProcessor sink = buildMendelianProcessors(writer, shardHeader, 1)) {
+			while (iter.hasNext()) {
+				VariantContext vc = iter.next();
+				// Records overlapping from the previous shard are written there
+				if (vc.getStart() <= shard.getBeginPos())
+					continue;
+				for (DBVariantContextAnnotator dbAnno : dbAnnotators)
+					vc = dbAnno.annotateVariantContext(vc);
+				if (thresholdFilterAnno != null)
+					vc = thresholdFilterAnno.annotateVariantContext(vc);
+				sink.put(annotator.annotateVariantContext(vc));
+			}
+		}
+	}
+
+	/**
+	 * Split the contigs of the input file into shards
+	 *
+	 * The contigs are taken from the index, in file order. They are split into windows of
+	 * {@link JannovarAnnotateVCFOptions#getShardWindowSize} if their length is known from
+	 * <code>seqDict</code>, the last shard of each contig extends to its end. Inheritance
+	 * annotation looks at whole genes, thus whole contigs are used in this case.
+	 *
+	 * @param seqDict
+	 *            {@link SAMSequenceDictionary} of the input file, <code>null</code> if missing
+	 * @return {@link List} of {@link GenomeRegion}s to use as shards
+	 * @throws JannovarException
+	 *             on problems with reading the index
+	 */
+	private List<GenomeRegion> buildShards(SAMSequenceDictionary seqDict) throws JannovarException {
+		final List<String> contigs;
+		try (FeatureReader<VariantContext> reader = AbstractFeatureReader
+				.getFeatureReader(options.getPathInputVCF(), new VCFCodec(), true)) {
+			contigs = reader.getSequenceNames();
+		} catch (IOException | TribbleException e) {
+			throw new JannovarException("Could not read index of " + options.getPathInputVCF(), e);
+		}
+
+		int windowSize = options.getShardWindowSize();
+		if (windowSize != 0 && (options.pathPedFile != null || options.annotateAsSingletonPedigree)) {
+			System.err.println("INFO: Using one shard per contig for inheritance annotation");
+			windowSize = 0;
+		}
+
+		final List<GenomeRegion> result = new ArrayList<>();
+		for (String contig : contigs) {
+			final SAMSequenceRecord record = (seqDict == null) ? null : seqDict.getSequence(contig);
+			final int length = (record == null) ? 0 : record.getSequenceLength();
+			int begin = 0;
+			if (windowSize != 0)
+				for (; begin + windowSize < length; begin += windowSize)
+					result.add(new GenomeRegion(contig, begin, begin + windowSize));
+			result.add(new GenomeRegion(contig, begin, MAX_CONTIG_LENGTH));
+		}
+		return result;
+	}
+
 	/**
 	 * Load pedigree from file given in configuration or construct singleton pedigree
 	 * 
@@ -366,6 +839,8 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 	 * @param vcfHeader
 	 *            {@link VCFHeader}, for checking compatibility and getting sample name in case of
 	 *            singleton pedigree construction
+	 * @param numThreads
+	 *            number of threads to use for evaluating the genes
 	 * @throws IOException
 	 *             in case of problems with opening the pedigree file
 	 * @throws PedParseException
@@ -374,14 +849,15 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 	 *             If the pedigree is incompatible with the VCF file
 	 */
 	private VariantContextProcessor buildMendelianProcessors(VariantContextWriter writer,
-			VCFHeader vcfHeader)
+			VCFHeader vcfHeader, int numThreads)
 			throws PedParseException, IOException, IncompatiblePedigreeException {
 		if (options.pathPedFile != null || options.annotateAsSingletonPedigree) {
 			final Pedigree pedigree = loadPedigree(vcfHeader);
 			checkPedigreeCompatibility(pedigree, vcfHeader);
 			final GeneWiseMendelianAnnotationProcessor mendelProcessor =
 					new GeneWiseMendelianAnnotationProcessor(pedigree, jannovarData,
-							vc -> writer.add(vc), options.isInheritanceAnnoUseFilters());
+							vc -> writer.add(vc), options.isInheritanceAnnoUseFilters(),
+							numThreads, options.getBatchSize());
 			return new CoordinateSortingChecker(mendelProcessor);
 		} else {
 			return new ConsumerProcessor(vc -> writer.add(vc));
@@ -7,6 +7,8 @@ import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
 import de.charite.compbio.jannovar.cmd.JannovarAnnotationOptions;
 import de.charite.compbio.jannovar.cmd.JannovarBaseOptions;
 import de.charite.compbio.jannovar.filter.facade.ThresholdFilterOptions;
+import de.charite.compbio.jannovar.vardbs.base.NormalizationCache;
+import de.charite.compbio.jannovar.vardbs.base.ReferenceWindowCache;
 import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentGroup;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
@@ -138,6 +140,33 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 	 */
 	private boolean inheritanceAnnoUseFilters;
 
+	/** Number of threads to use for the annotation */
+	private int numThreads = 1;
+
+	/** Number of records to pass to a worker thread at once */
+	private int batchSize = 1000;
+
+	/** Whether or not to annotate the indexed input file in shards, using {@link #numThreads} workers */
+	private boolean sharded = false;
+
+	/** Size of the shards in bp, 0 for one shard per contig */
+	private int shardWindowSize = 0;
+
+	/** Whether or not to read and write records in background threads */
+	private boolean asyncIO = false;
+
+	/** Number of threads to use for compressing bgzip output */
+	private int numBGZFThreads = 1;
+
+	/** Number of bases per chunk of the reference cache used for variant database annotation */
+	private int refCacheChunkSize = ReferenceWindowCache.DEFAULT_CHUNK_SIZE;
+
+	/** Maximal number of chunks of the reference cache used for variant database annotation */
+	private int refCacheMaxChunks = ReferenceWindowCache.DEFAULT_MAX_CHUNKS;
+
+	/** Maximal number of alleles in the normalization cache used for variant database annotation */
+	private int normalizationCacheMaxEntries = NormalizationCache.DEFAULT_MAX_ENTRIES;
+
 	/**
 	 * Setup {@link ArgumentParser}
 	 * 
@@ -181,17 +210,17 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		annotationGroup.addArgument("--dbsnp-prefix").help("Prefix for dbSNP annotations")
 				.setDefault("DBSNP_").required(false);
 		annotationGroup.addArgument("--exac-vcf")
-				.help("Path to ExAC VCF file, activates ExAC annotation").required(false);
+				.help("Path to ExAC VCF file or compiled store, activates ExAC annotation").required(false);
 		annotationGroup.addArgument("--exac-prefix").help("Prefix for ExAC annotations")
 				.setDefault("EXAC_").required(false);
 		annotationGroup.addArgument("--gnomad-exomes-vcf")
-				.help("Path to gnomAD exomes VCF file, activates gnomAD exomes annotation")
+				.help("Path to gnomAD exomes VCF file or compiled store, activates gnomAD exomes annotation")
 				.required(false);
 		annotationGroup.addArgument("--gnomad-exomes-prefix")
 				.help("Prefix for ExgnomAD exomes AC annotations").setDefault("GNOMAD_EXOMES_")
 				.required(false);
 		annotationGroup.addArgument("--gnomad-genomes-vcf")
-				.help("Path to gnomAD genomes VCF file, activates gnomAD genomes annotation")
+				.help("Path to gnomAD genomes VCF file or compiled store, activates gnomAD genomes annotation")
 				.required(false);
 		annotationGroup.addArgument("--gnomad-genomes-prefix")
 				.help("Prefix for ExgnomAD genomes AC annotations").setDefault("GNOMAD_GENOMES_")
@@ -208,6 +237,15 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 				.help("Path to COSMIC file, activates COSMIC annotation").required(false);
 		annotationGroup.addArgument("--cosmic-prefix").help("Prefix for COSMIC annotations")
 				.setDefault("COSMIC_").required(false);
+		annotationGroup.addArgument("--ref-cache-chunk-size")
+				.help("Number of bases per chunk of the reference cache for variant database annotation")
+				.setDefault(ReferenceWindowCache.DEFAULT_CHUNK_SIZE).type(Integer.class);
+		annotationGroup.addArgument("--ref-cache-max-chunks")
+				.help("Maximal number of chunks kept in the reference cache for variant database annotation")
+				.setDefault(ReferenceWindowCache.DEFAULT_MAX_CHUNKS).type(Integer.class);
+		annotationGroup.addArgument("--normalization-cache-max-entries")
+				.help("Maximal number of normalized alleles kept for variant database annotation")
+				.setDefault(NormalizationCache.DEFAULT_MAX_ENTRIES).type(Integer.class);
 		annotationGroup.addArgument("--inheritance-anno-use-filters")
 				.help("Use filters in inheritance mode annotation").setDefault(false)
 				.action(Arguments.storeTrue());
@@ -271,6 +309,29 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		optionalGroup.addArgument("--3-letter-amino-acids")
 				.help("Enable usage of 3 letter amino acid codes").setDefault(false)
 				.action(Arguments.storeTrue());
+		optionalGroup.addArgument("--threads")
+				.help("Number of threads to use for the annotation and the inheritance annotation, "
+						+ "output order is kept")
+				.setDefault(1).type(Integer.class);
+		optionalGroup.addArgument("--batch-size")
+				.help("Number of records to pass to a worker thread at once (with --threads > 1)")
+				.setDefault(1000).type(Integer.class);
+		optionalGroup.addArgument("--sharded")
+				.help("Annotate the indexed input file in shards (per contig or window) with --threads "
+						+ "workers, requires bgzip-compressed output that is indexed after concatenation")
+				.setDefault(false).action(Arguments.storeTrue());
+		optionalGroup.addArgument("--shard-window-size")
+				.help("Size of the shards in bp with --sharded, 0 for one shard per contig (ignored for "
+						+ "inheritance annotation)")
+				.setDefault(0).type(Integer.class);
+		optionalGroup.addArgument("--async-io")
+				.help("Read ahead and write behind in background threads with bounded queues (not "
+						+ "with --sharded)")
+				.setDefault(false).action(Arguments.storeTrue());
+		optionalGroup.addArgument("--bgzf-threads")
+				.help("Number of threads to use for compressing bgzip output (ending in .gz, not with "
+						+ "--sharded)")
+				.setDefault(1).type(Integer.class);
 
 		JannovarBaseOptions.setupParser(subParser);
 	}
@@ -302,6 +363,15 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		pathCosmic = args.getString("cosmic_vcf");
 		prefixCosmic = args.getString("cosmic_prefix");
 		inheritanceAnnoUseFilters = args.getBoolean("inheritance_anno_use_filters");
+		refCacheChunkSize = args.getInt("ref_cache_chunk_size");
+		refCacheMaxChunks = args.getInt("ref_cache_max_chunks");
+		normalizationCacheMaxEntries = args.getInt("normalization_cache_max_entries");
+		if (refCacheChunkSize < 1)
+			throw new CommandLineParsingException("Reference cache chunk size must be at least 1.");
+		if (refCacheMaxChunks < 1)
+			throw new CommandLineParsingException("Reference cache chunk count must be at least 1.");
+		if (normalizationCacheMaxEntries < 1)
+			throw new CommandLineParsingException("Normalization cache size must be at least 1.");
 
 		useThresholdFilters = args.getBoolean("use_threshold_filters");
 		threshFiltMinGtCovHet = args.getInt("gt_thresh_filt_min_cov_het");
@@ -319,6 +389,27 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		offTargetFilterUtrIsOffTarget = args.getBoolean("utr_is_off_target");
 		offTargetFilterIntronicSpliceIsOffTarget = args.getBoolean("intronic_splice_is_off_target");
 
+		numThreads = args.getInt("threads");
+		batchSize = args.getInt("batch_size");
+		if (numThreads < 1)
+			throw new CommandLineParsingException("Number of threads must be at least 1.");
+		if (batchSize < 1)
+			throw new CommandLineParsingException("Batch size must be at least 1.");
+
+		sharded = args.getBoolean("sharded");
+		shardWindowSize = args.getInt("shard_window_size");
+		if (shardWindowSize < 0)
+			throw new CommandLineParsingException("Shard window size must not be negative.");
+		if (sharded && interval != null && !interval.equals(""))
+			throw new CommandLineParsingException("Cannot use --sharded together with --interval.");
+		asyncIO = args.getBoolean("async_io");
+		numBGZFThreads = args.getInt("bgzf_threads");
+		if (numBGZFThreads < 1)
+			throw new CommandLineParsingException("Number of bgzip threads must be at least 1.");
+		if (sharded && !pathOutputVCF.endsWith(".gz"))
+			throw new CommandLineParsingException(
+					"Output file must be bgzip-compressed (end in .gz) when using --sharded.");
+
 		if (pathFASTARef == null && (pathVCFDBSNP != null || pathVCFExac != null
 				|| pathVCFUK10K != null || pathClinVar != null || pathCosmic != null
 				|| pathVCFGnomadExomes != null || pathVCFGnomadGenomes != null))
@@ -623,6 +714,78 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		this.inheritanceAnnoUseFilters = inheritanceAnnoUseFilters;
 	}
 
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public boolean isSharded() {
+		return sharded;
+	}
+
+	public void setSharded(boolean sharded) {
+		this.sharded = sharded;
+	}
+
+	public int getShardWindowSize() {
+		return shardWindowSize;
+	}
+
+	public void setShardWindowSize(int shardWindowSize) {
+		this.shardWindowSize = shardWindowSize;
+	}
+
+	public boolean isAsyncIO() {
+		return asyncIO;
+	}
+
+	public void setAsyncIO(boolean asyncIO) {
+		this.asyncIO = asyncIO;
+	}
+
+	public int getNumBGZFThreads() {
+		return numBGZFThreads;
+	}
+
+	public void setNumBGZFThreads(int numBGZFThreads) {
+		this.numBGZFThreads = numBGZFThreads;
+	}
+
+	public int getRefCacheChunkSize() {
+		return refCacheChunkSize;
+	}
+
+	public void setRefCacheChunkSize(int refCacheChunkSize) {
+		this.refCacheChunkSize = refCacheChunkSize;
+	}
+
+	public int getRefCacheMaxChunks() {
+		return refCacheMaxChunks;
+	}
+
+	public void setRefCacheMaxChunks(int refCacheMaxChunks) {
+		this.refCacheMaxChunks = refCacheMaxChunks;
+	}
+
+	public int getNormalizationCacheMaxEntries() {
+		return normalizationCacheMaxEntries;
+	}
+
+	public void setNormalizationCacheMaxEntries(int normalizationCacheMaxEntries) {
+		this.normalizationCacheMaxEntries = normalizationCacheMaxEntries;
+	}
+
 	@Override
 	public String toString() {
 		return "JannovarAnnotateVCFOptions [escapeAnnField=" + escapeAnnField + ", pathInputVCF="
@@ -648,7 +811,12 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 				+ offTargetFilterEnabled + ", offTargetFilterUtrIsOffTarget="
 				+ offTargetFilterUtrIsOffTarget + ", offTargetFilterIntronicSpliceIsOffTarget="
 				+ offTargetFilterIntronicSpliceIsOffTarget + ", inheritanceAnnoUseFilters="
-				+ inheritanceAnnoUseFilters + "]";
+				+ inheritanceAnnoUseFilters + ", numThreads=" + numThreads + ", batchSize="
+				+ batchSize + ", sharded=" + sharded + ", shardWindowSize=" + shardWindowSize
+				+ ", asyncIO=" + asyncIO + ", numBGZFThreads=" + numBGZFThreads
+				+ ", refCacheChunkSize=" + refCacheChunkSize + ", refCacheMaxChunks="
+				+ refCacheMaxChunks + ", normalizationCacheMaxEntries="
+				+ normalizationCacheMaxEntries + "]";
 	}
 
 }
@@ -0,0 +1,45 @@
+package de.charite.compbio.jannovar.cmd.db_compile;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarCommand;
+import de.charite.compbio.jannovar.vardbs.base.FrequencyStoreCompiler;
+import de.charite.compbio.jannovar.vardbs.exac.ExacAnnotationDriver;
+import de.charite.compbio.jannovar.vardbs.gnomad.GnomadAnnotationDriver;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/**
+ * Compile a gnomAD or ExAC VCF file into a binary allele frequency store
+ * 
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class DatabaseCompileCommand extends JannovarCommand {
+
+	/** Configuration */
+	private JannovarDBCompileOptions options;
+
+	public DatabaseCompileCommand(String argv[], Namespace args) throws CommandLineParsingException {
+		this.options = new JannovarDBCompileOptions();
+		this.options.setFromArgs(args);
+	}
+
+	@Override
+	public void run() throws JannovarException {
+		System.err.println("Options");
+		System.err.println(options.toString());
+
+		final FrequencyStoreCompiler<?> compiler;
+		if ("gnomad".equals(options.getDatabaseType()))
+			compiler = GnomadAnnotationDriver.constructFrequencyStoreCompiler();
+		else
+			compiler = ExacAnnotationDriver.constructFrequencyStoreCompiler();
+
+		System.err.println("Compiling " + options.getPathInputVCF() + "...");
+		final long startTime = System.nanoTime();
+		final long count = compiler.compile(options.getPathInputVCF(), options.getPathOutput());
+		final long endTime = System.nanoTime();
+		System.err.println(String.format("Wrote %d records to %s in %.2f sec.", count, options.getPathOutput(),
+				(endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+	}
+
+}
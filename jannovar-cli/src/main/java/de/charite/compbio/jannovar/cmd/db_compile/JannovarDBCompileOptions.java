@@ -0,0 +1,100 @@
+package de.charite.compbio.jannovar.cmd.db_compile;
+
+import java.util.function.BiFunction;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarBaseOptions;
+import net.sourceforge.argparse4j.inf.ArgumentGroup;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import net.sourceforge.argparse4j.inf.Subparsers;
+
+/**
+ * Configuration for the <code>db-compile</code> command
+ * 
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarDBCompileOptions extends JannovarBaseOptions {
+
+	/** Type of the database, "gnomad" or "exac" */
+	private String databaseType = null;
+
+	/** Path to input VCF file */
+	private String pathInputVCF = null;
+
+	/** Path to output allele frequency store file */
+	private String pathOutput = null;
+
+	/**
+	 * Setup {@link ArgumentParser}
+	 * 
+	 * @param subParsers
+	 *            {@link Subparsers} to setup
+	 */
+	public static void setupParser(Subparsers subParsers) {
+		BiFunction<String[], Namespace, DatabaseCompileCommand> handler = (argv, args) -> {
+			try {
+				return new DatabaseCompileCommand(argv, args);
+			} catch (CommandLineParsingException e) {
+				throw new UncheckedJannovarException("Could not parse command line", e);
+			}
+		};
+
+		Subparser subParser = subParsers.addParser("db-compile", true)
+				.help("compile gnomAD/ExAC VCF file into binary allele frequency store").setDefault("cmd", handler);
+		subParser.description("Compile a gnomAD or ExAC VCF file into a binary allele frequency store that can be "
+				+ "given to annotate-vcf instead of the VCF file");
+
+		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
+		requiredGroup.addArgument("-t", "--database-type").help("Type of the database").choices("gnomad", "exac")
+				.required(true);
+		requiredGroup.addArgument("-i", "--input-vcf").help("Path to input VCF file, sorted by coordinate")
+				.required(true);
+		requiredGroup.addArgument("-o", "--output").help("Path to output allele frequency store file")
+				.required(true);
+
+		JannovarBaseOptions.setupParser(subParser);
+	}
+
+	@Override
+	public void setFromArgs(Namespace args) throws CommandLineParsingException {
+		super.setFromArgs(args);
+
+		databaseType = args.getString("database_type");
+		pathInputVCF = args.getString("input_vcf");
+		pathOutput = args.getString("output");
+	}
+
+	public String getDatabaseType() {
+		return databaseType;
+	}
+
+	public void setDatabaseType(String databaseType) {
+		this.databaseType = databaseType;
+	}
+
+	public String getPathInputVCF() {
+		return pathInputVCF;
+	}
+
+	public void setPathInputVCF(String pathInputVCF) {
+		this.pathInputVCF = pathInputVCF;
+	}
+
+	public String getPathOutput() {
+		return pathOutput;
+	}
+
+	public void setPathOutput(String pathOutput) {
+		this.pathOutput = pathOutput;
+	}
+
+	@Override
+	public String toString() {
+		return "JannovarDBCompileOptions [databaseType=" + databaseType + ", pathInputVCF=" + pathInputVCF
+				+ ", pathOutput=" + pathOutput + "]";
+	}
+
+}
@@ -0,0 +1,288 @@
+package de.charite.compbio.jannovar.cmd.serve;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Small HTTP server for annotating batches of variants with a shared {@link VariantLineAnnotator}
+ *
+ * Clients <tt>POST</tt> to <tt>/annotate</tt> a body with one VCF record line or genomic change per line (empty lines
+ * and lines starting with <tt>'#'</tt> are ignored). The lines are split into batches of <code>batchSize</code> lines
+ * that are annotated by a fixed pool of worker threads, shared by all concurrent requests. The response contains one
+ * result line per input line in input order, see {@link VariantLineAnnotator#annotateLine}.
+ *
+ * Each request has at most <code>2 * numThreads</code> batches queued or being annotated. Further lines are only read
+ * after the oldest batch has been written out, so requests of any size are streamed with bounded memory. The response
+ * is sent with chunked encoding while the request body is still being read, so clients posting large bodies must read
+ * the response concurrently.
+ *
+ * The number of batches waiting for a worker over all requests is bounded by <code>maxQueuedBatches</code>, requests
+ * exceeding this are rejected with status <tt>503</tt>. Malformed input lines yield status <tt>400</tt>. Errors after
+ * the first result lines have been sent are reported by a last line starting with <tt>#ERROR</tt> instead. <tt>GET
+ * /status</tt> can be used for checking whether the server is up.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class AnnotationServer {
+
+	/** The logger object to use */
+	private static final Logger LOGGER = LoggerFactory.getLogger(AnnotationServer.class);
+
+	/** The annotator to use for each line */
+	private final VariantLineAnnotator lineAnnotator;
+
+	/** Number of lines to annotate in one work item */
+	private final int batchSize;
+
+	/** Maximal number of batches of one request that are queued or being annotated */
+	private final int maxInFlightBatches;
+
+	/** The underlying HTTP server */
+	private final HttpServer server;
+
+	/** Threads for handling the HTTP exchanges */
+	private final ExecutorService httpExecutor;
+
+	/** Fixed pool of threads for annotating the batches */
+	private final ExecutorService workers;
+
+	/** Permits for batches queued or being annotated over all requests */
+	private final Semaphore batchPermits;
+
+	/** Counted down when the server has been stopped */
+	private final CountDownLatch stopped = new CountDownLatch(1);
+
+	/**
+	 * Create server, call {@link #start} for starting it
+	 *
+	 * @param lineAnnotator
+	 *            {@link VariantLineAnnotator} to use for annotating the lines
+	 * @param host
+	 *            host name or address to bind to
+	 * @param port
+	 *            port to listen on, <code>0</code> for picking a free one
+	 * @param numThreads
+	 *            number of worker threads
+	 * @param batchSize
+	 *            number of lines to annotate in one work item
+	 * @param maxQueuedBatches
+	 *            maximal number of batches waiting for a worker
+	 * @throws IOException
+	 *             on problems binding to the port
+	 */
+	public AnnotationServer(VariantLineAnnotator lineAnnotator, String host, int port, int numThreads, int batchSize,
+			int maxQueuedBatches) throws IOException {
+		this.lineAnnotator = lineAnnotator;
+		this.batchSize = batchSize;
+		this.maxInFlightBatches = 2 * numThreads;
+		this.workers = Executors.newFixedThreadPool(numThreads);
+		this.batchPermits = new Semaphore(numThreads + maxQueuedBatches);
+		this.httpExecutor = Executors.newFixedThreadPool(numThreads);
+		this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+		this.server.setExecutor(httpExecutor);
+		this.server.createContext("/annotate", this::handleAnnotate);
+		this.server.createContext("/status", this::handleStatus);
+	}
+
+	/** Start listening */
+	public void start() {
+		server.start();
+		LOGGER.info("Listening on {}", server.getAddress());
+	}
+
+	/** Stop the server, waiting up to one second for running exchanges to finish */
+	public void stop() {
+		server.stop(1);
+		httpExecutor.shutdownNow();
+		workers.shutdownNow();
+		stopped.countDown();
+	}
+
+	/**
+	 * Block until {@link #stop} has been called
+	 *
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	public void awaitStop() throws InterruptedException {
+		stopped.await();
+	}
+
+	/** @return port that the server listens on */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/** Handle <tt>/status</tt> requests */
+	private void handleStatus(HttpExchange exchange) throws IOException {
+		sendResponse(exchange, 200, "OK\n");
+	}
+
+	/** Handle <tt>/annotate</tt> requests */
+	private void handleAnnotate(HttpExchange exchange) throws IOException {
+		if (!"POST".equals(exchange.getRequestMethod())) {
+			sendResponse(exchange, 405, "Only POST is supported\n");
+			return;
+		}
+
+		// Read and parse lines, submit them in batches, and write out the oldest batch while too many are in flight
+		final ArrayDeque<Future<List<String>>> inFlight = new ArrayDeque<>();
+		final StreamingResponse response = new StreamingResponse(exchange);
+		try {
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+				List<VariantLineAnnotator.ParsedLine> batch = new ArrayList<>(batchSize);
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.isEmpty() || line.startsWith("#"))
+						continue;
+					batch.add(lineAnnotator.parseLine(line));
+					if (batch.size() >= batchSize) {
+						submitBatch(batch, inFlight, response);
+						batch = new ArrayList<>(batchSize);
+					}
+				}
+				if (!batch.isEmpty())
+					submitBatch(batch, inFlight, response);
+			}
+			while (!inFlight.isEmpty())
+				response.write(inFlight.removeFirst().get());
+			response.finish();
+		} catch (IllegalArgumentException e) {
+			response.fail(400, e.getMessage());
+		} catch (RejectedExecutionException e) {
+			response.fail(503, "Too many queued batches, try again later");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			response.fail(503, "Interrupted while annotating");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IllegalArgumentException) {
+				response.fail(400, e.getCause().getMessage());
+			} else {
+				LOGGER.error("Problem during annotation", e.getCause());
+				response.fail(500, "Problem during annotation: " + e.getCause());
+			}
+		} finally {
+			inFlight.forEach(f -> f.cancel(true));
+		}
+	}
+
+	/**
+	 * Submit <code>batch</code> of lines to the worker pool, first writing out the oldest batches of the request while
+	 * {@link #maxInFlightBatches} are in flight or all {@link #batchPermits} are taken
+	 *
+	 * @throws RejectedExecutionException
+	 *             if all {@link #batchPermits} are taken by other requests
+	 */
+	private void submitBatch(List<VariantLineAnnotator.ParsedLine> batch, ArrayDeque<Future<List<String>>> inFlight,
+			StreamingResponse response) throws InterruptedException, ExecutionException, IOException {
+		while (inFlight.size() >= maxInFlightBatches)
+			response.write(inFlight.removeFirst().get());
+		while (!batchPermits.tryAcquire()) {
+			if (inFlight.isEmpty())
+				throw new RejectedExecutionException("All batch permits are taken");
+			response.write(inFlight.removeFirst().get());
+		}
+
+		// The permit is released on completion or cancellation, before the result can be retrieved
+		final FutureTask<List<String>> task = new FutureTask<List<String>>(() -> {
+			final List<String> result = new ArrayList<>(batch.size());
+			for (VariantLineAnnotator.ParsedLine line : batch)
+				result.add(lineAnnotator.annotateLine(line));
+			return result;
+		}) {
+			@Override
+			protected void done() {
+				batchPermits.release();
+			}
+		};
+		try {
+			workers.execute(task);
+		} catch (RejectedExecutionException e) {
+			batchPermits.release();
+			throw e;
+		}
+		inFlight.add(task);
+	}
+
+	/** Send plain text response with the given status code and close the exchange */
+	private static void sendResponse(HttpExchange exchange, int status, String body) throws IOException {
+		final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Chunked <tt>200</tt> response that is started on writing the first result lines
+	 *
+	 * Until then, errors can still be reported with their own status code. Afterwards, they are reported as a last line
+	 * starting with <tt>#ERROR</tt>.
+	 */
+	private static final class StreamingResponse {
+		/** The exchange to respond to */
+		private final HttpExchange exchange;
+		/** Writer for the response body, <code>null</code> before the response has been started */
+		private Writer writer = null;
+
+		StreamingResponse(HttpExchange exchange) {
+			this.exchange = exchange;
+		}
+
+		/** Write result lines, starting the response if necessary */
+		void write(List<String> lines) throws IOException {
+			if (writer == null) {
+				exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+				exchange.sendResponseHeaders(200, 0);
+				writer = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+			}
+			for (String line : lines)
+				writer.append(line).append('\n');
+		}
+
+		/** Complete the response, also for requests without any lines */
+		void finish() throws IOException {
+			if (writer == null)
+				write(ImmutableList.of());
+			writer.close();
+		}
+
+		/** Report error with the given status code or as the last line, and complete the response */
+		void fail(int status, String message) throws IOException {
+			if (writer == null) {
+				sendResponse(exchange, status, message + "\n");
+			} else {
+				writer.append("#ERROR\t").append(message).append('\n');
+				writer.close();
+			}
+		}
+	}
+
+}
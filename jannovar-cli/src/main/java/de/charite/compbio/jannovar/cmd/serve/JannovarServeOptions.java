@@ -0,0 +1,162 @@
+package de.charite.compbio.jannovar.cmd.serve;
+
+import java.util.List;
+import java.util.function.BiFunction;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarAnnotationOptions;
+import net.sourceforge.argparse4j.impl.Arguments;
+import net.sourceforge.argparse4j.inf.ArgumentGroup;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import net.sourceforge.argparse4j.inf.Subparsers;
+
+/**
+ * Options for the <tt>serve</tt> command
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarServeOptions extends JannovarAnnotationOptions {
+
+	/** Host name or address to bind the server to */
+	private String host = "127.0.0.1";
+
+	/** Port to listen on, <code>0</code> for picking a free one */
+	private int port = 9009;
+
+	/** Number of annotation worker threads */
+	private int numThreads = Runtime.getRuntime().availableProcessors();
+
+	/** Number of lines of a request to annotate in one work item */
+	private int batchSize = 1000;
+
+	/** Maximal number of batches of all requests waiting for a worker before requests are rejected */
+	private int maxQueuedBatches = 1000;
+
+	/** Names of the contigs to load the transcripts for, <code>null</code> for all contigs */
+	private List<String> contigNames = null;
+
+	/**
+	 * Setup {@link ArgumentParser}
+	 *
+	 * @param subParsers
+	 *            {@link Subparsers} to setup
+	 */
+	public static void setupParser(Subparsers subParsers) {
+		BiFunction<String[], Namespace, ServeCommand> handler = (argv, args) -> {
+			try {
+				return new ServeCommand(argv, args);
+			} catch (CommandLineParsingException e) {
+				throw new UncheckedJannovarException("Could not parse command line", e);
+			}
+		};
+
+		Subparser subParser = subParsers.addParser("serve", true)
+				.help("serve annotation of variants via HTTP from a shared in-memory database")
+				.setDefault("cmd", handler);
+		subParser.description("Load the database once and annotate batches of variants posted via HTTP");
+		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
+		requiredGroup.addArgument("-d", "--database").help("Path to database .ser file").required(true);
+
+		ArgumentGroup serverGroup = subParser.addArgumentGroup("Server Arguments");
+		serverGroup.addArgument("--host").help("Host name or address to bind to").setDefault("127.0.0.1");
+		serverGroup.addArgument("--port").help("Port to listen on").type(Integer.class).setDefault(9009);
+		serverGroup.addArgument("--threads").help("Number of annotation worker threads").type(Integer.class)
+				.setDefault(Runtime.getRuntime().availableProcessors());
+		serverGroup.addArgument("--batch-size").help("Number of lines of a request to annotate in one work item")
+				.type(Integer.class).setDefault(1000);
+		serverGroup.addArgument("--max-queued-batches")
+				.help("Maximal number of batches of all requests waiting for a worker, requests are rejected with 503 "
+						+ "beyond this")
+				.type(Integer.class).setDefault(1000);
+		serverGroup.addArgument("--contig")
+				.help("Only load the transcripts of this contig, variants on other contigs are annotated as on an "
+						+ "unknown chromosome; you can give multiple ones, default is to load all contigs")
+				.action(Arguments.append());
+
+		subParser.epilog("Example: java -jar Jannovar.jar serve -d hg19_refseq.ser --port 9009");
+
+		JannovarAnnotationOptions.setupParser(subParser);
+	}
+
+	@Override
+	public void setFromArgs(Namespace args) throws CommandLineParsingException {
+		super.setFromArgs(args);
+
+		host = args.getString("host");
+		port = args.getInt("port");
+		numThreads = args.getInt("threads");
+		batchSize = args.getInt("batch_size");
+		maxQueuedBatches = args.getInt("max_queued_batches");
+		contigNames = args.getList("contig");
+
+		if (port < 0 || port > 65535)
+			throw new CommandLineParsingException("Port must be in [0, 65535] but was " + port);
+		if (numThreads < 1)
+			throw new CommandLineParsingException("Number of threads must be positive but was " + numThreads);
+		if (batchSize < 1)
+			throw new CommandLineParsingException("Batch size must be positive but was " + batchSize);
+		if (maxQueuedBatches < 1)
+			throw new CommandLineParsingException(
+					"Maximal number of queued batches must be positive but was " + maxQueuedBatches);
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public void setHost(String host) {
+		this.host = host;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public int getMaxQueuedBatches() {
+		return maxQueuedBatches;
+	}
+
+	public void setMaxQueuedBatches(int maxQueuedBatches) {
+		this.maxQueuedBatches = maxQueuedBatches;
+	}
+
+	public List<String> getContigNames() {
+		return contigNames;
+	}
+
+	public void setContigNames(List<String> contigNames) {
+		this.contigNames = contigNames;
+	}
+
+	@Override
+	public String toString() {
+		return "JannovarServeOptions [host=" + host + ", port=" + port + ", numThreads=" + numThreads
+				+ ", batchSize=" + batchSize + ", maxQueuedBatches=" + maxQueuedBatches + ", contigNames="
+				+ contigNames + ", toString()="
+				+ super.toString() + "]";
+	}
+
+}
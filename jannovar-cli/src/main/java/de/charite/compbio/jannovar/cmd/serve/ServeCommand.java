@@ -0,0 +1,98 @@
+package de.charite.compbio.jannovar.cmd.serve;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.annotation.VariantAnnotator;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarAnnotationCommand;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.data.ReferenceDictionaryBuilder;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/**
+ * Long-running server that loads the database once and annotates variants posted via HTTP
+ *
+ * This avoids paying the database loading time and memory once per job when many jobs are annotated on one machine.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class ServeCommand extends JannovarAnnotationCommand {
+
+	/** Configuration */
+	private JannovarServeOptions options;
+
+	public ServeCommand(String argv[], Namespace args) throws CommandLineParsingException {
+		this.options = new JannovarServeOptions();
+		this.options.setFromArgs(args);
+	}
+
+	@Override
+	public void run() throws JannovarException {
+		System.err.println("Options");
+		System.err.println(options.toString());
+
+		System.err.println("Deserializing transcripts...");
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), options.getContigNames());
+
+		// Variants on contigs whose transcripts were not loaded are not resolved, as on unknown contigs
+		final ReferenceDictionary lineRefDict = (options.getContigNames() == null) ? refDict
+				: restrictRefDict(refDict, options.getContigNames());
+		final VariantAnnotator annotator = new VariantAnnotator(refDict, chromosomeMap,
+				new AnnotationBuilderOptions(options.isNt3PrimeShifting(), false));
+		final VariantLineAnnotator lineAnnotator = new VariantLineAnnotator(lineRefDict, annotator,
+				options.isShowAll());
+
+		final AnnotationServer server;
+		try {
+			server = new AnnotationServer(lineAnnotator, options.getHost(), options.getPort(),
+					options.getNumThreads(), options.getBatchSize(), options.getMaxQueuedBatches());
+		} catch (IOException e) {
+			throw new JannovarException("Could not start server on " + options.getHost() + ":" + options.getPort(),
+					e);
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+		server.start();
+		System.err.println("Listening on " + options.getHost() + ":" + server.getPort() + ", stop with Ctrl+C");
+
+		try {
+			server.awaitStop();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			server.stop();
+		}
+	}
+
+	/**
+	 * Restrict <code>refDict</code> to the given contigs
+	 *
+	 * @param refDict
+	 *            {@link ReferenceDictionary} to restrict
+	 * @param contigNames
+	 *            names of the contigs to keep, including all their aliases
+	 * @return {@link ReferenceDictionary} with the given contigs only
+	 */
+	static ReferenceDictionary restrictRefDict(ReferenceDictionary refDict, Collection<String> contigNames) {
+		final Set<Integer> ids = new HashSet<>();
+		for (String name : contigNames)
+			if (refDict.getContigNameToID().containsKey(name))
+				ids.add(refDict.getContigNameToID().get(name));
+
+		final ReferenceDictionaryBuilder builder = new ReferenceDictionaryBuilder();
+		for (Map.Entry<String, Integer> entry : refDict.getContigNameToID().entrySet())
+			if (ids.contains(entry.getValue()))
+				builder.putContigID(entry.getKey(), entry.getValue());
+		for (Integer id : ids) {
+			builder.putContigName(id, refDict.getContigIDToName().get(id));
+			if (refDict.getContigIDToLength().containsKey(id))
+				builder.putContigLength(id, refDict.getContigIDToLength().get(id));
+		}
+		return builder.build();
+	}
+
+}
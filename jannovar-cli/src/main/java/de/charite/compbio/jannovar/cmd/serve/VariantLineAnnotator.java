@@ -0,0 +1,181 @@
+package de.charite.compbio.jannovar.cmd.serve;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.annotation.Annotation;
+import de.charite.compbio.jannovar.annotation.AnnotationMessage;
+import de.charite.compbio.jannovar.annotation.VCFAnnotationEncoder;
+import de.charite.compbio.jannovar.annotation.VariantAnnotations;
+import de.charite.compbio.jannovar.annotation.VariantAnnotator;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+
+/**
+ * Annotate one line of a <tt>serve</tt> request and build the <tt>ANN</tt> string for it
+ *
+ * A line is either a VCF record line (only the columns <tt>CHROM</tt> to <tt>ALT</tt> are interpreted) or a genomic
+ * change of the form <tt>{CHROMOSOME}:{POSITION}{REF}&gt;{ALT}</tt> as for the <tt>annotate-pos</tt> command. The
+ * result line consists of the VCF columns <tt>CHROM</tt> to <tt>ALT</tt> or the genomic change, followed by a TAB
+ * character and the value of the <tt>ANN</tt> field as it would be written by <tt>annotate-vcf</tt>.
+ *
+ * Objects of this class do not have mutable state and can be shared between threads.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class VariantLineAnnotator {
+
+	/** Pattern for genomic changes */
+	private static final Pattern CHANGE_PATTERN = Pattern.compile("([^:\\s]+):([0-9]+)([ACGTNacgtn]*)>([ACGTNacgtn]*)");
+
+	/** Splitter for VCF columns */
+	private static final Splitter TAB_SPLITTER = Splitter.on('\t');
+
+	/** Splitter for the ALT column */
+	private static final Splitter COMMA_SPLITTER = Splitter.on(',');
+
+	/** The reference dictionary to use for resolving contig names */
+	private final ReferenceDictionary refDict;
+
+	/** The annotator to use, shared between all threads */
+	private final VariantAnnotator annotator;
+
+	/** Whether or not to write out all annotations instead of the most pathogenic one only */
+	private final boolean showAll;
+
+	/**
+	 * Initialize object
+	 *
+	 * @param refDict
+	 *            {@link ReferenceDictionary} to use for resolving contig names
+	 * @param annotator
+	 *            {@link VariantAnnotator} to use for the annotation
+	 * @param showAll
+	 *            whether or not to write out all annotations instead of the most pathogenic one only
+	 */
+	public VariantLineAnnotator(ReferenceDictionary refDict, VariantAnnotator annotator, boolean showAll) {
+		this.refDict = refDict;
+		this.annotator = annotator;
+		this.showAll = showAll;
+	}
+
+	/**
+	 * Annotate <code>line</code>
+	 *
+	 * @param line
+	 *            VCF record line or genomic change to annotate
+	 * @return result line with the <tt>ANN</tt> value
+	 * @throws IllegalArgumentException
+	 *             if <code>line</code> can be interpreted neither as VCF record nor as genomic change
+	 */
+	public String annotateLine(String line) {
+		return annotateLine(parseLine(line));
+	}
+
+	/**
+	 * Parse <code>line</code> without annotating it, such that malformed lines can be detected early
+	 *
+	 * @param line
+	 *            VCF record line or genomic change to parse
+	 * @return the {@link ParsedLine}
+	 * @throws IllegalArgumentException
+	 *             if <code>line</code> can be interpreted neither as VCF record nor as genomic change
+	 */
+	ParsedLine parseLine(String line) {
+		if (line.indexOf('\t') != -1) {
+			final List<String> fields = TAB_SPLITTER.limit(6).splitToList(line);
+			if (fields.size() < 5)
+				throw new IllegalArgumentException("VCF line has less than 5 columns: " + line);
+			final int pos;
+			try {
+				pos = Integer.parseInt(fields.get(1));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid position in VCF line: " + line);
+			}
+			return new ParsedLine(Joiner.on('\t').join(fields.subList(0, 5)), fields.get(0), pos, fields.get(3),
+					COMMA_SPLITTER.splitToList(fields.get(4)));
+		} else {
+			final Matcher match = CHANGE_PATTERN.matcher(line.trim());
+			if (!match.matches())
+				throw new IllegalArgumentException("Line is neither VCF record nor genomic change: " + line);
+			return new ParsedLine(line.trim(), match.group(1), Integer.parseInt(match.group(2)), match.group(3),
+					ImmutableList.of(match.group(4)));
+		}
+	}
+
+	/**
+	 * Annotate a line parsed by {@link #parseLine}
+	 *
+	 * @param line
+	 *            the {@link ParsedLine} to annotate
+	 * @return result line with the <tt>ANN</tt> value
+	 */
+	String annotateLine(ParsedLine line) {
+		return line.key + "\t" + buildAnnString(line.contig, line.pos, line.ref, line.alts);
+	}
+
+	/** @return value of the <tt>ANN</tt> field for the given variant, one-based <code>pos</code> */
+	private String buildAnnString(String contig, int pos, String ref, List<String> alts) {
+		final Integer chr = refDict.getContigNameToID().get(contig);
+
+		final StringBuilder annotations = VCFAnnotationEncoder.getThreadLocalBuilder();
+		if (chr == null) // same as annotate-vcf, one error annotation for the whole record
+			return VCFAnnotationEncoder
+					.appendError(annotations, ImmutableList.of(AnnotationMessage.ERROR_CHROMOSOME_NOT_FOUND), true)
+					.toString();
+
+		int numAnnotations = 0;
+		for (String alt : alts) {
+			final GenomeVariant change = new GenomeVariant(
+					new GenomePosition(refDict, Strand.FWD, chr, pos, PositionType.ONE_BASED), ref, alt);
+			VariantAnnotations annos;
+			try {
+				annos = annotator.buildAnnotations(change);
+			} catch (Exception e) {
+				annos = new VariantAnnotations(change, ImmutableList
+						.of(new Annotation(ImmutableList.of(AnnotationMessage.ERROR_PROBLEM_DURING_ANNOTATION))));
+			}
+			for (Annotation ann : annos.getAnnotations()) {
+				if (showAll || numAnnotations == 0) {
+					if (numAnnotations++ > 0)
+						annotations.append(',');
+					VCFAnnotationEncoder.append(annotations, ann, alt, true);
+				}
+			}
+		}
+		return annotations.toString();
+	}
+
+	/**
+	 * A request line, split into the variant fields
+	 */
+	static final class ParsedLine {
+		/** the VCF columns <tt>CHROM</tt> to <tt>ALT</tt> or the genomic change */
+		private final String key;
+		/** contig name */
+		private final String contig;
+		/** one-based position */
+		private final int pos;
+		/** reference allele */
+		private final String ref;
+		/** alternative alleles */
+		private final List<String> alts;
+
+		ParsedLine(String key, String contig, int pos, String ref, List<String> alts) {
+			this.key = key;
+			this.contig = contig;
+			this.pos = pos;
+			this.ref = ref;
+			this.alts = alts;
+		}
+	}
+
+}
@@ -2,6 +2,8 @@ package de.charite.compbio.jannovar.cmd.annotate_vcf;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URISyntaxException;
 
 import org.junit.Assert;
@@ -12,9 +14,13 @@ import org.junit.rules.TemporaryFolder;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
+import com.google.common.io.CharStreams;
 import com.google.common.io.Files;
 
 import de.charite.compbio.jannovar.Jannovar;
+import de.charite.compbio.jannovar.htsjdk.TabixIndexConstructionHelper;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
 
 /**
  * Test for annotating VCF files with compatible mode of inheritance
@@ -76,4 +82,67 @@ public class JannovarAnnotateVCFInheritanceTest {
 		Assert.assertEquals(expected, actual);
 	}
 
+	@Test
+	public void testAnnotateARMultiThreaded() throws IOException, URISyntaxException {
+		final File outFolder = tmpFolder.newFolder();
+		final String inputVCFPath = this.getClass().getResource("/pedigree_vars.vcf").toURI().getPath();
+		final String inputPEDPath = this.getClass().getResource("/pedigree_ar.ped").toURI().getPath();
+		String[] argv = new String[] { "annotate-vcf", "-o", outFolder.toString() + "/pedigree_vars.jv_ar.vcf", "-d",
+				pathToSmallSer, "-i", inputVCFPath, "--pedigree-file", inputPEDPath, "--threads", "2", "--batch-size",
+				"1" };
+		System.err.println(Joiner.on(" ").join(argv));
+
+		Jannovar.main(argv);
+
+		File f = new File(outFolder.getAbsolutePath() + File.separator + "pedigree_vars.jv_ar.vcf");
+		Assert.assertTrue(f.exists());
+
+		final File expectedFile = new File(this.getClass().getResource("/pedigree_vars.jv_ar.vcf").toURI().getPath());
+		final String expected = Files.toString(expectedFile, Charsets.UTF_8);
+		final String actual = Files.toString(f, Charsets.UTF_8).replaceAll("##jannovarCommand.*", "##jannovarCommand")
+				.replaceAll("##jannovarVersion.*", "##jannovarVersion");
+		Assert.assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testAnnotateARSharded() throws IOException, URISyntaxException {
+		final File outFolder = tmpFolder.newFolder();
+		final String inputVCFPath = compressAndIndex(
+				this.getClass().getResource("/pedigree_vars.vcf").toURI().getPath(), outFolder);
+		final String inputPEDPath = this.getClass().getResource("/pedigree_ar.ped").toURI().getPath();
+		String[] argv = new String[] { "annotate-vcf", "-o", outFolder.toString() + "/pedigree_vars.jv_ar.vcf.gz",
+				"-d", pathToSmallSer, "-i", inputVCFPath, "--pedigree-file", inputPEDPath, "--threads", "2",
+				"--sharded", "--shard-window-size", "1000" };
+		System.err.println(Joiner.on(" ").join(argv));
+
+		Jannovar.main(argv);
+
+		File f = new File(outFolder.getAbsolutePath() + File.separator + "pedigree_vars.jv_ar.vcf.gz");
+		Assert.assertTrue(f.exists());
+		Assert.assertTrue(new File(f.toString() + ".tbi").exists());
+
+		final File expectedFile = new File(this.getClass().getResource("/pedigree_vars.jv_ar.vcf").toURI().getPath());
+		final String expected = Files.toString(expectedFile, Charsets.UTF_8);
+		final String actual = readCompressed(f).replaceAll("##jannovarCommand.*", "##jannovarCommand")
+				.replaceAll("##jannovarVersion.*", "##jannovarVersion");
+		Assert.assertEquals(expected, actual);
+	}
+
+	/** Write bgzip-compressed and tabix-indexed copy of the VCF file at <code>path</code> to <code>folder</code> */
+	static String compressAndIndex(String path, File folder) throws IOException {
+		final File result = new File(folder, new File(path).getName() + ".gz");
+		try (BlockCompressedOutputStream out = new BlockCompressedOutputStream(result)) {
+			Files.copy(new File(path), out);
+		}
+		TabixIndexConstructionHelper.createTabixIndex(result, null).writeBasedOnFeatureFile(result);
+		return result.toString();
+	}
+
+	/** @return decompressed contents of the BGZF file <code>file</code> */
+	static String readCompressed(File file) throws IOException {
+		try (Reader reader = new InputStreamReader(new BlockCompressedInputStream(file), Charsets.UTF_8)) {
+			return CharStreams.toString(reader);
+		}
+	}
+
 }
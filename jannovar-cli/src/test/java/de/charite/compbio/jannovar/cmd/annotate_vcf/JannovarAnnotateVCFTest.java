@@ -54,6 +54,50 @@ public class JannovarAnnotateVCFTest {
 		Assert.assertEquals(expected, actual);
 	}
 
+	// Test on small.vcf with multiple threads and small batches, must yield the same result as the single-threaded run
+	@Test
+	public void testOnSmallExampleMultiThreaded() throws JannovarException, URISyntaxException, IOException {
+		final File outFolder = tmpFolder.newFolder();
+		final String inputFilePath = this.getClass().getResource("/small.vcf").toURI().getPath();
+		String[] argv = new String[] { "annotate-vcf", "-o", outFolder.toString() + "/small.jv.vcf", "-d",
+				pathToSmallSer, "-i", inputFilePath, "--threads", "3", "--batch-size", "2" };
+		System.err.println(Joiner.on(" ").join(argv));
+
+		Jannovar.main(argv);
+
+		File f = new File(outFolder.getAbsolutePath() + File.separator + "small.jv.vcf");
+		Assert.assertTrue(f.exists());
+
+		final File expectedFile = new File(this.getClass().getResource("/small.jv.vcf").toURI().getPath());
+		final String expected = Files.toString(expectedFile, Charsets.UTF_8);
+		final String actual = Files.toString(f, Charsets.UTF_8).replaceAll("##jannovarCommand.*", "##jannovarCommand")
+				.replaceAll("##jannovarVersion.*", "##jannovarVersion");
+		Assert.assertEquals(expected, actual);
+	}
+
+	// Test on small.vcf with background reading and writing and parallel compression of the output, must yield the
+	// same result as the default run
+	@Test
+	public void testOnSmallExampleAsyncIO() throws JannovarException, URISyntaxException, IOException {
+		final File outFolder = tmpFolder.newFolder();
+		final String inputFilePath = this.getClass().getResource("/small.vcf").toURI().getPath();
+		String[] argv = new String[] { "annotate-vcf", "-o", outFolder.toString() + "/small.jv.vcf.gz", "-d",
+				pathToSmallSer, "-i", inputFilePath, "--async-io", "--bgzf-threads", "3", "--threads", "2" };
+		System.err.println(Joiner.on(" ").join(argv));
+
+		Jannovar.main(argv);
+
+		File f = new File(outFolder.getAbsolutePath() + File.separator + "small.jv.vcf.gz");
+		Assert.assertTrue(f.exists());
+
+		final File expectedFile = new File(this.getClass().getResource("/small.jv.vcf").toURI().getPath());
+		final String expected = Files.toString(expectedFile, Charsets.UTF_8);
+		final String actual = JannovarAnnotateVCFInheritanceTest.readCompressed(f)
+				.replaceAll("##jannovarCommand.*", "##jannovarCommand")
+				.replaceAll("##jannovarVersion.*", "##jannovarVersion");
+		Assert.assertEquals(expected, actual);
+	}
+
 	// Test on semicolons.vcf. This file contains trailing semicolons at the end of the INFO and FILTER columns.
 	// Previous versions of Jannovar directly used the HTSJDK, interpreted this as empty entries and moved the semicolon
 	// to the beginning. The new versions remove it.
@@ -77,4 +121,25 @@ public class JannovarAnnotateVCFTest {
 		Assert.assertEquals(expected, actual);
 	}
 
+	// Test sharded annotation of the indexed pedigree_vars.vcf with small windows, must yield the same result as the
+	// run on the whole file
+	@Test
+	public void testShardedWindows() throws JannovarException, URISyntaxException, IOException {
+		final File outFolder = tmpFolder.newFolder();
+		final String inputFilePath = this.getClass().getResource("/pedigree_vars.vcf").toURI().getPath();
+		final String indexedFilePath = JannovarAnnotateVCFInheritanceTest.compressAndIndex(inputFilePath, outFolder);
+		Jannovar.main(new String[] { "annotate-vcf", "-o", outFolder.toString() + "/expected.vcf", "-d",
+				pathToSmallSer, "-i", inputFilePath });
+		Jannovar.main(new String[] { "annotate-vcf", "-o", outFolder.toString() + "/actual.vcf.gz", "-d",
+				pathToSmallSer, "-i", indexedFilePath, "--sharded", "--shard-window-size", "10000000", "--threads",
+				"3" });
+
+		final String expected = Files.toString(new File(outFolder, "expected.vcf"), Charsets.UTF_8)
+				.replaceAll("##jannovarCommand.*", "##jannovarCommand");
+		final String actual = JannovarAnnotateVCFInheritanceTest
+				.readCompressed(new File(outFolder, "actual.vcf.gz"))
+				.replaceAll("##jannovarCommand.*", "##jannovarCommand");
+		Assert.assertEquals(expected, actual);
+	}
+
 }
@@ -0,0 +1,143 @@
+package de.charite.compbio.jannovar.cmd.serve;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+
+import de.charite.compbio.jannovar.annotation.VariantAnnotator;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+
+/**
+ * Tests for the {@link AnnotationServer} used by the <tt>serve</tt> command
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class AnnotationServerTest {
+
+	/** ANN value for NC_000001.10:321052C>T, from small.jv.vcf */
+	private static final String EXPECTED_ANN = "T|non_coding_transcript_exon_variant|LOW|LOC100132287|100132287|"
+			+ "transcript|XR_246673.1|Noncoding|3/4|n.571C>T||571/5993||||";
+
+	private VariantLineAnnotator lineAnnotator;
+
+	private AnnotationServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		final String pathToSmallSer = this.getClass().getResource("/hg19_small.ser").toURI().getPath();
+		final JannovarData data = new JannovarDataSerializer(pathToSmallSer).load();
+		final VariantAnnotator annotator = new VariantAnnotator(data.getRefDict(), data.getChromosomes(),
+				new AnnotationBuilderOptions());
+		this.lineAnnotator = new VariantLineAnnotator(data.getRefDict(), annotator, false);
+		this.server = new AnnotationServer(lineAnnotator, "127.0.0.1", 0, 2, 1, 100);
+		this.server.start();
+	}
+
+	@After
+	public void tearDown() {
+		this.server.stop();
+	}
+
+	@Test
+	public void testAnnotateVCFLinesAndChanges() throws IOException, URISyntaxException {
+		final String body = "#CHROM\tPOS\tID\tREF\tALT\n" + "NC_000001.10\t321052\t.\tC\tT\t.\t.\t.\n"
+				+ "NC_000001.10:321052C>T\n" + "\n" + "unknown:1C>T\n";
+		final HttpURLConnection conn = post(body);
+		Assert.assertEquals(200, conn.getResponseCode());
+		final String[] lines = readBody(conn.getInputStream()).split("\n");
+		Assert.assertEquals(3, lines.length);
+		Assert.assertEquals("NC_000001.10\t321052\t.\tC\tT\t" + EXPECTED_ANN, lines[0]);
+		Assert.assertEquals("NC_000001.10:321052C>T\t" + EXPECTED_ANN, lines[1]);
+		Assert.assertEquals("unknown:1C>T\t|||||||||||||||ERROR_CHROMOSOME_NOT_FOUND", lines[2]);
+	}
+
+	@Test
+	public void testMalformedLine() throws IOException {
+		final HttpURLConnection conn = post("NC_000001.10:321052C>T\nthis is not a variant\n");
+		Assert.assertEquals(400, conn.getResponseCode());
+	}
+
+	@Test
+	public void testMoreLinesThanQueueCapacity() throws IOException {
+		// one worker, one line per batch, and one queued batch, i.e., at most two lines queued over all requests
+		final AnnotationServer smallServer = new AnnotationServer(lineAnnotator, "127.0.0.1", 0, 1, 1, 1);
+		smallServer.start();
+		try {
+			final StringBuilder body = new StringBuilder();
+			for (int i = 0; i < 500; ++i)
+				body.append("NC_000001.10:321052C>T\n");
+			final HttpURLConnection conn = post(smallServer, body.toString());
+			Assert.assertEquals(200, conn.getResponseCode());
+			final String[] lines = readBody(conn.getInputStream()).split("\n");
+			Assert.assertEquals(500, lines.length);
+			for (String line : lines)
+				Assert.assertEquals("NC_000001.10:321052C>T\t" + EXPECTED_ANN, line);
+		} finally {
+			smallServer.stop();
+		}
+	}
+
+	@Test
+	public void testMalformedLineAfterFirstResults() throws IOException {
+		final AnnotationServer smallServer = new AnnotationServer(lineAnnotator, "127.0.0.1", 0, 1, 1, 1);
+		smallServer.start();
+		try {
+			final StringBuilder body = new StringBuilder();
+			for (int i = 0; i < 10; ++i)
+				body.append("NC_000001.10:321052C>T\n");
+			body.append("this is not a variant\n");
+			final HttpURLConnection conn = post(smallServer, body.toString());
+			Assert.assertEquals(200, conn.getResponseCode());
+			final String[] lines = readBody(conn.getInputStream()).split("\n");
+			Assert.assertTrue(lines.length > 1);
+			for (int i = 0; i + 1 < lines.length; ++i)
+				Assert.assertEquals("NC_000001.10:321052C>T\t" + EXPECTED_ANN, lines[i]);
+			Assert.assertTrue(lines[lines.length - 1].startsWith("#ERROR\t"));
+		} finally {
+			smallServer.stop();
+		}
+	}
+
+	@Test
+	public void testStatus() throws IOException {
+		final HttpURLConnection conn = (HttpURLConnection) new URL(
+				"http://127.0.0.1:" + server.getPort() + "/status").openConnection();
+		Assert.assertEquals(200, conn.getResponseCode());
+		Assert.assertEquals("OK\n", readBody(conn.getInputStream()));
+	}
+
+	private HttpURLConnection post(String body) throws IOException {
+		return post(server, body);
+	}
+
+	private static HttpURLConnection post(AnnotationServer server, String body) throws IOException {
+		final HttpURLConnection conn = (HttpURLConnection) new URL(
+				"http://127.0.0.1:" + server.getPort() + "/annotate").openConnection();
+		conn.setRequestMethod("POST");
+		conn.setDoOutput(true);
+		try (OutputStream out = conn.getOutputStream()) {
+			out.write(body.getBytes(StandardCharsets.UTF_8));
+		}
+		return conn;
+	}
+
+	private static String readBody(InputStream in) throws IOException {
+		try (InputStream is = in) {
+			return new String(ByteStreams.toByteArray(is), StandardCharsets.UTF_8);
+		}
+	}
+
+}
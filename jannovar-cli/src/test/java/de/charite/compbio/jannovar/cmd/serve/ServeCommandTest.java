@@ -0,0 +1,55 @@
+package de.charite.compbio.jannovar.cmd.serve;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.annotation.VariantAnnotator;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+
+/**
+ * Tests for loading the transcripts of selected contigs in the {@link ServeCommand}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class ServeCommandTest {
+
+	private String pathToSmallSer;
+
+	@Before
+	public void setUp() throws Exception {
+		pathToSmallSer = this.getClass().getResource("/hg19_small.ser").toURI().getPath();
+	}
+
+	@Test
+	public void testRestrictRefDict() throws Exception {
+		final JannovarData data = new JannovarDataSerializer(pathToSmallSer).load();
+		final ReferenceDictionary restricted = ServeCommand.restrictRefDict(data.getRefDict(),
+				ImmutableList.of("1", "unknown"));
+
+		final int chr1 = data.getRefDict().getContigNameToID().get("1");
+		Assert.assertEquals(ImmutableList.of(chr1), restricted.getContigIDToName().keySet().asList());
+		Assert.assertEquals(chr1, (int) restricted.getContigNameToID().get("NC_000001.10"));
+		Assert.assertEquals(data.getRefDict().getContigIDToLength().get(chr1),
+				restricted.getContigIDToLength().get(chr1));
+		Assert.assertFalse(restricted.getContigNameToID().containsKey("2"));
+	}
+
+	@Test
+	public void testAnnotateWithSelectedContigs() throws Exception {
+		final JannovarData data = new JannovarDataSerializer(pathToSmallSer).load(ImmutableList.of("2"));
+		final VariantAnnotator annotator = new VariantAnnotator(data.getRefDict(), data.getChromosomes(),
+				new AnnotationBuilderOptions());
+		final VariantLineAnnotator lineAnnotator = new VariantLineAnnotator(
+				ServeCommand.restrictRefDict(data.getRefDict(), ImmutableList.of("2")), annotator, false);
+
+		Assert.assertEquals("NC_000001.10:321052C>T\t|||||||||||||||ERROR_CHROMOSOME_NOT_FOUND",
+				lineAnnotator.annotateLine("NC_000001.10:321052C>T"));
+	}
+
+}
@@ -75,6 +75,12 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 	/** the transcript, <code>null</code> for {@link VariantEffect#INTERGENIC} annotations */
 	private final TranscriptModel transcript;
 
+	/** HGVS string of {@link #cdsNTChange} without prefix, built on first use */
+	private volatile String cdsNTChangeHGVS;
+
+	/** HGVS string of {@link #proteinChange} with the default amino acid code and without prefix, built on first use */
+	private volatile String proteinChangeHGVS;
+
 	/**
 	 * Initialize object with messages only.
 	 *
@@ -201,9 +207,20 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 		if (cdsNTChange == null || transcript == null)
 			return "";
 		else if (transcript.isCoding())
-			return "c." + cdsNTChange.toHGVSString();
+			return "c." + getCDSNTChangeHGVS();
 		else
-			return "n." + cdsNTChange.toHGVSString();
+			return "n." + getCDSNTChangeHGVS();
+	}
+
+	/** @return cached HGVS string of {@link #cdsNTChange} without prefix, <code>null</code> if there is none */
+	String getCDSNTChangeHGVS() {
+		// The string is immutable, so concurrent first calls at worst build it twice.
+		String result = cdsNTChangeHGVS;
+		if (result == null && cdsNTChange != null) {
+			result = cdsNTChange.toHGVSString();
+			cdsNTChangeHGVS = result;
+		}
+		return result;
 	}
 
 	/** @return predicted {@link ProteinChange} */
@@ -231,7 +248,20 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 		if (proteinChange == null)
 			return "";
 		else
-			return "p." + proteinChange.toHGVSString();
+			return "p." + getProteinChangeHGVS();
+	}
+
+	/**
+	 * @return cached HGVS string of {@link #proteinChange} with the default amino acid code and without prefix,
+	 *         <code>null</code> if there is none
+	 */
+	String getProteinChangeHGVS() {
+		String result = proteinChangeHGVS;
+		if (result == null && proteinChange != null) {
+			result = proteinChange.toHGVSString();
+			proteinChangeHGVS = result;
+		}
+		return result;
 	}
 
 	/** @return the transcript, <code>null</code> for {@link VariantEffect#INTERGENIC_VARIANT} annotations */
@@ -265,19 +295,7 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 	 * @return VCF annotation string
 	 */
 	public String toVCFAnnoString(String alt, boolean escape) {
-		VCFAnnotationData data = new VCFAnnotationData();
-		data.effects = effects;
-		data.impact = getPutativeImpact();
-		data.setTranscriptAndChange(transcript, change);
-		data.setAnnoLoc(annoLoc);
-		data.isCoding = (transcript == null) ? false : transcript.isCoding();
-		data.cdsNTChange = cdsNTChange;
-		data.proteinChange = proteinChange;
-		data.messages = messages;
-		if (escape)
-			return data.toString(alt);
-		else
-			return data.toUnescapedString(alt);
+		return VCFAnnotationEncoder.append(new StringBuilder(), this, alt, escape).toString();
 	}
 
 	/**
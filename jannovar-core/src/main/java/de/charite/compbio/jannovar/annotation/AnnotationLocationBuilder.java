@@ -32,9 +32,9 @@ public class AnnotationLocationBuilder {
 	public AnnotationLocation build() {
 		int totalRank = -1;
 		if (rankType == RankType.EXON)
-			totalRank = transcript.getExonRegions().size();
+			totalRank = transcript.getNumExons();
 		else if (rankType == RankType.INTRON)
-			totalRank = transcript.getExonRegions().size() - 1;
+			totalRank = transcript.getNumExons() - 1;
 		return new AnnotationLocation(transcript, rankType, rank, totalRank, txLocation);
 	}
 
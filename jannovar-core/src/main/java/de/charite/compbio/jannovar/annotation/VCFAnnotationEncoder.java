@@ -0,0 +1,247 @@
+package de.charite.compbio.jannovar.annotation;
+
+import java.util.Collection;
+
+import de.charite.compbio.jannovar.annotation.AnnotationLocation.RankType;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.ProjectionException;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptPosition;
+import de.charite.compbio.jannovar.reference.TranscriptProjectionDecorator;
+
+/**
+ * Streaming encoder for the values of the VCF <code>ANN</code> field
+ *
+ * The fields of an {@link Annotation} are appended directly to a {@link StringBuilder}, escaping is done while
+ * appending. Use {@link #getThreadLocalBuilder} for obtaining a reusable per-thread buffer, such that writing the
+ * <code>ANN</code> field of a record does not need any intermediate strings besides the cached HGVS strings of the
+ * {@link Annotation}s.
+ *
+ * The escaping follows the requirements of (1) VCF 4.2 and (2) the "Variant annotations in VCF format" document. We
+ * use the strategy of keeping as much as possible reconstructable (bijective mappings, for the mathematically
+ * inclined).
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class VCFAnnotationEncoder {
+
+	/** Number of fields in one annotation */
+	public static final int NUM_FIELDS = 16;
+
+	/** Buffers larger than this are not kept for reuse */
+	private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+	/** The per-thread buffers */
+	private static final ThreadLocal<StringBuilder> BUILDERS = new ThreadLocal<StringBuilder>() {
+		@Override
+		protected StringBuilder initialValue() {
+			return new StringBuilder(1024);
+		}
+	};
+
+	private VCFAnnotationEncoder() {
+	}
+
+	/**
+	 * @return empty {@link StringBuilder} of the current thread, only use it until the next call on the same thread
+	 */
+	public static StringBuilder getThreadLocalBuilder() {
+		StringBuilder result = BUILDERS.get();
+		if (result.capacity() > MAX_RETAINED_CAPACITY) {
+			result = new StringBuilder(1024);
+			BUILDERS.set(result);
+		}
+		result.setLength(0);
+		return result;
+	}
+
+	/**
+	 * Append annotation string for the <code>ANN</code> field
+	 *
+	 * @param out
+	 *            {@link StringBuilder} to append to
+	 * @param anno
+	 *            the {@link Annotation} to encode
+	 * @param alt
+	 *            alternative allele value to prepend
+	 * @param escape
+	 *            whether or not to escape the invalid VCF characters, e.g. <code>'='</code>.
+	 * @return <code>out</code>
+	 */
+	public static StringBuilder append(StringBuilder out, Annotation anno, String alt, boolean escape) {
+		final TranscriptModel transcript = anno.getTranscript();
+		final boolean isCoding = (transcript != null) && transcript.isCoding();
+
+		// Allele, Annotation, Annotation_Impact
+		appendValue(out, alt, escape).append('|');
+		boolean first = true;
+		for (VariantEffect effect : anno.getEffects()) {
+			if (!first)
+				out.append('&');
+			first = false;
+			appendValue(out, effect.getSequenceOntologyTerm(), escape);
+		}
+		out.append('|');
+		final PutativeImpact impact = anno.getPutativeImpact();
+		if (impact != null)
+			appendValue(out, impact.name(), escape);
+		out.append('|');
+
+		// Gene_Name, Gene_ID, Feature_Type, Feature_ID, Transcript_BioType
+		if (transcript != null) {
+			appendValue(out, transcript.getGeneSymbol(), escape).append('|');
+			appendValue(out, transcript.getGeneID(), escape).append("|transcript|");
+			appendValue(out, transcript.getAccession(), escape).append('|');
+			out.append(isCoding ? "Coding" : "Noncoding").append('|');
+		} else {
+			out.append("|||||");
+		}
+
+		// Rank
+		final AnnotationLocation annoLoc = anno.getAnnoLoc();
+		if (annoLoc != null && annoLoc.getRankType() != RankType.UNDEFINED && annoLoc.getRank() != -1)
+			out.append(annoLoc.getRank() + 1).append('/').append(annoLoc.getTotalRank());
+		out.append('|');
+
+		// HGVS.c, HGVS.p
+		if (anno.getCDSNTChange() != null)
+			appendValue(out.append(isCoding ? "c." : "n."), anno.getCDSNTChangeHGVS(), escape);
+		out.append('|');
+		if (anno.getProteinChange() != null)
+			appendValue(out.append("p."), anno.getProteinChangeHGVS(), escape);
+		out.append('|');
+
+		// cDNA.pos / cDNA.length, CDS.pos / CDS.length, AA.pos / AA.length
+		appendPositions(out, annoLoc, transcript != null && isCoding);
+
+		// Distance
+		if (transcript != null && anno.getGenomeVariant() != null) {
+			final int distance = getDistance(anno, transcript);
+			if (distance != -1)
+				out.append(distance);
+		}
+		out.append('|');
+
+		// ERRORS / WARNINGS / INFO
+		first = true;
+		for (AnnotationMessage message : anno.getMessages()) {
+			if (!first)
+				out.append('&');
+			first = false;
+			appendValue(out, message.name(), escape);
+		}
+		return out;
+	}
+
+	/**
+	 * Append error annotation string for the <code>ANN</code> field of a record that could not be annotated at all
+	 *
+	 * The allele field is left empty as the error refers to the record as a whole, e.g. when its contig is unknown.
+	 *
+	 * @param out
+	 *            {@link StringBuilder} to append to
+	 * @param messages
+	 *            the {@link AnnotationMessage}s to encode
+	 * @param escape
+	 *            whether or not to escape the invalid VCF characters, e.g. <code>'='</code>.
+	 * @return <code>out</code>
+	 */
+	public static StringBuilder appendError(StringBuilder out, Collection<AnnotationMessage> messages,
+			boolean escape) {
+		return append(out, new Annotation(messages), null, escape);
+	}
+
+	/**
+	 * Append the transcript, CDS, and amino acid position fields, including the trailing separators
+	 */
+	private static void appendPositions(StringBuilder out, AnnotationLocation annoLoc, boolean isCoding) {
+		if (annoLoc == null) {
+			out.append("|||");
+			return;
+		}
+
+		final TranscriptModel transcript = annoLoc.getTranscript();
+		final TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
+		final TranscriptPosition txPos;
+		if (annoLoc.getTXLocation().length() == 0)
+			txPos = annoLoc.getTXLocation().getTranscriptBeginPos().shifted(-1); // change length == 0, insertion
+		else
+			txPos = annoLoc.getTXLocation().getTranscriptBeginPos(); // all other variants
+		if (txPos.getPos() != -1)
+			out.append(txPos.getPos() + 1).append('/').append(transcript.getTXRegion().length());
+		out.append('|');
+
+		final int cdsPos;
+		try {
+			cdsPos = projector.projectGenomeToCDSPosition(projector.transcriptToGenomePos(txPos)).getPos();
+		} catch (ProjectionException e) {
+			throw new Error("Bug: problem with projection!", e);
+		}
+		if (cdsPos != -1 && isCoding) {
+			final int cdsLength = transcript.cdsTranscriptLength();
+			out.append(cdsPos + 1).append('/').append(cdsLength).append('|');
+			out.append(cdsPos / 3 + 1).append('/').append(cdsLength / 3).append('|');
+		} else {
+			out.append("||");
+		}
+	}
+
+	/**
+	 * @return distance of the variant to <code>transcript</code> for intergenic, upstream, and downstream annotations,
+	 *         <code>-1</code> otherwise
+	 */
+	private static int getDistance(Annotation anno, TranscriptModel transcript) {
+		if (!anno.getEffects().contains(VariantEffect.INTERGENIC_VARIANT)
+				&& !anno.getEffects().contains(VariantEffect.UPSTREAM_GENE_VARIANT)
+				&& !anno.getEffects().contains(VariantEffect.DOWNSTREAM_GENE_VARIANT))
+			return -1;
+		final GenomeVariant change = anno.getGenomeVariant();
+		final GenomeInterval txRegion = transcript.getTXRegion();
+		if (change.getGenomeInterval().isLeftOf(txRegion.getGenomeBeginPos()))
+			return txRegion.getGenomeBeginPos().differenceTo(change.getGenomeInterval().getGenomeEndPos());
+		else
+			return change.getGenomeInterval().getGenomeBeginPos().differenceTo(txRegion.getGenomeEndPos());
+	}
+
+	/**
+	 * Append <code>value</code>, escaping the characters that are not allowed in VCF INFO values if
+	 * <code>escape</code> is <code>true</code>, nothing is appended for <code>null</code>
+	 *
+	 * @return <code>out</code>
+	 */
+	private static StringBuilder appendValue(StringBuilder out, String value, boolean escape) {
+		if (value == null)
+			return out;
+		if (!escape)
+			return out.append(value);
+		final int len = value.length();
+		for (int i = 0; i < len; ++i) {
+			final char c = value.charAt(i);
+			switch (c) {
+			case '%':
+				out.append("%25");
+				break;
+			case ',':
+				out.append("%2C");
+				break;
+			case ';':
+				out.append("%3B");
+				break;
+			case '=':
+				out.append("%3D");
+				break;
+			case ' ':
+				out.append("%20");
+				break;
+			case '\t':
+				out.append("%09");
+				break;
+			default:
+				out.append(c);
+			}
+		}
+		return out;
+	}
+
+}
@@ -0,0 +1,96 @@
+package de.charite.compbio.jannovar.annotation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+
+/**
+ * Reusable container for the results of {@link VariantAnnotator#buildAnnotations(Iterable, VariantAnnotationsBatch)}
+ *
+ * For each input variant, there is either a {@link VariantAnnotations} object or the {@link AnnotationException} that
+ * occurred while annotating it. The lists are cleared at the beginning of each batch but keep their capacity, such
+ * that a container can be reused for many batches.
+ *
+ * Objects of this class are not thread-safe.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class VariantAnnotationsBatch {
+
+	/** the annotated variants, in input order */
+	private final ArrayList<GenomeVariant> variants = new ArrayList<>();
+
+	/** annotations for {@link #variants}, <code>null</code> where annotation failed */
+	private final ArrayList<VariantAnnotations> annotations = new ArrayList<>();
+
+	/** exceptions for {@link #variants}, <code>null</code> where annotation succeeded */
+	private final ArrayList<AnnotationException> exceptions = new ArrayList<>();
+
+	/** number of failed variants */
+	private int numFailed = 0;
+
+	/** Remove all results, keeping the capacity */
+	public void clear() {
+		variants.clear();
+		annotations.clear();
+		exceptions.clear();
+		numFailed = 0;
+	}
+
+	/** Add result for a successfully annotated variant */
+	void add(GenomeVariant variant, VariantAnnotations annos) {
+		variants.add(variant);
+		annotations.add(annos);
+		exceptions.add(null);
+	}
+
+	/** Add result for a variant that could not be annotated */
+	void addFailed(GenomeVariant variant, AnnotationException e) {
+		variants.add(variant);
+		annotations.add(null);
+		exceptions.add(e);
+		++numFailed;
+	}
+
+	/** @return number of variants in the batch */
+	public int size() {
+		return variants.size();
+	}
+
+	/** @return number of variants that could not be annotated */
+	public int getNumFailed() {
+		return numFailed;
+	}
+
+	/** @return the <code>i</code>-th variant of the batch */
+	public GenomeVariant getVariant(int i) {
+		return variants.get(i);
+	}
+
+	/**
+	 * @return {@link VariantAnnotations} of the <code>i</code>-th variant of the batch, <code>null</code> if it could
+	 *         not be annotated
+	 */
+	public VariantAnnotations getAnnotations(int i) {
+		return annotations.get(i);
+	}
+
+	/**
+	 * @return {@link AnnotationException} that occurred while annotating the <code>i</code>-th variant,
+	 *         <code>null</code> if it was annotated successfully
+	 */
+	public AnnotationException getException(int i) {
+		return exceptions.get(i);
+	}
+
+	/**
+	 * @return view of the {@link VariantAnnotations} in input order, with <code>null</code> for the variants that
+	 *         could not be annotated, only valid until the container is reused
+	 */
+	public List<VariantAnnotations> getAnnotationsList() {
+		return Collections.unmodifiableList(annotations);
+	}
+
+}
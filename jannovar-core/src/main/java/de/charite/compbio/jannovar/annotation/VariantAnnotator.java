@@ -1,6 +1,7 @@
 package de.charite.compbio.jannovar.annotation;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import com.google.common.collect.ImmutableMap;
@@ -41,6 +42,13 @@ public final class VariantAnnotator {
 	/** {@link Chromosome}s with their {@link TranscriptInfo} objects. */
 	final private ImmutableMap<Integer, Chromosome> chromosomeMap;
 
+	/** Per-thread buffer for the transcript interval queries, avoids allocations in the queries */
+	final private ThreadLocal<IntervalArray.QueryBuffer<TranscriptModel>> queryBuffer = ThreadLocal
+			.withInitial(IntervalArray.QueryBuffer::new);
+
+	/** Per-thread state of {@link #buildAnnotationsSorted} */
+	final private ThreadLocal<SweepState> sweepState = ThreadLocal.withInitial(SweepState::new);
+
 	/**
 	 * Construct new VariantAnnotator, given a chromosome map.
 	 *
@@ -113,16 +121,143 @@ public final class VariantAnnotator {
 
 		// Get the TranscriptModel objects that overlap with changeInterval.
 		final Chromosome chr = chromosomeMap.get(change.getChr());
-		IntervalArray<TranscriptModel>.QueryResult qr;
+		final IntervalArray.QueryBuffer<TranscriptModel> qr = queryBuffer.get();
 		if (changeInterval.length() == 0)
-			qr = chr.getTMIntervalTree().findOverlappingWithPoint(changeInterval.getBeginPos());
+			chr.getTMIntervalTree().findOverlappingWithPoint(changeInterval.getBeginPos(), qr);
 		else
-			qr = chr.getTMIntervalTree().findOverlappingWithInterval(changeInterval.getBeginPos(),
-					changeInterval.getEndPos());
-		ArrayList<TranscriptModel> candidateTranscripts = new ArrayList<TranscriptModel>(qr.getEntries());
+			chr.getTMIntervalTree().findOverlappingWithInterval(changeInterval.getBeginPos(),
+					changeInterval.getEndPos(), qr);
+
+		return buildAnnotations(change, qr, new ArrayList<>());
+	}
+
+	/**
+	 * Entry point for annotating variants one by one in coordinate-sorted order, e.g., from a sorted VCF file.
+	 *
+	 * The transcripts are found with a sweep over the chromosome's interval tree (see {@link IntervalArray.Cursor})
+	 * that is kept between the calls of the current thread. On changes of the chromosome, the sweep starts anew, and
+	 * variants left of the previous one are looked up with a tree query, such that unsorted input gives the same
+	 * results as {@link #buildAnnotations(GenomeVariant)}.
+	 *
+	 * @param change
+	 *            the {@link GenomeVariant} to annotate
+	 * @return {@link VariantAnnotations} for the genome change
+	 * @throws AnnotationException
+	 *             on problems building the annotation list
+	 */
+	public VariantAnnotations buildAnnotationsSorted(GenomeVariant change) throws AnnotationException {
+		if (change.isSymbolic())
+			return VariantAnnotations.buildEmptyList(change);
 
-		// The annotations collected so far for GenomeVariant.
-		ArrayList<Annotation> annotations = new ArrayList<>();
+		final SweepState state = sweepState.get();
+		if (state.cursor == null || change.getChr() != state.chr) {
+			final Chromosome chr = chromosomeMap.get(change.getChr());
+			if (chr == null)
+				throw new AnnotationException(String.format("Could not identify chromosome \"%d\"", change.getChr()));
+			state.cursor = chr.getTMIntervalTree().newCursor();
+			state.chr = change.getChr();
+		}
+
+		final GenomeInterval changeInterval = change.getGenomeInterval();
+		final IntervalArray.QueryBuffer<TranscriptModel> qr = queryBuffer.get();
+		if (changeInterval.getBeginPos() < state.cursor.getPosition()) {
+			// Unsorted record, keep sweep state for the following records.
+			final IntervalArray<TranscriptModel> tree = chromosomeMap.get(change.getChr()).getTMIntervalTree();
+			if (changeInterval.length() == 0)
+				tree.findOverlappingWithPoint(changeInterval.getBeginPos(), qr);
+			else
+				tree.findOverlappingWithInterval(changeInterval.getBeginPos(), changeInterval.getEndPos(), qr);
+		} else if (changeInterval.length() == 0) {
+			state.cursor.findOverlappingWithPoint(changeInterval.getBeginPos(), qr);
+		} else {
+			state.cursor.findOverlappingWithInterval(changeInterval.getBeginPos(), changeInterval.getEndPos(), qr);
+		}
+
+		return buildAnnotations(change, qr, new ArrayList<>());
+	}
+
+	/**
+	 * Batch entry point for annotating many variants.
+	 *
+	 * The variants should be sorted by position within each chromosome. Neighbouring variants on the same chromosome
+	 * then reuse the state of the transcript interval query (see {@link IntervalArray.Cursor}), such that only the
+	 * transcripts between them have to be looked at. Unsorted variants are annotated correctly but more slowly.
+	 *
+	 * Problems with single variants do not stop the batch but are recorded in <code>result</code>, see
+	 * {@link VariantAnnotationsBatch#getException}.
+	 *
+	 * @param changes
+	 *            the {@link GenomeVariant}s to annotate, e.g., a {@link List} or a sorted stream
+	 * @param result
+	 *            {@link VariantAnnotationsBatch} to write the results to, cleared first
+	 * @return <code>result</code>
+	 */
+	public VariantAnnotationsBatch buildAnnotations(Iterable<GenomeVariant> changes, VariantAnnotationsBatch result) {
+		result.clear();
+		final IntervalArray.QueryBuffer<TranscriptModel> qr = queryBuffer.get();
+		final ArrayList<Annotation> annotations = new ArrayList<>();
+		int cursorChr = -1;
+		IntervalArray<TranscriptModel>.Cursor cursor = null;
+		for (GenomeVariant change : changes) {
+			try {
+				if (change.isSymbolic()) {
+					result.add(change, VariantAnnotations.buildEmptyList(change));
+					continue;
+				}
+
+				// Keep cursor while the chromosome does not change.
+				if (cursor == null || change.getChr() != cursorChr) {
+					final Chromosome chr = chromosomeMap.get(change.getChr());
+					if (chr == null)
+						throw new AnnotationException(
+								String.format("Could not identify chromosome \"%d\"", change.getChr()));
+					cursor = chr.getTMIntervalTree().newCursor();
+					cursorChr = change.getChr();
+				}
+
+				final GenomeInterval changeInterval = change.getGenomeInterval();
+				if (changeInterval.length() == 0)
+					cursor.findOverlappingWithPoint(changeInterval.getBeginPos(), qr);
+				else
+					cursor.findOverlappingWithInterval(changeInterval.getBeginPos(), changeInterval.getEndPos(), qr);
+				annotations.clear();
+				result.add(change, buildAnnotations(change, qr, annotations));
+			} catch (AnnotationException e) {
+				result.addFailed(change, e);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Forward to {@link #buildAnnotations(Iterable, VariantAnnotationsBatch)} for an array of variants.
+	 *
+	 * @param changes
+	 *            the {@link GenomeVariant}s to annotate, should be sorted by position within each chromosome
+	 * @param result
+	 *            {@link VariantAnnotationsBatch} to write the results to, cleared first
+	 * @return <code>result</code>
+	 */
+	public VariantAnnotationsBatch buildAnnotations(GenomeVariant[] changes, VariantAnnotationsBatch result) {
+		return buildAnnotations(Arrays.asList(changes), result);
+	}
+
+	/**
+	 * Build annotations for <code>change</code> from the transcripts found by the interval query.
+	 *
+	 * @param change
+	 *            the {@link GenomeVariant} to annotate
+	 * @param qr
+	 *            result of the transcript query for <code>change</code>
+	 * @param annotations
+	 *            empty list to collect the annotations in
+	 * @return {@link VariantAnnotations} for the genome change
+	 * @throws AnnotationException
+	 *             on problems building the annotation list
+	 */
+	private VariantAnnotations buildAnnotations(GenomeVariant change, IntervalArray.QueryBuffer<TranscriptModel> qr,
+			ArrayList<Annotation> annotations) throws AnnotationException {
+		final List<TranscriptModel> candidateTranscripts = qr.getEntries();
 
 		// Handle the case of no overlapping transcript. Then, create intergenic, upstream, or downstream annotations
 		// and return the result.
@@ -163,4 +298,14 @@ public final class VariantAnnotator {
 			annotations.add(new AnnotationBuilderDispatcher(transcript, change, options).build());
 	}
 
+	/**
+	 * State of the sweep in {@link #buildAnnotationsSorted} for one thread
+	 */
+	private static final class SweepState {
+		/** chromosome of the previous variant */
+		int chr = -1;
+		/** cursor into the interval tree of {@link #chr} */
+		IntervalArray<TranscriptModel>.Cursor cursor = null;
+	}
+
 }
@@ -142,7 +142,7 @@ public final class BlockSubstitutionAnnotationBuilder extends AnnotationBuilder
 			this.delFrameShift = (varCDSSeq.length() - wtCDSSeq.length()) % 3;
 
 			// Translate the variant CDS sequence.
-			this.wtAASeq = t.translateDNA(wtCDSSeq);
+			this.wtAASeq = projector.getTranslatedTranscriptStartingAtCDS();
 			this.varAASeq = t.translateDNA(varCDSSeq);
 
 			// Get the reference change begin position as CDS coordinate, handling introns and positions outside of CDS.
@@ -136,7 +136,7 @@ public final class DeletionAnnotationBuilder extends AnnotationBuilder {
 			this.changeLastPos = projector.projectGenomeToCDSPosition(changeInterval.getGenomeEndPos().shifted(-1));
 
 			// Translate the variant CDS sequence and look for stop codon.
-			this.wtAASeq = t.translateDNA(wtCDSSeq);
+			this.wtAASeq = projector.getTranslatedTranscriptStartingAtCDS();
 			this.varAASeq = t.translateDNA(varCDSSeq);
 			this.varAAStopPos = varAASeq.indexOf('*', this.changeBeginPos.getPos() / 3);
 
@@ -107,7 +107,7 @@ public final class InsertionAnnotationBuilder extends AnnotationBuilder {
 		} catch (ProjectionException e) {
 			throw new Error("Bug: at this point, the position must be a transcript position");
 		}
-		if (DuplicationChecker.isDuplication(transcript.getSequence(), change.getAlt(), txPos.getPos())) {
+		if (DuplicationChecker.isDuplication(transcript.getPackedSequence(), change.getAlt(), txPos.getPos())) {
 			NucleotidePointLocationBuilder posBuilder = new NucleotidePointLocationBuilder(transcript);
 			if (change.getAlt().length() == 1) {
 				try {
@@ -184,7 +184,7 @@ public final class InsertionAnnotationBuilder extends AnnotationBuilder {
 			this.insertPos = projector.projectGenomeToCDSPosition(change.getGenomePos());
 
 			// Translate the variant CDS sequence and look for stop codon.
-			this.wtAASeq = t.translateDNA(wtCDSSeq);
+			this.wtAASeq = projector.getTranslatedTranscriptStartingAtCDS();
 			this.wtAAStopPos = wtAASeq.indexOf('*', this.insertPos.getPos() / 3);
 			this.varAASeq = t.translateDNA(varCDSSeq);
 			this.varAAStopPos = varAASeq.indexOf('*', this.insertPos.getPos() / 3);
@@ -3,6 +3,8 @@ package de.charite.compbio.jannovar.data;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -123,12 +125,13 @@ public final class JannovarData implements Serializable {
 		for (TranscriptModel transcript : transcriptInfos)
 			transcripts.get(transcript.getChr()).add(transcript);
 
-		// Then, construct an interval tree for each chromosome and add the lists of intervals.
-		for (Integer chrID : transcripts.keySet()) {
-			IntervalArray<TranscriptModel> iTree = new IntervalArray<TranscriptModel>(transcripts.get(chrID),
-					new TranscriptIntervalEndExtractor());
-			builder.put(chrID, new Chromosome(refDict, chrID, iTree));
-		}
+		// Then, construct an interval tree for each chromosome in parallel and add them in the order of the keys.
+		final Map<Integer, Chromosome> chromosomes = transcripts.keySet().parallelStream()
+				.collect(Collectors.toConcurrentMap(chrID -> chrID,
+						chrID -> new Chromosome(refDict, chrID, new IntervalArray<TranscriptModel>(
+								transcripts.get(chrID), new TranscriptIntervalEndExtractor()))));
+		for (Integer chrID : transcripts.keySet())
+			builder.put(chrID, chromosomes.get(chrID));
 
 		return builder.build();
 	}
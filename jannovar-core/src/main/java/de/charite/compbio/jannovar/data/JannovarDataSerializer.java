@@ -6,16 +6,24 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Properties;
+import java.util.Set;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.ImmutableList;
+
 import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.data.impl.JannovarDataBinaryReader;
+import de.charite.compbio.jannovar.data.impl.JannovarDataBinaryWriter;
 import de.charite.compbio.jannovar.data.impl.VersionComparator;
 import de.charite.compbio.jannovar.impl.util.StringUtil;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
 
 // NOTE(holtgrem): Part of the public interface of the Jannovar library.
 
@@ -28,7 +36,7 @@ import de.charite.compbio.jannovar.impl.util.StringUtil;
  */
 public final class JannovarDataSerializer {
 
-	/** magic bytes */
+	/** magic bytes of the legacy format */
 	private final static byte[] MAGIC_BYTES = { 'J', 'V', 'D', 'B' };
 
 	/** the minimal supported version of Jannovar in this version */
@@ -66,6 +74,9 @@ public final class JannovarDataSerializer {
 	/**
 	 * Serialize a {@link JannovarData} object to a file.
 	 *
+	 * The data is written in the binary, contig-blocked format (see {@link JannovarDataBinaryWriter}) that can be
+	 * memory-mapped on loading.
+	 *
 	 * @param data
 	 *            the {@link JannovarData} object to serialize
 	 * @throws SerializationException
@@ -75,6 +86,34 @@ public final class JannovarDataSerializer {
 		logger.info(StringUtil.concatenate("Serializing JannovarData to ", filename));
 		final long startTime = System.nanoTime();
 
+		if (data == null || data.getRefDict().getContigNameToID().isEmpty())
+			throw new SerializationException("Attempting to serialize empty data set");
+
+		try {
+			new JannovarDataBinaryWriter(filename, getVersion()).write(data);
+		} catch (IOException e) {
+			throw new SerializationException(String.format("Could not serialize data file list: %s", e.toString()));
+		}
+
+		logger.info(String.format("Serialization took %.2f sec.",
+				(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
+	}
+
+	/**
+	 * Serialize a {@link JannovarData} object to a file using Java serialization.
+	 *
+	 * This is the format used by Jannovar before the introduction of the binary format. Files in this format can
+	 * still be read by {@link #load}.
+	 *
+	 * @param data
+	 *            the {@link JannovarData} object to serialize
+	 * @throws SerializationException
+	 *             on problems with the serialization
+	 */
+	public void saveLegacy(JannovarData data) throws SerializationException {
+		logger.info(StringUtil.concatenate("Serializing JannovarData to ", filename, " (legacy format)"));
+		final long startTime = System.nanoTime();
+
 		if (data == null || data.getRefDict().getContigNameToID().isEmpty())
 			throw new SerializationException("Attempting to serialize empty data set");
 
@@ -122,14 +161,91 @@ public final class JannovarDataSerializer {
 	/**
 	 * Deserialize a {@link JannovarData} object from a file.
 	 *
+	 * Both the binary and the legacy (Java serialization) format are supported.
+	 *
 	 * @return {@link JannovarData} object yielded by deserialization
 	 * @throws SerializationException
 	 *             on problems with the deserialization
 	 */
 	public JannovarData load() throws SerializationException {
+		return load(null);
+	}
+
+	/**
+	 * Deserialize a {@link JannovarData} object from a file, restricted to the transcripts of the given contigs.
+	 *
+	 * For the binary format, only the blocks of the selected contigs are decoded.
+	 *
+	 * @param contigNames
+	 *            names of the contigs to load the transcripts for, <code>null</code> for all contigs; the remaining
+	 *            contigs are present in the result without any transcripts
+	 * @return {@link JannovarData} object yielded by deserialization
+	 * @throws SerializationException
+	 *             on problems with the deserialization
+	 */
+	public JannovarData load(Collection<String> contigNames) throws SerializationException {
 		logger.info(StringUtil.concatenate("Deserializing JannovarData from ", filename));
 		final long startTime = System.nanoTime();
 
+		final JannovarData result;
+		if (isBinaryFormat()) {
+			final JannovarDataBinaryReader reader = new JannovarDataBinaryReader(filename);
+			checkVersion(reader.readVersion());
+			result = reader.read(contigNames);
+		} else {
+			result = restrictToContigs(loadLegacy(), contigNames);
+		}
+
+		logger.info(String.format("Deserialization took %.2f sec.",
+				(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
+		return result;
+	}
+
+	/**
+	 * @return whether the file starts with the magic bytes of the binary format
+	 * @throws SerializationException
+	 *             on problems reading the file
+	 */
+	private boolean isBinaryFormat() throws SerializationException {
+		try (FileInputStream fileIn = new FileInputStream(filename)) {
+			byte[] word = new byte[4];
+			return (fileIn.read(word) == word.length && Arrays.equals(word, JannovarDataBinaryWriter.MAGIC_BYTES));
+		} catch (IOException e) {
+			throw new SerializationException(String.format("Could not deserialize data list: %s", e.toString()));
+		}
+	}
+
+	/** Check that the database has been written by a supported version */
+	private void checkVersion(String dbVersion) {
+		VersionComparator comp = new VersionComparator();
+		if (comp.compare(dbVersion, minVersion) < 0)
+			throw new UncheckedJannovarException(
+					filename + " was created by Jannovar " + dbVersion + " but we need at least " + minVersion);
+	}
+
+	/** @return <code>data</code> with only the transcripts on the given contigs, <code>data</code> if null */
+	private static JannovarData restrictToContigs(JannovarData data, Collection<String> contigNames) {
+		if (contigNames == null)
+			return data;
+		final Set<Integer> chrIDs = new HashSet<>();
+		for (String name : contigNames)
+			if (data.getRefDict().getContigNameToID().containsKey(name))
+				chrIDs.add(data.getRefDict().getContigNameToID().get(name));
+		final ImmutableList.Builder<TranscriptModel> builder = ImmutableList.builder();
+		for (TranscriptModel tm : data.getTmByAccession().values())
+			if (chrIDs.contains(tm.getChr()))
+				builder.add(tm);
+		return new JannovarData(data.getRefDict(), builder.build());
+	}
+
+	/**
+	 * Deserialize a {@link JannovarData} object from a file in the legacy (Java serialization) format.
+	 *
+	 * @return {@link JannovarData} object yielded by deserialization
+	 * @throws SerializationException
+	 *             on problems with the deserialization
+	 */
+	private JannovarData loadLegacy() throws SerializationException {
 		JannovarData result = null;
 
 		// This is also waiting for Java 7 to be cleaned up, see above.
@@ -147,11 +263,7 @@ public final class JannovarDataSerializer {
 						filename + " does not look like a Jannovar database, magic number incorrect!");
 			gzIn = new GZIPInputStream(fileIn);
 			in = new ObjectInputStream(gzIn);
-			String dbVersion = (String) in.readObject();
-			VersionComparator comp = new VersionComparator();
-			if (comp.compare(dbVersion, minVersion) < 0)
-				throw new UncheckedJannovarException(
-						filename + " was created by Jannovar " + dbVersion + " but we need at least " + minVersion);
+			checkVersion((String) in.readObject());
 			result = (JannovarData) in.readObject();
 		} catch (IOException i) {
 			error = String.format("Could not deserialize data list: %s", i.toString());
@@ -174,8 +286,6 @@ public final class JannovarDataSerializer {
 				throw new SerializationException(error);
 		}
 
-		logger.info(String.format("Deserialization took %.2f sec.",
-				(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
 		return result;
 	}
 }
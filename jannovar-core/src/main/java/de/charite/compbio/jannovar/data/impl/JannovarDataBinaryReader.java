@@ -0,0 +1,293 @@
+package de.charite.compbio.jannovar.data.impl;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.data.ReferenceDictionaryBuilder;
+import de.charite.compbio.jannovar.data.SerializationException;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.PackedSequence;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Reads {@link JannovarData} from the binary, contig-blocked database format
+ *
+ * See {@link JannovarDataBinaryWriter} for a description of the format. The blocks of the contigs are memory-mapped
+ * using {@link FileChannel#map} and decoded in parallel. Optionally, only the blocks of selected contigs are decoded.
+ * Files in format version 1, with transcript sequences stored as strings, can also be read.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class JannovarDataBinaryReader {
+
+	/** path to the file to read from */
+	private final String filename;
+
+	/**
+	 * Initialize reader
+	 *
+	 * @param filename
+	 *            path to the file to read from
+	 */
+	public JannovarDataBinaryReader(String filename) {
+		this.filename = filename;
+	}
+
+	/**
+	 * Entry in the index of contig blocks
+	 */
+	private static final class IndexEntry {
+		/** numeric ID of the contig */
+		final int chrID;
+		/** offset of the block in the file */
+		final long offset;
+		/** length of the block in bytes */
+		final long length;
+		/** number of transcripts in the block */
+		final int numTranscripts;
+
+		IndexEntry(int chrID, long offset, long length, int numTranscripts) {
+			this.chrID = chrID;
+			this.offset = offset;
+			this.length = length;
+			this.numTranscripts = numTranscripts;
+		}
+	}
+
+	/**
+	 * Header of the file
+	 */
+	private static final class Header {
+		/** version of the binary format */
+		final int formatVersion;
+		/** Jannovar version that wrote the file */
+		final String version;
+		/** the reference dictionary */
+		final ReferenceDictionary refDict;
+		/** the contig block index */
+		final List<IndexEntry> index;
+
+		Header(int formatVersion, String version, ReferenceDictionary refDict, List<IndexEntry> index) {
+			this.formatVersion = formatVersion;
+			this.version = version;
+			this.refDict = refDict;
+			this.index = index;
+		}
+	}
+
+	/**
+	 * @return Jannovar version that wrote the file
+	 * @throws SerializationException
+	 *             on problems reading the file header
+	 */
+	public String readVersion() throws SerializationException {
+		return readHeader().version;
+	}
+
+	/**
+	 * Read database from file
+	 *
+	 * @param contigNames
+	 *            names of the contigs to load the transcripts for, <code>null</code> for loading all; the other contigs
+	 *            are present in the result but have no transcripts
+	 * @return the {@link JannovarData} from the file
+	 * @throws SerializationException
+	 *             on problems with reading the file
+	 */
+	public JannovarData read(Collection<String> contigNames) throws SerializationException {
+		final Header header = readHeader();
+
+		final Set<Integer> chrIDs = new HashSet<>();
+		if (contigNames != null) {
+			for (String name : contigNames) {
+				final Integer chrID = header.refDict.getContigNameToID().get(name);
+				if (chrID != null)
+					chrIDs.add(chrID);
+			}
+		}
+		final List<IndexEntry> toLoad = header.index.stream()
+				.filter(e -> contigNames == null || chrIDs.contains(e.chrID)).collect(Collectors.toList());
+
+		// Decode the transcripts of each contig in parallel, then restore original transcript order
+		final TreeMap<Integer, TranscriptModel> byOrdinal = new TreeMap<>();
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			final List<List<OrdinalTranscript>> decoded = toLoad.parallelStream().map(e -> {
+				try {
+					return decodeBlock(channel.map(FileChannel.MapMode.READ_ONLY, e.offset, e.length), e,
+							header.refDict, header.formatVersion);
+				} catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			}).collect(Collectors.toList());
+			for (List<OrdinalTranscript> lst : decoded)
+				for (OrdinalTranscript ot : lst)
+					byOrdinal.put(ot.ordinal, ot.transcript);
+		} catch (IOException | UncheckedIOException e) {
+			throw new SerializationException("Could not read contig blocks from " + filename + ": " + e.toString());
+		}
+
+		return new JannovarData(header.refDict, ImmutableList.copyOf(byOrdinal.values()));
+	}
+
+	/** @return header read from the file */
+	private Header readHeader() throws SerializationException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename)))) {
+			final byte[] magic = new byte[JannovarDataBinaryWriter.MAGIC_BYTES.length];
+			in.readFully(magic);
+			if (!Arrays.equals(magic, JannovarDataBinaryWriter.MAGIC_BYTES))
+				throw new SerializationException(filename + " is not a binary Jannovar database, magic number incorrect!");
+			final int formatVersion = in.readInt();
+			if (formatVersion < 1 || formatVersion > JannovarDataBinaryWriter.FORMAT_VERSION)
+				throw new SerializationException(filename + " has binary format version " + formatVersion
+						+ " but we can only read versions up to " + JannovarDataBinaryWriter.FORMAT_VERSION);
+			final String version = readString(in);
+			final ReferenceDictionary refDict = readRefDict(in);
+
+			final int numContigs = in.readInt();
+			final List<IndexEntry> index = new ArrayList<>(numContigs);
+			for (int i = 0; i < numContigs; ++i)
+				index.add(new IndexEntry(in.readInt(), in.readLong(), in.readLong(), in.readInt()));
+			// Decode larger blocks first for better load balancing
+			index.sort(Comparator.comparingLong((IndexEntry e) -> e.length).reversed());
+
+			return new Header(formatVersion, version, refDict, index);
+		} catch (IOException e) {
+			throw new SerializationException("Could not read header of " + filename + ": " + e.toString());
+		}
+	}
+
+	/** @return {@link ReferenceDictionary} read from <code>in</code> */
+	private static ReferenceDictionary readRefDict(DataInputStream in) throws IOException {
+		final ReferenceDictionaryBuilder builder = new ReferenceDictionaryBuilder();
+		final int numNames = in.readInt();
+		for (int i = 0; i < numNames; ++i) {
+			final String name = readString(in);
+			builder.putContigID(name, in.readInt());
+		}
+		final int numIDs = in.readInt();
+		for (int i = 0; i < numIDs; ++i) {
+			final int id = in.readInt();
+			builder.putContigName(id, readString(in));
+		}
+		final int numLengths = in.readInt();
+		for (int i = 0; i < numLengths; ++i) {
+			final int id = in.readInt();
+			builder.putContigLength(id, in.readInt());
+		}
+		return builder.build();
+	}
+
+	/** Pair of transcript ordinal and {@link TranscriptModel} */
+	private static final class OrdinalTranscript {
+		final int ordinal;
+		final TranscriptModel transcript;
+
+		OrdinalTranscript(int ordinal, TranscriptModel transcript) {
+			this.ordinal = ordinal;
+			this.transcript = transcript;
+		}
+	}
+
+	/** @return transcripts decoded from the block in <code>buf</code> */
+	private static List<OrdinalTranscript> decodeBlock(ByteBuffer buf, IndexEntry entry, ReferenceDictionary refDict,
+			int formatVersion) {
+		final List<OrdinalTranscript> result = new ArrayList<>(entry.numTranscripts);
+		for (int i = 0; i < entry.numTranscripts; ++i) {
+			final int ordinal = buf.getInt();
+			final String accession = readString(buf);
+			final String geneSymbol = readString(buf);
+			final String geneID = readString(buf);
+			final Strand strand = (buf.get() == 0) ? Strand.FWD : Strand.REV;
+			final GenomeInterval txRegion = readInterval(buf, refDict, strand, entry.chrID);
+			final GenomeInterval cdsRegion = readInterval(buf, refDict, strand, entry.chrID);
+			final int numExons = buf.getInt();
+			final ImmutableList.Builder<GenomeInterval> exonRegions = ImmutableList.builder();
+			for (int j = 0; j < numExons; ++j)
+				exonRegions.add(readInterval(buf, refDict, strand, entry.chrID));
+			final int transcriptSupportLevel = buf.getInt();
+			final int numAltGeneIDs = buf.getInt();
+			final TreeMap<String, String> altGeneIDs = new TreeMap<>();
+			for (int j = 0; j < numAltGeneIDs; ++j) {
+				final String key = readString(buf);
+				altGeneIDs.put(key, readString(buf));
+			}
+			final PackedSequence sequence = readSequence(buf, formatVersion);
+			result.add(new OrdinalTranscript(ordinal, new TranscriptModel(accession, geneSymbol, txRegion, cdsRegion,
+					exonRegions.build(), sequence, geneID, transcriptSupportLevel, altGeneIDs)));
+		}
+		return result;
+	}
+
+	/** @return {@link GenomeInterval} read from <code>buf</code> */
+	private static GenomeInterval readInterval(ByteBuffer buf, ReferenceDictionary refDict, Strand strand, int chrID) {
+		final int beginPos = buf.getInt();
+		final int endPos = buf.getInt();
+		return new GenomeInterval(refDict, strand, chrID, beginPos, endPos);
+	}
+
+	/** @return {@link PackedSequence} read from <code>buf</code>, <code>null</code> for length <code>-1</code> */
+	private static PackedSequence readSequence(ByteBuffer buf, int formatVersion) {
+		if (formatVersion == 1) { // stored as string
+			final String seq = readString(buf);
+			return (seq == null) ? null : new PackedSequence(seq);
+		}
+
+		final int length = buf.getInt();
+		if (length == -1)
+			return null;
+		final long[] words = new long[PackedSequence.numWords(length)];
+		buf.asLongBuffer().get(words);
+		buf.position(buf.position() + 8 * words.length);
+		final int numExceptions = buf.getInt();
+		final int[] positions = new int[numExceptions];
+		buf.asIntBuffer().get(positions);
+		buf.position(buf.position() + 4 * numExceptions);
+		final char[] chars = new char[numExceptions];
+		buf.asCharBuffer().get(chars);
+		buf.position(buf.position() + 2 * numExceptions);
+		return PackedSequence.fromPacked(length, words, positions, chars);
+	}
+
+	/** @return length-prefixed UTF-8 string read from <code>buf</code> */
+	private static String readString(ByteBuffer buf) {
+		final int length = buf.getInt();
+		if (length == -1)
+			return null;
+		final byte[] bytes = new byte[length];
+		buf.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/** @return length-prefixed UTF-8 string read from <code>in</code> */
+	private static String readString(DataInputStream in) throws IOException {
+		final int length = in.readInt();
+		if (length == -1)
+			return null;
+		final byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
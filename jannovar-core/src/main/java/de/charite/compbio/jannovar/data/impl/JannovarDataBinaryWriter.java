@@ -0,0 +1,259 @@
+package de.charite.compbio.jannovar.data.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import de.charite.compbio.jannovar.data.Chromosome;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.impl.intervals.Interval;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.PackedSequence;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Writes {@link JannovarData} in the binary, contig-blocked database format
+ *
+ * The file starts with the magic bytes {@link #MAGIC_BYTES}, followed by the format version, the Jannovar version, the
+ * {@link ReferenceDictionary}, and an index with the file offset, length, and number of transcripts of the block for
+ * each contig. The transcripts of each contig are stored in one contiguous block, sorted by begin position, such that
+ * {@link JannovarDataBinaryReader} can memory-map and decode each contig independently of the others.
+ *
+ * All numbers are stored big-endian, strings are stored as UTF-8 bytes prefixed by their length (<code>-1</code> for
+ * <code>null</code>). Transcript sequences are stored in their {@link PackedSequence} representation: the length
+ * (<code>-1</code> for <code>null</code>), the packed words, and the number, positions, and characters of the
+ * exceptions. Version 1 of the format stored the sequences as strings.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class JannovarDataBinaryWriter {
+
+	/** magic bytes of the binary format */
+	public static final byte[] MAGIC_BYTES = { 'J', 'V', 'D', 'X' };
+
+	/** version of the binary format written by this class */
+	public static final int FORMAT_VERSION = 2;
+
+	/** size of one entry in the contig index: chromosome ID, offset, length, and transcript count */
+	static final int INDEX_ENTRY_SIZE = 4 + 8 + 8 + 4;
+
+	/** path to the file to write to */
+	private final String filename;
+
+	/** Jannovar version to write into the header */
+	private final String version;
+
+	/**
+	 * Initialize writer
+	 *
+	 * @param filename
+	 *            path to the file to write to
+	 * @param version
+	 *            Jannovar version to write into the file header
+	 */
+	public JannovarDataBinaryWriter(String filename, String version) {
+		this.filename = filename;
+		this.version = version;
+	}
+
+	/**
+	 * Write <code>data</code> to the file
+	 *
+	 * @param data
+	 *            {@link JannovarData} to write
+	 * @throws IOException
+	 *             on problems with writing the file
+	 */
+	public void write(JannovarData data) throws IOException {
+		// Number transcripts by their order in the accession map so this order can be restored on loading
+		final Map<TranscriptModel, Integer> ordinals = new IdentityHashMap<>();
+		for (TranscriptModel tm : data.getTmByAccession().values())
+			ordinals.put(tm, ordinals.size());
+
+		final List<Chromosome> chromosomes = new ArrayList<>(data.getChromosomes().values());
+		final long[] offsets = new long[chromosomes.size()];
+		final long[] lengths = new long[chromosomes.size()];
+
+		final long indexOffset;
+		long offset;
+		try (CountingOutputStream cos = new CountingOutputStream(
+				new BufferedOutputStream(new FileOutputStream(filename)))) {
+			final DataOutputStream out = new DataOutputStream(cos);
+			out.write(MAGIC_BYTES);
+			out.writeInt(FORMAT_VERSION);
+			writeString(out, version);
+			writeRefDict(out, data.getRefDict());
+
+			// Write index with placeholders, is overwritten below
+			out.writeInt(chromosomes.size());
+			indexOffset = cos.getCount();
+			for (int i = 0; i < chromosomes.size(); ++i)
+				out.write(new byte[INDEX_ENTRY_SIZE]);
+			out.flush();
+
+			// Write one block per contig
+			offset = cos.getCount();
+			for (int i = 0; i < chromosomes.size(); ++i) {
+				final byte[] block = buildBlock(chromosomes.get(i), ordinals);
+				out.write(block);
+				offsets[i] = offset;
+				lengths[i] = block.length;
+				offset += block.length;
+			}
+			out.flush();
+		}
+
+		// Seek back to the index and fill in the contig block positions
+		try (RandomAccessFile raf = new RandomAccessFile(filename, "rw")) {
+			raf.seek(indexOffset);
+			final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			final DataOutputStream out = new DataOutputStream(bos);
+			for (int i = 0; i < chromosomes.size(); ++i) {
+				out.writeInt(chromosomes.get(i).getChrID());
+				out.writeLong(offsets[i]);
+				out.writeLong(lengths[i]);
+				out.writeInt(chromosomes.get(i).getNumberOfGenes());
+			}
+			raf.write(bos.toByteArray());
+		}
+	}
+
+	/** Write {@link ReferenceDictionary} to <code>out</code> */
+	private static void writeRefDict(DataOutputStream out, ReferenceDictionary refDict) throws IOException {
+		out.writeInt(refDict.getContigNameToID().size());
+		for (Entry<String, Integer> entry : refDict.getContigNameToID().entrySet()) {
+			writeString(out, entry.getKey());
+			out.writeInt(entry.getValue());
+		}
+		out.writeInt(refDict.getContigIDToName().size());
+		for (Entry<Integer, String> entry : refDict.getContigIDToName().entrySet()) {
+			out.writeInt(entry.getKey());
+			writeString(out, entry.getValue());
+		}
+		out.writeInt(refDict.getContigIDToLength().size());
+		for (Entry<Integer, Integer> entry : refDict.getContigIDToLength().entrySet()) {
+			out.writeInt(entry.getKey());
+			out.writeInt(entry.getValue());
+		}
+	}
+
+	/** @return block with the transcripts of <code>chrom</code>, sorted by begin position */
+	private static byte[] buildBlock(Chromosome chrom, Map<TranscriptModel, Integer> ordinals) throws IOException {
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bos);
+		for (Interval<TranscriptModel> itv : chrom.getTMIntervalTree().getIntervals())
+			writeTranscript(out, itv.getValue(), ordinals.get(itv.getValue()));
+		out.flush();
+		return bos.toByteArray();
+	}
+
+	/** Write {@link TranscriptModel} to <code>out</code> */
+	private static void writeTranscript(DataOutputStream out, TranscriptModel tm, int ordinal) throws IOException {
+		out.writeInt(ordinal);
+		writeString(out, tm.getAccession());
+		writeString(out, tm.getGeneSymbol());
+		writeString(out, tm.getGeneID());
+		out.writeByte(tm.getStrand() == Strand.FWD ? 0 : 1);
+		writeInterval(out, tm.getTXRegion());
+		writeInterval(out, tm.getCDSRegion());
+		out.writeInt(tm.getNumExons());
+		for (int i = 0; i < tm.getNumExons(); ++i)
+			writeInterval(out, tm.getExonRegion(i));
+		out.writeInt(tm.getTranscriptSupportLevel());
+		out.writeInt(tm.getAltGeneIDs().size());
+		for (Entry<String, String> entry : tm.getAltGeneIDs().entrySet()) {
+			writeString(out, entry.getKey());
+			writeString(out, entry.getValue());
+		}
+		writeSequence(out, tm.getPackedSequence());
+	}
+
+	/** Write packed representation of <code>seq</code>, <code>-1</code> length for <code>null</code> */
+	private static void writeSequence(DataOutputStream out, PackedSequence seq) throws IOException {
+		if (seq == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(seq.length());
+		for (int i = 0; i < seq.getNumWords(); ++i)
+			out.writeLong(seq.getWord(i));
+		out.writeInt(seq.getNumExceptions());
+		for (int i = 0; i < seq.getNumExceptions(); ++i)
+			out.writeInt(seq.getExceptionPosition(i));
+		for (int i = 0; i < seq.getNumExceptions(); ++i)
+			out.writeChar(seq.getExceptionChar(i));
+	}
+
+	/** Write begin and end position of <code>itv</code>, on its strand */
+	private static void writeInterval(DataOutputStream out, GenomeInterval itv) throws IOException {
+		out.writeInt(itv.getBeginPos());
+		out.writeInt(itv.getEndPos());
+	}
+
+	/** Write length-prefixed UTF-8 representation of <code>s</code>, <code>-1</code> length for <code>null</code> */
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		if (s == null) {
+			out.writeInt(-1);
+		} else {
+			final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * {@link OutputStream} that counts the number of bytes written, also beyond 2 GB
+	 */
+	private static final class CountingOutputStream extends OutputStream {
+
+		/** the wrapped stream */
+		private final OutputStream out;
+
+		/** number of bytes written */
+		private long count = 0;
+
+		CountingOutputStream(OutputStream out) {
+			this.out = out;
+		}
+
+		long getCount() {
+			return count;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count += 1;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+
+	}
+
+}
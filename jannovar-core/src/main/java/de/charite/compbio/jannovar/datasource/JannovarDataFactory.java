@@ -8,6 +8,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPInputStream;
 
 import org.ini4j.Profile.Section;
@@ -34,6 +40,9 @@ public abstract class JannovarDataFactory {
 	/** the logger object to use */
 	private static final Logger LOGGER = LoggerFactory.getLogger(JannovarDataFactory.class);
 
+	/** maximal number of files to download concurrently */
+	private static final int MAX_PARALLEL_DOWNLOADS = 4;
+
 	/** the {@link DatasourceOptions} to use for proxy settings */
 	protected final DatasourceOptions options;
 	/** the {@link DataSource} to use */
@@ -74,25 +83,31 @@ public abstract class JannovarDataFactory {
 			throws InvalidDataSourceException, TranscriptParseException, FileDownloadException {
 		String targetDir = PathUtil.join(downloadDir, dataSource.getName());
 
-		FileDownloader downloader = new FileDownloader(buildOptions(printProgressBars));
-
-		// Download files.
+		// Download files concurrently, progress bars are only printed when downloading one file at a time.
 		LOGGER.info("Downloading data...");
+		final ImmutableList<String> urls = dataSource.getDownloadURLs();
+		final int numThreads = Math.max(1, Math.min(urls.size(), MAX_PARALLEL_DOWNLOADS));
+		final FileDownloader downloader = new FileDownloader(buildOptions(printProgressBars && numThreads == 1));
+		final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
 		try {
-			for (String url : dataSource.getDownloadURLs()) {
-				LOGGER.info("Downloading {}", url);
-				URL src = new URL(url);
-				String fileName = new File(src.getPath()).getName();
-				File dest = new File(PathUtil.join(targetDir, fileName));
-				downloader.copyURLToFile(src, dest);
-
-				if (dest.getName().endsWith(".gz")) {
-					checkGZ(dest);
-					LOGGER.info("Downloaded file {} looks like a valid gzip'ed file", new Object[] { dest.getName() });
+			final List<Future<Void>> futures = new ArrayList<>();
+			for (String url : urls) {
+				final URL src;
+				try {
+					src = new URL(url);
+				} catch (MalformedURLException e) {
+					throw new FileDownloadException("Invalid URL.", e);
 				}
+				final File dest = new File(PathUtil.join(targetDir, new File(src.getPath()).getName()));
+				futures.add(executor.submit(() -> {
+					download(downloader, src, dest);
+					return null;
+				}));
 			}
-		} catch (MalformedURLException e) {
-			throw new FileDownloadException("Invalid URL.", e);
+			for (Future<Void> future : futures)
+				waitForDownload(future);
+		} finally {
+			executor.shutdownNow();
 		}
 
 		// Parse files for building ReferenceDictionary objects.
@@ -112,6 +127,41 @@ public abstract class JannovarDataFactory {
 		return new JannovarData(refDict, transcripts);
 	}
 
+	/**
+	 * Download <code>src</code> to <code>dest</code> and check gzip files.
+	 *
+	 * @throws FileDownloadException
+	 *             on problems while downloading or with the downloaded file
+	 */
+	private void download(FileDownloader downloader, URL src, File dest) throws FileDownloadException {
+		LOGGER.info("Downloading {}", src);
+		downloader.copyURLToFile(src, dest);
+
+		if (dest.getName().endsWith(".gz")) {
+			checkGZ(dest);
+			LOGGER.info("Downloaded file {} looks like a valid gzip'ed file", new Object[] { dest.getName() });
+		}
+	}
+
+	/**
+	 * Wait for the download in <code>future</code> to finish.
+	 *
+	 * @throws FileDownloadException
+	 *             if the download failed or waiting was interrupted
+	 */
+	private void waitForDownload(Future<Void> future) throws FileDownloadException {
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new FileDownloadException("Interrupted while downloading files.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof FileDownloadException)
+				throw (FileDownloadException) e.getCause();
+			throw new FileDownloadException("Problem while downloading files.", e.getCause());
+		}
+	}
+
 	/**
 	 * Check whether the given file is a valid gzip file.
 	 *
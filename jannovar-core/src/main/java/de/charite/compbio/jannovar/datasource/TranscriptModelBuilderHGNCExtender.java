@@ -56,6 +56,19 @@ public class TranscriptModelBuilderHGNCExtender {
 	 * @throws JannovarException
 	 */
 	public void run(Map<String, TranscriptModelBuilder> builders) throws JannovarException {
+		run(builders, loadRecords());
+	}
+
+	/**
+	 * Parse the downloaded HGNC TSV file
+	 *
+	 * This does not touch any {@link TranscriptModelBuilder}, so it can run concurrently to building them.
+	 *
+	 * @return the {@link HGNCRecord}s from the file
+	 * @throws JannovarException
+	 *             on problems with parsing the file
+	 */
+	public ImmutableList<HGNCRecord> loadRecords() throws JannovarException {
 		// Get path of downloaded TSV file and parse it
 		String pathTSV;
 		try {
@@ -63,8 +76,18 @@ public class TranscriptModelBuilderHGNCExtender {
 		} catch (MalformedURLException e) {
 			throw new JannovarException("Could not parse URL " + HGNCParser.DOWNLOAD_URL, e);
 		}
-		final ImmutableList<HGNCRecord> hgncRecords = new HGNCParser(pathTSV).run();
+		return new HGNCParser(pathTSV).run();
+	}
 
+	/**
+	 * Augment the {@link TranscriptModelBuilder}s with HGNC information from records loaded before
+	 * 
+	 * @param builders
+	 *            to augment
+	 * @param hgncRecords
+	 *            {@link HGNCRecord}s as returned by {@link #loadRecords}
+	 */
+	public void run(Map<String, TranscriptModelBuilder> builders, List<HGNCRecord> hgncRecords) {
 		// Build data structure for easier access to the records
 		final HashMap<String, HGNCRecord> recordByGeneID = new HashMap<>();
 		for (HGNCRecord record : hgncRecords) {
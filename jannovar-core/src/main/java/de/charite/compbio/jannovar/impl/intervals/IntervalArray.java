@@ -2,9 +2,11 @@ package de.charite.compbio.jannovar.impl.intervals;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 
 import com.google.common.collect.ImmutableList;
 
@@ -14,6 +16,12 @@ import com.google.common.collect.ImmutableList;
  *
  * The query results are sorted lexicographically by <code>(begin, end)</code>.
  *
+ * The begin and end positions are additionally stored in flat <code>int</code> arrays that are used for the queries.
+ * The array sorted by begin position is interpreted as an implicit tree, the center of each range is the root of the
+ * subtree for this range. Using the methods taking a {@link QueryBuffer}, the queries do not allocate any objects.
+ * For queries in sorted order, a {@link Cursor} keeps the intervals overlapping with the previous query and only
+ * looks at the intervals between neighbouring queries.
+ *
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  */
 public final class IntervalArray<T> implements Serializable {
@@ -53,34 +61,248 @@ public final class IntervalArray<T> implements Serializable {
 	}
 
 	/**
-	 * Builder for {@link QueryResult}.
+	 * Reusable buffer for query results, for allocation-free queries.
+	 *
+	 * The buffer is cleared at the beginning of each query it is passed to. Objects of this class are not thread-safe
+	 * but can be reused for queries to different {@link IntervalArray} objects.
 	 */
-	private class QueryResultBuilder {
+	public static final class QueryBuffer<T> {
 		/** the values that overlapped with the given point or interval */
-		private ImmutableList.Builder<T> values = new ImmutableList.Builder<T>();
+		private final ArrayList<T> entries = new ArrayList<T>();
 		/** the value to the left of the given point */
 		private T left = null;
 		/** the value to the right of the given point */
 		private T right = null;
 
-		public QueryResult build() {
-			return new QueryResult(values.build(), left, right);
+		/** Reset buffer to empty state */
+		public void clear() {
+			entries.clear();
+			left = null;
+			right = null;
+		}
+
+		/** @return the values that overlapped with the query, do not modify */
+		public List<T> getEntries() {
+			return entries;
+		}
+
+		public T getLeft() {
+			return left;
+		}
+
+		public T getRight() {
+			return right;
+		}
+	}
+
+	/**
+	 * Cursor for queries with non-decreasing begin positions
+	 *
+	 * The cursor keeps the indices of the intervals that overlap with the begin position of the previous query (the
+	 * "active set"). When the begin position advances, the intervals starting in between are added and the ones ending
+	 * before are removed, such that neighbouring queries do not need a descent in the tree. The positions of the left
+	 * and right neighbours in the arrays sorted by end and begin position are advanced in the same way. Larger jumps
+	 * and queries left of the previous one fall back to a tree query for rebuilding the state. The results are the
+	 * same as for {@link IntervalArray#findOverlappingWithInterval(int, int, QueryBuffer)} and
+	 * {@link IntervalArray#findOverlappingWithPoint(int, QueryBuffer)}.
+	 *
+	 * Objects of this class are not thread-safe.
+	 */
+	public final class Cursor {
+		/** begin position of the previous query, {@link Integer#MIN_VALUE} before the first query */
+		private int position = Integer.MIN_VALUE;
+		/** number of intervals with begin position <code>&lt;= position</code> */
+		private int next = 0;
+		/** number of intervals with end position <code>&lt; position</code> */
+		private int endNext = 0;
+		/** sorted indices of the intervals overlapping with <code>position</code> */
+		private int[] active = new int[16];
+		/** number of entries in {@link #active} */
+		private int numActive = 0;
+		/** number of queries that rebuilt the active set with a tree query */
+		private long numSeeks = 0;
+
+		Cursor() {
+		}
+
+		/** Forget the state of the previous queries */
+		public void reset() {
+			position = Integer.MIN_VALUE;
+			next = 0;
+			endNext = 0;
+			numActive = 0;
+		}
+
+		/** @return begin position of the previous query, {@link Integer#MIN_VALUE} before the first query */
+		public int getPosition() {
+			return position;
+		}
+
+		/** @return number of queries that rebuilt the active set with a tree query */
+		public long getNumSeeks() {
+			return numSeeks;
+		}
+
+		/**
+		 * Query for all values with intervals overlapping with a given <code>point</code>, writing the result to
+		 * <code>buffer</code>
+		 *
+		 * @param point
+		 *            zero-based point for the query
+		 * @param buffer
+		 *            {@link QueryBuffer} to write the result to, cleared before the query
+		 */
+		public void findOverlappingWithPoint(int point, QueryBuffer<T> buffer) {
+			findOverlappingWithInterval(point, point + 1, buffer);
+		}
+
+		/**
+		 * Query for all values with intervals overlapping with a given interval, writing the result to
+		 * <code>buffer</code>
+		 *
+		 * @param begin
+		 *            zero-based begin position of the query interval
+		 * @param end
+		 *            zero-based end position of the query interval
+		 * @param buffer
+		 *            {@link QueryBuffer} to write the result to, cleared before the query
+		 */
+		@SuppressWarnings("unchecked")
+		public void findOverlappingWithInterval(int begin, int end, QueryBuffer<T> buffer) {
+			moveTo(begin);
+
+			buffer.clear();
+			for (int i = 0; i < numActive; ++i)
+				buffer.entries.add((T) values[active[i]]);
+			for (int i = next; i < begins.length && begins[i] < end; ++i)
+				if (begin < ends[i])
+					buffer.entries.add((T) values[i]);
+
+			if (buffer.entries.isEmpty()) {
+				// Intervals ending or beginning exactly at begin need the tie handling of the binary searches.
+				if (endNext < endsByEnd.length && endsByEnd[endNext] == begin)
+					buffer.left = findLeftNeighbor(begin);
+				else
+					buffer.left = (endNext == 0) ? null : (T) valuesByEnd[endNext - 1];
+				if (next > 0 && begins[next - 1] == begin)
+					buffer.right = findRightNeighbor(begin);
+				else
+					buffer.right = (next == begins.length) ? null : (T) values[next];
+			}
+		}
+
+		/** Update the active set to the intervals overlapping with <code>pos</code> */
+		private void moveTo(int pos) {
+			if (pos == position)
+				return;
+			// Jumping over many intervals or going back, rebuild active set.
+			if (pos < position || (next + MAX_CURSOR_SCAN < begins.length && begins[next + MAX_CURSOR_SCAN] <= pos)) {
+				seek(pos);
+				return;
+			}
+
+			// Remove intervals ending left of pos and add the ones beginning in (position, pos].
+			int j = 0;
+			for (int i = 0; i < numActive; ++i)
+				if (ends[active[i]] > pos)
+					active[j++] = active[i];
+			numActive = j;
+			for (; next < begins.length && begins[next] <= pos; ++next)
+				if (ends[next] > pos)
+					addActive(next);
+			if (endNext + MAX_CURSOR_SCAN < endsByEnd.length && endsByEnd[endNext + MAX_CURSOR_SCAN] < pos)
+				endNext = lowerBound(endsByEnd, pos);
+			else
+				while (endNext < endsByEnd.length && endsByEnd[endNext] < pos)
+					++endNext;
+			position = pos;
+		}
+
+		/** Rebuild active set for <code>pos</code> using a tree query */
+		private void seek(int pos) {
+			++numSeeks;
+			numActive = 0;
+			collectOverlappingWithPoint(0, begins.length, begins.length / 2, pos, this);
+			next = lowerBound(begins, pos + 1);
+			endNext = lowerBound(endsByEnd, pos);
+			position = pos;
+		}
+
+		/** Append <code>idx</code> to {@link #active} */
+		private void addActive(int idx) {
+			if (numActive == active.length)
+				active = Arrays.copyOf(active, 2 * active.length);
+			active[numActive++] = idx;
 		}
 	}
 
+	/** Maximal number of intervals that a {@link Cursor} scans for advancing instead of a tree query */
+	private static final int MAX_CURSOR_SCAN = 64;
+
 	/** list of {@link Interval} objects, sorted by begin position */
 	private final ImmutableList<Interval<T>> intervals;
 
 	/** list of {@link Interval} objects, sorted by end position */
 	private final ImmutableList<Interval<T>> intervalsEnd;
 
+	/** begin positions of {@link #intervals} */
+	private final transient int[] begins;
+
+	/** end positions of {@link #intervals} */
+	private final transient int[] ends;
+
+	/** maximal end positions in the implicit subtrees of {@link #intervals} */
+	private final transient int[] maxEnds;
+
+	/** values of {@link #intervals} */
+	private final transient Object[] values;
+
+	/** end positions of {@link #intervalsEnd} */
+	private final transient int[] endsByEnd;
+
+	/** values of {@link #intervalsEnd} */
+	private final transient Object[] valuesByEnd;
+
 	/**
 	 * Construct object with the given values.
 	 */
 	public IntervalArray(Collection<T> elements, IntervalEndExtractor<T> extractor) {
-		IntervalListBuilder.TwoIntervalList pair = new IntervalListBuilder(elements, extractor).build();
+		this(new IntervalListBuilder<T>(elements, extractor).build());
+	}
+
+	/**
+	 * Construct object from the given interval lists, flattening them into the primitive arrays.
+	 */
+	private IntervalArray(TwoIntervalList<T> pair) {
 		this.intervals = pair.intervals;
 		this.intervalsEnd = pair.intervalsEnd;
+
+		final int n = intervals.size();
+		this.begins = new int[n];
+		this.ends = new int[n];
+		this.maxEnds = new int[n];
+		this.values = new Object[n];
+		for (int i = 0; i < n; ++i) {
+			final Interval<T> itv = intervals.get(i);
+			begins[i] = itv.getBegin();
+			ends[i] = itv.getEnd();
+			maxEnds[i] = itv.getMaxEnd();
+			values[i] = itv.getValue();
+		}
+
+		this.endsByEnd = new int[n];
+		this.valuesByEnd = new Object[n];
+		for (int i = 0; i < n; ++i) {
+			endsByEnd[i] = intervalsEnd.get(i).getEnd();
+			valuesByEnd[i] = intervalsEnd.get(i).getValue();
+		}
+	}
+
+	/**
+	 * Rebuild the primitive arrays after deserialization.
+	 */
+	private Object readResolve() {
+		return new IntervalArray<T>(new TwoIntervalList<T>(intervals, intervalsEnd));
 	}
 
 	/** @return {@link Interval}s, sorted by begin position */
@@ -98,6 +320,11 @@ public final class IntervalArray<T> implements Serializable {
 		return intervals.size();
 	}
 
+	/** @return new {@link Cursor} for queries in sorted order */
+	public Cursor newCursor() {
+		return new Cursor();
+	}
+
 	/**
 	 * Query the encoded interval tree for all values with intervals overlapping
 	 * with a given <code>point</code>.
@@ -108,51 +335,56 @@ public final class IntervalArray<T> implements Serializable {
 	 *         <code>point</code>
 	 */
 	public QueryResult findOverlappingWithPoint(int point) {
-		QueryResultBuilder resultBuilder = new QueryResultBuilder();
-		findOverlappingWithPoint(0, intervals.size(), intervals.size() / 2, point, resultBuilder);
+		final QueryBuffer<T> buffer = new QueryBuffer<T>();
+		findOverlappingWithPoint(point, buffer);
+		return new QueryResult(ImmutableList.copyOf(buffer.entries), buffer.left, buffer.right);
+	}
 
-		// if overlapping interval was found then return this set
-		QueryResult result = resultBuilder.build();
-		if (result.entries.size() > 0)
-			return result;
+	/**
+	 * Query the encoded interval tree for all values with intervals overlapping
+	 * with a given <code>point</code>, writing the result to <code>buffer</code>.
+	 *
+	 * The left and right neighbors are only set if there is no overlapping interval.
+	 *
+	 * @param point
+	 *            zero-based point for the query
+	 * @param buffer
+	 *            {@link QueryBuffer} to write the result to, cleared before the query
+	 */
+	public void findOverlappingWithPoint(int point, QueryBuffer<T> buffer) {
+		buffer.clear();
+		findOverlappingWithPoint(0, values.length, values.length / 2, point, buffer.entries);
 
 		// otherwise, find left and right neighbour
-		resultBuilder.left = findLeftNeighbor(point);
-		resultBuilder.right = findRightNeighbor(point);
-		return resultBuilder.build();
+		if (buffer.entries.isEmpty()) {
+			buffer.left = findLeftNeighbor(point);
+			buffer.right = findRightNeighbor(point);
+		}
 	}
 
 	/**
 	 * @return right neighbor of the given point if any, or <code>null</code>
 	 */
+	@SuppressWarnings("unchecked")
 	private T findRightNeighbor(int point) {
-		final Interval<T> query = new Interval<T>(point, point, null, point);
-		int idx = Collections.binarySearch(intervals, query, new Comparator<Interval<T>>() {
-			public int compare(Interval<T> o1, Interval<T> o2) {
-				return (o1.getBegin() - o2.getBegin());
-			}
-		});
+		int idx = binarySearch(begins, point);
 
 		if (idx >= 0)
 			throw new RuntimeException("Found element although in right neighbor search!");
 		idx = -(idx + 1); // convert to insertion point
 
-		if (idx == intervals.size())
+		if (idx == values.length)
 			return null;
 		else
-			return intervals.get(idx).getValue();
+			return (T) values[idx];
 	}
 
 	/**
 	 * @return left neighbor of the given point if any, or <code>null</code>
 	 */
+	@SuppressWarnings("unchecked")
 	private T findLeftNeighbor(int point) {
-		final Interval<T> query = new Interval<T>(point, point, null, point);
-		int idx = Collections.binarySearch(intervalsEnd, query, new Comparator<Interval<T>>() {
-			public int compare(Interval<T> o1, Interval<T> o2) {
-				return (o1.getEnd() - o2.getEnd());
-			}
-		});
+		int idx = binarySearch(endsByEnd, point);
 
 		if (idx >= 0)
 			idx += 1;
@@ -162,12 +394,66 @@ public final class IntervalArray<T> implements Serializable {
 		if (idx == 0)
 			return null;
 		else
-			return intervalsEnd.get(idx - 1).getValue();
+			return (T) valuesByEnd[idx - 1];
+	}
+
+	/**
+	 * Binary search for <code>key</code> in the sorted array <code>arr</code>, same contract as
+	 * {@link java.util.Collections#binarySearch}, also in the case of duplicates.
+	 */
+	private static int binarySearch(int[] arr, int key) {
+		int low = 0;
+		int high = arr.length - 1;
+
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final int midVal = arr[mid];
+			if (midVal < key)
+				low = mid + 1;
+			else if (midVal > key)
+				high = mid - 1;
+			else
+				return mid; // key found
+		}
+		return -(low + 1); // key not found
+	}
+
+	/** @return number of entries in the sorted array <code>arr</code> that are less than <code>key</code> */
+	private static int lowerBound(int[] arr, int key) {
+		int low = 0;
+		int high = arr.length;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (arr[mid] < key)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	/**
+	 * Same as {@link #findOverlappingWithPoint(int, int, int, int, ArrayList)} but adds the indices to the active set
+	 * of <code>cursor</code>.
+	 */
+	private void collectOverlappingWithPoint(int begin, int end, int center, int point, Cursor cursor) {
+		if (begin >= end)
+			return;
+		if (maxEnds[center] <= point)
+			return;
+		if (begin < center)
+			collectOverlappingWithPoint(begin, center, begin + (center - begin) / 2, point, cursor);
+		if (begins[center] <= point && point < ends[center])
+			cursor.addActive(center);
+		if (point < begins[center])
+			return;
+		if (center + 1 < end)
+			collectOverlappingWithPoint(center + 1, end, (center + 1) + (end - (center + 1)) / 2, point, cursor);
 	}
 
 	/**
 	 * Implementation of in-order traversal of the encoded tree with pruning
-	 * using {@link Interval#maxEnd}.
+	 * using {@link #maxEnds}.
 	 *
 	 * @param begin
 	 *            begin index of subtree to search through
@@ -178,24 +464,23 @@ public final class IntervalArray<T> implements Serializable {
 	 * @param point
 	 *            point to use for querying
 	 * @param result
-	 *            {@link QueryResultBuilder} to add values to
+	 *            list to add values to
 	 */
-	private void findOverlappingWithPoint(int begin, int end, int center, int point, QueryResultBuilder result) {
+	@SuppressWarnings("unchecked")
+	private void findOverlappingWithPoint(int begin, int end, int center, int point, ArrayList<T> result) {
 		if (begin >= end) // handle base case of empty interval
 			return;
 
-		final Interval<T> node = intervals.get(center); // shortcut to current node
-
-		if (node.allLeftOf(point)) // point is right of the rightmost point of any interval in this node
+		if (maxEnds[center] <= point) // point is right of the rightmost point of any interval in this node
 			return;
 
 		if (begin < center) // recurse left
 			findOverlappingWithPoint(begin, center, begin + (center - begin) / 2, point, result);
 
-		if (node.contains(point)) // check this node
-			result.values.add(node.getValue());
+		if (begins[center] <= point && point < ends[center]) // check this node
+			result.add((T) values[center]);
 
-		if (node.isRightOf(point)) // point is left of the start of the interval, can't to the right
+		if (point < begins[center]) // point is left of the start of the interval, can't to the right
 			return;
 
 		if (center + 1 < end) // recurse right
@@ -214,23 +499,38 @@ public final class IntervalArray<T> implements Serializable {
 	 *         <code>[begin, end)</code>
 	 */
 	public QueryResult findOverlappingWithInterval(int begin, int end) {
-		QueryResultBuilder resultBuilder = new QueryResultBuilder();
-		findOverlappingWithInterval(0, intervals.size(), intervals.size() / 2, begin, end, resultBuilder);
+		final QueryBuffer<T> buffer = new QueryBuffer<T>();
+		findOverlappingWithInterval(begin, end, buffer);
+		return new QueryResult(ImmutableList.copyOf(buffer.entries), buffer.left, buffer.right);
+	}
 
-		// if overlapping interval was found then return this set
-		QueryResult result = resultBuilder.build();
-		if (result.entries.size() > 0)
-			return result;
+	/**
+	 * Query the encoded interval tree for all values with intervals overlapping
+	 * with a given <code>interval</code>, writing the result to <code>buffer</code>.
+	 *
+	 * The left and right neighbors are only set if there is no overlapping interval.
+	 *
+	 * @param begin
+	 *            zero-based begin position of the query interval
+	 * @param end
+	 *            zero-based end position of the query interval
+	 * @param buffer
+	 *            {@link QueryBuffer} to write the result to, cleared before the query
+	 */
+	public void findOverlappingWithInterval(int begin, int end, QueryBuffer<T> buffer) {
+		buffer.clear();
+		findOverlappingWithInterval(0, values.length, values.length / 2, begin, end, buffer.entries);
 
 		// otherwise, find left and right neighbour, can use begin for all queries, have no overlap
-		resultBuilder.left = findLeftNeighbor(begin);
-		resultBuilder.right = findRightNeighbor(begin);
-		return resultBuilder.build();
+		if (buffer.entries.isEmpty()) {
+			buffer.left = findLeftNeighbor(begin);
+			buffer.right = findRightNeighbor(begin);
+		}
 	}
 
 	/**
 	 * Implementation of in-order traversal of the encoded tree with pruning
-	 * using {@link Interval#maxEnd}.
+	 * using {@link #maxEnds}.
 	 *
 	 * @param begin
 	 *            begin index of subtree to search through
@@ -243,25 +543,24 @@ public final class IntervalArray<T> implements Serializable {
 	 * @param iEnd
 	 *            interval end to use for querying
 	 * @param result
-	 *            {@link QueryResultBuilder} to add values to
+	 *            list to add values to
 	 */
+	@SuppressWarnings("unchecked")
 	private void findOverlappingWithInterval(int begin, int end, int center, int iBegin, int iEnd,
-			QueryResultBuilder result) {
+			ArrayList<T> result) {
 		if (begin >= end) // handle base case of empty interval
 			return;
 
-		final Interval<T> node = intervals.get(center); // shortcut to current node
-
-		if (node.allLeftOf(iBegin)) // iBegin is right of the rightmost point of any interval in this node
+		if (maxEnds[center] <= iBegin) // iBegin is right of the rightmost point of any interval in this node
 			return;
 
 		if (begin < center) // recurse left
 			findOverlappingWithInterval(begin, center, begin + (center - begin) / 2, iBegin, iEnd, result);
 
-		if (node.overlapsWith(iBegin, iEnd)) // check this node
-			result.values.add(node.getValue());
+		if (iBegin < ends[center] && begins[center] < iEnd) // check this node
+			result.add((T) values[center]);
 
-		if (node.isRightOf(iEnd - 1)) // last interval entry is left of the start of the interval, can't to the right
+		if (iEnd - 1 < begins[center]) // last interval entry is left of the start of the interval, can't to the right
 			return;
 
 		if (center + 1 < end) // recurse right
@@ -269,19 +568,22 @@ public final class IntervalArray<T> implements Serializable {
 	}
 
 	/**
-	 * Helper class for building the interval lists.
+	 * Pair of interval lists, sorted by begin and end position.
 	 */
-	private class IntervalListBuilder {
-
-		class TwoIntervalList {
-			private final ImmutableList<Interval<T>> intervals;
-			private final ImmutableList<Interval<T>> intervalsEnd;
+	private static class TwoIntervalList<T> {
+		private final ImmutableList<Interval<T>> intervals;
+		private final ImmutableList<Interval<T>> intervalsEnd;
 
-			public TwoIntervalList(ImmutableList<Interval<T>> intervals, ImmutableList<Interval<T>> intervalsEnd) {
-				this.intervals = intervals;
-				this.intervalsEnd = intervalsEnd;
-			}
+		public TwoIntervalList(ImmutableList<Interval<T>> intervals, ImmutableList<Interval<T>> intervalsEnd) {
+			this.intervals = intervals;
+			this.intervalsEnd = intervalsEnd;
 		}
+	}
+
+	/**
+	 * Helper class for building the interval lists.
+	 */
+	private static class IntervalListBuilder<T> {
 
 		private final Collection<T> elements;
 		private final IntervalEndExtractor<T> extractor;
@@ -295,11 +597,11 @@ public final class IntervalArray<T> implements Serializable {
 			this.extractor = extractor;
 		}
 
-		public TwoIntervalList build() {
+		public TwoIntervalList<T> build() {
 			buildIntervals();
 			buildIntervalsEnd();
 
-			return new TwoIntervalList(intervals, intervalsEnd);
+			return new TwoIntervalList<T>(intervals, intervalsEnd);
 		}
 
 		/**
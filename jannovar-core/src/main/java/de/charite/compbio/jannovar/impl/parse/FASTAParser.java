@@ -86,6 +86,21 @@ public final class FASTAParser {
 		return buildRecord();
 	}
 
+	/**
+	 * Reads all remaining records from the FASTA file.
+	 * 
+	 * @return list of the remaining {@link FASTARecord}s
+	 * @throws IOException
+	 *             on problems with reading the FASTA file
+	 */
+	public List<FASTARecord> readAll() throws IOException {
+		final List<FASTARecord> result = new ArrayList<>();
+		FASTARecord record;
+		while ((record = next()) != null)
+			result.add(record);
+		return result;
+	}
+
 	/** Build record from {@link #recordBuffer} */
 	private FASTARecord buildRecord() {
 		if (recordBuffer.isEmpty())
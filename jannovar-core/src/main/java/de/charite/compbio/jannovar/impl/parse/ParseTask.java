@@ -0,0 +1,79 @@
+package de.charite.compbio.jannovar.impl.parse;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parsing step that runs in a background thread, allowing to parse independent input files concurrently
+ *
+ * Exceptions thrown by the step are rethrown by {@link #get}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class ParseTask<T> {
+
+	/** Counter for naming the background threads */
+	private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+	/**
+	 * Body of a parsing step
+	 */
+	@FunctionalInterface
+	public interface Step<T> {
+		/**
+		 * @return result of the step
+		 * @throws TranscriptParseException
+		 *             on problems with parsing
+		 */
+		T run() throws TranscriptParseException;
+	}
+
+	/** The task running the step */
+	private final FutureTask<T> task;
+
+	private ParseTask(Step<T> step) {
+		this.task = new FutureTask<>(() -> step.run());
+	}
+
+	/**
+	 * Start running <code>step</code> in a new background thread
+	 *
+	 * @param step
+	 *            the parsing step to run
+	 * @return {@link ParseTask} for obtaining the result
+	 */
+	public static <T> ParseTask<T> start(Step<T> step) {
+		final ParseTask<T> result = new ParseTask<>(step);
+		final Thread thread = new Thread(result.task, "jannovar-parse-" + THREAD_COUNTER.incrementAndGet());
+		thread.setDaemon(true);
+		thread.start();
+		return result;
+	}
+
+	/**
+	 * Wait for the step to finish
+	 *
+	 * @return result of the step
+	 * @throws TranscriptParseException
+	 *             if the step failed with a {@link TranscriptParseException} or waiting was interrupted
+	 */
+	public T get() throws TranscriptParseException {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TranscriptParseException("Interrupted while waiting for parsing step", e);
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof TranscriptParseException)
+				throw (TranscriptParseException) cause;
+			else if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			else if (cause instanceof Error)
+				throw (Error) cause;
+			throw new TranscriptParseException("Problem in parsing step", cause);
+		}
+	}
+
+}
@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.ini4j.Profile.Section;
 import org.slf4j.Logger;
@@ -25,8 +26,10 @@ import de.charite.compbio.jannovar.UncheckedJannovarException;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
 import de.charite.compbio.jannovar.datasource.TranscriptModelBuilderHGNCExtender;
 import de.charite.compbio.jannovar.hgnc.AltGeneIDType;
+import de.charite.compbio.jannovar.hgnc.HGNCRecord;
 import de.charite.compbio.jannovar.impl.parse.FASTAParser;
 import de.charite.compbio.jannovar.impl.parse.FASTARecord;
+import de.charite.compbio.jannovar.impl.parse.ParseTask;
 import de.charite.compbio.jannovar.impl.parse.TranscriptParseException;
 import de.charite.compbio.jannovar.impl.parse.TranscriptParser;
 import de.charite.compbio.jannovar.impl.parse.gtfgff.FeatureRecord;
@@ -78,17 +81,25 @@ public class RefSeqParser implements TranscriptParser {
 
 	@Override
 	public ImmutableList<TranscriptModel> run() throws TranscriptParseException {
+		// Parse the HGNC and FASTA files in the background while building the transcripts from the GFF3 file
+		final TranscriptModelBuilderHGNCExtender hgncExtender = new TranscriptModelBuilderHGNCExtender(basePath,
+				r -> Lists.newArrayList(r.getEntrezID()), tx -> tx.getGeneID());
+		final ParseTask<ImmutableList<HGNCRecord>> hgncTask = ParseTask.start(() -> {
+			try {
+				return hgncExtender.loadRecords();
+			} catch (JannovarException e) {
+				throw new UncheckedJannovarException("Problem extending transcripts with HGNC information", e);
+			}
+		});
+		final String pathFASTA = PathUtil.join(basePath, getINIFileName("rna"));
+		final ParseTask<List<FASTARecord>> fastaTask = ParseTask.start(() -> readFASTA(pathFASTA));
+
 		// Load features from GFF3 file, clustered by the gene they belong to
 		final String pathGFF = PathUtil.join(basePath, getINIFileName("gff"));
 		Map<String, TranscriptModelBuilder> builders = recordsToBuilders(loadRecords(pathGFF));
 
 		// Augment information in builders with
-		try {
-			new TranscriptModelBuilderHGNCExtender(basePath, r -> Lists.newArrayList(r.getEntrezID()),
-					tx -> tx.getGeneID()).run(builders);
-		} catch (JannovarException e) {
-			throw new UncheckedJannovarException("Problem extending transcripts with HGNC information", e);
-		}
+		hgncExtender.run(builders, hgncTask.get());
 
 		// Use Entrez IDs from RefSeq if no HGNC annotation
 		for (TranscriptModelBuilder val : builders.values()) {
@@ -99,9 +110,8 @@ public class RefSeqParser implements TranscriptParser {
 			}
 		}
 
-		// Load the FASTA file and assign to the builders.
-		final String pathFASTA = PathUtil.join(basePath, getINIFileName("rna"));
-		loadFASTA(builders, pathFASTA);
+		// Assign the sequences from the FASTA file to the builders.
+		loadFASTA(builders, fastaTask.get());
 
 		// Create final list of TranscriptInfos.
 		ImmutableList.Builder<TranscriptModel> result = new ImmutableList.Builder<TranscriptModel>();
@@ -111,13 +121,29 @@ public class RefSeqParser implements TranscriptParser {
 	}
 
 	/**
-	 * Load FASTA from pathFASTA and set the sequence into builders.
+	 * Read all records from the FASTA file at pathFASTA.
 	 * 
 	 * @throws TranscriptParseException
 	 *             on problems with parsing the FASTA
 	 */
-	private void loadFASTA(Map<String, TranscriptModelBuilder> builders, String pathFASTA)
-			throws TranscriptParseException {
+	private static List<FASTARecord> readFASTA(String pathFASTA) throws TranscriptParseException {
+		FASTAParser fastaParser;
+		try {
+			fastaParser = new FASTAParser(new File(pathFASTA));
+		} catch (IOException e) {
+			throw new TranscriptParseException("Problem with opening FASTA file", e);
+		}
+		try {
+			return fastaParser.readAll();
+		} catch (IOException e) {
+			throw new TranscriptParseException("Problem with reading FASTA file", e);
+		}
+	}
+
+	/**
+	 * Set the sequences from the FASTA records into builders.
+	 */
+	private void loadFASTA(Map<String, TranscriptModelBuilder> builders, List<FASTARecord> records) {
 		// First, build mapping from RNA accession to builder
 		Map<String, TranscriptModelBuilder> txMap = new HashMap<>();
 		for (Entry<String, TranscriptModelBuilder> entry : builders.entrySet())
@@ -127,39 +153,28 @@ public class RefSeqParser implements TranscriptParser {
 		Set<String> missingSequence = new HashSet<>();
 		missingSequence.addAll(builders.keySet());
 
-		// Next iterate over the FASTA file and assign sequence to the transcript
-		FASTAParser fastaParser;
-		try {
-			fastaParser = new FASTAParser(new File(pathFASTA));
-		} catch (IOException e) {
-			throw new TranscriptParseException("Problem with opening FASTA file", e);
-		}
-		FASTARecord record;
-		try {
-			while ((record = fastaParser.next()) != null) {
-				final List<String> tokens = Splitter.on('|').splitToList(record.getID());
-				if (tokens.size() != 5) {
-					LOGGER.error("ID {} in FASTA did not have 4 fields", new Object[] { record.getID() });
-					continue;
-				}
+		// Next iterate over the FASTA records and assign sequence to the transcript
+		for (FASTARecord record : records) {
+			final List<String> tokens = Splitter.on('|').splitToList(record.getID());
+			if (tokens.size() != 5) {
+				LOGGER.error("ID {} in FASTA did not have 4 fields", new Object[] { record.getID() });
+				continue;
+			}
 
-				final String accession = tokens.get(3);
-				final TranscriptModelBuilder builder = txMap.get(accession);
-				if (builder == null) {
-					// This is not a warning as we observed this for some records regularly
-					LOGGER.debug("ID {} from FASTA did not map to transcript", new Object[] { accession });
-					continue;
-				}
+			final String accession = tokens.get(3);
+			final TranscriptModelBuilder builder = txMap.get(accession);
+			if (builder == null) {
+				// This is not a warning as we observed this for some records regularly
+				LOGGER.debug("ID {} from FASTA did not map to transcript", new Object[] { accession });
+				continue;
+			}
 
-				assert missingSequence.contains(builder.getAccession());
-				missingSequence.remove(builder.getAccession());
+			assert missingSequence.contains(builder.getAccession());
+			missingSequence.remove(builder.getAccession());
 
-				builder.setAccession(accession);
-				builder.setSequence(record.getSequence());
-				LOGGER.debug("Found sequence for transcript {}", new Object[] { builder.getAccession() });
-			}
-		} catch (IOException e) {
-			throw new TranscriptParseException("Problem with reading FASTA file", e);
+			builder.setAccession(accession);
+			builder.setSequence(record.getSequence());
+			LOGGER.debug("Found sequence for transcript {}", new Object[] { builder.getAccession() });
 		}
 
 		LOGGER.info("Ignoring {} transcripts without sequence.", new Object[] { missingSequence.size() });
@@ -182,9 +197,12 @@ public class RefSeqParser implements TranscriptParser {
 	 */
 	private Map<String, TranscriptModelBuilder> recordsToBuilders(
 			HashMap<String, ArrayList<FeatureRecord>> recordsByGene) {
+		// Process the genes in parallel and merge the results in the original order
+		final List<Map<String, TranscriptModelBuilder>> perGene = recordsByGene.values().parallelStream()
+				.map(records -> processGeneGFFRecords(records)).collect(Collectors.toList());
 		Map<String, TranscriptModelBuilder> result = new HashMap<>();
-		for (Entry<String, ArrayList<FeatureRecord>> entry : recordsByGene.entrySet())
-			result.putAll(processGeneGFFRecords(entry.getValue()));
+		for (Map<String, TranscriptModelBuilder> builders : perGene)
+			result.putAll(builders);
 		return result;
 	}
 
@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.zip.GZIPInputStream;
 
@@ -24,6 +25,8 @@ import de.charite.compbio.jannovar.UncheckedJannovarException;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
 import de.charite.compbio.jannovar.datasource.TranscriptModelBuilderHGNCExtender;
 import de.charite.compbio.jannovar.hgnc.AltGeneIDType;
+import de.charite.compbio.jannovar.hgnc.HGNCRecord;
+import de.charite.compbio.jannovar.impl.parse.ParseTask;
 import de.charite.compbio.jannovar.impl.parse.TranscriptParseException;
 import de.charite.compbio.jannovar.impl.parse.TranscriptParser;
 import de.charite.compbio.jannovar.impl.parse.TranscriptSupportLevelsSetterFromLengths;
@@ -134,23 +137,47 @@ public class UCSCParser implements TranscriptParser {
 		if (getINIFileName("knownCanonical") != null && !"".equals(getINIFileName("knownCanonical")))
 			knownCanonicalPath = PathUtil.join(basePath, getINIFileName("knownCanonical"));
 
-		// Parse the UCSC files.
+		// Parse the HGNC file in the background.
+		final TranscriptModelBuilderHGNCExtender hgncExtender = new TranscriptModelBuilderHGNCExtender(basePath,
+				r -> Lists.newArrayList(r.getEntrezID()), tx -> tx.getGeneID());
+		final ParseTask<ImmutableList<HGNCRecord>> hgncTask = ParseTask.start(() -> {
+			try {
+				return hgncExtender.loadRecords();
+			} catch (JannovarException e) {
+				throw new UncheckedJannovarException("Problem extending transcripts with HGNC information", e);
+			}
+		});
+
+		// Parse the UCSC files, the remaining files set different properties of the builders from knownGene and
+		// are parsed concurrently.
 		parseKnownGeneFile(knownGenePath);
-		parseKnownGeneMrna(knownGeneMrnaPath);
-		parseKnownGeneXref(kgXrefPath);
-		parseKnown2LocusLink(knownToLocusLinkPath);
-		if (knownCanonicalPath != null)
-			parseKnownCanonical(knownCanonicalPath);
-		else
+		final List<ParseTask<Void>> tasks = new ArrayList<>();
+		tasks.add(ParseTask.start(() -> {
+			parseKnownGeneMrna(knownGeneMrnaPath);
+			return null;
+		}));
+		tasks.add(ParseTask.start(() -> {
+			parseKnownGeneXref(kgXrefPath);
+			return null;
+		}));
+		tasks.add(ParseTask.start(() -> {
+			parseKnown2LocusLink(knownToLocusLinkPath);
+			return null;
+		}));
+		if (knownCanonicalPath != null) {
+			final String path = knownCanonicalPath;
+			tasks.add(ParseTask.start(() -> {
+				parseKnownCanonical(path);
+				return null;
+			}));
+		}
+		for (ParseTask<Void> task : tasks)
+			task.get();
+		if (knownCanonicalPath == null)
 			TranscriptSupportLevelsSetterFromLengths.run(this.knownGeneMap.values());
 
 		// Augment information in builders with
-		try {
-			new TranscriptModelBuilderHGNCExtender(basePath, r -> Lists.newArrayList(r.getEntrezID()),
-					tx -> tx.getGeneID()).run(this.knownGeneMap);
-		} catch (JannovarException e) {
-			throw new UncheckedJannovarException("Problem extending transcripts with HGNC information", e);
-		}
+		hgncExtender.run(this.knownGeneMap, hgncTask.get());
 
 		// Build result list.
 		ImmutableList.Builder<TranscriptModel> result = new ImmutableList.Builder<TranscriptModel>();
@@ -181,7 +208,7 @@ public class UCSCParser implements TranscriptParser {
 	 * @return <code>false</code> if known problems have been found
 	 */
 	private boolean checkTranscriptInfo(TranscriptModel info) {
-		if (info.transcriptLength() > info.getSequence().length()) {
+		if (info.transcriptLength() > info.getPackedSequence().length()) {
 			LOGGER.debug("Transcript {} is indicated to be longer than its sequence. Ignoring.", info.getAccession());
 			return false;
 		}
@@ -0,0 +1,202 @@
+package de.charite.compbio.jannovar.mendel;
+
+import java.util.Collection;
+import java.util.Map.Entry;
+import java.util.function.Predicate;
+
+import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.pedigree.Pedigree;
+import de.charite.compbio.jannovar.pedigree.Person;
+
+/**
+ * Columnar representation of the {@link Genotype}s from a {@link GenotypeCalls} for the members of a {@link Pedigree}
+ *
+ * There is one bit set for each of the {@link Genotype} predicates heterozygous, homozygous alternative, homozygous
+ * reference and not observed. Bit <code>i</code> of a bit set corresponds to the member with index <code>i</code> in
+ * {@link Pedigree#getMembers()} and is set if the member's genotype fulfills the predicate. As for
+ * {@link GenotypeCalls#getGenotypeForSample}, members without a genotype in the calls are not observed. Note that, as
+ * for {@link Genotype}, the predicates are not exclusive (e.g., "0/." is both heterozygous and homozygous reference).
+ *
+ * Together with member masks built through {@link #buildMask}, the Mendelian compatibility rules can then be evaluated
+ * for all members at once, 64 members per machine word.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@Immutable
+public final class GenotypeBitSets {
+
+	/** The pedigree that the bit sets were built for */
+	private final Pedigree pedigree;
+	/** Members with heterozygous genotype */
+	private final long[] het;
+	/** Members with homozygous alternative genotype */
+	private final long[] homAlt;
+	/** Members with homozygous reference genotype */
+	private final long[] homRef;
+	/** Members with unobserved genotype */
+	private final long[] notObserved;
+
+	/**
+	 * Build bit sets for the members of <code>pedigree</code>, samples from <code>calls</code> not in the pedigree are
+	 * ignored
+	 *
+	 * @param pedigree
+	 *            {@link Pedigree} whose member indices to use
+	 * @param calls
+	 *            {@link GenotypeCalls} to build the bit sets for
+	 */
+	public GenotypeBitSets(Pedigree pedigree, GenotypeCalls calls) {
+		this.pedigree = pedigree;
+		final int numWords = numWords(pedigree.getNMembers());
+		this.het = new long[numWords];
+		this.homAlt = new long[numWords];
+		this.homRef = new long[numWords];
+		this.notObserved = buildMask(pedigree, p -> true);
+
+		for (Entry<String, Genotype> entry : calls) {
+			final Pedigree.IndexedPerson member = pedigree.getNameToMember().get(entry.getKey());
+			if (member == null)
+				continue;
+			final int idx = member.getIdx();
+			final Genotype gt = entry.getValue();
+			if (!gt.isNotObserved())
+				clear(notObserved, idx);
+			if (gt.isHet())
+				set(het, idx);
+			if (gt.isHomAlt())
+				set(homAlt, idx);
+			if (gt.isHomRef())
+				set(homRef, idx);
+		}
+	}
+
+	/** @return the pedigree that the bit sets were built for */
+	public Pedigree getPedigree() {
+		return pedigree;
+	}
+
+	/** @return whether any member in <code>mask</code> is heterozygous */
+	public boolean anyHet(long[] mask) {
+		return intersects(het, mask);
+	}
+
+	/** @return whether any member in <code>mask</code> is homozygous alternative */
+	public boolean anyHomAlt(long[] mask) {
+		return intersects(homAlt, mask);
+	}
+
+	/** @return whether any member in <code>mask</code> is homozygous reference */
+	public boolean anyHomRef(long[] mask) {
+		return intersects(homRef, mask);
+	}
+
+	/** @return whether any member in <code>mask</code> is not observed */
+	public boolean anyNotObserved(long[] mask) {
+		return intersects(notObserved, mask);
+	}
+
+	/** @return mask of the members in <code>mask</code> that are heterozygous */
+	public long[] hetMembers(long[] mask) {
+		final long[] result = new long[mask.length];
+		for (int i = 0; i < mask.length; ++i)
+			result[i] = het[i] & mask[i];
+		return result;
+	}
+
+	/** @return whether the member with index <code>idx</code> is heterozygous */
+	public boolean isHet(int idx) {
+		return isSet(het, idx);
+	}
+
+	/** @return whether the member with index <code>idx</code> is homozygous alternative */
+	public boolean isHomAlt(int idx) {
+		return isSet(homAlt, idx);
+	}
+
+	/** @return whether the member with index <code>idx</code> is homozygous reference */
+	public boolean isHomRef(int idx) {
+		return isSet(homRef, idx);
+	}
+
+	/** @return whether the member with index <code>idx</code> is not observed */
+	public boolean isNotObserved(int idx) {
+		return isSet(notObserved, idx);
+	}
+
+	/** @return mask for the members of <code>pedigree</code> without any bit set */
+	public static long[] emptyMask(Pedigree pedigree) {
+		return new long[numWords(pedigree.getNMembers())];
+	}
+
+	/**
+	 * Build member mask for use with the <code>any*()</code> functions
+	 *
+	 * @param pedigree
+	 *            {@link Pedigree} whose member indices to use
+	 * @param predicate
+	 *            selects the members to set the bits for
+	 * @return mask with the bits of the selected members set
+	 */
+	public static long[] buildMask(Pedigree pedigree, Predicate<Person> predicate) {
+		final long[] result = emptyMask(pedigree);
+		int idx = 0;
+		for (Person person : pedigree.getMembers()) {
+			if (predicate.test(person))
+				set(result, idx);
+			idx += 1;
+		}
+		return result;
+	}
+
+	/**
+	 * Build member mask for use with the <code>any*()</code> functions
+	 *
+	 * @param pedigree
+	 *            {@link Pedigree} whose member indices to use
+	 * @param names
+	 *            names of the members to set the bits for, names of non-members are ignored
+	 * @return mask with the bits of the selected members set
+	 */
+	public static long[] buildMask(Pedigree pedigree, Collection<String> names) {
+		final long[] result = emptyMask(pedigree);
+		for (String name : names)
+			if (pedigree.hasPerson(name))
+				set(result, pedigree.getNameToMember().get(name).getIdx());
+		return result;
+	}
+
+	/** @return whether no bit is set in <code>mask</code> */
+	public static boolean isEmpty(long[] mask) {
+		for (long word : mask)
+			if (word != 0)
+				return false;
+		return true;
+	}
+
+	/** @return whether <code>lhs</code> and <code>rhs</code> share a set bit */
+	public static boolean intersects(long[] lhs, long[] rhs) {
+		for (int i = 0; i < lhs.length; ++i)
+			if ((lhs[i] & rhs[i]) != 0)
+				return true;
+		return false;
+	}
+
+	/** @return whether bit <code>idx</code> is set in <code>bits</code> */
+	public static boolean isSet(long[] bits, int idx) {
+		return (bits[idx / Long.SIZE] & (1L << idx)) != 0;
+	}
+
+	/** Set bit <code>idx</code> in <code>bits</code> */
+	public static void set(long[] bits, int idx) {
+		bits[idx / Long.SIZE] |= (1L << idx);
+	}
+
+	private static void clear(long[] bits, int idx) {
+		bits[idx / Long.SIZE] &= ~(1L << idx);
+	}
+
+	private static int numWords(int numMembers) {
+		return (numMembers + Long.SIZE - 1) / Long.SIZE;
+	}
+
+}
@@ -7,6 +7,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSortedMap;
 
 import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.pedigree.Pedigree;
 
 /**
  * A list of genotypes (at an implicitely assumed site) in multiple individuals
@@ -33,6 +34,8 @@ public final class GenotypeCalls implements Iterable<Entry<String, Genotype>> {
 	private final ImmutableList<String> sampleNames;
 	/** A payload object for later easier reidentification */
 	private final Object payload;
+	/** Bit sets for the pedigree last passed to {@link #getBitSets}, built lazily */
+	private volatile GenotypeBitSets bitSets;
 
 	/**
 	 * Initialize {@link GenotypeCalls} with mapping from sample to genotype
@@ -95,6 +98,25 @@ public final class GenotypeCalls implements Iterable<Entry<String, Genotype>> {
 		return sampleToGenotype.get(sampleNames.get(sampleNo));
 	}
 
+	/**
+	 * Return {@link GenotypeBitSets} for the members of <code>pedigree</code>
+	 * 
+	 * The result for the last pedigree is cached, such that the bit sets are only built once when checking the calls
+	 * for several modes of inheritance.
+	 * 
+	 * @param pedigree
+	 *            {@link Pedigree} whose member indices to use
+	 * @return {@link GenotypeBitSets} for this object's genotypes and <code>pedigree</code>
+	 */
+	public GenotypeBitSets getBitSets(Pedigree pedigree) {
+		GenotypeBitSets result = bitSets;
+		if (result == null || result.getPedigree() != pedigree) {
+			result = new GenotypeBitSets(pedigree, this);
+			bitSets = result;
+		}
+		return result;
+	}
+
 	/** @return type of the chromosome */
 	public ChromosomeType getChromType() {
 		return chromType;
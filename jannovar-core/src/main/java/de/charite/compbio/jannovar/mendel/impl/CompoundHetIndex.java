@@ -0,0 +1,251 @@
+package de.charite.compbio.jannovar.mendel.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.mendel.GenotypeBitSets;
+import de.charite.compbio.jannovar.mendel.GenotypeCalls;
+import de.charite.compbio.jannovar.pedigree.Pedigree;
+import de.charite.compbio.jannovar.pedigree.Person;
+
+/**
+ * Helper for the compound heterozygous candidate search
+ *
+ * Instead of building all pairs of candidate {@link GenotypeCalls} and checking each pair against the pedigree, each
+ * call is reduced to a {@link Signature} that captures everything about the call that matters for pairing it with
+ * another call: for which affected members it is a paternal or maternal candidate, with which parental origin it is
+ * compatible in each affected member, and in which unaffected members it could complete a compound heterozygous
+ * genotype. Calls with the same signature are interchangeable, so the calls are grouped by signature and only pairs of
+ * groups are checked. Thus, the running time is linear in the number of calls and quadratic only in the number of
+ * distinct signatures, which is small for real data.
+ *
+ * All bit sets are member masks as described in {@link GenotypeBitSets}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class CompoundHetIndex {
+
+	/** Member index used for parents that are not given or not in the pedigree */
+	static final int NO_MEMBER = -1;
+
+	/** Mask of the affected members, a pair must be compatible with the origin in each of them */
+	private final long[] affected;
+
+	CompoundHetIndex(long[] affected) {
+		this.affected = affected;
+	}
+
+	/**
+	 * Select the calls that form a compatible compound heterozygous pair with at least one other call
+	 *
+	 * @param calls
+	 *            calls to select from
+	 * @param signatureBuilder
+	 *            builds the {@link Signature} for a call, returns <code>null</code> for calls that cannot be part of
+	 *            any compatible pair
+	 * @return the calls from <code>calls</code> that are part of a compatible pair, in input order
+	 */
+	ImmutableList<GenotypeCalls> filterCompatible(Collection<GenotypeCalls> calls,
+			Function<GenotypeCalls, Signature> signatureBuilder) {
+		// Group the distinct calls by signature, remember group of each call (-1 for none)
+		final Map<Signature, Integer> groupIds = new HashMap<>();
+		final List<Signature> signatures = new ArrayList<>();
+		final List<Integer> groupSizes = new ArrayList<>();
+		final Set<GenotypeCalls> seen = new HashSet<>();
+		final int[] callGroups = new int[calls.size()];
+		int callNo = 0;
+		for (GenotypeCalls gc : calls) {
+			int group = -1;
+			final Signature signature = seen.add(gc) ? signatureBuilder.apply(gc) : null;
+			if (signature != null) {
+				group = groupIds.computeIfAbsent(signature, s -> {
+					signatures.add(s);
+					groupSizes.add(0);
+					return signatures.size() - 1;
+				});
+				groupSizes.set(group, groupSizes.get(group) + 1);
+			}
+			callGroups[callNo++] = group;
+		}
+
+		// Check pairs of groups, pairs within a group require two distinct calls
+		final boolean[] selected = new boolean[signatures.size()];
+		for (int i = 0; i < signatures.size(); ++i) {
+			if (groupSizes.get(i) > 1 && isCompatiblePair(signatures.get(i), signatures.get(i)))
+				selected[i] = true;
+			for (int j = i + 1; j < signatures.size(); ++j)
+				if ((!selected[i] || !selected[j]) && isCompatiblePair(signatures.get(i), signatures.get(j)))
+					selected[i] = selected[j] = true;
+		}
+
+		ImmutableList.Builder<GenotypeCalls> builder = new ImmutableList.Builder<>();
+		callNo = 0;
+		for (GenotypeCalls gc : calls) {
+			final int group = callGroups[callNo++];
+			if (group != -1 && selected[group])
+				builder.add(gc);
+		}
+		return builder.build();
+	}
+
+	/** @return whether two calls with signatures <code>lhs</code> and <code>rhs</code> form a compatible pair */
+	private boolean isCompatiblePair(Signature lhs, Signature rhs) {
+		// The pair must have been found as paternal/maternal candidate around one affected member
+		if (!GenotypeBitSets.intersects(lhs.paternalCandidate, rhs.maternalCandidate)
+				&& !GenotypeBitSets.intersects(rhs.paternalCandidate, lhs.maternalCandidate))
+			return false;
+		// One variant must be compatible with paternal and the other with maternal origin in all affected members
+		for (int i = 0; i < affected.length; ++i)
+			if (((lhs.paternalOrigin[i] & rhs.maternalOrigin[i]) | (rhs.paternalOrigin[i] & lhs.maternalOrigin[i])
+					| ~affected[i]) != ~0L)
+				return false;
+		// No unaffected sibling of an affected member may be heterozygous for both
+		if (GenotypeBitSets.intersects(lhs.hetUnaffectedSibling, rhs.hetUnaffectedSibling))
+			return false;
+		// No unaffected member may have them in trans, as observed in the parents
+		return !GenotypeBitSets.intersects(lhs.paternalInUnaffected, rhs.maternalInUnaffected)
+				&& !GenotypeBitSets.intersects(rhs.paternalInUnaffected, lhs.maternalInUnaffected);
+	}
+
+	/** @return member index of <code>person</code> in <code>pedigree</code> or {@link #NO_MEMBER} */
+	static int memberIdx(Pedigree pedigree, Person person) {
+		if (person == null || !pedigree.hasPerson(person.getName()))
+			return NO_MEMBER;
+		return pedigree.getNameToMember().get(person.getName()).getIdx();
+	}
+
+	/** @return whether member <code>idx</code> is heterozygous, <code>false</code> for {@link #NO_MEMBER} */
+	static boolean isHet(GenotypeBitSets gts, int idx) {
+		return idx != NO_MEMBER && gts.isHet(idx);
+	}
+
+	/** @return whether member <code>idx</code> is hom. alt, <code>false</code> for {@link #NO_MEMBER} */
+	static boolean isHomAlt(GenotypeBitSets gts, int idx) {
+		return idx != NO_MEMBER && gts.isHomAlt(idx);
+	}
+
+	/** @return whether member <code>idx</code> is hom. ref., <code>false</code> for {@link #NO_MEMBER} */
+	static boolean isHomRef(GenotypeBitSets gts, int idx) {
+		return idx != NO_MEMBER && gts.isHomRef(idx);
+	}
+
+	/** @return whether member <code>idx</code> is not observed, <code>true</code> for {@link #NO_MEMBER} */
+	static boolean isNotObserved(GenotypeBitSets gts, int idx) {
+		return idx == NO_MEMBER || gts.isNotObserved(idx);
+	}
+
+	/**
+	 * Member indices of a person and its parents, {@link CompoundHetIndex#NO_MEMBER} for missing parents
+	 *
+	 * Parents that are not members of the pedigree have no genotype and are treated as missing.
+	 */
+	static final class Trio {
+
+		/** index of the person */
+		final int person;
+		/** index of the father */
+		final int father;
+		/** index of the mother */
+		final int mother;
+
+		Trio(Pedigree pedigree, Person person) {
+			this.person = memberIdx(pedigree, person);
+			this.father = memberIdx(pedigree, person.getFather());
+			this.mother = memberIdx(pedigree, person.getMother());
+		}
+
+		/** @return whether the person and its parents are not observed in <code>gts</code> */
+		boolean isNotObserved(GenotypeBitSets gts) {
+			return CompoundHetIndex.isNotObserved(gts, person) && CompoundHetIndex.isNotObserved(gts, father)
+					&& CompoundHetIndex.isNotObserved(gts, mother);
+		}
+
+	}
+
+	/**
+	 * The properties of one {@link GenotypeCalls} object relevant for pairing, filled by the checkers
+	 */
+	static final class Signature {
+
+		/** affected members around which the call is a candidate for the paternal variant */
+		final long[] paternalCandidate;
+		/** affected members around which the call is a candidate for the maternal variant */
+		final long[] maternalCandidate;
+		/** affected members in which the call is compatible with paternal origin */
+		final long[] paternalOrigin;
+		/** affected members in which the call is compatible with maternal origin */
+		final long[] maternalOrigin;
+		/** heterozygous unaffected siblings of affected members */
+		final long[] hetUnaffectedSibling;
+		/** heterozygous unaffected members where the call is het. in the father and hom. ref. in the mother */
+		final long[] paternalInUnaffected;
+		/** heterozygous unaffected members where the call is hom. ref. in the father and het. in the mother */
+		final long[] maternalInUnaffected;
+
+		Signature(Pedigree pedigree, long[] hetUnaffectedSibling) {
+			this.paternalCandidate = GenotypeBitSets.emptyMask(pedigree);
+			this.maternalCandidate = GenotypeBitSets.emptyMask(pedigree);
+			this.paternalOrigin = GenotypeBitSets.emptyMask(pedigree);
+			this.maternalOrigin = GenotypeBitSets.emptyMask(pedigree);
+			this.hetUnaffectedSibling = hetUnaffectedSibling;
+			this.paternalInUnaffected = GenotypeBitSets.emptyMask(pedigree);
+			this.maternalInUnaffected = GenotypeBitSets.emptyMask(pedigree);
+		}
+
+		/**
+		 * Set {@link #paternalInUnaffected} and {@link #maternalInUnaffected} for the unaffected members with both
+		 * parents
+		 */
+		void setInUnaffected(GenotypeBitSets gts, List<Trio> unaffectedWithParents) {
+			for (Trio trio : unaffectedWithParents) {
+				if (!gts.isHet(trio.person))
+					continue;
+				if (isHet(gts, trio.father) && isHomRef(gts, trio.mother))
+					GenotypeBitSets.set(paternalInUnaffected, trio.person);
+				if (isHomRef(gts, trio.father) && isHet(gts, trio.mother))
+					GenotypeBitSets.set(maternalInUnaffected, trio.person);
+			}
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + Arrays.hashCode(paternalCandidate);
+			result = prime * result + Arrays.hashCode(maternalCandidate);
+			result = prime * result + Arrays.hashCode(paternalOrigin);
+			result = prime * result + Arrays.hashCode(maternalOrigin);
+			result = prime * result + Arrays.hashCode(hetUnaffectedSibling);
+			result = prime * result + Arrays.hashCode(paternalInUnaffected);
+			result = prime * result + Arrays.hashCode(maternalInUnaffected);
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			Signature other = (Signature) obj;
+			return Arrays.equals(paternalCandidate, other.paternalCandidate)
+					&& Arrays.equals(maternalCandidate, other.maternalCandidate)
+					&& Arrays.equals(paternalOrigin, other.paternalOrigin)
+					&& Arrays.equals(maternalOrigin, other.maternalOrigin)
+					&& Arrays.equals(hetUnaffectedSibling, other.hetUnaffectedSibling)
+					&& Arrays.equals(paternalInUnaffected, other.paternalInUnaffected)
+					&& Arrays.equals(maternalInUnaffected, other.maternalInUnaffected);
+		}
+
+	}
+
+}
@@ -8,10 +8,10 @@ import com.google.common.collect.ImmutableList;
 
 import de.charite.compbio.jannovar.mendel.ChromosomeType;
 import de.charite.compbio.jannovar.mendel.Genotype;
+import de.charite.compbio.jannovar.mendel.GenotypeBitSets;
 import de.charite.compbio.jannovar.mendel.GenotypeCalls;
 import de.charite.compbio.jannovar.mendel.MendelianInheritanceChecker;
 import de.charite.compbio.jannovar.pedigree.Disease;
-import de.charite.compbio.jannovar.pedigree.Person;
 
 /**
  * Implementation of Mendelian compatibility check for autosomal dominant case
@@ -28,8 +28,16 @@ import de.charite.compbio.jannovar.pedigree.Person;
  */
 public class MendelianCheckerAD extends AbstractMendelianChecker {
 
+	/** Mask of the affected members */
+	private final long[] affected;
+	/** Mask of the unaffected members */
+	private final long[] unaffected;
+
 	public MendelianCheckerAD(MendelianInheritanceChecker parent) {
 		super(parent);
+
+		this.affected = GenotypeBitSets.buildMask(pedigree, p -> p.getDisease() == Disease.AFFECTED);
+		this.unaffected = GenotypeBitSets.buildMask(pedigree, p -> p.getDisease() == Disease.UNAFFECTED);
 	}
 
 	@Override
@@ -61,24 +69,12 @@ public class MendelianCheckerAD extends AbstractMendelianChecker {
 	 *         pedigree
 	 */
 	private boolean isCompatibleFamily(GenotypeCalls calls) {
-		int numAffectedWithHet = 0;
-		
-		for (Person p : pedigree.getMembers()) {
-			final Genotype gt = calls.getGenotypeForSample(p.getName());
-			final Disease d = p.getDisease();
-			
-			if (d == Disease.AFFECTED) {
-				if (gt.isHomRef() || gt.isHomAlt())
-					return false;
-				else if (gt.isHet())
-					numAffectedWithHet++;
-			} else if (d == Disease.UNAFFECTED) {
-				if (gt.isHet() || gt.isHomAlt())
-					return false;
-			}
-		}
-
-		return (numAffectedWithHet > 0);
+		final GenotypeBitSets gts = calls.getBitSets(pedigree);
+		if (gts.anyHomRef(affected) || gts.anyHomAlt(affected))
+			return false; // affected must be heterozygous
+		if (gts.anyHet(unaffected) || gts.anyHomAlt(unaffected))
+			return false; // unaffected must not have it
+		return gts.anyHet(affected);
 	}
 
 }
@@ -8,7 +8,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
 import de.charite.compbio.jannovar.mendel.ChromosomeType;
-import de.charite.compbio.jannovar.mendel.Genotype;
+import de.charite.compbio.jannovar.mendel.GenotypeBitSets;
 import de.charite.compbio.jannovar.mendel.GenotypeCalls;
 import de.charite.compbio.jannovar.mendel.IncompatiblePedigreeException;
 import de.charite.compbio.jannovar.mendel.MendelianInheritanceChecker;
@@ -35,8 +35,20 @@ import de.charite.compbio.jannovar.pedigree.Person;
  */
 public class MendelianCheckerARHom extends AbstractMendelianChecker {
 
+	/** Mask of the affected members */
+	private final long[] affected;
+	/** Mask of the unaffected members */
+	private final long[] unaffected;
+	/** Mask of the unaffected parents of affected members */
+	private final long[] unaffectedParentsOfAffected;
+
 	public MendelianCheckerARHom(MendelianInheritanceChecker parent) {
 		super(parent);
+
+		this.affected = GenotypeBitSets.buildMask(pedigree, p -> p.getDisease() == Disease.AFFECTED);
+		this.unaffected = GenotypeBitSets.buildMask(pedigree, p -> p.getDisease() == Disease.UNAFFECTED);
+		this.unaffectedParentsOfAffected = GenotypeBitSets.buildMask(pedigree,
+				getUnaffectedParentNamesOfAffecteds());
 	}
 
 	@Override
@@ -69,33 +81,19 @@ public class MendelianCheckerARHom extends AbstractMendelianChecker {
 	 *         individuals in the pedigree
 	 */
 	private boolean isCompatibleFamily(GenotypeCalls calls) {
-		return (affectedsAreCompatible(calls) && unaffectedParentsOfAffectedAreNotHomozygous(calls)
-				&& unaffectedsAreNotHomozygousAlt(calls));
+		final GenotypeBitSets gts = calls.getBitSets(pedigree);
+		return (affectedsAreCompatible(gts) && unaffectedParentsOfAffectedAreNotHomozygous(gts)
+				&& unaffectedsAreNotHomozygousAlt(gts));
 	}
 
-	private boolean affectedsAreCompatible(GenotypeCalls calls) {
-		int numHomozygousAlt = 0;
-
-		for (Pedigree.IndexedPerson entry : pedigree.getNameToMember().values()) {
-			if (entry.getPerson().getDisease() == Disease.AFFECTED) {
-				final Genotype gt = calls.getGenotypeForSample(entry.getPerson().getName());
-				if (gt.isHomRef() || gt.isHet())
-					return false;
-				else if (gt.isHomAlt())
-					numHomozygousAlt += 1;
-			}
-		}
-
-		return (numHomozygousAlt > 0);
+	private boolean affectedsAreCompatible(GenotypeBitSets gts) {
+		if (gts.anyHomRef(affected) || gts.anyHet(affected))
+			return false;
+		return gts.anyHomAlt(affected);
 	}
 
-	private boolean unaffectedParentsOfAffectedAreNotHomozygous(GenotypeCalls calls) {
-		for (String name : getUnaffectedParentNamesOfAffecteds()) {
-			final Genotype gt = calls.getGenotypeForSample(name);
-			if (gt.isHomAlt() || gt.isHomRef())
-				return false;
-		}
-		return true;
+	private boolean unaffectedParentsOfAffectedAreNotHomozygous(GenotypeBitSets gts) {
+		return !(gts.anyHomAlt(unaffectedParentsOfAffected) || gts.anyHomRef(unaffectedParentsOfAffected));
 	}
 
 	/**
@@ -115,12 +113,8 @@ public class MendelianCheckerARHom extends AbstractMendelianChecker {
 		return builder.build();
 	}
 
-	private boolean unaffectedsAreNotHomozygousAlt(GenotypeCalls calls) {
-		for (Pedigree.IndexedPerson entry : pedigree.getNameToMember().values())
-			if (entry.getPerson().getDisease() == Disease.UNAFFECTED
-					&& calls.getGenotypeForSample(entry.getPerson().getName()).isHomAlt())
-				return false;
-		return true;
+	private boolean unaffectedsAreNotHomozygousAlt(GenotypeBitSets gts) {
+		return !gts.anyHomAlt(unaffected);
 	}
 
 }
@@ -8,10 +8,10 @@ import com.google.common.collect.ImmutableList;
 
 import de.charite.compbio.jannovar.mendel.ChromosomeType;
 import de.charite.compbio.jannovar.mendel.Genotype;
+import de.charite.compbio.jannovar.mendel.GenotypeBitSets;
 import de.charite.compbio.jannovar.mendel.GenotypeCalls;
 import de.charite.compbio.jannovar.mendel.MendelianInheritanceChecker;
 import de.charite.compbio.jannovar.pedigree.Disease;
-import de.charite.compbio.jannovar.pedigree.Person;
 import de.charite.compbio.jannovar.pedigree.Sex;
 
 /**
@@ -27,8 +27,24 @@ import de.charite.compbio.jannovar.pedigree.Sex;
  */
 public class MendelianCheckerXD extends AbstractMendelianChecker {
 
+	/** Mask of the affected members */
+	private final long[] affected;
+	/** Mask of the affected female members */
+	private final long[] affectedFemale;
+	/** Mask of the affected male members or those of unknown sex */
+	private final long[] affectedNotFemale;
+	/** Mask of the unaffected members */
+	private final long[] unaffected;
+
 	public MendelianCheckerXD(MendelianInheritanceChecker parent) {
 		super(parent);
+
+		this.affected = GenotypeBitSets.buildMask(pedigree, p -> p.getDisease() == Disease.AFFECTED);
+		this.affectedFemale = GenotypeBitSets.buildMask(pedigree,
+				p -> p.getDisease() == Disease.AFFECTED && p.getSex() == Sex.FEMALE);
+		this.affectedNotFemale = GenotypeBitSets.buildMask(pedigree,
+				p -> p.getDisease() == Disease.AFFECTED && p.getSex() != Sex.FEMALE);
+		this.unaffected = GenotypeBitSets.buildMask(pedigree, p -> p.getDisease() == Disease.UNAFFECTED);
 	}
 
 	@Override
@@ -67,31 +83,14 @@ public class MendelianCheckerXD extends AbstractMendelianChecker {
 	 *         pedigree
 	 */
 	private boolean isCompatibleFamily(GenotypeCalls calls) {
-		int numAffectedWithVar = 0;
-
-		for (Person p : pedigree.getMembers()) {
-			final Sex sex = p.getSex();
-			final Genotype gt = calls.getGenotypeForSample(p.getName());
-			final Disease d = p.getDisease();
-
-			if (d == Disease.AFFECTED) {
-				if (gt.isHomRef() || (sex == Sex.FEMALE && gt.isHomAlt())) {
-					// We do not allow hom. alternative for females to have the same behaviour as AD for females
-					return false;
-				} else if (sex == Sex.FEMALE && gt.isHet()) {
-					numAffectedWithVar++;
-				} else if (sex != Sex.FEMALE && (gt.isHet() || gt.isHomAlt())) {
-					// We allow heterozygous here as well in the case of mis-calls in the one X copy in the male or
-					// unknown
-					numAffectedWithVar++;
-				}
-			} else if (d == Disease.UNAFFECTED) {
-				if (gt.isHet() || gt.isHomAlt())
-					return false; // unaffected must not have it!
-			}
-		}
-
-		return (numAffectedWithVar > 0);
+		final GenotypeBitSets gts = calls.getBitSets(pedigree);
+		// We do not allow hom. alternative for females to have the same behaviour as AD for females
+		if (gts.anyHomRef(affected) || gts.anyHomAlt(affectedFemale))
+			return false;
+		if (gts.anyHet(unaffected) || gts.anyHomAlt(unaffected))
+			return false; // unaffected must not have it!
+		// We allow heterozygous for males as well in the case of mis-calls in the one X copy in the male or unknown
+		return gts.anyHet(affected) || gts.anyHomAlt(affectedNotFemale);
 	}
 
 }
@@ -1,17 +1,15 @@
 package de.charite.compbio.jannovar.mendel.impl;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
 import de.charite.compbio.jannovar.mendel.ChromosomeType;
-import de.charite.compbio.jannovar.mendel.Genotype;
+import de.charite.compbio.jannovar.mendel.GenotypeBitSets;
 import de.charite.compbio.jannovar.mendel.GenotypeCalls;
 import de.charite.compbio.jannovar.mendel.IncompatiblePedigreeException;
 import de.charite.compbio.jannovar.mendel.MendelianInheritanceChecker;
@@ -43,13 +41,46 @@ import de.charite.compbio.jannovar.pedigree.Sex;
  */
 public class MendelianCheckerXRCompoundHet extends AbstractMendelianChecker {
 
-	/** list of siblings for each person in {@link #pedigree} */
-	private final ImmutableMap<Person, ImmutableList<Person>> siblings;
+	/** Mask of the female members */
+	private final long[] female;
+	/** Mask of the unaffected members */
+	private final long[] unaffected;
+	/** Mask of the unaffected male members */
+	private final long[] unaffectedMale;
+	/** Mask of the unaffected siblings of affected members */
+	private final long[] unaffectedSiblingsOfAffected;
+	/** Affected members with at least one parent, around which to collect candidate pairs */
+	private final ImmutableList<CompoundHetIndex.Trio> candidateTrios;
+	/** All affected members */
+	private final ImmutableList<CompoundHetIndex.Trio> affectedTrios;
+	/** Unaffected members with both parents */
+	private final ImmutableList<CompoundHetIndex.Trio> unaffectedTrios;
+	/** Index for pairing the candidates */
+	private final CompoundHetIndex index;
 
 	public MendelianCheckerXRCompoundHet(MendelianInheritanceChecker parent) {
 		super(parent);
 
-		this.siblings = queryDecorator.buildSiblings();
+		final ImmutableMap<Person, ImmutableList<Person>> siblings = queryDecorator.buildSiblings();
+		this.female = GenotypeBitSets.buildMask(pedigree, p -> p.getSex() == Sex.FEMALE);
+		this.unaffected = GenotypeBitSets.buildMask(pedigree, p -> p.getDisease() == Disease.UNAFFECTED);
+		this.unaffectedMale = GenotypeBitSets.buildMask(pedigree,
+				p -> p.getDisease() == Disease.UNAFFECTED && p.getSex() == Sex.MALE);
+		this.unaffectedSiblingsOfAffected = GenotypeBitSets.buildMask(pedigree,
+				p -> p.getDisease() == Disease.UNAFFECTED && siblings.entrySet().stream()
+						.anyMatch(e -> e.getKey().getDisease() == Disease.AFFECTED && e.getValue().contains(p)));
+		this.candidateTrios = buildTrios(
+				p -> p.getDisease() == Disease.AFFECTED && (p.getFather() != null || p.getMother() != null));
+		this.affectedTrios = buildTrios(p -> p.getDisease() == Disease.AFFECTED);
+		this.unaffectedTrios = buildTrios(
+				p -> p.getDisease() == Disease.UNAFFECTED && p.getFather() != null && p.getMother() != null);
+		this.index = new CompoundHetIndex(GenotypeBitSets.buildMask(pedigree, p -> p.getDisease() == Disease.AFFECTED));
+	}
+
+	/** @return {@link CompoundHetIndex.Trio}s for the members selected by <code>predicate</code> */
+	private ImmutableList<CompoundHetIndex.Trio> buildTrios(Predicate<Person> predicate) {
+		return ImmutableList.copyOf(pedigree.getMembers().stream().filter(predicate)
+				.map(p -> new CompoundHetIndex.Trio(pedigree, p)).collect(Collectors.toList()));
 	}
 
 	@Override
@@ -75,184 +106,78 @@ public class MendelianCheckerXRCompoundHet extends AbstractMendelianChecker {
 		List<GenotypeCalls> autosomalCalls = calls.stream()
 				.filter(call -> call.getChromType() == ChromosomeType.AUTOSOMAL).collect(Collectors.toList());
 
-		// First, collect candidate genotype call lists from trios around affected individuals
-		ArrayList<Candidate> candidates = collectTrioCandidates(autosomalCalls);
-
-		// Then, check the candidates for all trios around affected individuals
-		Set<GenotypeCalls> result = new HashSet<>();
-		for (Candidate c : candidates) {
-			if (isCompatibleWithTriosAroundAffected(c)) {
-				// If candidate holds, check all unaffected for not being homozygous alt
-				if (isCompatibleWithUnaffected(c)) {
-					result.add(c.getMaternal());
-					result.add(c.getPaternal());
-				}
-			}
-		}
-		return ImmutableList.copyOf(result);
+		return filterCompatiblePairs(autosomalCalls);
 	}
 
-	private ArrayList<Candidate> collectTrioCandidates(Collection<GenotypeCalls> calls) {
-		ArrayList<Candidate> result = new ArrayList<Candidate>();
-
-		for (Person p : pedigree.getMembers()) {
-			if (p.getDisease() == Disease.AFFECTED && (p.getFather() != null || p.getMother() != null)) {
-				List<GenotypeCalls> paternal = new ArrayList<GenotypeCalls>();
-				List<GenotypeCalls> maternal = new ArrayList<GenotypeCalls>();
-
-				for (GenotypeCalls gc : calls) {
-					// Child is heterozygous. male child/ukn can be homozygous
-					if ((gc.getGenotypeForSample(p.getName()).isHet()
-							|| gc.getGenotypeForSample(p.getName()).isNotObserved()
-							|| (p.getSex() != Sex.FEMALE && gc.getGenotypeForSample(p.getName()).isHomAlt()))) {
-						// collect candidates towards the paternal side
-						// (heterozygous (false call in father) or not observed
-						// in child and father. Not hom_alt or het in mother).
-						if ((p.getFather() == null || gc.getGenotypeForSample(p.getFather().getName()).isHet()
-								|| gc.getGenotypeForSample(p.getFather().getName()).isNotObserved()
-								|| gc.getGenotypeForSample(p.getFather().getName()).isHomAlt())
-								&& (p.getMother() == null
-										|| gc.getGenotypeForSample(p.getMother().getName()).isNotObserved()
-										|| gc.getGenotypeForSample(p.getMother().getName()).isHomRef()))
-							paternal.add(gc);
-						// collect candidates towards the maternal side
-						// (heterozygous or not observed in child and mother.
-						// For father no restriction, cause father should be affected if present.
-						if ((p.getMother() == null || gc.getGenotypeForSample(p.getMother().getName()).isHet()
-								|| gc.getGenotypeForSample(p.getMother().getName()).isNotObserved()))
-							maternal.add(gc);
-					}
-				}
-
-				// Combine compatible paternal and maternal heterozygous variants
-				for (GenotypeCalls pat : paternal)
-					for (GenotypeCalls mat : maternal) {
-						if (pat == mat) // FIXME what means this NOW?
-							continue; // exclude if variants are identical
-						if (pat.getGenotypeForSample(p.getName()).isNotObserved()
-								&& (p.getFather() == null
-										|| pat.getGenotypeForSample(p.getFather().getName()).isNotObserved())
-								&& (p.getMother() == null
-										|| pat.getGenotypeForSample(p.getMother().getName()).isNotObserved()))
-							continue; // exclude if not observed in all from paternal
-						if (mat.getGenotypeForSample(p.getName()).isNotObserved()
-								&& (p.getFather() == null
-										|| mat.getGenotypeForSample(p.getFather().getName()).isNotObserved())
-								&& (p.getMother() == null
-										|| mat.getGenotypeForSample(p.getMother().getName()).isNotObserved()))
-							continue; // exclude if not observed in all from maternal
-						result.add(new Candidate(pat, mat));
-					}
-
-			}
-		}
-
-		return result;
+	/**
+	 * Select the calls that form a compatible pair with another call, without regard to the chromosome type
+	 * 
+	 * @param calls
+	 *            the calls to pair
+	 * @return the selected calls, in input order
+	 */
+	ImmutableList<GenotypeCalls> filterCompatiblePairs(Collection<GenotypeCalls> calls) {
+		return index.filterCompatible(calls, this::buildSignature);
 	}
 
-	private boolean isCompatibleWithTriosAroundAffected(Candidate c) {
-		for (Person p : pedigree.getMembers()) {
-			if (p.getDisease() == Disease.AFFECTED) {
-				// we have to check this for paternal,maternal and vice versa.
-				// Paternal maternal inheritance can be different for other
-				// parents in the pedigree.
-				if (!isCompatibleWithTriosAndMaternalPaternalInheritanceAroundAffected(p, c.getPaternal(),
-						c.getMaternal()))
-					if (!isCompatibleWithTriosAndMaternalPaternalInheritanceAroundAffected(p, c.getMaternal(),
-							c.getPaternal()))
-						return false;
-			}
+	/**
+	 * Build {@link CompoundHetIndex.Signature} of <code>gc</code> for pairing it with other calls
+	 * 
+	 * A pair of calls is a candidate if, for one affected person with at least one parent, both calls are heterozygous
+	 * or not observed in the person (males or unknown sex may also be hom. alt), one call is not hom. ref. in the father
+	 * and not observed or hom. ref. in the mother, and the other call is heterozygous or not observed in the mother.
+	 * Calls that are not observed in the person and its parents are not considered.
+	 * 
+	 * A candidate pair is compatible if, for each affected person, one call is not hom. ref. in the person (and not hom.
+	 * alt in females) and in the father, and the other one is not homozygous in the mother. No unaffected sibling of an
+	 * affected person may be heterozygous for both calls, no unaffected person may be homozygous alt. (or heterozygous
+	 * for males) for either call or compound heterozygous in trans.
+	 * 
+	 * @return {@link CompoundHetIndex.Signature} of <code>gc</code> or <code>null</code> if the call cannot be part of
+	 *         a compatible pair
+	 */
+	private CompoundHetIndex.Signature buildSignature(GenotypeCalls gc) {
+		final GenotypeBitSets gts = gc.getBitSets(pedigree);
+		// None of the calls may be homozygous alt in an unaffected person or heterozygous in an unaffected male
+		if (gts.anyHomAlt(unaffected) || gts.anyHet(unaffectedMale))
+			return null;
+
+		final CompoundHetIndex.Signature signature = new CompoundHetIndex.Signature(pedigree,
+				gts.hetMembers(unaffectedSiblingsOfAffected));
+
+		// Candidates from the affected persons with parents
+		for (CompoundHetIndex.Trio trio : candidateTrios) {
+			// Child is heterozygous. male child/ukn can be homozygous
+			if (!gts.isHet(trio.person) && !gts.isNotObserved(trio.person)
+					&& !(gts.isHomAlt(trio.person) && !GenotypeBitSets.isSet(female, trio.person)))
+				continue;
+			if (trio.isNotObserved(gts))
+				continue; // exclude if not observed in all of the trio
+			// Heterozygous (false call in father), hom. alt or not observed in father, not hom_alt or het in mother
+			if ((CompoundHetIndex.isHet(gts, trio.father) || CompoundHetIndex.isNotObserved(gts, trio.father)
+					|| CompoundHetIndex.isHomAlt(gts, trio.father))
+					&& (CompoundHetIndex.isNotObserved(gts, trio.mother)
+							|| CompoundHetIndex.isHomRef(gts, trio.mother)))
+				GenotypeBitSets.set(signature.paternalCandidate, trio.person);
+			// Heterozygous or not observed in mother. For father no restriction, cause father should be affected
+			if (CompoundHetIndex.isHet(gts, trio.mother) || CompoundHetIndex.isNotObserved(gts, trio.mother))
+				GenotypeBitSets.set(signature.maternalCandidate, trio.person);
 		}
 
-		return true;
-	}
-
-	private boolean isCompatibleWithTriosAndMaternalPaternalInheritanceAroundAffected(Person p, GenotypeCalls paternal,
-			GenotypeCalls maternal) {
-		// None of the genotypes from the paternal or maternal call lists may be homozygous in a female index. can be
-		// homozygous else
-		if (paternal != null) {
-			final Genotype pGT = paternal.getGenotypeForSample(p.getName());
-			if ((pGT.isHomAlt() && p.getSex() == Sex.FEMALE) || pGT.isHomRef())
-				return false;
-		}
-		if (maternal != null) {
-			final Genotype mGT = maternal.getGenotypeForSample(p.getName());
-			if (p.getSex() == Sex.FEMALE && (mGT.isHomAlt() && mGT.isHomRef()))
-				return false;
-		}
-
-		// the paternal variant may not be homozygous REF in the father of
-		// p, if any
-		if (paternal != null && p.getFather() != null) {
-			final Genotype pGT = paternal.getGenotypeForSample(p.getFather().getName());
-			if (pGT.isHomRef())
-				return false;
-		}
-
-		// the maternal variant may not be homozygous in the mother of
-		// p, if any
-		if (maternal != null && p.getMother() != null) {
-			final Genotype mGT = maternal.getGenotypeForSample(p.getMother().getName());
-			if (mGT.isHomAlt() || mGT.isHomRef())
-				return false;
-		}
-
-		// none of the unaffected siblings may have the same genotypes
-		// as p
-		if (siblings != null && !siblings.isEmpty() && siblings.containsKey(p))
-			for (Person sibling : siblings.get(p))
-				if (sibling.getDisease() == Disease.UNAFFECTED) {
-					final Genotype pGT = paternal.getGenotypeForSample(sibling.getName());
-					final Genotype mGT = maternal.getGenotypeForSample(sibling.getName());
-					if (pGT.isHet() && mGT.isHet())
-						return false;
-				}
-		return true;
-	}
-
-	private boolean isCompatibleWithUnaffected(Candidate c) {
-		for (Person p : pedigree.getMembers()) {
-			if (p.getDisease() == Disease.UNAFFECTED) {
-				boolean patHet = false;
-				boolean matHet = false;
-				// None of the genotypes from the paternal or maternal call lists may be homozygous in the index
-				if (c.getPaternal() != null) {
-					final Genotype pGT = c.getPaternal().getGenotypeForSample(p.getName());
-					if (pGT.isHomAlt() || (p.getSex() == Sex.MALE && pGT.isHet()))
-						return false;
-					if (pGT.isHet())
-						patHet = true;
-				}
-				if (c.getMaternal() != null) {
-					final Genotype mGT = c.getMaternal().getGenotypeForSample(p.getName());
-					if (mGT.isHomAlt() || (p.getSex() == Sex.MALE && mGT.isHet()))
-						return false;
-					if (mGT.isHet())
-						matHet = true;
-				}
-
-				// If mat and pat variant are heterozygous in an unaffected, check if they are on the same allele or not
-				if (patHet && matHet) {
-					if (c.getPaternal() != null && p.getFather() != null && c.getMaternal() != null
-							&& p.getMother() != null) {
-						final Genotype ppGT = c.getPaternal().getGenotypeForSample(p.getFather().getName());
-						final Genotype mpGT = c.getPaternal().getGenotypeForSample(p.getMother().getName());
-						final Genotype pmGT = c.getMaternal().getGenotypeForSample(p.getFather().getName());
-						final Genotype mmGT = c.getMaternal().getGenotypeForSample(p.getMother().getName());
-						// way one (paternal and maternal can now be switched
-						// around!
-						if (ppGT.isHet() && mpGT.isHomRef() && pmGT.isHomRef() && mmGT.isHet())
-							return false;
-						if (ppGT.isHomRef() && mpGT.isHet() && pmGT.isHet() && mmGT.isHomRef())
-							return false;
-					}
-
-				}
-			}
+		// Compatibility with paternal/maternal origin in all affected persons
+		for (CompoundHetIndex.Trio trio : affectedTrios) {
+			// The paternal variant may not be hom. ref. in p and its father, or hom. alt. in a female p
+			if (!gts.isHomRef(trio.person)
+					&& !(gts.isHomAlt(trio.person) && GenotypeBitSets.isSet(female, trio.person))
+					&& !CompoundHetIndex.isHomRef(gts, trio.father))
+				GenotypeBitSets.set(signature.paternalOrigin, trio.person);
+			// The maternal variant may not be homozygous in the mother of p
+			if (!CompoundHetIndex.isHomAlt(gts, trio.mother) && !CompoundHetIndex.isHomRef(gts, trio.mother))
+				GenotypeBitSets.set(signature.maternalOrigin, trio.person);
 		}
 
-		return true;
+		signature.setInUnaffected(gts, unaffectedTrios);
+		return signature;
 	}
 
 }
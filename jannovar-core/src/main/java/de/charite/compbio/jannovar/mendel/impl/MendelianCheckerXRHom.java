@@ -1,7 +1,7 @@
 package de.charite.compbio.jannovar.mendel.impl;
 
 import java.util.Collection;
-import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -9,7 +9,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
 import de.charite.compbio.jannovar.mendel.ChromosomeType;
-import de.charite.compbio.jannovar.mendel.Genotype;
+import de.charite.compbio.jannovar.mendel.GenotypeBitSets;
 import de.charite.compbio.jannovar.mendel.GenotypeCalls;
 import de.charite.compbio.jannovar.mendel.IncompatiblePedigreeException;
 import de.charite.compbio.jannovar.mendel.MendelianInheritanceChecker;
@@ -37,8 +37,50 @@ import de.charite.compbio.jannovar.pedigree.Sex;
  */
 public class MendelianCheckerXRHom extends AbstractMendelianChecker {
 
+	/** Mask of the affected members */
+	private final long[] affected;
+	/** Mask of the affected female members */
+	private final long[] affectedFemale;
+	/** Mask of the affected male members or those of unknown sex */
+	private final long[] affectedNotFemale;
+	/** Mask of the unaffected members */
+	private final long[] unaffected;
+	/** Mask of the unaffected male members */
+	private final long[] unaffectedMale;
+	/** Whether there is an unaffected male in the female parent names */
+	private final boolean hasUnaffectedMaleFemaleParent;
+	/** Mask of the female members in the female parent names */
+	private final long[] femaleFemaleParents;
+	/** Mask of the unaffected male members in the male but not in the female parent names */
+	private final long[] unaffectedMaleMaleParents;
+	/** Mask of the female members in the male but not in the female parent names */
+	private final long[] femaleMaleParents;
+
 	public MendelianCheckerXRHom(MendelianInheritanceChecker parent) {
 		super(parent);
+
+		this.affected = GenotypeBitSets.buildMask(pedigree, p -> p.getDisease() == Disease.AFFECTED);
+		this.affectedFemale = GenotypeBitSets.buildMask(pedigree,
+				p -> p.getDisease() == Disease.AFFECTED && p.getSex() == Sex.FEMALE);
+		this.affectedNotFemale = GenotypeBitSets.buildMask(pedigree,
+				p -> p.getDisease() == Disease.AFFECTED && p.getSex() != Sex.FEMALE);
+		this.unaffected = GenotypeBitSets.buildMask(pedigree, p -> p.getDisease() == Disease.UNAFFECTED);
+		this.unaffectedMale = GenotypeBitSets.buildMask(pedigree,
+				p -> p.getDisease() == Disease.UNAFFECTED && p.isMale());
+
+		final ImmutableSet<String> femaleParentNames = queryDecorator.getAffectedFemaleParentNames();
+		final ImmutableSet<String> maleParentNames = queryDecorator.getAffectedFemaleParentNames();
+		final Predicate<Person> isFemaleParent = p -> femaleParentNames.contains(p.getName());
+		final Predicate<Person> isMaleParent = p -> !femaleParentNames.contains(p.getName())
+				&& maleParentNames.contains(p.getName());
+		final Predicate<Person> isUnaffectedMale = p -> p.getSex() == Sex.MALE
+				&& p.getDisease() == Disease.UNAFFECTED;
+		final Predicate<Person> isFemale = p -> p.getSex() == Sex.FEMALE;
+		this.hasUnaffectedMaleFemaleParent = !GenotypeBitSets
+				.isEmpty(GenotypeBitSets.buildMask(pedigree, isFemaleParent.and(isUnaffectedMale)));
+		this.femaleFemaleParents = GenotypeBitSets.buildMask(pedigree, isFemaleParent.and(isFemale));
+		this.unaffectedMaleMaleParents = GenotypeBitSets.buildMask(pedigree, isMaleParent.and(isUnaffectedMale));
+		this.femaleMaleParents = GenotypeBitSets.buildMask(pedigree, isMaleParent.and(isFemale));
 	}
 
 	@Override
@@ -77,77 +119,50 @@ public class MendelianCheckerXRHom extends AbstractMendelianChecker {
 	 *         individuals in the pedigree
 	 */
 	private boolean isCompatibleFamily(GenotypeCalls calls) {
-		return (affectedsAreCompatible(calls) && parentsAreCompatible(calls) && unaffectedsAreCompatible(calls));
+		final GenotypeBitSets gts = calls.getBitSets(pedigree);
+		return (affectedsAreCompatible(gts) && parentsAreCompatible(gts) && unaffectedsAreCompatible(gts));
 	}
 
-	private boolean affectedsAreCompatible(GenotypeCalls calls) {
-		int numVar = 0;
-
-		for (Person p : pedigree.getMembers()) {
-			final String name = p.getName();
-			final Genotype gt = calls.getGenotypeForSample(name);
-			if (p.getDisease() == Disease.AFFECTED) {
-				if (gt.isHomRef()) {
-					// Cannot be disease-causing mutation, an affected male or female does not have it
-					return false;
-				} else if (p.getSex() == Sex.FEMALE && gt.isHet()) {
-					// Cannot be disease-causing mutation if a female have it heterozygous. For a male we think it is a
-					// misscall (alt instead of het)
-					return false;
-				} else if (gt.isHomAlt() || (p.getSex() != Sex.FEMALE && gt.isHet())) {
-					numVar += 1;
-				}
-			}
+	private boolean affectedsAreCompatible(GenotypeBitSets gts) {
+		if (gts.anyHomRef(affected)) {
+			// Cannot be disease-causing mutation, an affected male or female does not have it
+			return false;
+		} else if (gts.anyHet(affectedFemale)) {
+			// Cannot be disease-causing mutation if a female have it heterozygous. For a male we think it is a
+			// misscall (alt instead of het)
+			return false;
 		}
 
-		return (numVar > 0);
+		return (gts.anyHomAlt(affected) || gts.anyHet(affectedNotFemale));
 	}
 
-	private boolean parentsAreCompatible(GenotypeCalls calls) {
-		final ImmutableSet<String> femaleParentNames = queryDecorator.getAffectedFemaleParentNames();
-		final ImmutableSet<String> maleParentNames = queryDecorator.getAffectedFemaleParentNames();
-
-		for (Person p : pedigree.getMembers()) {
-			final Genotype gt = calls.getGenotypeForSample(p.getName());
-			if (femaleParentNames.contains(p.getName())) {
-				if (p.getSex() == Sex.MALE && p.getDisease() == Disease.UNAFFECTED) {
-					// Must always be affected. If affected it is already checked!
-					return false;
-				}
-				if (p.getSex() == Sex.FEMALE && (gt.isHomAlt() || gt.isHomRef())) {
-					// Cannot be disease-causing mutation if mother of patient is homozygous or not the carrier
-					return false;
-				}
-			} else if (maleParentNames.contains(p.getName())) {
-				if (p.getSex() == Sex.MALE && p.getDisease() == Disease.UNAFFECTED && (gt.isHomAlt() || gt.isHet())) {
-					// Unaffected male can not me heterozygos (wrong call) or hemizygous
-					return false;
-				}
-				if (p.getSex() == Sex.FEMALE && gt.isHomAlt()) {
-					// Cannot be disease-causing mutation if mother of patient is homozygous
-					return false;
-				}
-			}
+	private boolean parentsAreCompatible(GenotypeBitSets gts) {
+		if (hasUnaffectedMaleFemaleParent) {
+			// Must always be affected. If affected it is already checked!
+			return false;
+		}
+		if (gts.anyHomAlt(femaleFemaleParents) || gts.anyHomRef(femaleFemaleParents)) {
+			// Cannot be disease-causing mutation if mother of patient is homozygous or not the carrier
+			return false;
+		}
+		if (gts.anyHomAlt(unaffectedMaleMaleParents) || gts.anyHet(unaffectedMaleMaleParents)) {
+			// Unaffected male can not me heterozygos (wrong call) or hemizygous
+			return false;
+		}
+		if (gts.anyHomAlt(femaleMaleParents)) {
+			// Cannot be disease-causing mutation if mother of patient is homozygous
+			return false;
 		}
 
 		return true;
 	}
 
-	private boolean unaffectedsAreCompatible(GenotypeCalls calls) {
-		final ImmutableSet<String> unaffectedNames = queryDecorator.getUnaffectedNames();
-
-		for (Person p : pedigree.getMembers()) {
-			if (unaffectedNames.contains(p.getName())) {
-				final Genotype gt = calls.getGenotypeForSample(p.getName());
-				// Strict handling. Males cannot be called heterozygous (will be seen as a homozygous mutation)
-				if (p.isMale() && (gt.isHet() || gt.isHomAlt()))
-					return false;
-				else if (gt.isHomAlt())
-					return false; // cannot be disease-causing mutation (female or unknown)
-			}
-		}
-
-		return true;
+	private boolean unaffectedsAreCompatible(GenotypeBitSets gts) {
+		// Strict handling. Males cannot be called heterozygous (will be seen as a homozygous mutation)
+		if (gts.anyHet(unaffectedMale))
+			return false;
+		// cannot be disease-causing mutation (female or unknown)
+		return !gts.anyHomAlt(unaffected);
 	}
 
 }
@@ -17,17 +17,25 @@ public final class DuplicationChecker {
 	 *
 	 * @return <code>true</code> if the described insertion is a duplication
 	 */
-	public static boolean isDuplication(String ref, String insertion, int pos) {
+	public static boolean isDuplication(CharSequence ref, String insertion, int pos) {
 		if (pos + insertion.length() <= ref.length()) {
 			// can be duplication with string after pos
-			if (ref.substring(pos, pos + insertion.length()).equals(insertion))
+			if (regionEquals(ref, pos, insertion))
 				return true;
 		}
 		if (pos >= insertion.length()) {
 			// can be duplication with string before pos
-			if (ref.substring(pos - insertion.length(), pos).equals(insertion))
+			if (regionEquals(ref, pos - insertion.length(), insertion))
 				return true;
 		}
 		return false;
 	}
+
+	/** @return whether <code>ref</code> contains <code>str</code> at <code>pos</code> */
+	private static boolean regionEquals(CharSequence ref, int pos, String str) {
+		for (int i = 0; i < str.length(); ++i)
+			if (ref.charAt(pos + i) != str.charAt(i))
+				return false;
+		return true;
+	}
 }
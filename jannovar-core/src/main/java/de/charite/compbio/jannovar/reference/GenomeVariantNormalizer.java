@@ -57,17 +57,21 @@ public final class GenomeVariantNormalizer {
 		if (change.getGenomePos().getStrand() != transcript.getStrand()) // ensure that we have the correct strand
 			change = change.withStrand(transcript.getStrand());
 
-		// Insert the ALT bases at the position indicated by txPos.
-		int pos = txPos.getPos();
-		StringBuilder builder = new StringBuilder(transcript.getSequence());
-		builder.insert(pos, change.getAlt());
-
-		// Execute algorithm and compute the shift.
+		// Execute algorithm and compute the shift, on the sequence with the ALT bases inserted at the position
+		// indicated by txPos. The sequence with the insertion is not built, the characters are taken from the packed
+		// transcript sequence and the ALT bases.
+		final int insertPos = txPos.getPos();
+		int pos = insertPos;
 		int shift = 0;
-		final int LEN = change.getAlt().length();
-		final String seq = builder.toString();
-		final int maxPos = Math.min(seq.length(), transcript.transcriptLength());
-		while ((pos + LEN < maxPos) && (seq.charAt(pos) == seq.charAt(pos + LEN))) {
+		final String alt = change.getAlt();
+		final int LEN = alt.length();
+		final PackedSequence seq = transcript.getPackedSequence();
+		if (insertPos > seq.length())
+			throw new IndexOutOfBoundsException("Insertion position " + insertPos + " out of range for length "
+					+ seq.length());
+		final int maxPos = Math.min(seq.length() + LEN, transcript.transcriptLength());
+		while ((pos + LEN < maxPos)
+				&& (charWithInsertion(seq, insertPos, alt, pos) == charWithInsertion(seq, insertPos, alt, pos + LEN))) {
 			++shift;
 			++pos;
 		}
@@ -85,7 +89,30 @@ public final class GenomeVariantNormalizer {
 		if (shift == 0) // only rebuild if shift > 0
 			return change;
 		else
-			return new GenomeVariant(shiftedPos, "", seq.substring(pos, pos + LEN));
+			return new GenomeVariant(shiftedPos, "", insertedSubstring(seq, insertPos, alt, pos));
+	}
+
+	/**
+	 * @return character <code>i</code> of <code>seq</code> with <code>alt</code> inserted at <code>insertPos</code>
+	 */
+	private static char charWithInsertion(PackedSequence seq, int insertPos, String alt, int i) {
+		if (i < insertPos)
+			return seq.charAt(i);
+		else if (i < insertPos + alt.length())
+			return alt.charAt(i - insertPos);
+		else
+			return seq.charAt(i - alt.length());
+	}
+
+	/**
+	 * @return the <code>alt.length()</code> characters starting at <code>pos</code> of <code>seq</code> with
+	 *         <code>alt</code> inserted at <code>insertPos</code>
+	 */
+	private static String insertedSubstring(PackedSequence seq, int insertPos, String alt, int pos) {
+		final char[] result = new char[alt.length()];
+		for (int i = 0; i < result.length; ++i)
+			result[i] = charWithInsertion(seq, insertPos, alt, pos + i);
+		return new String(result);
 	}
 
 	/**
@@ -115,7 +142,7 @@ public final class GenomeVariantNormalizer {
 		// Shift the deletion to the 3' (right) end of the transcript.
 		int pos = txPos.getPos();
 		final int LEN = change.getRef().length(); // length of the deletion
-		final String seq = transcript.getSequence();
+		final PackedSequence seq = transcript.getPackedSequence();
 		int shift = 0;
 
 		while ((pos + LEN < seq.length()) && (seq.charAt(pos) == seq.charAt(pos + LEN))) {
@@ -0,0 +1,259 @@
+package de.charite.compbio.jannovar.reference;
+
+import java.util.Arrays;
+
+import de.charite.compbio.jannovar.Immutable;
+
+/**
+ * Nucleotide sequence stored with two bits per base
+ *
+ * The bases <code>A</code>, <code>C</code>, <code>G</code>, and <code>T</code> are packed into <code>long</code> words
+ * (32 bases per word). All other characters (e.g., <code>N</code>, IUPAC codes, or lower case bases) are kept in a
+ * sorted exception list, such that the original sequence can be reconstructed exactly. For typical transcript
+ * sequences, this takes an eighth of the memory of a Java 8 {@link String}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@Immutable
+public final class PackedSequence implements CharSequence {
+
+	/** number of bases per word */
+	public static final int BASES_PER_WORD = 32;
+
+	/** the bases, indexed by their 2-bit code */
+	private static final char[] BASES = { 'A', 'C', 'G', 'T' };
+
+	/** 2-bit codes of the bases, <code>-1</code> for characters that are stored as exceptions */
+	private static final byte[] CODES = new byte[128];
+
+	static {
+		Arrays.fill(CODES, (byte) -1);
+		for (int i = 0; i < BASES.length; ++i)
+			CODES[BASES[i]] = (byte) i;
+	}
+
+	/** empty array for sequences without exceptions */
+	private static final int[] NO_POSITIONS = new int[0];
+
+	/** empty array for sequences without exceptions */
+	private static final char[] NO_CHARS = new char[0];
+
+	/** length of the sequence */
+	private final int length;
+	/** packed 2-bit codes, base <code>i</code> is stored in bits <code>2 * (i % 32)</code> of word <code>i / 32</code> */
+	private final long[] words;
+	/** sorted positions of the characters that are not <code>ACGT</code> */
+	private final int[] exceptionPositions;
+	/** characters at {@link #exceptionPositions} */
+	private final char[] exceptionChars;
+
+	/**
+	 * Pack the given sequence
+	 *
+	 * @param seq
+	 *            the sequence to pack
+	 */
+	public PackedSequence(CharSequence seq) {
+		this.length = seq.length();
+		this.words = new long[numWords(length)];
+		int numExceptions = 0;
+		for (int i = 0; i < length; ++i) {
+			final int code = code(seq.charAt(i));
+			if (code < 0)
+				++numExceptions;
+			else
+				words[i >>> 5] |= ((long) code) << ((i & 31) << 1);
+		}
+
+		this.exceptionPositions = (numExceptions == 0) ? NO_POSITIONS : new int[numExceptions];
+		this.exceptionChars = (numExceptions == 0) ? NO_CHARS : new char[numExceptions];
+		for (int i = 0, j = 0; j < numExceptions; ++i) {
+			final char c = seq.charAt(i);
+			if (code(c) < 0) {
+				exceptionPositions[j] = i;
+				exceptionChars[j++] = c;
+			}
+		}
+	}
+
+	private PackedSequence(int length, long[] words, int[] exceptionPositions, char[] exceptionChars) {
+		this.length = length;
+		this.words = words;
+		this.exceptionPositions = exceptionPositions;
+		this.exceptionChars = exceptionChars;
+	}
+
+	/**
+	 * Construct from the packed representation, e.g., when reading from a file
+	 *
+	 * The arrays are taken over and must not be modified afterwards. The bits of <code>words</code> at the exception
+	 * positions and past <code>length</code> are cleared.
+	 *
+	 * @param length
+	 *            length of the sequence
+	 * @param words
+	 *            the packed words, see {@link #getWord}
+	 * @param exceptionPositions
+	 *            sorted positions of the characters that are not <code>ACGT</code>
+	 * @param exceptionChars
+	 *            the characters at <code>exceptionPositions</code>
+	 * @return the {@link PackedSequence}
+	 * @throws IllegalArgumentException
+	 *             if the array sizes do not fit <code>length</code> or the exception positions are not sorted
+	 */
+	public static PackedSequence fromPacked(int length, long[] words, int[] exceptionPositions,
+			char[] exceptionChars) {
+		if (length < 0 || words.length != numWords(length))
+			throw new IllegalArgumentException("Number of words " + words.length + " does not fit length " + length);
+		if (exceptionPositions.length != exceptionChars.length)
+			throw new IllegalArgumentException("Numbers of exception positions and characters differ");
+		for (int i = 0; i < exceptionPositions.length; ++i)
+			if (exceptionPositions[i] < 0 || exceptionPositions[i] >= length
+					|| (i > 0 && exceptionPositions[i] <= exceptionPositions[i - 1]))
+				throw new IllegalArgumentException("Invalid exception position " + exceptionPositions[i]);
+		// Clear the slots of the exceptions and past the end, as the constructor leaves them, for equals/hashCode
+		for (int pos : exceptionPositions)
+			words[pos >>> 5] &= ~(3L << ((pos & 31) << 1));
+		if ((length & 31) != 0)
+			words[words.length - 1] &= (1L << ((length & 31) << 1)) - 1;
+		return new PackedSequence(length, words, exceptionPositions, exceptionChars);
+	}
+
+	/** @return number of words for storing <code>length</code> bases */
+	public static int numWords(int length) {
+		return (length + BASES_PER_WORD - 1) / BASES_PER_WORD;
+	}
+
+	/** @return 2-bit code of <code>c</code>, <code>-1</code> if it is not one of <code>ACGT</code> */
+	private static int code(char c) {
+		return (c < 128) ? CODES[c] : -1;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length)
+			throw new IndexOutOfBoundsException("Index " + index + " out of range for length " + length);
+		if (exceptionPositions.length > 0) {
+			final int idx = Arrays.binarySearch(exceptionPositions, index);
+			if (idx >= 0)
+				return exceptionChars[idx];
+		}
+		return BASES[(int) (words[index >>> 5] >>> ((index & 31) << 1)) & 3];
+	}
+
+	/**
+	 * @param beginIndex
+	 *            begin index, inclusive
+	 * @param endIndex
+	 *            end index, exclusive
+	 * @return the characters in <code>[beginIndex, endIndex)</code> as a new {@link String}
+	 */
+	public String substring(int beginIndex, int endIndex) {
+		final char[] result = new char[Math.max(0, endIndex - beginIndex)];
+		getChars(beginIndex, endIndex, result, 0);
+		return new String(result);
+	}
+
+	/**
+	 * Copy characters into an array, as {@link String#getChars}
+	 *
+	 * @param beginIndex
+	 *            begin index, inclusive
+	 * @param endIndex
+	 *            end index, exclusive
+	 * @param dst
+	 *            the array to copy the characters <code>[beginIndex, endIndex)</code> into
+	 * @param dstBegin
+	 *            the offset in <code>dst</code> to copy to
+	 */
+	public void getChars(int beginIndex, int endIndex, char[] dst, int dstBegin) {
+		if (beginIndex < 0 || endIndex > length || beginIndex > endIndex)
+			throw new IndexOutOfBoundsException(
+					"Range [" + beginIndex + ", " + endIndex + ") out of range for length " + length);
+		final int offset = dstBegin - beginIndex;
+		for (int i = beginIndex; i < endIndex; ++i)
+			dst[offset + i] = BASES[(int) (words[i >>> 5] >>> ((i & 31) << 1)) & 3];
+		if (exceptionPositions.length > 0) {
+			int idx = Arrays.binarySearch(exceptionPositions, beginIndex);
+			if (idx < 0)
+				idx = -idx - 1;
+			for (; idx < exceptionPositions.length && exceptionPositions[idx] < endIndex; ++idx)
+				dst[offset + exceptionPositions[idx]] = exceptionChars[idx];
+		}
+	}
+
+	/**
+	 * @param pos
+	 *            position of the first base of the codon
+	 * @return the codon starting at <code>pos</code>
+	 */
+	public String getCodon(int pos) {
+		return substring(pos, pos + 3);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return substring(start, end);
+	}
+
+	/** @return number of packed words */
+	public int getNumWords() {
+		return words.length;
+	}
+
+	/** @return the packed word with index <code>i</code> */
+	public long getWord(int i) {
+		return words[i];
+	}
+
+	/** @return number of characters that are not <code>ACGT</code> */
+	public int getNumExceptions() {
+		return exceptionPositions.length;
+	}
+
+	/** @return position of the <code>i</code>-th character that is not <code>ACGT</code> */
+	public int getExceptionPosition(int i) {
+		return exceptionPositions[i];
+	}
+
+	/** @return the <code>i</code>-th character that is not <code>ACGT</code> */
+	public char getExceptionChar(int i) {
+		return exceptionChars[i];
+	}
+
+	@Override
+	public String toString() {
+		return substring(0, length);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + length;
+		result = prime * result + Arrays.hashCode(words);
+		result = prime * result + Arrays.hashCode(exceptionPositions);
+		result = prime * result + Arrays.hashCode(exceptionChars);
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		PackedSequence other = (PackedSequence) obj;
+		return length == other.length && Arrays.equals(words, other.words)
+				&& Arrays.equals(exceptionPositions, other.exceptionPositions)
+				&& Arrays.equals(exceptionChars, other.exceptionChars);
+	}
+
+}
@@ -1,17 +1,31 @@
 package de.charite.compbio.jannovar.reference;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Map;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
 
 /**
  * The information representing a transcript model.
  *
+ * The transcript, CDS, and exon boundaries are stored in one primitive <code>int</code> array on the strand of the
+ * transcript, the {@link GenomeInterval} objects returned by {@link #getTXRegion}, {@link #getCDSRegion}, and
+ * {@link #getExonRegions} are created on each call. Gene symbols, gene IDs, and the keys of the alternative gene IDs
+ * are interned, such that they are shared between the transcripts of a database.
+ *
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  */
 @Immutable
@@ -29,21 +43,25 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	 */
 	private final String geneSymbol;
 
-	/** Genomic interval with transcript begin/end. */
-	private final GenomeInterval txRegion;
+	/** Reference dictionary of the transcript's intervals. */
+	private final ReferenceDictionary refDict;
+
+	/** Chromosome of the transcript. */
+	private final int chr;
+
+	/** Strand of the transcript, all positions in {@link #coords} are on this strand. */
+	private final Strand strand;
 
 	/**
-	 * Genomic interval with CDS begin/end.
+	 * Zero-based transcript begin/end, CDS begin/end, followed by the exon begin/end pairs, order is dictated by strand
+	 * of transcript.
 	 *
 	 * <b>Note</b> that in Jannovar, the CDS region includes the start and stop codon.
 	 */
-	private final GenomeInterval cdsRegion;
-
-	/** Genomic intervals with the exons, order is dictated by strand of transcript. */
-	private final ImmutableList<GenomeInterval> exonRegions;
+	private final int[] coords;
 
-	/** cDNA sequence of the spliced RNA of this known gene transcript. */
-	private final String sequence;
+	/** cDNA sequence of the spliced RNA of this known gene transcript, packed with two bits per base. */
+	private final PackedSequence sequence;
 
 	/**
 	 * The gene ID, from Ensembl (<code>"ENS[MUS]*G0+([0-9]+)"</code>), Entrez ("<code>ENTREZ([0-9]+)</code>
@@ -54,11 +72,15 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	private final String geneID;
 
 	/**
-	 * Alternative gene IDs, as parsed from RefSeq GFF3 file
+	 * Sorted keys of the alternative gene IDs, interned such that transcripts with the same kinds of alternative IDs
+	 * share the list
 	 * 
 	 * See {@link #getAltGeneIDs()} for more information
 	 */
-	private final ImmutableSortedMap<String, String> altGeneIDs;
+	private final ImmutableList<String> altGeneIDKeys;
+
+	/** Values of the alternative gene IDs, in the order of {@link #altGeneIDKeys} */
+	private final String[] altGeneIDValues;
 
 	/**
 	 * The transcript support level of the this transcript (the lower the better).
@@ -68,9 +90,34 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	 */
 	private final int transcriptSupportLevel;
 
+	/** Index for coordinate projection, built on first use and not serialized. */
+	private transient volatile TranscriptProjectionIndex projectionIndex;
+
+	/** Replacement for a deserialized object, see {@link #readObject} and {@link #readResolve} */
+	private transient TranscriptModel deserialized;
+
+	/** Interner for gene symbols, gene IDs, and alternative gene IDs. */
+	private static final Interner<String> STRINGS = Interners.newWeakInterner();
+
+	/** Interner for the keys of alternative gene IDs. */
+	private static final Interner<ImmutableList<String>> ALT_GENE_ID_KEYS = Interners.newWeakInterner();
+
+	/** Number of entries in {@link #coords} before the exons. */
+	private static final int EXONS_OFFSET = 4;
+
 	/** Class version (for serialization). */
 	private static final long serialVersionUID = 3L;
 
+	/** Serialized fields, the sequence is serialized as a {@link String} for compatibility. */
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("accession", String.class), new ObjectStreamField("geneSymbol", String.class),
+			new ObjectStreamField("txRegion", GenomeInterval.class),
+			new ObjectStreamField("cdsRegion", GenomeInterval.class),
+			new ObjectStreamField("exonRegions", ImmutableList.class), new ObjectStreamField("sequence", String.class),
+			new ObjectStreamField("geneID", String.class),
+			new ObjectStreamField("altGeneIDs", ImmutableSortedMap.class),
+			new ObjectStreamField("transcriptSupportLevel", int.class) };
+
 	/**
 	 * Initialize the TranscriptInfo object from the given parameters.
 	 */
@@ -86,16 +133,55 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	public TranscriptModel(String accession, String geneSymbol, GenomeInterval txRegion, GenomeInterval cdsRegion,
 			ImmutableList<GenomeInterval> exonRegions, String sequence, String geneID, int transcriptSupportLevel,
 			Map<String, String> altGeneIDs) {
+		this(accession, geneSymbol, txRegion, cdsRegion, exonRegions,
+				(sequence == null) ? null : new PackedSequence(sequence), geneID, transcriptSupportLevel, altGeneIDs);
+	}
+
+	/**
+	 * Initialize the TranscriptInfo object from the given parameters, with already packed sequence.
+	 */
+	public TranscriptModel(String accession, String geneSymbol, GenomeInterval txRegion, GenomeInterval cdsRegion,
+			ImmutableList<GenomeInterval> exonRegions, PackedSequence sequence, String geneID,
+			int transcriptSupportLevel, Map<String, String> altGeneIDs) {
 		this.accession = accession;
-		this.geneSymbol = geneSymbol;
-		this.txRegion = txRegion;
-		this.cdsRegion = cdsRegion;
-		this.exonRegions = exonRegions;
+		this.geneSymbol = intern(geneSymbol);
+		this.refDict = txRegion.getRefDict();
+		this.chr = txRegion.getChr();
+		this.strand = txRegion.getStrand();
+		this.coords = new int[EXONS_OFFSET + 2 * exonRegions.size()];
+		putCoords(0, txRegion);
+		putCoords(2, cdsRegion);
+		for (int i = 0; i < exonRegions.size(); ++i)
+			putCoords(EXONS_OFFSET + 2 * i, exonRegions.get(i));
 		this.sequence = sequence;
-		this.geneID = geneID;
+		this.geneID = intern(geneID);
 		this.transcriptSupportLevel = transcriptSupportLevel;
-		this.altGeneIDs = ImmutableSortedMap.copyOf(altGeneIDs);
-		checkForConsistency();
+
+		final ImmutableSortedMap<String, String> sortedAltGeneIDs = ImmutableSortedMap.copyOf(altGeneIDs);
+		this.altGeneIDKeys = ALT_GENE_ID_KEYS.intern(ImmutableList.copyOf(sortedAltGeneIDs.keySet()));
+		this.altGeneIDValues = new String[sortedAltGeneIDs.size()];
+		int i = 0;
+		for (String value : sortedAltGeneIDs.values())
+			this.altGeneIDValues[i++] = intern(value);
+	}
+
+	/** @return interned <code>s</code>, <code>null</code> if <code>s</code> is <code>null</code> */
+	private static String intern(String s) {
+		return (s == null) ? null : STRINGS.intern(s);
+	}
+
+	/** Store begin and end position of <code>region</code> at <code>offset</code> in {@link #coords} */
+	private void putCoords(int offset, GenomeInterval region) {
+		if (region.getChr() != chr)
+			throw new IllegalArgumentException("Region " + region + " is not on the transcript's chromosome " + chr);
+		final GenomeInterval converted = (region.getStrand() == strand) ? region : region.withStrand(strand);
+		coords[offset] = converted.getBeginPos();
+		coords[offset + 1] = converted.getEndPos();
+	}
+
+	/** @return {@link GenomeInterval} with the begin and end position at <code>offset</code> in {@link #coords} */
+	private GenomeInterval getRegion(int offset) {
+		return new GenomeInterval(refDict, strand, chr, coords[offset], coords[offset + 1]);
 	}
 
 	/** @return accession number */
@@ -110,21 +196,64 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 
 	/** @return transcript's genomic region */
 	public GenomeInterval getTXRegion() {
-		return txRegion;
+		return getRegion(0);
 	}
 
 	/** @return CDS genomic region */
 	public GenomeInterval getCDSRegion() {
-		return cdsRegion;
+		return getRegion(2);
 	}
 
-	/** @return genomic intervals with the exons, order is dictated by strand of transcript. */
+	/**
+	 * Note that the list is created on each call, use {@link #getNumExons} and {@link #getExonRegion} in loops.
+	 *
+	 * @return genomic intervals with the exons, order is dictated by strand of transcript.
+	 */
 	public ImmutableList<GenomeInterval> getExonRegions() {
-		return exonRegions;
+		final ImmutableList.Builder<GenomeInterval> builder = ImmutableList.builder();
+		for (int i = 0; i < getNumExons(); ++i)
+			builder.add(getRegion(EXONS_OFFSET + 2 * i));
+		return builder.build();
+	}
+
+	/**
+	 * @param i
+	 *            0-based index of the exon's region to return
+	 * @return {@link GenomeInterval} with the exon's region
+	 */
+	public GenomeInterval getExonRegion(int i) {
+		if (i < 0 || i >= getNumExons())
+			throw new IndexOutOfBoundsException("No exon with index " + i);
+		return getRegion(EXONS_OFFSET + 2 * i);
+	}
+
+	/** @return number of exons */
+	public int getNumExons() {
+		return (coords.length - EXONS_OFFSET) / 2;
+	}
+
+	/** @return zero-based begin position of the <code>i</code>-th exon, on the strand of the transcript */
+	public int getExonBeginPos(int i) {
+		return coords[EXONS_OFFSET + 2 * i];
+	}
+
+	/** @return zero-based end position of the <code>i</code>-th exon, on the strand of the transcript */
+	public int getExonEndPos(int i) {
+		return coords[EXONS_OFFSET + 2 * i + 1];
 	}
 
-	/** @return mDNA sequence of the spliced RNA of this known gene transcript. */
+	/**
+	 * Note that this unpacks the sequence into a new {@link String}, use {@link #getPackedSequence} for accessing
+	 * single positions or ranges.
+	 *
+	 * @return mDNA sequence of the spliced RNA of this known gene transcript.
+	 */
 	public String getSequence() {
+		return (sequence == null) ? null : sequence.toString();
+	}
+
+	/** @return mDNA sequence of the spliced RNA of this known gene transcript, packed with two bits per base. */
+	public PackedSequence getPackedSequence() {
 		return sequence;
 	}
 
@@ -142,7 +271,10 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	 * The alternative identifiers used are the values of {@link AltGeneIDType} converted to strings.
 	 */
 	public ImmutableSortedMap<String, String> getAltGeneIDs() {
-		return altGeneIDs;
+		final ImmutableSortedMap.Builder<String, String> builder = ImmutableSortedMap.naturalOrder();
+		for (int i = 0; i < altGeneIDValues.length; ++i)
+			builder.put(altGeneIDKeys.get(i), altGeneIDValues[i]);
+		return builder.build();
 	}
 
 	/**
@@ -157,38 +289,50 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 
 	/** @return the strand of the transcript */
 	public Strand getStrand() {
-		return txRegion.getStrand();
+		return strand;
 	}
 
 	/** @return the chromosome of the transcript */
 	public int getChr() {
-		return txRegion.getChr();
+		return chr;
+	}
+
+	/** @return the reference dictionary of the transcript's intervals */
+	public ReferenceDictionary getRefDict() {
+		return refDict;
 	}
 
 	/**
 	 * @return <tt>true</tt> if this is a gene-coding transcript, marked by <tt>cdsRegion</tt> being empty.
 	 */
 	public boolean isCoding() {
-		return (this.cdsRegion.getBeginPos() < this.cdsRegion.getEndPos());
+		return (coords[2] < coords[3]);
 	}
 
 	/**
 	 * @return the length of the coding exon sequence
 	 */
 	public int cdsTranscriptLength() {
-		int result = 0;
-		for (GenomeInterval region : exonRegions)
-			result += region.intersection(cdsRegion).length();
-		return result;
+		return getProjectionIndex().getCDSTranscriptLength();
 	}
 
 	/**
 	 * @return the sum of the exon sequence lengths
 	 */
 	public int transcriptLength() {
-		int result = 0;
-		for (GenomeInterval region : exonRegions)
-			result += region.length();
+		return getProjectionIndex().getTranscriptLength();
+	}
+
+	/**
+	 * @return the {@link TranscriptProjectionIndex} of this transcript, built on first call
+	 */
+	public TranscriptProjectionIndex getProjectionIndex() {
+		// The index is immutable, so concurrent first calls at worst build it twice.
+		TranscriptProjectionIndex result = projectionIndex;
+		if (result == null) {
+			result = new TranscriptProjectionIndex(this);
+			projectionIndex = result;
+		}
 		return result;
 	}
 
@@ -199,26 +343,50 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	 */
 	public GenomeInterval intronRegion(int i) {
 		// TODO(holtgrem): test me!
-		GenomeInterval exonRegionL = exonRegions.get(i);
-		GenomeInterval exonRegionR = exonRegions.get(i + 1);
-		return new GenomeInterval(exonRegionL.refDict, exonRegionL.getStrand(), exonRegionL.getChr(),
-				exonRegionL.getEndPos(), exonRegionR.getBeginPos(), PositionType.ZERO_BASED);
+		if (i < 0 || i + 1 >= getNumExons())
+			throw new IndexOutOfBoundsException("No intron with index " + i);
+		return new GenomeInterval(refDict, strand, chr, getExonEndPos(i), getExonBeginPos(i + 1),
+				PositionType.ZERO_BASED);
 	}
 
-	/**
-	 * Ensures that the strands are consistent.
-	 */
-	private void checkForConsistency() {
-		Strand strand = txRegion.getStrand();
-		assert (txRegion.getStrand() == strand);
-		assert (cdsRegion.getStrand() == strand);
-		for (GenomeInterval region : exonRegions)
-			assert (region.getStrand() == strand);
+	/** Write fields, with the sequence as {@link String} */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("accession", accession);
+		fields.put("geneSymbol", geneSymbol);
+		fields.put("txRegion", getTXRegion());
+		fields.put("cdsRegion", getCDSRegion());
+		fields.put("exonRegions", getExonRegions());
+		fields.put("sequence", getSequence());
+		fields.put("geneID", geneID);
+		fields.put("altGeneIDs", getAltGeneIDs());
+		fields.put("transcriptSupportLevel", transcriptSupportLevel);
+		out.writeFields();
+	}
+
+	/** Read fields and construct the object to return from {@link #readResolve} */
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		Map<String, String> altGeneIDs = (Map<String, String>) fields.get("altGeneIDs", null);
+		this.deserialized = new TranscriptModel((String) fields.get("accession", null),
+				(String) fields.get("geneSymbol", null), (GenomeInterval) fields.get("txRegion", null),
+				(GenomeInterval) fields.get("cdsRegion", null),
+				(ImmutableList<GenomeInterval>) fields.get("exonRegions", null), (String) fields.get("sequence", null),
+				(String) fields.get("geneID", null), fields.get("transcriptSupportLevel", 0),
+				(altGeneIDs == null) ? ImmutableMap.<String, String> of() : altGeneIDs);
+	}
+
+	/** @return the object constructed in {@link #readObject} */
+	private Object readResolve() throws InvalidObjectException {
+		if (deserialized == null)
+			throw new InvalidObjectException("TranscriptModel was not read through readObject");
+		return deserialized;
 	}
 
 	@Override
 	public String toString() {
-		return accession + "(" + txRegion + ")";
+		return accession + "(" + getTXRegion() + ")";
 	}
 
 	@Override
@@ -226,13 +394,13 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((accession == null) ? 0 : accession.hashCode());
-		result = prime * result + ((cdsRegion == null) ? 0 : cdsRegion.hashCode());
-		result = prime * result + ((exonRegions == null) ? 0 : exonRegions.hashCode());
+		result = prime * result + chr;
+		result = prime * result + strand.hashCode();
+		result = prime * result + Arrays.hashCode(coords);
 		result = prime * result + ((geneID == null) ? 0 : geneID.hashCode());
 		result = prime * result + ((geneSymbol == null) ? 0 : geneSymbol.hashCode());
 		result = prime * result + ((sequence == null) ? 0 : sequence.hashCode());
 		result = prime * result + transcriptSupportLevel;
-		result = prime * result + ((txRegion == null) ? 0 : txRegion.hashCode());
 		return result;
 	}
 
@@ -250,15 +418,9 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 				return false;
 		} else if (!accession.equals(other.accession))
 			return false;
-		if (cdsRegion == null) {
-			if (other.cdsRegion != null)
-				return false;
-		} else if (!cdsRegion.equals(other.cdsRegion))
+		if (chr != other.chr || strand != other.strand)
 			return false;
-		if (exonRegions == null) {
-			if (other.exonRegions != null)
-				return false;
-		} else if (!exonRegions.equals(other.exonRegions))
+		if (!Arrays.equals(coords, other.coords))
 			return false;
 		if (geneID == null) {
 			if (other.geneID != null)
@@ -277,11 +439,6 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 			return false;
 		if (transcriptSupportLevel != other.transcriptSupportLevel)
 			return false;
-		if (txRegion == null) {
-			if (other.txRegion != null)
-				return false;
-		} else if (!txRegion.equals(other.txRegion))
-			return false;
 		return true;
 	}
 
@@ -5,6 +5,8 @@ import de.charite.compbio.jannovar.Immutable;
 /**
  * Wraps a {@link TranscriptModel} object and allow the coordinate conversion.
  *
+ * The conversions use the transcript's shared {@link TranscriptProjectionIndex}, so creating decorators is cheap.
+ *
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  */
 @Immutable
@@ -17,6 +19,8 @@ public final class TranscriptProjectionDecorator {
 
 	/** the transcript information to perform the projection upon. */
 	private final TranscriptModel transcript;
+	/** the projection index of {@link #transcript} */
+	private final TranscriptProjectionIndex index;
 
 	/**
 	 * Initialize the object with the given {@link TranscriptModel}
@@ -26,6 +30,7 @@ public final class TranscriptProjectionDecorator {
 	 */
 	public TranscriptProjectionDecorator(TranscriptModel transcript) {
 		this.transcript = transcript;
+		this.index = transcript.getProjectionIndex();
 	}
 
 	/**
@@ -40,9 +45,9 @@ public final class TranscriptProjectionDecorator {
 	 */
 	public String getCDSTranscript() {
 		try {
-			TranscriptPosition tBeginPos = genomeToTranscriptPos(transcript.getCDSRegion().getGenomeBeginPos());
-			TranscriptPosition tEndPos = genomeToTranscriptPos(transcript.getCDSRegion().getGenomeEndPos());
-			return transcript.getSequence().substring(tBeginPos.getPos(), tEndPos.getPos());
+			cdsBeginTranscriptPos();
+			genomeToTranscriptPos(transcript.getCDSRegion().getGenomeEndPos());
+			return TranscriptSequenceCache.getShared().get(transcript).getCDSTranscript();
 		} catch (ProjectionException e) {
 			throw new Error("Bug: CDS begin/end must be translatable into transcript positions");
 		}
@@ -52,12 +57,25 @@ public final class TranscriptProjectionDecorator {
 	 * @return the CDS transcript string extended to the right for the full transcript
 	 */
 	public String getTranscriptStartingAtCDS() {
+		return getCachedSequences().getTranscriptStartingAtCDS();
+	}
+
+	/**
+	 * @return translation of {@link #getTranscriptStartingAtCDS}, the reference protein sequence continued to the end
+	 *         of the transcript
+	 */
+	public String getTranslatedTranscriptStartingAtCDS() {
+		return getCachedSequences().getProtein();
+	}
+
+	/** @return the {@link TranscriptSequenceCache.Entry} with the reference sequences of the transcript */
+	private TranscriptSequenceCache.Entry getCachedSequences() {
 		try {
-			TranscriptPosition tBeginPos = genomeToTranscriptPos(transcript.getCDSRegion().getGenomeBeginPos());
-			return transcript.getSequence().substring(tBeginPos.getPos(), transcript.getSequence().length());
+			cdsBeginTranscriptPos();
 		} catch (ProjectionException e) {
 			throw new Error("Bug: CDS begin must be translatable into transcript positions");
 		}
+		return TranscriptSequenceCache.getShared().get(transcript);
 	}
 
 	/**
@@ -70,26 +88,36 @@ public final class TranscriptProjectionDecorator {
 	 *             if the genome position was not valid
 	 */
 	public TranscriptPosition genomeToTranscriptPos(GenomePosition pos) throws ProjectionException {
-		if (!transcript.getTXRegion().contains(pos)) // guard against incorrect position
-			throw new ProjectionException("Position " + pos + " is not in the transcript region "
+		if (pos.getChr() != index.getChr())
+			throw projectionError(pos);
+		final int p = index.toTranscriptStrand(pos);
+		final int txPos = index.txRegionContains(p) ? index.genomeToTranscriptPos(p) : -1;
+		if (txPos < 0)
+			throw projectionError(pos);
+		return new TranscriptPosition(transcript, txPos, PositionType.ZERO_BASED);
+	}
+
+	/**
+	 * @return {@link ProjectionException} for the case that <code>pos</code> cannot be projected to the transcript
+	 */
+	private ProjectionException projectionError(GenomePosition pos) {
+		if (!transcript.getTXRegion().contains(pos))
+			return new ProjectionException("Position " + pos + " is not in the transcript region "
 					+ transcript.getTXRegion());
-		pos = pos.withStrand(transcript.getStrand());
-
-		// Look through all exons, find containing one, and compute the position.
-		int tOffset = 0; // offset in transcript
-		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (region.contains(pos)) {
-				// Note that we have to use *the region's position* as the base object for the difference operation so
-				// the case of the transcript on the reverse strand but position on forward strand is handled correctly.
-				// Consequently, we have to *subtract* this difference from transcriptPos.
-				int posInExon = pos.differenceTo(region.getGenomeBeginPos());
-				int transcriptPos = tOffset + posInExon;
-				return new TranscriptPosition(transcript, transcriptPos, PositionType.ZERO_BASED);
-			}
-			tOffset += region.length();
-		}
+		return new ProjectionException("Position " + pos.withStrand(transcript.getStrand())
+				+ " does not lie in an exon.");
+	}
 
-		throw new ProjectionException("Position " + pos + " does not lie in an exon.");
+	/**
+	 * @return transcript position of the CDS begin position
+	 * @throws ProjectionException
+	 *             if the CDS begin position does not lie in an exon
+	 */
+	private int cdsBeginTranscriptPos() throws ProjectionException {
+		final int result = index.getCDSBeginTranscriptPos();
+		if (result < 0)
+			throw projectionError(transcript.getCDSRegion().getGenomeBeginPos());
+		return result;
 	}
 
 	/**
@@ -104,15 +132,13 @@ public final class TranscriptProjectionDecorator {
 	 *             if the genome position was not valid
 	 */
 	public CDSPosition genomeToCDSPos(GenomePosition pos) throws ProjectionException {
-		if (!transcript.getCDSRegion().contains(pos)) // guard against incorrect position
+		if (pos.getChr() != index.getChr() || !index.cdsRegionContains(index.toTranscriptStrand(pos)))
 			throw new ProjectionException("Position " + pos + " is not in the CDS region " + transcript.getCDSRegion());
-		pos = pos.withStrand(transcript.getStrand());
 
 		// first convert from genome to transcript position
 		TranscriptPosition txPos = genomeToTranscriptPos(pos);
-		// now, compute offset of CDS start in transcript and shift txPos by this to obtain CDS position
-		TranscriptPosition cdsStartPos = genomeToTranscriptPos(transcript.getCDSRegion().getGenomeBeginPos());
-		return new CDSPosition(txPos.getTranscript(), txPos.getPos() - cdsStartPos.getPos(), PositionType.ZERO_BASED);
+		// now, shift txPos by the offset of CDS start in transcript to obtain CDS position
+		return new CDSPosition(transcript, txPos.getPos() - cdsBeginTranscriptPos(), PositionType.ZERO_BASED);
 	}
 
 	/**
@@ -123,19 +149,7 @@ public final class TranscriptProjectionDecorator {
 	 * @return the corresponding genome position for pos, will be on the same strand as the transcript
 	 */
 	public TranscriptPosition cdsToTranscriptPos(CDSPosition pos) {
-		final GenomePosition cdsBeginPos = transcript.getCDSRegion().getGenomeBeginPos();
-
-		int currPos = 0; // current transcript position
-		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (region.getGenomeEndPos().isLeq(cdsBeginPos)) {
-				currPos += region.length();
-			} else {
-				currPos += cdsBeginPos.differenceTo(region.getGenomeBeginPos());
-				break;
-			}
-		}
-
-		return new TranscriptPosition(transcript, currPos + pos.getPos());
+		return new TranscriptPosition(transcript, index.getCDSTranscriptOffset() + pos.getPos());
 	}
 
 	/**
@@ -164,23 +178,12 @@ public final class TranscriptProjectionDecorator {
 	 */
 	public GenomePosition transcriptToGenomePos(TranscriptPosition pos) throws ProjectionException {
 		final int targetPos = pos.getPos(); // 0-based target pos
-		if (targetPos < 0)
+		// the transcript end position is projected to the end of the last exon
+		final int genomePos = (targetPos < 0) ? -1 : index.transcriptToGenomePos(targetPos);
+		if (genomePos < 0)
 			throw new ProjectionException("Invalid transcript position " + targetPos);
-
-		int currPos = 0; // relative begin position of current exon
-		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (targetPos < currPos + region.length())
-				return region.getGenomeBeginPos().shifted(targetPos - currPos);
-			currPos += region.length();
-		}
-
-		// handling case of transcript end position
-		// TODO(holtgrewe): add test for this
-		GenomeInterval lastRegion = transcript.getExonRegions().get(transcript.getExonRegions().size() - 1);
-		if (targetPos == currPos)
-			return lastRegion.getGenomeEndPos();
-
-		throw new ProjectionException("Invalid transcript position " + targetPos);
+		return new GenomePosition(transcript.getTXRegion().getRefDict(), index.getStrand(), index.getChr(), genomePos,
+				PositionType.ZERO_BASED);
 	}
 
 	/**
@@ -195,7 +198,7 @@ public final class TranscriptProjectionDecorator {
 		if (transcript.getStrand().isForward())
 			return exonID;
 		else
-			return transcript.getExonRegions().size() - exonID - 1;
+			return transcript.getNumExons() - exonID - 1;
 	}
 
 	/**
@@ -207,26 +210,16 @@ public final class TranscriptProjectionDecorator {
 	 *         region but in transcript interval
 	 */
 	public int locateIntron(GenomePosition pos) {
-		if (pos.getChr() != transcript.getChr()) // guard against different chromosomes
+		if (pos.getChr() != index.getChr()) // guard against different chromosomes
 			return INVALID_INTRON_ID;
-		if (pos.getStrand() != transcript.getStrand()) // ensure pos is on the same strand
-			pos = pos.withStrand(transcript.getStrand());
+		final int p = index.toTranscriptStrand(pos);
 
 		// handle the case that the position is outside the transcript region
-		if (transcript.getTXRegion().isLeftOf(pos) || transcript.getTXRegion().isRightOf(pos))
+		if (!index.txRegionContains(p))
 			return INVALID_INTRON_ID;
 
-		// find exon containing pos or return null
-		int i = 0;
-		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (region.isRightOf(pos))
-				return i - 1;
-			if (region.contains(pos))
-				return INVALID_INTRON_ID; // not in intron
-			++i;
-		}
-
-		return INVALID_INTRON_ID;
+		final int intronID = index.findIntron(p);
+		return (intronID < 0) ? INVALID_INTRON_ID : intronID;
 	}
 
 	/**
@@ -238,25 +231,16 @@ public final class TranscriptProjectionDecorator {
 	 *         but in transcript interval
 	 */
 	public int locateExon(GenomePosition pos) {
-		if (pos.getChr() != transcript.getChr()) // guard against different chromosomes
+		if (pos.getChr() != index.getChr()) // guard against different chromosomes
 			return INVALID_EXON_ID;
-		if (pos.getStrand() != transcript.getStrand()) // ensure pos is on the same strand
-			pos = pos.withStrand(transcript.getStrand());
+		final int p = index.toTranscriptStrand(pos);
 
 		// handle the case that the position is outside the transcript region
-		if (transcript.getTXRegion().isLeftOf(pos) || transcript.getTXRegion().isRightOf(pos))
+		if (!index.txRegionContains(p))
 			return INVALID_EXON_ID;
 
-		// find exon containing pos or return null
-		GenomeInterval posBase = new GenomeInterval(pos, 1); // region of referenced base
-		int i = 0;
-		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (region.contains(posBase))
-				return i;
-			++i;
-		}
-
-		return INVALID_EXON_ID;
+		final int exonID = index.findExon(p);
+		return (exonID < 0) ? INVALID_EXON_ID : exonID;
 	}
 
 	/**
@@ -274,18 +258,11 @@ public final class TranscriptProjectionDecorator {
 		if (pos.getPos() < 0)
 			throw new ProjectionException("Problem with transcript position " + pos + " (< 0)");
 
-		// find exon containing pos or return null
-		int currEndPos = 0; // current end position of exon in transcript
-		int i = 0;
-		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (pos.getPos() < currEndPos + region.length())
-				return i;
-			++i;
-			currEndPos += region.length();
-		}
-
-		// if pos was a valid transcript position then we should not reach here
-		throw new ProjectionException("Problem with transcript position " + pos + " (after last exon)");
+		// find exon containing pos, if pos was a valid transcript position then there is one
+		final int exonID = index.findExonByTranscriptPos(pos.getPos());
+		if (exonID < 0)
+			throw new ProjectionException("Problem with transcript position " + pos + " (after last exon)");
+		return exonID;
 	}
 
 	/**
@@ -300,7 +277,7 @@ public final class TranscriptProjectionDecorator {
 	 */
 	public CDSPosition projectGenomeToCDSPosition(GenomePosition pos) {
 		// TODO(holtgrem): Test me!
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
+		TranscriptProjectionDecorator projector = this;
 		TranscriptSequenceOntologyDecorator soDecorator = new TranscriptSequenceOntologyDecorator(transcript);
 
 		try {
@@ -315,7 +292,7 @@ public final class TranscriptProjectionDecorator {
 				return projector.genomeToCDSPos(pos);
 			} else { // lies in intron, project to begin position of next exon
 				int intronNum = projector.locateIntron(pos);
-				return projector.genomeToCDSPos(transcript.getExonRegions().get(intronNum + 1).getGenomeBeginPos());
+				return projector.genomeToCDSPos(transcript.getExonRegion(intronNum + 1).getGenomeBeginPos());
 			}
 		} catch (ProjectionException e) {
 			throw new Error("Bug: must be able to convert CDS exon position! " + e.getMessage());
@@ -350,7 +327,7 @@ public final class TranscriptProjectionDecorator {
 	 */
 	public TranscriptPosition projectGenomeToTXPosition(GenomePosition pos) {
 		// TODO(holtgrem): Test me!
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
+		TranscriptProjectionDecorator projector = this;
 		TranscriptSequenceOntologyDecorator soDecorator = new TranscriptSequenceOntologyDecorator(transcript);
 
 		try {
@@ -365,7 +342,7 @@ public final class TranscriptProjectionDecorator {
 				return projector.genomeToTranscriptPos(pos);
 			} else { // lies in intron, project to begin position of next exon
 				int intronNum = projector.locateIntron(pos);
-				return projector.genomeToTranscriptPos(transcript.getExonRegions().get(intronNum + 1)
+				return projector.genomeToTranscriptPos(transcript.getExonRegion(intronNum + 1)
 						.getGenomeBeginPos());
 			}
 		} catch (ProjectionException e) {
@@ -0,0 +1,269 @@
+package de.charite.compbio.jannovar.reference;
+
+import de.charite.compbio.jannovar.Immutable;
+
+/**
+ * Index of a {@link TranscriptModel}'s exon structure for coordinate projection without allocation.
+ *
+ * All genome positions are zero-based and on the strand of the transcript, such that the exons are sorted by their
+ * begin positions in transcript order. The transcript offset of each exon is precomputed, so projections between
+ * genome, transcript, and CDS coordinates only need a binary search over the exons.
+ *
+ * Use {@link TranscriptModel#getProjectionIndex} for obtaining the shared index of a transcript. The methods return
+ * <code>-1</code> for invalid positions, {@link TranscriptProjectionDecorator} wraps this into the position objects
+ * and exceptions.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@Immutable
+public final class TranscriptProjectionIndex {
+
+	/** the chromosome of the transcript */
+	private final int chr;
+	/** the strand of the transcript */
+	private final Strand strand;
+	/** length of the chromosome, <code>-1</code> if unknown */
+	private final int contigLength;
+
+	/** begin position of the transcript */
+	private final int txBegin;
+	/** end position of the transcript */
+	private final int txEnd;
+	/** begin position of the CDS */
+	private final int cdsBegin;
+	/** end position of the CDS */
+	private final int cdsEnd;
+
+	/** begin positions of the exons, in transcript order */
+	private final int[] exonBegins;
+	/** end positions of the exons, in transcript order */
+	private final int[] exonEnds;
+	/** transcript position of the first base of each exon, last entry is the transcript length */
+	private final int[] exonOffsets;
+	/** whether the exons are sorted and do not overlap, binary search is only used in this case */
+	private final boolean sorted;
+
+	/** transcript position that CDS position 0 is projected to */
+	private final int cdsTranscriptOffset;
+	/** transcript position of the CDS begin position, <code>-1</code> if it does not lie in an exon */
+	private final int cdsBeginTranscriptPos;
+	/** number of exonic bases in the CDS */
+	private final int cdsTranscriptLength;
+
+	/**
+	 * Build index for the given {@link TranscriptModel}
+	 *
+	 * @param transcript
+	 *            the {@link TranscriptModel} to build the index for
+	 */
+	TranscriptProjectionIndex(TranscriptModel transcript) {
+		final GenomeInterval txRegion = transcript.getTXRegion();
+		this.chr = transcript.getChr();
+		this.strand = transcript.getStrand();
+		final Integer length = transcript.getRefDict().getContigIDToLength().get(chr);
+		this.contigLength = (length == null) ? -1 : length;
+
+		this.txBegin = txRegion.getBeginPos();
+		this.txEnd = txRegion.getEndPos();
+		final GenomeInterval cdsRegion = transcript.getCDSRegion();
+		this.cdsBegin = cdsRegion.getBeginPos();
+		this.cdsEnd = cdsRegion.getEndPos();
+
+		final int numExons = transcript.getNumExons();
+		this.exonBegins = new int[numExons];
+		this.exonEnds = new int[numExons];
+		this.exonOffsets = new int[numExons + 1];
+		boolean isSorted = true;
+		int cdsLength = 0;
+		for (int i = 0; i < numExons; ++i) {
+			exonBegins[i] = transcript.getExonBeginPos(i);
+			exonEnds[i] = transcript.getExonEndPos(i);
+			exonOffsets[i + 1] = exonOffsets[i] + exonEnds[i] - exonBegins[i];
+			if (i > 0 && exonBegins[i] < exonEnds[i - 1])
+				isSorted = false;
+			cdsLength += Math.max(0, Math.min(exonEnds[i], cdsEnd) - Math.max(exonBegins[i], cdsBegin));
+		}
+		this.sorted = isSorted;
+		this.cdsTranscriptLength = cdsLength;
+
+		int offset = 0;
+		for (int i = 0; i < numExons; ++i) {
+			if (exonEnds[i] <= cdsBegin) {
+				offset += exonEnds[i] - exonBegins[i];
+			} else {
+				offset += cdsBegin - exonBegins[i];
+				break;
+			}
+		}
+		this.cdsTranscriptOffset = offset;
+		this.cdsBeginTranscriptPos = txRegionContains(cdsBegin) ? genomeToTranscriptPos(cdsBegin) : -1;
+	}
+
+	/** @return the chromosome of the transcript */
+	public int getChr() {
+		return chr;
+	}
+
+	/** @return the strand of the transcript */
+	public Strand getStrand() {
+		return strand;
+	}
+
+	/** @return number of exons */
+	public int getNumExons() {
+		return exonBegins.length;
+	}
+
+	/** @return begin position of the exon with the given index in transcript order */
+	public int getExonBegin(int exonID) {
+		return exonBegins[exonID];
+	}
+
+	/** @return end position of the exon with the given index in transcript order */
+	public int getExonEnd(int exonID) {
+		return exonEnds[exonID];
+	}
+
+	/** @return transcript position of the first base of the exon with the given index in transcript order */
+	public int getExonTranscriptOffset(int exonID) {
+		return exonOffsets[exonID];
+	}
+
+	/** @return sum of the exon lengths */
+	public int getTranscriptLength() {
+		return exonOffsets[exonOffsets.length - 1];
+	}
+
+	/** @return number of exonic bases in the CDS */
+	public int getCDSTranscriptLength() {
+		return cdsTranscriptLength;
+	}
+
+	/** @return transcript position that CDS position 0 is projected to */
+	public int getCDSTranscriptOffset() {
+		return cdsTranscriptOffset;
+	}
+
+	/** @return transcript position of the CDS begin position, <code>-1</code> if it does not lie in an exon */
+	public int getCDSBeginTranscriptPos() {
+		return cdsBeginTranscriptPos;
+	}
+
+	/**
+	 * @param pos
+	 *            the {@link GenomePosition} to convert, must be on the transcript's chromosome
+	 * @return position of <code>pos</code> on the transcript's strand
+	 */
+	public int toTranscriptStrand(GenomePosition pos) {
+		if (pos.getStrand() == strand)
+			return pos.getPos();
+		else if (contigLength >= 0)
+			return contigLength - pos.getPos() - 1;
+		else
+			return pos.withStrand(strand).getPos();
+	}
+
+	/** @return whether the transcript region contains <code>pos</code> (on transcript strand) */
+	public boolean txRegionContains(int pos) {
+		return pos >= txBegin && pos < txEnd;
+	}
+
+	/** @return whether the CDS region contains <code>pos</code> (on transcript strand) */
+	public boolean cdsRegionContains(int pos) {
+		return pos >= cdsBegin && pos < cdsEnd;
+	}
+
+	/**
+	 * @param pos
+	 *            genome position on the transcript strand
+	 * @return index of the exon (in transcript order) containing <code>pos</code>, <code>-1</code> if none
+	 */
+	public int findExon(int pos) {
+		if (sorted) {
+			final int i = upperBound(exonBegins, pos) - 1;
+			return (i >= 0 && pos < exonEnds[i]) ? i : -1;
+		}
+		for (int i = 0; i < exonBegins.length; ++i)
+			if (pos >= exonBegins[i] && pos < exonEnds[i])
+				return i;
+		return -1;
+	}
+
+	/**
+	 * @param pos
+	 *            genome position on the transcript strand
+	 * @return index of the intron (in transcript order) containing <code>pos</code>, <code>-1</code> if <code>pos</code>
+	 *         is exonic or not between two exons
+	 */
+	public int findIntron(int pos) {
+		if (sorted) {
+			// number of exons starting at or left of pos, the next exon is right of pos
+			final int numLeft = upperBound(exonBegins, pos);
+			if (numLeft == exonBegins.length || numLeft == 0 || pos < exonEnds[numLeft - 1])
+				return -1;
+			return numLeft - 1;
+		}
+		for (int i = 0; i < exonBegins.length; ++i) {
+			if (pos < exonBegins[i])
+				return i - 1;
+			if (pos < exonEnds[i])
+				return -1;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param pos
+	 *            genome position on the transcript strand
+	 * @return the transcript position of <code>pos</code>, <code>-1</code> if <code>pos</code> is not exonic
+	 */
+	public int genomeToTranscriptPos(int pos) {
+		final int exonID = findExon(pos);
+		if (exonID < 0)
+			return -1;
+		return exonOffsets[exonID] + pos - exonBegins[exonID];
+	}
+
+	/**
+	 * @param txPos
+	 *            zero-based transcript position
+	 * @return index of the exon (in transcript order) containing <code>txPos</code>, <code>-1</code> if none
+	 */
+	public int findExonByTranscriptPos(int txPos) {
+		if (txPos < 0 || txPos >= getTranscriptLength())
+			return -1;
+		// first exon whose end offset is right of txPos
+		return upperBound(exonOffsets, txPos) - 1;
+	}
+
+	/**
+	 * @param txPos
+	 *            zero-based transcript position
+	 * @return genome position on the transcript strand, the end position of the last exon for the transcript length,
+	 *         <code>-1</code> if <code>txPos</code> is invalid
+	 */
+	public int transcriptToGenomePos(int txPos) {
+		final int exonID = findExonByTranscriptPos(txPos);
+		if (exonID >= 0)
+			return exonBegins[exonID] + txPos - exonOffsets[exonID];
+		else if (txPos == getTranscriptLength() && exonEnds.length > 0)
+			return exonEnds[exonEnds.length - 1];
+		else
+			return -1;
+	}
+
+	/** @return index of the first entry of the sorted array <code>values</code> that is greater than <code>x</code> */
+	private static int upperBound(int[] values, int x) {
+		int lo = 0;
+		int hi = values.length;
+		while (lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (values[mid] <= x)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+}
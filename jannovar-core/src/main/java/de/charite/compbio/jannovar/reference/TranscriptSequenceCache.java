@@ -0,0 +1,183 @@
+package de.charite.compbio.jannovar.reference;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.impl.util.Translator;
+
+/**
+ * Thread-safe cache of the reference CDS and protein sequences of coding transcripts
+ *
+ * The sequences are keyed by transcript accession. The memory use is bounded by the total number of characters in the
+ * cached sequences, entries are evicted in LRU order. An entry is only used if it was built for the same
+ * {@link TranscriptModel} object, such that different databases with the same accessions can be used concurrently.
+ * The entries only refer weakly to their {@link TranscriptModel}, so the cache does not keep a database reachable after
+ * it has been dropped.
+ *
+ * Use {@link #getShared} for obtaining the instance used by {@link TranscriptProjectionDecorator}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class TranscriptSequenceCache {
+
+	/** Default maximal number of characters in the cached sequences, around 64 MB */
+	public static final long DEFAULT_MAX_CHARS = 32L * 1024 * 1024;
+
+	/** The shared instance */
+	private static final TranscriptSequenceCache SHARED = new TranscriptSequenceCache(DEFAULT_MAX_CHARS);
+
+	/** Maximal number of characters in the cached sequences */
+	private final long maxChars;
+
+	/** Cached sequences by accession in LRU order, guarded by <code>this</code> */
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	/** Number of characters in the cached sequences, guarded by <code>this</code> */
+	private long numChars = 0;
+
+	/** Number of lookups served from the cache */
+	private final AtomicLong hits = new AtomicLong();
+
+	/** Number of lookups that required building the sequences */
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Construct cache
+	 *
+	 * @param maxChars
+	 *            maximal number of characters in the cached sequences
+	 */
+	public TranscriptSequenceCache(long maxChars) {
+		if (maxChars < 1)
+			throw new IllegalArgumentException("Maximal number of characters must be positive");
+		this.maxChars = maxChars;
+	}
+
+	/** @return the cache shared by all {@link TranscriptProjectionDecorator}s */
+	public static TranscriptSequenceCache getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * Get sequences of a coding transcript
+	 *
+	 * @param transcript
+	 *            the coding {@link TranscriptModel} to get the sequences for, the CDS begin position must lie in an
+	 *            exon
+	 * @return the cached or newly built {@link Entry}
+	 */
+	public Entry get(TranscriptModel transcript) {
+		final String key = transcript.getAccession();
+		Entry result;
+		synchronized (this) {
+			result = entries.get(key);
+		}
+		if (result != null && result.transcript.get() == transcript) {
+			hits.incrementAndGet();
+			return result;
+		}
+
+		misses.incrementAndGet();
+		result = new Entry(transcript);
+		final long weight = result.weight();
+		if (weight > maxChars)
+			return result;
+		synchronized (this) {
+			final Entry old = entries.put(key, result);
+			if (old != null)
+				numChars -= old.weight();
+			numChars += weight;
+			Iterator<Entry> it = entries.values().iterator();
+			while (numChars > maxChars && it.hasNext()) {
+				numChars -= it.next().weight();
+				it.remove();
+			}
+		}
+		return result;
+	}
+
+	/** Remove all entries */
+	public synchronized void clear() {
+		entries.clear();
+		numChars = 0;
+	}
+
+	/** @return number of cached transcripts */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/** @return number of characters in the cached sequences */
+	public synchronized long getNumChars() {
+		return numChars;
+	}
+
+	/** @return number of lookups served from the cache */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/** @return number of lookups that required building the sequences */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	@Override
+	public String toString() {
+		return "TranscriptSequenceCache [maxChars=" + maxChars + ", size=" + size() + ", numChars=" + getNumChars()
+				+ ", hits=" + getHits() + ", misses=" + getMisses() + "]";
+	}
+
+	/**
+	 * Reference sequences of one coding transcript
+	 */
+	@Immutable
+	public static final class Entry {
+		/** the transcript that the sequences were built for */
+		private final WeakReference<TranscriptModel> transcript;
+		/** the transcript sequence starting at the CDS begin position */
+		private final String transcriptStartingAtCDS;
+		/** the CDS sequence, a prefix of {@link #transcriptStartingAtCDS} */
+		private final String cdsTranscript;
+		/** the translation of {@link #transcriptStartingAtCDS} */
+		private final String protein;
+
+		private Entry(TranscriptModel transcript) {
+			final TranscriptProjectionIndex index = transcript.getProjectionIndex();
+			final PackedSequence seq = transcript.getPackedSequence();
+			this.transcript = new WeakReference<>(transcript);
+			this.transcriptStartingAtCDS = seq.substring(index.getCDSBeginTranscriptPos(), seq.length());
+			this.cdsTranscript = transcriptStartingAtCDS.substring(0,
+					Math.min(index.getCDSTranscriptLength(), transcriptStartingAtCDS.length()));
+			this.protein = Translator.getTranslator().translateDNA(transcriptStartingAtCDS);
+		}
+
+		/** @return number of characters in the sequences */
+		private long weight() {
+			return transcriptStartingAtCDS.length() + cdsTranscript.length() + protein.length();
+		}
+
+		/** @return the transcript sequence starting at the CDS begin position */
+		public String getTranscriptStartingAtCDS() {
+			return transcriptStartingAtCDS;
+		}
+
+		/** @return the CDS sequence */
+		public String getCDSTranscript() {
+			return cdsTranscript;
+		}
+
+		/**
+		 * @return the translation of {@link #getTranscriptStartingAtCDS}, up to the end of the transcript rather than
+		 *         the first stop codon
+		 */
+		public String getProtein() {
+			return protein;
+		}
+	}
+
+}
@@ -61,13 +61,11 @@ public final class TranscriptSequenceChangeHelper {
 			throw new Error("Bug: should be able to get transcript pos for CDS exon position");
 		}
 
-		// Update base in string using StringBuilder.
-		StringBuilder builder = new StringBuilder(transcript.getSequence());
+		// Update base or insert the alternative bases.
 		if (change.getType() == GenomeVariantType.SNV)
-			builder.setCharAt(tPos.getPos(), change.getAlt().charAt(0));
+			return replaceInSequence(tPos.getPos(), tPos.getPos() + 1, change.getAlt().substring(0, 1));
 		else
-			builder.insert(tPos.getPos(), change.getAlt());
-		return builder.toString();
+			return replaceInSequence(tPos.getPos(), tPos.getPos(), change.getAlt());
 	}
 
 	private String getTranscriptWithRangeInRefAffected(GenomeVariant change) {
@@ -93,11 +91,24 @@ public final class TranscriptSequenceChangeHelper {
 			throw new Error("Bug: should be able to translate change end position to transcript position.");
 		}
 
-		// Build resulting transcript string.
-		StringBuilder builder = new StringBuilder(transcript.getSequence());
-		builder.delete(tBeginPos.getPos(), tEndPos.getPos());
-		builder.insert(tBeginPos.getPos(), change.getAlt());
-		return builder.toString();
+		// Build resulting transcript string, clipping the end position to the end of the sequence.
+		final int endPos = Math.min(tEndPos.getPos(), transcript.getPackedSequence().length());
+		return replaceInSequence(tBeginPos.getPos(), endPos, change.getAlt());
+	}
+
+	/**
+	 * Build transcript sequence with the characters in <code>[beginPos, endPos)</code> replaced by <code>alt</code>
+	 *
+	 * The characters are copied from the {@link PackedSequence} of {@link #transcript} directly, without unpacking the
+	 * whole sequence into an intermediate {@link String}.
+	 */
+	private String replaceInSequence(int beginPos, int endPos, String alt) {
+		final PackedSequence seq = transcript.getPackedSequence();
+		final char[] result = new char[seq.length() - (endPos - beginPos) + alt.length()];
+		seq.getChars(0, beginPos, result, 0);
+		alt.getChars(0, alt.length(), result, beginPos);
+		seq.getChars(endPos, seq.length(), result, beginPos + alt.length());
+		return new String(result);
 	}
 
 	/**
@@ -127,7 +138,7 @@ public final class TranscriptSequenceChangeHelper {
 			return projector.genomeToTranscriptPos(pos);
 		} else { // lies in intron, project to begin position of next exon
 			int intronNum = projector.locateIntron(pos);
-			return projector.genomeToTranscriptPos(transcript.getExonRegions().get(intronNum).getGenomeBeginPos());
+			return projector.genomeToTranscriptPos(transcript.getExonRegion(intronNum).getGenomeBeginPos());
 		}
 	}
 
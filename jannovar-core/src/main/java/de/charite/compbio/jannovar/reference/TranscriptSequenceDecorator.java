@@ -84,10 +84,11 @@ public final class TranscriptSequenceDecorator {
 	public String getCodonAt(TranscriptPosition txPos, CDSPosition cdsPos) throws InvalidCodonException {
 		int frameShift = cdsPos.getPos() % 3;
 		int codonStart = txPos.getPos() - frameShift; // codon start in transcript string
-		if (transcript.getSequence().length() <= codonStart + 3)
+		final PackedSequence seq = transcript.getPackedSequence();
+		if (seq.length() <= codonStart + 3)
 			throw new InvalidCodonException("Could not access codon " + codonStart + " - " + (codonStart + 3)
-					+ ", transcript sequence length is " + transcript.getSequence().length());
-		return transcript.getSequence().substring(codonStart, codonStart + 3);
+					+ ", transcript sequence length is " + seq.length());
+		return seq.getCodon(codonStart);
 	}
 
 	/**
@@ -108,10 +109,11 @@ public final class TranscriptSequenceDecorator {
 	public String getCodonsStartingFrom(TranscriptPosition txPos, CDSPosition cdsPos, int count) {
 		int frameShift = cdsPos.getPos() % 3;
 		int codonStart = txPos.getPos() - frameShift; // codon start in transcript string
+		final PackedSequence seq = transcript.getPackedSequence();
 		int endPos = codonStart + 3 * count;
-		if (endPos > transcript.getSequence().length())
-			endPos = transcript.getSequence().length();
-		return transcript.getSequence().substring(codonStart, endPos);
+		if (endPos > seq.length())
+			endPos = seq.length();
+		return seq.substring(codonStart, endPos);
 	}
 
 	/**
@@ -125,7 +127,7 @@ public final class TranscriptSequenceDecorator {
 	 * @return the codon affected by a change at the given position
 	 */
 	public String getCodonsStartingFrom(TranscriptPosition txPos, CDSPosition cdsPos) {
-		return getCodonsStartingFrom(txPos, cdsPos, transcript.getSequence().length());
+		return getCodonsStartingFrom(txPos, cdsPos, transcript.getPackedSequence().length());
 	}
 
 }
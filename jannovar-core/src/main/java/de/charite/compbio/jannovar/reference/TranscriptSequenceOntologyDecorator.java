@@ -73,8 +73,12 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if <code>interval</code> contains a full exon (coding or non-coding).
 	 */
 	public boolean containsExon(GenomeInterval interval) {
-		for (GenomeInterval region : transcript.getExonRegions())
-			if (interval.contains(region))
+		if (interval.getChr() != transcript.getChr())
+			return false;
+		interval = onTranscriptStrand(interval);
+		for (int i = 0; i < transcript.getNumExons(); ++i)
+			if (interval.getBeginPos() <= transcript.getExonBeginPos(i)
+					&& transcript.getExonEndPos(i) <= interval.getEndPos())
 				return true;
 		return false;
 	}
@@ -85,9 +89,16 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if <code>interval</code> overlaps with a CDS-overlapping exon
 	 */
 	public boolean overlapsWithCDSExon(GenomeInterval interval) {
-		for (GenomeInterval region : transcript.getExonRegions())
-			if (transcript.getCDSRegion().overlapsWith(region) && interval.overlapsWith(region))
+		if (interval.getChr() != transcript.getChr())
+			return false;
+		interval = onTranscriptStrand(interval);
+		final GenomeInterval cdsRegion = transcript.getCDSRegion();
+		for (int i = 0; i < transcript.getNumExons(); ++i) {
+			final int beginPos = transcript.getExonBeginPos(i);
+			final int endPos = transcript.getExonEndPos(i);
+			if (overlaps(cdsRegion, beginPos, endPos) && overlaps(interval, beginPos, endPos))
 				return true;
+		}
 		return false;
 	}
 
@@ -132,11 +143,12 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean overlapsWithIntron(GenomeInterval changeInterval) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval intronRegion = transcript.intronRegion(i);
-			if (changeInterval.overlapsWith(intronRegion))
+		if (changeInterval.getChr() != transcript.getChr())
+			return false;
+		changeInterval = onTranscriptStrand(changeInterval);
+		for (int i = 0; i + 1 < transcript.getNumExons(); ++i)
+			if (overlaps(changeInterval, transcript.getExonEndPos(i), transcript.getExonBeginPos(i + 1)))
 				return true;
-		}
 		return false;
 	}
 
@@ -145,11 +157,12 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean liesInIntron(GenomePosition pos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval intronRegion = transcript.intronRegion(i);
-			if (intronRegion.contains(pos))
+		if (pos.getChr() != transcript.getChr())
+			return false;
+		final int p = onTranscriptStrand(pos).getPos();
+		for (int i = 0; i + 1 < transcript.getNumExons(); ++i)
+			if (transcript.getExonEndPos(i) <= p && p < transcript.getExonBeginPos(i + 1))
 				return true;
-		}
 		return false;
 	}
 
@@ -161,9 +174,14 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean overlapsWithCDSIntron(GenomeInterval changeInterval) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval intronRegion = transcript.intronRegion(i);
-			if (transcript.getCDSRegion().overlapsWith(intronRegion) && changeInterval.overlapsWith(intronRegion))
+		if (changeInterval.getChr() != transcript.getChr())
+			return false;
+		changeInterval = onTranscriptStrand(changeInterval);
+		final GenomeInterval cdsRegion = transcript.getCDSRegion();
+		for (int i = 0; i + 1 < transcript.getNumExons(); ++i) {
+			final int beginPos = transcript.getExonEndPos(i);
+			final int endPos = transcript.getExonBeginPos(i + 1);
+			if (overlaps(cdsRegion, beginPos, endPos) && overlaps(changeInterval, beginPos, endPos))
 				return true;
 		}
 		return false;
@@ -175,9 +193,14 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean liesInCDSIntron(GenomePosition pos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval intronRegion = transcript.intronRegion(i);
-			if (transcript.getCDSRegion().overlapsWith(intronRegion) && intronRegion.contains(pos))
+		if (pos.getChr() != transcript.getChr())
+			return false;
+		final int p = onTranscriptStrand(pos).getPos();
+		final GenomeInterval cdsRegion = transcript.getCDSRegion();
+		for (int i = 0; i + 1 < transcript.getNumExons(); ++i) {
+			final int beginPos = transcript.getExonEndPos(i);
+			final int endPos = transcript.getExonBeginPos(i + 1);
+			if (overlaps(cdsRegion, beginPos, endPos) && beginPos <= p && p < endPos)
 				return true;
 		}
 		return false;
@@ -227,9 +250,9 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean overlapsWithSpliceRegion(GenomeInterval interval) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
-			if (i + 1 < transcript.getExonRegions().size()) {
+		for (int i = 0; i < transcript.getNumExons(); ++i) {
+			GenomeInterval exonInterval = transcript.getExonRegion(i);
+			if (i + 1 < transcript.getNumExons()) {
 				// check for donor region
 				GenomeInterval spliceRegionInterval = new GenomeInterval(exonInterval.getGenomeEndPos().shifted(-3), 11);
 				if (interval.overlapsWith(spliceRegionInterval))
@@ -258,9 +281,9 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean liesInSpliceRegion(GenomePosition pos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
-			if (i + 1 < transcript.getExonRegions().size()) {
+		for (int i = 0; i < transcript.getNumExons(); ++i) {
+			GenomeInterval exonInterval = transcript.getExonRegion(i);
+			if (i + 1 < transcript.getNumExons()) {
 				// check for donor region
 				GenomeInterval spliceRegionInterval = new GenomeInterval(exonInterval.getGenomeEndPos().shifted(-3), 11);
 				if (spliceRegionInterval.contains(pos))
@@ -288,8 +311,8 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean overlapsWithSpliceDonorSite(GenomeInterval interval) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
+		for (int i = 0; i + 1 < transcript.getNumExons(); ++i) {
+			GenomeInterval exonInterval = transcript.getExonRegion(i);
 			GenomeInterval donorInterval = new GenomeInterval(exonInterval.getGenomeEndPos(), 2);
 			if (interval.overlapsWith(donorInterval))
 				return true;
@@ -308,8 +331,8 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean liesInSpliceDonorSite(GenomePosition pos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
+		for (int i = 0; i + 1 < transcript.getNumExons(); ++i) {
+			GenomeInterval exonInterval = transcript.getExonRegion(i);
 			GenomeInterval donorInterval = new GenomeInterval(exonInterval.getGenomeEndPos(), 2);
 			if (donorInterval.contains(pos))
 				return true;
@@ -328,8 +351,8 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean overlapsWithSpliceAcceptorSite(GenomeInterval interval) {
 		// TODO(holtgrem): Test me!
-		for (int i = 1; i < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
+		for (int i = 1; i < transcript.getNumExons(); ++i) {
+			GenomeInterval exonInterval = transcript.getExonRegion(i);
 			GenomeInterval acceptorInterval = new GenomeInterval(exonInterval.getGenomeBeginPos().shifted(-2), 2);
 			if (interval.overlapsWith(acceptorInterval))
 				return true;
@@ -348,8 +371,8 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public boolean liesInSpliceAcceptorSite(GenomePosition pos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 1; i < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
+		for (int i = 1; i < transcript.getNumExons(); ++i) {
+			GenomeInterval exonInterval = transcript.getExonRegion(i);
 			GenomeInterval acceptorInterval = new GenomeInterval(exonInterval.getGenomeBeginPos().shifted(-2), 2);
 			if (acceptorInterval.contains(pos))
 				return true;
@@ -476,7 +499,7 @@ public final class TranscriptSequenceOntologyDecorator {
 		if (intronNo == TranscriptProjectionDecorator.INVALID_INTRON_ID)
 			return false;
 
-		return !transcript.getExonRegions().get(intronNo + 1).contains(interval.getGenomeEndPos().shifted(-1));
+		return !transcript.getExonRegion(intronNo + 1).contains(interval.getGenomeEndPos().shifted(-1));
 	}
 
 	/**
@@ -492,7 +515,7 @@ public final class TranscriptSequenceOntologyDecorator {
 		if (exonNo == TranscriptProjectionDecorator.INVALID_EXON_ID)
 			return false;
 
-		return transcript.getExonRegions().get(exonNo).contains(interval);
+		return transcript.getExonRegion(exonNo).contains(interval);
 	}
 
 	/**
@@ -509,7 +532,7 @@ public final class TranscriptSequenceOntologyDecorator {
 		if (exonNo == TranscriptProjectionDecorator.INVALID_EXON_ID)
 			return false;
 
-		return transcript.getExonRegions().get(exonNo).contains(pos);
+		return transcript.getExonRegion(exonNo).contains(pos);
 	}
 
 	/**
@@ -518,10 +541,28 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the interval overlaps with an exon
 	 */
 	public boolean overlapsWithExon(GenomeInterval interval) {
-		for (int i = 0; i < transcript.getExonRegions().size(); ++i)
-			if (interval.overlapsWith(transcript.getExonRegions().get(i)))
+		for (int i = 0; i < transcript.getNumExons(); ++i)
+			if (interval.overlapsWith(transcript.getExonRegion(i)))
 				return true;
 		return false;
 	}
 
+	/** @return <code>interval</code> on the strand of {@link #transcript} */
+	private GenomeInterval onTranscriptStrand(GenomeInterval interval) {
+		return (interval.getStrand() == transcript.getStrand()) ? interval : interval.withStrand(transcript.getStrand());
+	}
+
+	/** @return <code>pos</code> on the strand of {@link #transcript} */
+	private GenomePosition onTranscriptStrand(GenomePosition pos) {
+		return (pos.getStrand() == transcript.getStrand()) ? pos : pos.withStrand(transcript.getStrand());
+	}
+
+	/**
+	 * @return <code>true</code> if <code>interval</code>, on the strand of {@link #transcript}, overlaps with the
+	 *         zero-based interval <code>[beginPos, endPos)</code> on the same strand
+	 */
+	private static boolean overlaps(GenomeInterval interval, int beginPos, int endPos) {
+		return (beginPos < interval.getEndPos() && interval.getBeginPos() < endPos);
+	}
+
 }
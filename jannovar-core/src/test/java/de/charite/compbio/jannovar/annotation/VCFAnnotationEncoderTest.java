@@ -0,0 +1,59 @@
+package de.charite.compbio.jannovar.annotation;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests for the {@link VCFAnnotationEncoder}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class VCFAnnotationEncoderTest {
+
+	/** annotation with messages only */
+	final Annotation annotation = new Annotation(ImmutableList.of(AnnotationMessage.ERROR_CHROMOSOME_NOT_FOUND,
+			AnnotationMessage.WARNING_SEQUENCE_NOT_AVAILABLE));
+
+	/** encoded messages of {@link #annotation} */
+	static final String MESSAGES = "ERROR_CHROMOSOME_NOT_FOUND&WARNING_SEQUENCE_NOT_AVAILABLE";
+
+	@Test
+	public void testMessagesOnly() {
+		StringBuilder builder = new StringBuilder();
+		VCFAnnotationEncoder.append(builder, annotation, "T", true);
+
+		Assert.assertEquals("T|||||||||||||||" + MESSAGES, builder.toString());
+		Assert.assertEquals(builder.toString(), annotation.toVCFAnnoString("T"));
+	}
+
+	@Test
+	public void testError() {
+		Assert.assertEquals("|||||||||||||||" + MESSAGES,
+				VCFAnnotationEncoder.appendError(new StringBuilder(), annotation.getMessages(), true).toString());
+	}
+
+	@Test
+	public void testEscaping() {
+		Assert.assertEquals("A%3DC%3B%25%2C%20%09|||||||||||||||" + MESSAGES,
+				VCFAnnotationEncoder.append(new StringBuilder(), annotation, "A=C;%, \t", true).toString());
+		Assert.assertEquals("A=C;%, \t|||||||||||||||" + MESSAGES,
+				VCFAnnotationEncoder.append(new StringBuilder(), annotation, "A=C;%, \t", false).toString());
+	}
+
+	@Test
+	public void testThreadLocalBuilder() {
+		StringBuilder builder = VCFAnnotationEncoder.getThreadLocalBuilder();
+		VCFAnnotationEncoder.append(builder, annotation, "T", true);
+		builder.append(',');
+		VCFAnnotationEncoder.append(builder, annotation, "G", true);
+		Assert.assertEquals(annotation.toVCFAnnoString("T") + "," + annotation.toVCFAnnoString("G"),
+				builder.toString());
+
+		StringBuilder other = VCFAnnotationEncoder.getThreadLocalBuilder();
+		Assert.assertSame(builder, other);
+		Assert.assertEquals(0, other.length());
+	}
+
+}
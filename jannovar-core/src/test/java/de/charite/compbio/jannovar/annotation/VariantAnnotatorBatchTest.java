@@ -0,0 +1,167 @@
+package de.charite.compbio.jannovar.annotation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Differential tests comparing the batch and sweep entry points of {@link VariantAnnotator} with
+ * {@link VariantAnnotator#buildAnnotations(GenomeVariant)}
+ *
+ * The variants are drawn with a fixed seed around the transcripts of the example databases, which contain overlapping
+ * transcripts on both strands. They include multi-allelic sites, and they are passed in sorted and in shuffled order.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class VariantAnnotatorBatchTest {
+
+	/** number of sites to draw per database */
+	static final int NUM_SITES = 300;
+
+	/** bases for drawing alleles */
+	static final String BASES = "CGAT";
+
+	@Test
+	public void testCTNS() throws Exception {
+		checkAgainstSingleVariantAnnotation("/ex_ctns/mini_ctns.ser");
+	}
+
+	@Test
+	public void testFBN1() throws Exception {
+		checkAgainstSingleVariantAnnotation("/ex_fbn1/mini_fbn1.ser");
+	}
+
+	private void checkAgainstSingleVariantAnnotation(String resource) throws Exception {
+		final JannovarData data = new JannovarDataSerializer(
+				this.getClass().getResource(resource).toURI().getPath()).load();
+		final VariantAnnotator annotator = new VariantAnnotator(data.getRefDict(), data.getChromosomes(),
+				new AnnotationBuilderOptions());
+
+		final List<GenomeVariant> sorted = drawVariants(data, new Random(42));
+		final List<GenomeVariant> shuffled = new ArrayList<>(sorted);
+		Collections.shuffle(shuffled, new Random(42));
+
+		for (List<GenomeVariant> variants : ImmutableList.of(sorted, shuffled)) {
+			final List<VariantAnnotations> expected = new ArrayList<>();
+			for (GenomeVariant variant : variants)
+				expected.add(annotator.buildAnnotations(variant));
+
+			// batch entry point
+			final VariantAnnotationsBatch batch = annotator.buildAnnotations(variants, new VariantAnnotationsBatch());
+			Assert.assertEquals(0, batch.getNumFailed());
+			Assert.assertEquals(variants.size(), batch.size());
+			for (int i = 0; i < variants.size(); ++i) {
+				Assert.assertSame(variants.get(i), batch.getVariant(i));
+				assertSameAnnotations(expected.get(i), batch.getAnnotations(i));
+			}
+
+			// sweep entry point, the sweep state is kept between the two passes
+			for (int i = 0; i < variants.size(); ++i)
+				assertSameAnnotations(expected.get(i), annotator.buildAnnotationsSorted(variants.get(i)));
+		}
+	}
+
+	/**
+	 * Compare annotation by annotation and field by field
+	 *
+	 * The protein changes are compared through their HGVS strings as the protein sequence descriptions do not implement
+	 * value equality.
+	 */
+	private static void assertSameAnnotations(VariantAnnotations expected, VariantAnnotations actual) {
+		final String message = expected.getGenomeVariant().toString();
+		Assert.assertEquals(message, expected.getGenomeVariant(), actual.getGenomeVariant());
+		Assert.assertEquals(message, expected.getAnnotations().size(), actual.getAnnotations().size());
+		for (int i = 0; i < expected.getAnnotations().size(); ++i) {
+			final Annotation expectedAnno = expected.getAnnotations().get(i);
+			final Annotation actualAnno = actual.getAnnotations().get(i);
+			Assert.assertSame(message, expectedAnno.getTranscript(), actualAnno.getTranscript());
+			Assert.assertEquals(message, expectedAnno.getEffects(), actualAnno.getEffects());
+			Assert.assertEquals(message, expectedAnno.getMessages(), actualAnno.getMessages());
+			Assert.assertEquals(message, expectedAnno.getAnnoLoc(), actualAnno.getAnnoLoc());
+			Assert.assertEquals(message, expectedAnno.getCDSNTChange(), actualAnno.getCDSNTChange());
+			Assert.assertEquals(message, toHGVSString(expectedAnno), toHGVSString(actualAnno));
+		}
+	}
+
+	private static String toHGVSString(Annotation anno) {
+		return (anno.getProteinChange() == null) ? null : anno.getProteinChange().toHGVSString();
+	}
+
+	/**
+	 * Draw SNVs, deletions, insertions, and block substitutions around the transcripts of <code>data</code>, sorted by
+	 * chromosome and position
+	 *
+	 * Every fifth site is multi-allelic, with up to three variants sharing the same position and reference allele.
+	 */
+	private static List<GenomeVariant> drawVariants(JannovarData data, Random rng) {
+		// Region around the transcripts of each chromosome, including upstream and downstream bases
+		final Map<Integer, int[]> regions = new HashMap<>();
+		for (TranscriptModel tm : data.getTmByAccession().values()) {
+			final int[] region = regions.computeIfAbsent(tm.getChr(),
+					chr -> new int[] { Integer.MAX_VALUE, Integer.MIN_VALUE });
+			region[0] = Math.min(region[0], tm.getTXRegion().getBeginPos());
+			region[1] = Math.max(region[1], tm.getTXRegion().getEndPos());
+		}
+		final List<Integer> chroms = new ArrayList<>(regions.keySet());
+		Collections.sort(chroms);
+
+		final List<GenomeVariant> result = new ArrayList<>();
+		for (int i = 0; i < NUM_SITES; ++i) {
+			final int chr = chroms.get(rng.nextInt(chroms.size()));
+			final int length = data.getRefDict().getContigIDToLength().get(chr);
+			final int beginPos = Math.max(0, regions.get(chr)[0] - 2000);
+			final int endPos = Math.min(length - 10, regions.get(chr)[1] + 2000);
+			final GenomePosition pos = new GenomePosition(data.getRefDict(), Strand.FWD, chr,
+					beginPos + rng.nextInt(endPos - beginPos), PositionType.ZERO_BASED);
+
+			final int numAlleles = (i % 5 == 0) ? 2 + rng.nextInt(2) : 1;
+			final String ref;
+			switch (rng.nextInt(4)) {
+			case 0: // insertion
+				ref = "";
+				break;
+			case 1: // SNV
+				ref = drawSequence(rng, 1);
+				break;
+			default: // deletion or block substitution
+				ref = drawSequence(rng, 1 + rng.nextInt(6));
+				break;
+			}
+			for (int j = 0; j < numAlleles; ++j) {
+				final String alt = (ref.length() > 1 && rng.nextBoolean()) ? "" : drawSequence(rng, 1 + rng.nextInt(3));
+				if (!alt.equals(ref))
+					result.add(new GenomeVariant(pos, ref, alt));
+			}
+		}
+
+		result.sort(Comparator.comparing(GenomeVariant::getChr)
+				.thenComparing(v -> v.getGenomeInterval().getBeginPos()));
+		return result;
+	}
+
+	private static String drawSequence(Random rng, int length) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < length; ++i)
+			builder.append(BASES.charAt(rng.nextInt(BASES.length())));
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,85 @@
+package de.charite.compbio.jannovar.data;
+
+import java.util.ArrayList;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Round-trip tests for {@link JannovarDataSerializer}, converting a legacy database to the binary format
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarDataSerializerTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	/** path to legacy Jannovar database file */
+	String legacyPath;
+
+	/** data loaded from legacy file */
+	JannovarData legacyData;
+
+	@Before
+	public void setUp() throws Exception {
+		legacyPath = this.getClass().getResource("/ex_ctns/mini_ctns.ser").toURI().getPath();
+		legacyData = new JannovarDataSerializer(legacyPath).load();
+	}
+
+	@Test
+	public void testRoundTripBinary() throws Exception {
+		final String binaryPath = tmpFolder.getRoot() + "/mini_ctns.bin.ser";
+		new JannovarDataSerializer(binaryPath).save(legacyData);
+		final JannovarData binaryData = new JannovarDataSerializer(binaryPath).load();
+
+		Assert.assertEquals(legacyData.getRefDict().getContigNameToID(), binaryData.getRefDict().getContigNameToID());
+		Assert.assertEquals(legacyData.getRefDict().getContigIDToName(), binaryData.getRefDict().getContigIDToName());
+		Assert.assertEquals(legacyData.getRefDict().getContigIDToLength(),
+				binaryData.getRefDict().getContigIDToLength());
+		Assert.assertEquals(ImmutableList.copyOf(legacyData.getTmByAccession().keySet()),
+				ImmutableList.copyOf(binaryData.getTmByAccession().keySet()));
+		for (TranscriptModel tm : legacyData.getTmByAccession().values()) {
+			final TranscriptModel other = binaryData.getTmByAccession().get(tm.getAccession());
+			Assert.assertEquals(tm, other);
+			Assert.assertEquals(tm.getAltGeneIDs(), other.getAltGeneIDs());
+		}
+		Assert.assertEquals(legacyData.getChromosomes().keySet(), binaryData.getChromosomes().keySet());
+		for (Integer chrID : legacyData.getChromosomes().keySet())
+			Assert.assertEquals(legacyData.getChromosomes().get(chrID).getTMIntervalTree().getIntervals(),
+					binaryData.getChromosomes().get(chrID).getTMIntervalTree().getIntervals());
+	}
+
+	@Test
+	public void testRoundTripLegacy() throws Exception {
+		final String otherPath = tmpFolder.getRoot() + "/mini_ctns.legacy.ser";
+		new JannovarDataSerializer(otherPath).saveLegacy(legacyData);
+		final JannovarData otherData = new JannovarDataSerializer(otherPath).load();
+
+		Assert.assertEquals(legacyData.getTmByAccession(), otherData.getTmByAccession());
+	}
+
+	@Test
+	public void testLoadSelectedContigs() throws Exception {
+		final String binaryPath = tmpFolder.getRoot() + "/mini_ctns.bin.ser";
+		new JannovarDataSerializer(binaryPath).save(legacyData);
+
+		final TranscriptModel tm = legacyData.getTmByAccession().values().iterator().next();
+		final String contig = legacyData.getRefDict().getContigIDToName().get(tm.getChr());
+
+		final JannovarData selected = new JannovarDataSerializer(binaryPath).load(ImmutableList.of(contig));
+		Assert.assertEquals(legacyData.getTmByAccession(), selected.getTmByAccession());
+
+		final JannovarData none = new JannovarDataSerializer(binaryPath).load(new ArrayList<String>());
+		Assert.assertTrue(none.getTmByAccession().isEmpty());
+		Assert.assertEquals(legacyData.getChromosomes().keySet(), none.getChromosomes().keySet());
+	}
+
+}
@@ -1,6 +1,7 @@
 package de.charite.compbio.jannovar.impl.intervals;
 
 import java.util.ArrayList;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -261,4 +262,112 @@ public class IntervalArrayTest {
 		Assert.assertEquals(new Triple(15, 36, "b"), res.getEntries().get(0));
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void testSearchWithBuffer() {
+		IntervalArray<Triple> tree = new IntervalArray<Triple>(getList1(), new TripleEndExtractor());
+		IntervalArray.QueryBuffer<Triple> buffer = new IntervalArray.QueryBuffer<Triple>();
+
+		tree.findOverlappingWithInterval(6, 8, buffer);
+		Assert.assertEquals(3, buffer.getEntries().size());
+		Assert.assertEquals(new Triple(4, 8, "c"), buffer.getEntries().get(0));
+		Assert.assertEquals(new Triple(5, 7, "d"), buffer.getEntries().get(1));
+		Assert.assertEquals(new Triple(5, 9, "b"), buffer.getEntries().get(2));
+		Assert.assertEquals(null, buffer.getLeft());
+		Assert.assertEquals(null, buffer.getRight());
+
+		// reusing the buffer must clear the previous entries
+		tree.findOverlappingWithPoint(10, buffer);
+		Assert.assertEquals(0, buffer.getEntries().size());
+		Assert.assertEquals(new Triple(5, 9, "b"), buffer.getLeft());
+		Assert.assertEquals(new Triple(11, 16, "f"), buffer.getRight());
+
+		tree.findOverlappingWithPoint(16, buffer);
+		Assert.assertEquals(1, buffer.getEntries().size());
+		Assert.assertEquals(new Triple(16, 20, "e"), buffer.getEntries().get(0));
+		Assert.assertEquals(null, buffer.getLeft());
+		Assert.assertEquals(null, buffer.getRight());
+	}
+
+	@Test
+	public void testCursor() {
+		IntervalArray<Triple> tree = new IntervalArray<Triple>(getList1(), new TripleEndExtractor());
+		IntervalArray<Triple>.Cursor cursor = tree.newCursor();
+		IntervalArray.QueryBuffer<Triple> buffer = new IntervalArray.QueryBuffer<Triple>();
+
+		cursor.findOverlappingWithInterval(6, 8, buffer);
+		Assert.assertEquals(3, buffer.getEntries().size());
+		Assert.assertEquals(new Triple(4, 8, "c"), buffer.getEntries().get(0));
+		Assert.assertEquals(new Triple(5, 7, "d"), buffer.getEntries().get(1));
+		Assert.assertEquals(new Triple(5, 9, "b"), buffer.getEntries().get(2));
+
+		cursor.findOverlappingWithPoint(10, buffer);
+		Assert.assertEquals(0, buffer.getEntries().size());
+		Assert.assertEquals(new Triple(5, 9, "b"), buffer.getLeft());
+		Assert.assertEquals(new Triple(11, 16, "f"), buffer.getRight());
+
+		cursor.findOverlappingWithPoint(16, buffer);
+		Assert.assertEquals(1, buffer.getEntries().size());
+		Assert.assertEquals(new Triple(16, 20, "e"), buffer.getEntries().get(0));
+
+		// going back rebuilds the state
+		cursor.findOverlappingWithInterval(6, 8, buffer);
+		Assert.assertEquals(3, buffer.getEntries().size());
+		Assert.assertEquals(new Triple(5, 9, "b"), buffer.getEntries().get(2));
+	}
+
+	@Test
+	public void testCursorRandom() {
+		Random rng = new Random(42);
+		ArrayList<Triple> lst = new ArrayList<Triple>();
+		for (int i = 0; i < 1000; ++i) {
+			final int beginPos = rng.nextInt(100000);
+			lst.add(new Triple(beginPos, beginPos + 1 + rng.nextInt(rng.nextBoolean() ? 100 : 5000), "t" + i));
+		}
+		checkCursorRandom(rng, lst);
+	}
+
+	@Test
+	public void testCursorRandomTies() {
+		// many intervals begin and end at the same positions, also tests the neighbours in gaps
+		Random rng = new Random(42);
+		ArrayList<Triple> lst = new ArrayList<Triple>();
+		for (int i = 0; i < 1000; ++i) {
+			final int beginPos = 100 * rng.nextInt(1000);
+			lst.add(new Triple(beginPos, beginPos + 10 * (1 + rng.nextInt(5)), "t" + i));
+		}
+		checkCursorRandom(rng, lst);
+	}
+
+	/** Compare sorted queries with a cursor to tree queries, with some jumps and going back */
+	private void checkCursorRandom(Random rng, ArrayList<Triple> lst) {
+		IntervalArray<Triple> tree = new IntervalArray<Triple>(lst, new TripleEndExtractor());
+		IntervalArray<Triple>.Cursor cursor = tree.newCursor();
+		IntervalArray.QueryBuffer<Triple> expected = new IntervalArray.QueryBuffer<Triple>();
+		IntervalArray.QueryBuffer<Triple> actual = new IntervalArray.QueryBuffer<Triple>();
+
+		int pos = 0;
+		for (int i = 0; i < 5000; ++i) {
+			// mostly small steps, sometimes large jumps or going back
+			final int r = rng.nextInt(100);
+			if (r < 2)
+				pos = rng.nextInt(100000);
+			else if (r < 10)
+				pos += rng.nextInt(10000);
+			else
+				pos += 10 * rng.nextInt(5);
+			final int len = rng.nextBoolean() ? 0 : 1 + rng.nextInt(200);
+
+			if (len == 0) {
+				tree.findOverlappingWithPoint(pos, expected);
+				cursor.findOverlappingWithPoint(pos, actual);
+			} else {
+				tree.findOverlappingWithInterval(pos, pos + len, expected);
+				cursor.findOverlappingWithInterval(pos, pos + len, actual);
+			}
+			Assert.assertEquals(expected.getEntries(), actual.getEntries());
+			Assert.assertEquals(expected.getLeft(), actual.getLeft());
+			Assert.assertEquals(expected.getRight(), actual.getRight());
+		}
+	}
+
+}
@@ -5,6 +5,7 @@ import static org.junit.Assert.*;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -39,4 +40,16 @@ public class FASTAParserTest {
 		Assert.assertNull(third);
 	}
 
+	@Test
+	public void testReadAll() throws IOException {
+		FASTAParser parser = new FASTAParser(stream);
+
+		List<FASTARecord> records = parser.readAll();
+		Assert.assertEquals(2, records.size());
+		Assert.assertEquals("1", records.get(0).getID());
+		Assert.assertEquals("ACGTAACTACGT", records.get(0).getSequence());
+		Assert.assertEquals("2", records.get(1).getID());
+		Assert.assertEquals("AAAA", records.get(1).getSequence());
+	}
+
 }
@@ -0,0 +1,32 @@
+package de.charite.compbio.jannovar.impl.parse;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+
+public class ParseTaskTest {
+
+	@Test
+	public void testResult() throws TranscriptParseException {
+		ParseTask<String> task = ParseTask.start(() -> "result");
+		Assert.assertEquals("result", task.get());
+	}
+
+	@Test(expected = TranscriptParseException.class)
+	public void testCheckedException() throws TranscriptParseException {
+		ParseTask<String> task = ParseTask.start(() -> {
+			throw new TranscriptParseException("problem");
+		});
+		task.get();
+	}
+
+	@Test(expected = UncheckedJannovarException.class)
+	public void testUncheckedException() throws TranscriptParseException {
+		ParseTask<String> task = ParseTask.start(() -> {
+			throw new UncheckedJannovarException("problem");
+		});
+		task.get();
+	}
+
+}
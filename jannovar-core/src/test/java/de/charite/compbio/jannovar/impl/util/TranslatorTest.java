@@ -5,6 +5,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import de.charite.compbio.jannovar.annotation.AnnotationException;
+import de.charite.compbio.jannovar.hgvs.GeneticCode;
 import de.charite.compbio.jannovar.impl.util.Translator;
 
 /**
@@ -45,4 +46,16 @@ public class TranslatorTest {
 	public void testTranslateDna_tooLonger() throws AnnotationException {
 		Assert.assertEquals("T", translator.translateDNA("ACTG"));
 	}
+
+	/** Test for translateDNA3() */
+	@Test
+	public void testTranslateDna3() throws AnnotationException {
+		Assert.assertEquals("MetX*Ser", translator.translateDNA3("ATGNNNTAGAGTA"));
+	}
+
+	/** Test for translateDNA() with mitochondrial code */
+	@Test
+	public void testTranslateDna_mitochondrial() throws AnnotationException {
+		Assert.assertEquals("MW*", translator.translateDNA("ATGTGAAGA", GeneticCode.VERTEBRATE_MITOCHONDRIAL));
+	}
 }
@@ -0,0 +1,97 @@
+package de.charite.compbio.jannovar.mendel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.pedigree.Disease;
+import de.charite.compbio.jannovar.pedigree.Pedigree;
+import de.charite.compbio.jannovar.pedigree.Person;
+import de.charite.compbio.jannovar.pedigree.Sex;
+
+public class GenotypeBitSetsTest {
+
+	/** Pedigree with more members than fit into one word */
+	Pedigree pedigree;
+	/** Calls with a genotype for each member except for the last */
+	GenotypeCalls calls;
+
+	@Before
+	public void setUp() {
+		List<Person> members = new ArrayList<>();
+		for (int i = 0; i < 100; ++i)
+			members.add(new Person("I" + i, null, null, (i % 2 == 0) ? Sex.FEMALE : Sex.MALE,
+					(i % 3 == 0) ? Disease.AFFECTED : Disease.UNAFFECTED));
+		pedigree = new Pedigree("ped", members);
+
+		GenotypeCallsBuilder builder = new GenotypeCallsBuilder();
+		builder.setChromType(ChromosomeType.AUTOSOMAL);
+		for (int i = 0; i < 99; ++i)
+			builder.getSampleToGenotype().put("I" + i, genotypeFor(i));
+		builder.getSampleToGenotype().put("other", new Genotype(ImmutableList.of(1, 1)));
+		calls = builder.build();
+	}
+
+	/** @return genotype for the i-th member, cycling through het, hom. alt, hom. ref, no-call, and "0/." */
+	private static Genotype genotypeFor(int i) {
+		switch (i % 5) {
+		case 0:
+			return new Genotype(ImmutableList.of(0, 1));
+		case 1:
+			return new Genotype(ImmutableList.of(1, 1));
+		case 2:
+			return new Genotype(ImmutableList.of(0, 0));
+		case 3:
+			return new Genotype(ImmutableList.of(Genotype.NO_CALL, Genotype.NO_CALL));
+		default:
+			return new Genotype(ImmutableList.of(0, Genotype.NO_CALL));
+		}
+	}
+
+	@Test
+	public void testPredicatesAgreeWithGenotype() {
+		GenotypeBitSets gts = new GenotypeBitSets(pedigree, calls);
+		for (int i = 0; i < pedigree.getNMembers(); ++i) {
+			final Genotype gt = calls.getGenotypeForSample("I" + i);
+			Assert.assertEquals(gt.isHet(), gts.isHet(i));
+			Assert.assertEquals(gt.isHomAlt(), gts.isHomAlt(i));
+			Assert.assertEquals(gt.isHomRef(), gts.isHomRef(i));
+			Assert.assertEquals(gt.isNotObserved(), gts.isNotObserved(i));
+		}
+		Assert.assertTrue(gts.isNotObserved(99));
+	}
+
+	@Test
+	public void testAnyWithMasks() {
+		GenotypeBitSets gts = new GenotypeBitSets(pedigree, calls);
+
+		// Only member 96 (hom. alt) in the second word
+		long[] mask = GenotypeBitSets.buildMask(pedigree, ImmutableList.of("I96", "unknown"));
+		Assert.assertFalse(GenotypeBitSets.isEmpty(mask));
+		Assert.assertTrue(gts.anyHomAlt(mask));
+		Assert.assertFalse(gts.anyHet(mask));
+		Assert.assertFalse(gts.anyHomRef(mask));
+		Assert.assertFalse(gts.anyNotObserved(mask));
+
+		// Member 3 is affected and not observed
+		long[] affected = GenotypeBitSets.buildMask(pedigree, p -> p.getDisease() == Disease.AFFECTED);
+		Assert.assertTrue(gts.anyNotObserved(affected));
+		Assert.assertTrue(GenotypeBitSets.isEmpty(GenotypeBitSets.buildMask(pedigree, p -> false)));
+	}
+
+	@Test
+	public void testCachedPerPedigree() {
+		GenotypeBitSets gts = calls.getBitSets(pedigree);
+		Assert.assertSame(gts, calls.getBitSets(pedigree));
+
+		Pedigree other = new Pedigree("other", pedigree.getMembers());
+		Assert.assertNotSame(gts, calls.getBitSets(other));
+		Assert.assertSame(other, calls.getBitSets(other).getPedigree());
+	}
+
+}
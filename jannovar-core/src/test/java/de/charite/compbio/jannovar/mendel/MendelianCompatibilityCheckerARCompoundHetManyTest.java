@@ -0,0 +1,88 @@
+package de.charite.compbio.jannovar.mendel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.pedigree.Disease;
+import de.charite.compbio.jannovar.pedigree.PedFileContents;
+import de.charite.compbio.jannovar.pedigree.PedPerson;
+import de.charite.compbio.jannovar.pedigree.Pedigree;
+import de.charite.compbio.jannovar.pedigree.Sex;
+
+/**
+ * Compound heterozygous checks with many variants in one gene
+ */
+public class MendelianCompatibilityCheckerARCompoundHetManyTest extends MendelianCompatibilityCheckerTestBase {
+
+	/** Number of variants for each kind */
+	static final int NUM_VARIANTS = 2000;
+
+	MendelianInheritanceChecker checker;
+
+	@Before
+	public void setUp() throws Exception {
+		ImmutableList.Builder<PedPerson> individuals = new ImmutableList.Builder<PedPerson>();
+		individuals.add(new PedPerson("ped", "I.1", "0", "0", Sex.MALE, Disease.UNAFFECTED)); // father
+		individuals.add(new PedPerson("ped", "I.2", "0", "0", Sex.FEMALE, Disease.UNAFFECTED)); // mother
+		individuals.add(new PedPerson("ped", "II.1", "I.1", "I.2", Sex.MALE, Disease.AFFECTED)); // son
+		individuals.add(new PedPerson("ped", "II.2", "I.1", "I.2", Sex.FEMALE, Disease.UNAFFECTED)); // daughter
+		PedFileContents pedFileContents = new PedFileContents(new ImmutableList.Builder<String>().build(),
+				individuals.build());
+		this.pedigree = new Pedigree(pedFileContents, "ped");
+
+		this.names = ImmutableList.of("I.1", "I.2", "II.1", "II.2");
+
+		this.checker = new MendelianInheritanceChecker(this.pedigree);
+	}
+
+	/** @return <code>NUM_VARIANTS</code> calls for each of the given genotype lists, interleaved */
+	private List<GenotypeCalls> buildCalls(List<ImmutableList<SimpleGenotype>> kinds) {
+		List<GenotypeCalls> result = new ArrayList<>();
+		for (int i = 0; i < NUM_VARIANTS; ++i)
+			for (ImmutableList<SimpleGenotype> kind : kinds)
+				result.addAll(getGenotypeCallsList(kind, false));
+		return result;
+	}
+
+	@Test
+	public void testPaternalAndMaternal() throws IncompatiblePedigreeException {
+		ImmutableList<SimpleGenotype> paternal = lst(HET, REF, HET, REF);
+		ImmutableList<SimpleGenotype> maternal = lst(REF, HET, HET, REF);
+		ImmutableList<SimpleGenotype> other = lst(REF, REF, REF, REF);
+		List<GenotypeCalls> calls = buildCalls(ImmutableList.of(paternal, other, maternal));
+
+		ImmutableList<GenotypeCalls> result = checker.filterCompatibleRecordsSub(calls,
+				SubModeOfInheritance.AUTOSOMAL_RECESSIVE_COMP_HET);
+
+		Assert.assertEquals(2 * NUM_VARIANTS, result.size());
+		for (int i = 0; i < NUM_VARIANTS; ++i) {
+			Assert.assertSame(calls.get(3 * i), result.get(2 * i));
+			Assert.assertSame(calls.get(3 * i + 2), result.get(2 * i + 1));
+		}
+	}
+
+	@Test
+	public void testPaternalOnly() throws IncompatiblePedigreeException {
+		List<GenotypeCalls> calls = buildCalls(ImmutableList.of(lst(HET, REF, HET, REF)));
+
+		Assert.assertEquals(0,
+				checker.filterCompatibleRecordsSub(calls, SubModeOfInheritance.AUTOSOMAL_RECESSIVE_COMP_HET).size());
+	}
+
+	@Test
+	public void testUnaffectedSiblingCompoundHet() throws IncompatiblePedigreeException {
+		ImmutableList<SimpleGenotype> paternal = lst(HET, REF, HET, HET);
+		ImmutableList<SimpleGenotype> maternal = lst(REF, HET, HET, HET);
+		List<GenotypeCalls> calls = buildCalls(ImmutableList.of(paternal, maternal));
+
+		Assert.assertEquals(0,
+				checker.filterCompatibleRecordsSub(calls, SubModeOfInheritance.AUTOSOMAL_RECESSIVE_COMP_HET).size());
+	}
+
+}
@@ -0,0 +1,315 @@
+package de.charite.compbio.jannovar.mendel.impl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import de.charite.compbio.jannovar.mendel.ChromosomeType;
+import de.charite.compbio.jannovar.mendel.Genotype;
+import de.charite.compbio.jannovar.mendel.GenotypeCalls;
+import de.charite.compbio.jannovar.mendel.IncompatiblePedigreeException;
+import de.charite.compbio.jannovar.mendel.MendelianInheritanceChecker;
+import de.charite.compbio.jannovar.pedigree.Disease;
+import de.charite.compbio.jannovar.pedigree.PedFileContents;
+import de.charite.compbio.jannovar.pedigree.PedParseException;
+import de.charite.compbio.jannovar.pedigree.PedPerson;
+import de.charite.compbio.jannovar.pedigree.Pedigree;
+import de.charite.compbio.jannovar.pedigree.PedigreeQueryDecorator;
+import de.charite.compbio.jannovar.pedigree.Person;
+import de.charite.compbio.jannovar.pedigree.Sex;
+
+/**
+ * Randomized comparison of the compound heterozygous checkers with a reference implementation
+ *
+ * The reference implementation builds all candidate pairs of calls and checks each pair against all trios and
+ * unaffected persons, as the checkers did before the calls were grouped by {@link CompoundHetIndex}. The pedigrees and
+ * calls are drawn with a fixed seed. The X recessive checker is compared through
+ * {@link MendelianCheckerXRCompoundHet#filterCompatiblePairs}, as its multi-sample path only pairs autosomal calls of
+ * the X chromosomal input.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class MendelianCheckerCompoundHetRandomTest {
+
+	/** Number of random pedigrees and call sets */
+	static final int NUM_CASES = 400;
+
+	static final Sex[] SEXES = new Sex[] { Sex.MALE, Sex.FEMALE, Sex.UNKNOWN };
+
+	static final Genotype HET = new Genotype(ImmutableList.of(Genotype.REF_CALL, 1));
+	static final Genotype REF = new Genotype(ImmutableList.of(Genotype.REF_CALL, Genotype.REF_CALL));
+	static final Genotype ALT = new Genotype(ImmutableList.of(1, 1));
+	static final Genotype UKN = new Genotype(ImmutableList.of(Genotype.NO_CALL, Genotype.NO_CALL));
+
+	/** Genotypes to draw from, heterozygous and hom. ref. calls are more likely */
+	static final ImmutableList<Genotype> GENOTYPES = ImmutableList.of(HET, HET, HET, REF, REF, REF, ALT, UKN);
+
+	@Test
+	public void testAgainstReference() throws PedParseException, IncompatiblePedigreeException {
+		final Random rng = new Random(42);
+		for (int i = 0; i < NUM_CASES; ++i) {
+			final Pedigree pedigree = drawPedigree(rng);
+			final List<GenotypeCalls> calls = drawCalls(rng, pedigree);
+			final String message = "case " + i;
+
+			final MendelianInheritanceChecker parent = new MendelianInheritanceChecker(pedigree);
+			final ReferenceChecker reference = new ReferenceChecker(pedigree);
+
+			final ImmutableList<GenotypeCalls> ar = new MendelianCheckerARCompoundHet(parent)
+					.filterCompatibleRecords(calls);
+			assertInInputOrder(message, calls, ar);
+			Assert.assertEquals(message, reference.filterAR(calls), new HashSet<>(ar));
+
+			final ImmutableList<GenotypeCalls> xr = new MendelianCheckerXRCompoundHet(parent)
+					.filterCompatiblePairs(calls);
+			assertInInputOrder(message, calls, xr);
+			Assert.assertEquals(message, reference.filterXR(calls), new HashSet<>(xr));
+		}
+	}
+
+	/** Check that <code>result</code> is a subsequence of <code>calls</code> */
+	private static void assertInInputOrder(String message, List<GenotypeCalls> calls, List<GenotypeCalls> result) {
+		int pos = 0;
+		for (GenotypeCalls gc : result) {
+			while (pos < calls.size() && calls.get(pos) != gc)
+				++pos;
+			Assert.assertTrue(message, pos < calls.size());
+			++pos;
+		}
+	}
+
+	/**
+	 * @return pedigree with two to eight members, each with random sex and disease state and parents drawn from the
+	 *         members before it
+	 */
+	private static Pedigree drawPedigree(Random rng) throws PedParseException {
+		final int numMembers = 2 + rng.nextInt(7);
+		final List<PedPerson> members = new ArrayList<>();
+		final List<String> males = new ArrayList<>();
+		final List<String> females = new ArrayList<>();
+		for (int i = 0; i < numMembers; ++i) {
+			final String name = "p" + i;
+			final Sex sex = SEXES[rng.nextInt(SEXES.length)];
+			final Disease disease = rng.nextInt(3) == 0 ? Disease.AFFECTED : Disease.UNAFFECTED;
+			final String father = (!males.isEmpty() && rng.nextInt(3) != 0) ? males.get(rng.nextInt(males.size()))
+					: "0";
+			final String mother = (!females.isEmpty() && rng.nextInt(3) != 0)
+					? females.get(rng.nextInt(females.size())) : "0";
+			members.add(new PedPerson("ped", name, father, mother, sex, disease));
+			if (sex == Sex.MALE)
+				males.add(name);
+			else if (sex == Sex.FEMALE)
+				females.add(name);
+		}
+		return new Pedigree(new PedFileContents(ImmutableList.of(), ImmutableList.copyOf(members)), "ped");
+	}
+
+	/** @return up to twelve autosomal calls with random genotypes */
+	private static List<GenotypeCalls> drawCalls(Random rng, Pedigree pedigree) {
+		final int numCalls = rng.nextInt(13);
+		final List<GenotypeCalls> result = new ArrayList<>();
+		for (int i = 0; i < numCalls; ++i) {
+			final ImmutableMap.Builder<String, Genotype> builder = ImmutableMap.builder();
+			for (Person p : pedigree.getMembers())
+				builder.put(p.getName(), GENOTYPES.get(rng.nextInt(GENOTYPES.size())));
+			result.add(new GenotypeCalls(ChromosomeType.AUTOSOMAL, builder.build().entrySet()));
+		}
+		return result;
+	}
+
+	/**
+	 * Pairwise compound heterozygous checks for multi-sample pedigrees
+	 */
+	private static class ReferenceChecker {
+
+		private final Pedigree pedigree;
+		private final ImmutableMap<Person, ImmutableList<Person>> siblings;
+
+		ReferenceChecker(Pedigree pedigree) {
+			this.pedigree = pedigree;
+			this.siblings = new PedigreeQueryDecorator(pedigree).buildSiblings();
+		}
+
+		/** @return calls in a compatible pair for autosomal recessive inheritance */
+		Set<GenotypeCalls> filterAR(List<GenotypeCalls> calls) {
+			final List<GenotypeCalls[]> candidates = new ArrayList<>();
+			boolean noParent = true;
+			for (Person p : pedigree.getMembers()) {
+				if (p.getDisease() == Disease.AFFECTED && (p.getFather() != null || p.getMother() != null)) {
+					noParent = false;
+					final List<GenotypeCalls> paternal = new ArrayList<>();
+					final List<GenotypeCalls> maternal = new ArrayList<>();
+					for (GenotypeCalls gc : calls) {
+						final Genotype gtP = gt(gc, p);
+						final Genotype gtF = gt(gc, p.getFather());
+						final Genotype gtM = gt(gc, p.getMother());
+						if (!(gtP.isHet() || gtP.isNotObserved()))
+							continue;
+						if ((gtF == null || gtF.isHet() || gtF.isNotObserved())
+								&& (gtM == null || gtM.isNotObserved() || gtM.isHomRef()))
+							paternal.add(gc);
+						if ((gtM == null || gtM.isHet() || gtM.isNotObserved())
+								&& (gtF == null || gtF.isNotObserved() || gtF.isHomRef()))
+							maternal.add(gc);
+					}
+					addCandidates(candidates, p, paternal, maternal);
+				}
+			}
+			if (noParent) {
+				for (Person p : pedigree.getMembers()) {
+					if (p.getDisease() != Disease.AFFECTED)
+						continue;
+					final List<GenotypeCalls> observed = new ArrayList<>();
+					for (GenotypeCalls gc : calls)
+						if (gt(gc, p).isHet() || gt(gc, p).isNotObserved())
+							observed.add(gc);
+					for (GenotypeCalls pat : observed)
+						for (GenotypeCalls mat : observed)
+							if (pat != mat && !(gt(pat, p).isNotObserved() && gt(mat, p).isNotObserved()))
+								candidates.add(new GenotypeCalls[] { pat, mat });
+				}
+			}
+
+			final Set<GenotypeCalls> result = new HashSet<>();
+			for (GenotypeCalls[] c : candidates) {
+				boolean compatible = true;
+				for (Person p : pedigree.getMembers())
+					if (p.getDisease() == Disease.AFFECTED && !isCompatibleAroundAffectedAR(p, c[0], c[1])
+							&& !isCompatibleAroundAffectedAR(p, c[1], c[0]))
+						compatible = false;
+				if (compatible && isCompatibleWithUnaffected(c[0], c[1], false)) {
+					result.add(c[0]);
+					result.add(c[1]);
+				}
+			}
+			return result;
+		}
+
+		/** @return calls in a compatible pair for X recessive inheritance, without regard to the chromosome type */
+		Set<GenotypeCalls> filterXR(List<GenotypeCalls> calls) {
+			final List<GenotypeCalls[]> candidates = new ArrayList<>();
+			for (Person p : pedigree.getMembers()) {
+				if (p.getDisease() != Disease.AFFECTED || (p.getFather() == null && p.getMother() == null))
+					continue;
+				final List<GenotypeCalls> paternal = new ArrayList<>();
+				final List<GenotypeCalls> maternal = new ArrayList<>();
+				for (GenotypeCalls gc : calls) {
+					final Genotype gtP = gt(gc, p);
+					final Genotype gtF = gt(gc, p.getFather());
+					final Genotype gtM = gt(gc, p.getMother());
+					if (!(gtP.isHet() || gtP.isNotObserved() || (p.getSex() != Sex.FEMALE && gtP.isHomAlt())))
+						continue;
+					if ((gtF == null || gtF.isHet() || gtF.isNotObserved() || gtF.isHomAlt())
+							&& (gtM == null || gtM.isNotObserved() || gtM.isHomRef()))
+						paternal.add(gc);
+					if (gtM == null || gtM.isHet() || gtM.isNotObserved())
+						maternal.add(gc);
+				}
+				addCandidates(candidates, p, paternal, maternal);
+			}
+
+			final Set<GenotypeCalls> result = new HashSet<>();
+			for (GenotypeCalls[] c : candidates) {
+				boolean compatible = true;
+				for (Person p : pedigree.getMembers())
+					if (p.getDisease() == Disease.AFFECTED && !isCompatibleAroundAffectedXR(p, c[0], c[1])
+							&& !isCompatibleAroundAffectedXR(p, c[1], c[0]))
+						compatible = false;
+				if (compatible && isCompatibleWithUnaffected(c[0], c[1], true)) {
+					result.add(c[0]);
+					result.add(c[1]);
+				}
+			}
+			return result;
+		}
+
+		/** Add all pairs from <code>paternal</code> and <code>maternal</code> that are observed in the trio of p */
+		private void addCandidates(List<GenotypeCalls[]> candidates, Person p, List<GenotypeCalls> paternal,
+				List<GenotypeCalls> maternal) {
+			for (GenotypeCalls pat : paternal)
+				for (GenotypeCalls mat : maternal)
+					if (pat != mat && !isNotObservedInTrio(pat, p) && !isNotObservedInTrio(mat, p))
+						candidates.add(new GenotypeCalls[] { pat, mat });
+		}
+
+		private boolean isNotObservedInTrio(GenotypeCalls gc, Person p) {
+			return gt(gc, p).isNotObserved() && (p.getFather() == null || gt(gc, p.getFather()).isNotObserved())
+					&& (p.getMother() == null || gt(gc, p.getMother()).isNotObserved());
+		}
+
+		private boolean isCompatibleAroundAffectedAR(Person p, GenotypeCalls paternal, GenotypeCalls maternal) {
+			if (isHom(gt(paternal, p)) || isHom(gt(maternal, p)))
+				return false;
+			if (p.getFather() != null && isHom(gt(paternal, p.getFather())))
+				return false;
+			if (p.getMother() != null && isHom(gt(maternal, p.getMother())))
+				return false;
+			return !isSiblingCompoundHet(p, paternal, maternal);
+		}
+
+		private boolean isCompatibleAroundAffectedXR(Person p, GenotypeCalls paternal, GenotypeCalls maternal) {
+			final Genotype pGT = gt(paternal, p);
+			if ((pGT.isHomAlt() && p.getSex() == Sex.FEMALE) || pGT.isHomRef())
+				return false;
+			if (p.getFather() != null && gt(paternal, p.getFather()).isHomRef())
+				return false;
+			if (p.getMother() != null && isHom(gt(maternal, p.getMother())))
+				return false;
+			return !isSiblingCompoundHet(p, paternal, maternal);
+		}
+
+		/** @return whether an unaffected sibling of p is heterozygous for both calls */
+		private boolean isSiblingCompoundHet(Person p, GenotypeCalls paternal, GenotypeCalls maternal) {
+			if (siblings.containsKey(p))
+				for (Person sibling : siblings.get(p))
+					if (sibling.getDisease() == Disease.UNAFFECTED && gt(paternal, sibling).isHet()
+							&& gt(maternal, sibling).isHet())
+						return true;
+			return false;
+		}
+
+		private boolean isCompatibleWithUnaffected(GenotypeCalls paternal, GenotypeCalls maternal,
+				boolean rejectHetMales) {
+			for (Person p : pedigree.getMembers()) {
+				if (p.getDisease() != Disease.UNAFFECTED)
+					continue;
+				final Genotype pGT = gt(paternal, p);
+				final Genotype mGT = gt(maternal, p);
+				if (pGT.isHomAlt() || mGT.isHomAlt())
+					return false;
+				if (rejectHetMales && p.getSex() == Sex.MALE && (pGT.isHet() || mGT.isHet()))
+					return false;
+				if (pGT.isHet() && mGT.isHet() && p.getFather() != null && p.getMother() != null) {
+					final Genotype ppGT = gt(paternal, p.getFather());
+					final Genotype mpGT = gt(paternal, p.getMother());
+					final Genotype pmGT = gt(maternal, p.getFather());
+					final Genotype mmGT = gt(maternal, p.getMother());
+					if (ppGT.isHet() && mpGT.isHomRef() && pmGT.isHomRef() && mmGT.isHet())
+						return false;
+					if (ppGT.isHomRef() && mpGT.isHet() && pmGT.isHet() && mmGT.isHomRef())
+						return false;
+				}
+			}
+			return true;
+		}
+
+		private static boolean isHom(Genotype gt) {
+			return gt.isHomAlt() || gt.isHomRef();
+		}
+
+		/** @return genotype of <code>p</code> in <code>gc</code>, <code>null</code> if <code>p</code> is null */
+		private static Genotype gt(GenotypeCalls gc, Person p) {
+			return (p == null) ? null : gc.getGenotypeForSample(p.getName());
+		}
+
+	}
+
+}
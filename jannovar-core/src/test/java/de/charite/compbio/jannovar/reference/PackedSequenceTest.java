@@ -0,0 +1,124 @@
+package de.charite.compbio.jannovar.reference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link PackedSequence}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class PackedSequenceTest {
+
+	/** sequence spanning more than one word, with exceptions in both words */
+	static final String SEQ = "ACGTTGCANACGTACGTAAACCCGGGTTTACGRTACGTTTGCAacgt";
+
+	@Test
+	public void testEmpty() {
+		PackedSequence seq = new PackedSequence("");
+
+		Assert.assertEquals(0, seq.length());
+		Assert.assertEquals(0, seq.getNumWords());
+		Assert.assertEquals("", seq.toString());
+	}
+
+	@Test
+	public void testCharAt() {
+		PackedSequence seq = new PackedSequence(SEQ);
+
+		Assert.assertEquals(SEQ.length(), seq.length());
+		Assert.assertEquals(2, seq.getNumWords());
+		Assert.assertEquals(6, seq.getNumExceptions());
+		for (int i = 0; i < SEQ.length(); ++i)
+			Assert.assertEquals(SEQ.charAt(i), seq.charAt(i));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testCharAtOutOfRange() {
+		new PackedSequence(SEQ).charAt(SEQ.length());
+	}
+
+	@Test
+	public void testSubstring() {
+		PackedSequence seq = new PackedSequence(SEQ);
+
+		Assert.assertEquals(SEQ, seq.toString());
+		for (int begin = 0; begin <= SEQ.length(); ++begin)
+			for (int end = begin; end <= SEQ.length(); ++end)
+				Assert.assertEquals(SEQ.substring(begin, end), seq.substring(begin, end));
+		Assert.assertEquals("ANA", seq.getCodon(7));
+		Assert.assertEquals("GCA", seq.subSequence(5, 8));
+	}
+
+	@Test
+	public void testGetChars() {
+		PackedSequence seq = new PackedSequence(SEQ);
+
+		for (int begin = 0; begin <= SEQ.length(); ++begin)
+			for (int end = begin; end <= SEQ.length(); ++end) {
+				char[] expected = "xx".concat(SEQ).toCharArray();
+				char[] actual = "xx".concat(SEQ).toCharArray();
+				SEQ.getChars(begin, end, expected, 1);
+				seq.getChars(begin, end, actual, 1);
+				Assert.assertArrayEquals(expected, actual);
+			}
+	}
+
+	@Test
+	public void testFromPacked() {
+		PackedSequence seq = new PackedSequence(SEQ);
+		long[] words = new long[seq.getNumWords()];
+		for (int i = 0; i < words.length; ++i)
+			words[i] = seq.getWord(i);
+		int[] positions = new int[seq.getNumExceptions()];
+		char[] chars = new char[seq.getNumExceptions()];
+		for (int i = 0; i < positions.length; ++i) {
+			positions[i] = seq.getExceptionPosition(i);
+			chars[i] = seq.getExceptionChar(i);
+		}
+
+		PackedSequence other = PackedSequence.fromPacked(SEQ.length(), words, positions, chars);
+		Assert.assertEquals(seq, other);
+		Assert.assertEquals(seq.hashCode(), other.hashCode());
+		Assert.assertEquals(SEQ, other.toString());
+	}
+
+	@Test
+	public void testFromPackedDirtyBits() {
+		PackedSequence seq = new PackedSequence(SEQ);
+		long[] words = new long[seq.getNumWords()];
+		for (int i = 0; i < words.length; ++i)
+			words[i] = seq.getWord(i);
+		words[0] |= 3L << 16; // base 8 is an exception
+		words[1] |= -1L << 60; // past the end
+		int[] positions = new int[seq.getNumExceptions()];
+		char[] chars = new char[seq.getNumExceptions()];
+		for (int i = 0; i < positions.length; ++i) {
+			positions[i] = seq.getExceptionPosition(i);
+			chars[i] = seq.getExceptionChar(i);
+		}
+
+		PackedSequence other = PackedSequence.fromPacked(SEQ.length(), words, positions, chars);
+		Assert.assertEquals(seq, other);
+		Assert.assertEquals(seq.hashCode(), other.hashCode());
+		Assert.assertEquals(SEQ, other.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFromPackedInvalidWords() {
+		PackedSequence.fromPacked(33, new long[1], new int[0], new char[0]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFromPackedUnsortedExceptions() {
+		PackedSequence.fromPacked(10, new long[1], new int[] { 5, 3 }, new char[] { 'N', 'N' });
+	}
+
+	@Test
+	public void testEquals() {
+		Assert.assertEquals(new PackedSequence("ACGTN"), new PackedSequence("ACGTN"));
+		Assert.assertNotEquals(new PackedSequence("ACGTN"), new PackedSequence("ACGTA"));
+		Assert.assertNotEquals(new PackedSequence("AAAA"), new PackedSequence("AAA"));
+	}
+
+}
@@ -1,9 +1,14 @@
 package de.charite.compbio.jannovar.reference;
 
+import java.util.Map;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
 import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
@@ -52,4 +57,42 @@ public class TranscriptInfoTest {
 		Assert.assertEquals(info, infoReverse);
 	}
 
+	@Test
+	public void testRegionsReverseTranscript() {
+		Assert.assertEquals(new GenomeInterval(refDict, Strand.FWD, 1, 893648, 894679).withStrand(Strand.REV),
+				infoReverse.getTXRegion());
+		Assert.assertEquals(Strand.REV, infoReverse.getCDSRegion().getStrand());
+		Assert.assertEquals(new GenomeInterval(refDict, Strand.FWD, 1, 894010, 894620), infoReverse.getCDSRegion());
+
+		ImmutableList<GenomeInterval> exons = infoReverse.getExonRegions();
+		Assert.assertEquals(2, infoReverse.getNumExons());
+		Assert.assertEquals(2, exons.size());
+		for (int i = 0; i < exons.size(); ++i) {
+			Assert.assertEquals(exons.get(i), infoReverse.getExonRegion(i));
+			Assert.assertEquals(exons.get(i).getBeginPos(), infoReverse.getExonBeginPos(i));
+			Assert.assertEquals(exons.get(i).getEndPos(), infoReverse.getExonEndPos(i));
+		}
+		Assert.assertEquals(new GenomeInterval(refDict, Strand.FWD, 1, 894594, 894679).withStrand(Strand.REV),
+				exons.get(0));
+		Assert.assertEquals(new GenomeInterval(refDict, Strand.FWD, 1, 894461, 894594).withStrand(Strand.REV),
+				infoReverse.intronRegion(0));
+	}
+
+	@Test
+	public void testSharedStringsAndAltGeneIDKeys() {
+		Map<String, String> altIDs1 = ImmutableMap.of("HGNC_ID", new String("HGNC:1"), "ENTREZ_ID", "1");
+		Map<String, String> altIDs2 = ImmutableMap.of("ENTREZ_ID", "1", "HGNC_ID", new String("HGNC:1"));
+		TranscriptModel tm1 = new TranscriptModel("uc009vmz.1", new String("GENE"), infoForward.getTXRegion(),
+				infoForward.getCDSRegion(), infoForward.getExonRegions(), "ACGT", new String("GENE_ID"), 1, altIDs1);
+		TranscriptModel tm2 = new TranscriptModel("uc009vmz.2", new String("GENE"), infoForward.getTXRegion(),
+				infoForward.getCDSRegion(), infoForward.getExonRegions(), "ACGT", new String("GENE_ID"), 1, altIDs2);
+
+		Assert.assertSame(tm1.getGeneSymbol(), tm2.getGeneSymbol());
+		Assert.assertSame(tm1.getGeneID(), tm2.getGeneID());
+		Assert.assertEquals(ImmutableList.of("ENTREZ_ID", "HGNC_ID"),
+				ImmutableList.copyOf(tm1.getAltGeneIDs().keySet()));
+		Assert.assertEquals(altIDs1, tm2.getAltGeneIDs());
+		Assert.assertSame(tm1.getAltGeneIDs().get("HGNC_ID"), tm2.getAltGeneIDs().get("HGNC_ID"));
+	}
+
 }
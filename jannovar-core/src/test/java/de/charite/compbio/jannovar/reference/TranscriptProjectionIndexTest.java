@@ -0,0 +1,130 @@
+package de.charite.compbio.jannovar.reference;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+
+/**
+ * Tests for the {@link TranscriptProjectionIndex}, comparing against linear scans over the exons.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class TranscriptProjectionIndexTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	/** transcript info for the forward strand */
+	TranscriptModel infoForward;
+	/** transcript info for the reverse strand */
+	TranscriptModel infoReverse;
+
+	@Before
+	public void setUp() {
+		TranscriptModelBuilder builderForward = TranscriptModelFactory.parseKnownGenesLine(refDict,
+				"uc001anx.3\tchr1\t+\t6640062\t6649340\t6640669\t6649272\t11"
+						+ "\t6640062,6640600,6642117,6645978,6646754,6647264,6647537,"
+						+ "6648119,6648337,6648815,6648975,\t6640196,6641359,6642359,"
+						+ "6646090,6646847,6647351,6647692,6648256,6648502,6648904,6649340,\tP10074\tuc001anx.3");
+		builderForward.setGeneSymbol("ZBTB48");
+		this.infoForward = builderForward.build();
+
+		TranscriptModelBuilder builderReverse = TranscriptModelFactory.parseKnownGenesLine(refDict,
+				"uc001bgu.3\tchr1\t-\t23685940\t23696357\t23688461\t23694498\t4"
+						+ "\t23685940,23693534,23694465,23695858,\t23689714,23693661,23694558,"
+						+ "23696357,\tQ9C0F3\tuc001bgu.3");
+		builderReverse.setGeneSymbol("ZNF436");
+		this.infoReverse = builderReverse.build();
+	}
+
+	@Test
+	public void testSharedIndex() {
+		Assert.assertSame(infoForward.getProjectionIndex(), infoForward.getProjectionIndex());
+	}
+
+	@Test
+	public void testLengths() {
+		for (TranscriptModel tm : new TranscriptModel[] { infoForward, infoReverse }) {
+			int txLength = 0;
+			int cdsLength = 0;
+			for (GenomeInterval region : tm.getExonRegions()) {
+				txLength += region.length();
+				cdsLength += region.intersection(tm.getCDSRegion()).length();
+			}
+			Assert.assertEquals(txLength, tm.getProjectionIndex().getTranscriptLength());
+			Assert.assertEquals(cdsLength, tm.getProjectionIndex().getCDSTranscriptLength());
+		}
+	}
+
+	@Test
+	public void testGenomeProjectionForward() {
+		checkGenomeProjection(infoForward);
+	}
+
+	@Test
+	public void testGenomeProjectionReverse() {
+		checkGenomeProjection(infoReverse);
+	}
+
+	@Test
+	public void testTranscriptProjectionForward() {
+		checkTranscriptProjection(infoForward);
+	}
+
+	@Test
+	public void testTranscriptProjectionReverse() {
+		checkTranscriptProjection(infoReverse);
+	}
+
+	/** Compare exon/intron lookup and projection of each position with linear scans over the exons */
+	private void checkGenomeProjection(TranscriptModel tm) {
+		final TranscriptProjectionIndex index = tm.getProjectionIndex();
+		final GenomeInterval txRegion = tm.getTXRegion();
+		for (int pos = txRegion.getBeginPos(); pos < txRegion.getEndPos(); ++pos) {
+			int exonID = -1;
+			int intronID = -1;
+			int txPos = -1;
+			int offset = 0;
+			for (int i = 0; i < tm.getExonRegions().size(); ++i) {
+				final GenomeInterval region = tm.getExonRegions().get(i);
+				if (pos >= region.getBeginPos() && pos < region.getEndPos()) {
+					exonID = i;
+					txPos = offset + pos - region.getBeginPos();
+				} else if (i > 0 && pos < region.getBeginPos() && pos >= tm.getExonRegions().get(i - 1).getEndPos()) {
+					intronID = i - 1;
+				}
+				offset += region.length();
+			}
+
+			Assert.assertEquals(exonID, index.findExon(pos));
+			Assert.assertEquals(intronID, index.findIntron(pos));
+			Assert.assertEquals(txPos, index.genomeToTranscriptPos(pos));
+		}
+	}
+
+	/** Compare projection of each transcript position with linear scans over the exons */
+	private void checkTranscriptProjection(TranscriptModel tm) {
+		final TranscriptProjectionIndex index = tm.getProjectionIndex();
+		for (int txPos = 0; txPos < index.getTranscriptLength(); ++txPos) {
+			int offset = 0;
+			for (int i = 0; i < tm.getExonRegions().size(); ++i) {
+				final GenomeInterval region = tm.getExonRegions().get(i);
+				if (txPos < offset + region.length()) {
+					Assert.assertEquals(i, index.findExonByTranscriptPos(txPos));
+					Assert.assertEquals(region.getBeginPos() + txPos - offset, index.transcriptToGenomePos(txPos));
+					break;
+				}
+				offset += region.length();
+			}
+		}
+
+		final int last = tm.getExonRegions().size() - 1;
+		Assert.assertEquals(tm.getExonRegions().get(last).getEndPos(),
+				index.transcriptToGenomePos(index.getTranscriptLength()));
+		Assert.assertEquals(-1, index.transcriptToGenomePos(index.getTranscriptLength() + 1));
+		Assert.assertEquals(-1, index.findExonByTranscriptPos(-1));
+	}
+
+}
@@ -0,0 +1,123 @@
+package de.charite.compbio.jannovar.reference;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+
+/**
+ * Tests for the {@link TranscriptSequenceCache}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class TranscriptSequenceCacheTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	/** the cache under test */
+	TranscriptSequenceCache cache;
+
+	@Before
+	public void setUp() {
+		this.cache = new TranscriptSequenceCache(1000);
+	}
+
+	/**
+	 * Build transcript with two exons and the CDS starting in the first and ending in the second exon
+	 *
+	 * @return transcript with 12 bases in the CDS, 3 bases of 5' and 4 bases of 3' UTR
+	 */
+	private TranscriptModel buildTranscript(String accession) {
+		TranscriptModelBuilder builder = new TranscriptModelBuilder();
+		builder.setStrand(Strand.FWD);
+		builder.setAccession(accession);
+		builder.setGeneSymbol("GENE");
+		builder.setTXRegion(new GenomeInterval(refDict, Strand.FWD, 1, 100, 209));
+		builder.setCDSRegion(new GenomeInterval(refDict, Strand.FWD, 1, 103, 205));
+		builder.addExonRegion(new GenomeInterval(refDict, Strand.FWD, 1, 100, 110));
+		builder.addExonRegion(new GenomeInterval(refDict, Strand.FWD, 1, 200, 209));
+		builder.setSequence("CCCATGGCCCTGTAAGGGG");
+		return builder.build();
+	}
+
+	@Test
+	public void testSequences() {
+		TranscriptSequenceCache.Entry entry = cache.get(buildTranscript("NM_000001.1"));
+
+		Assert.assertEquals("ATGGCCCTGTAAGGGG", entry.getTranscriptStartingAtCDS());
+		Assert.assertEquals("ATGGCCCTGTAA", entry.getCDSTranscript());
+		Assert.assertEquals("MAL*G", entry.getProtein());
+		Assert.assertEquals(33, cache.getNumChars());
+	}
+
+	@Test
+	public void testHitsAndMisses() {
+		TranscriptModel tm = buildTranscript("NM_000001.1");
+
+		TranscriptSequenceCache.Entry first = cache.get(tm);
+		TranscriptSequenceCache.Entry second = cache.get(tm);
+
+		Assert.assertSame(first, second);
+		Assert.assertEquals(1, cache.getHits());
+		Assert.assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void testOtherTranscriptWithSameAccession() {
+		TranscriptSequenceCache.Entry first = cache.get(buildTranscript("NM_000001.1"));
+		TranscriptSequenceCache.Entry second = cache.get(buildTranscript("NM_000001.1"));
+
+		Assert.assertNotSame(first, second);
+		Assert.assertEquals(0, cache.getHits());
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(33, cache.getNumChars());
+	}
+
+	@Test
+	public void testEviction() {
+		TranscriptSequenceCache small = new TranscriptSequenceCache(70);
+		TranscriptModel tm1 = buildTranscript("NM_000001.1");
+		TranscriptModel tm2 = buildTranscript("NM_000002.1");
+		TranscriptModel tm3 = buildTranscript("NM_000003.1");
+
+		small.get(tm1);
+		small.get(tm2);
+		small.get(tm1); // tm2 is least recently used now
+		small.get(tm3);
+
+		Assert.assertEquals(2, small.size());
+		Assert.assertEquals(66, small.getNumChars());
+		small.get(tm1);
+		Assert.assertEquals(2, small.getHits());
+		small.get(tm2);
+		Assert.assertEquals(4, small.getMisses());
+	}
+
+	@Test
+	public void testTooLargeForCache() {
+		TranscriptSequenceCache tiny = new TranscriptSequenceCache(10);
+
+		Assert.assertEquals("MAL*G", tiny.get(buildTranscript("NM_000001.1")).getProtein());
+		Assert.assertEquals(0, tiny.size());
+	}
+
+	@Test
+	public void testDoesNotKeepTranscriptReachable() throws InterruptedException {
+		TranscriptModel tm = buildTranscript("NM_000001.1");
+		cache.get(tm);
+		WeakReference<TranscriptModel> ref = new WeakReference<>(tm);
+		tm = null;
+
+		for (int i = 0; i < 50 && ref.get() != null; ++i) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		Assert.assertNull(ref.get());
+		Assert.assertEquals(1, cache.size());
+	}
+
+}
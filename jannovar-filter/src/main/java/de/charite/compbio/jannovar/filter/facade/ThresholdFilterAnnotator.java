@@ -7,14 +7,19 @@ import java.util.List;
 import com.google.common.collect.ImmutableList;
 
 import de.charite.compbio.jannovar.filter.impl.gt.GenotypeFilterAnnotator;
+import de.charite.compbio.jannovar.filter.impl.gt.GenotypeFilterValues;
 import de.charite.compbio.jannovar.filter.impl.var.VariantFilterAnnotator;
 import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 
 /**
  * Perform annotation (sof-filtering) based on coverage/alternative allele fraction/genotype call quality
  *
+ * The genotype values are read into a per-thread {@link GenotypeFilterValues} buffer, such that one annotator can be
+ * shared between threads, and only the genotypes that fail a filter are rebuilt.
+ *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
 public class ThresholdFilterAnnotator {
@@ -31,6 +36,9 @@ public class ThresholdFilterAnnotator {
 	/** Helper for pushing genotype-based filters to variant-wise ones */
 	private final VariantFilterAnnotator varAnnotator;
 
+	/** Reusable buffer for the genotype values, one per thread */
+	private final ThreadLocal<GenotypeFilterValues> values = ThreadLocal.withInitial(GenotypeFilterValues::new);
+
 	public ThresholdFilterAnnotator(ThresholdFilterOptions options, Collection<String> affected) {
 		this.options = options;
 		this.affecteds = ImmutableList.copyOf(affected);
@@ -79,9 +87,17 @@ public class ThresholdFilterAnnotator {
 	 * @return {@link List} of genotypes after annotation
 	 */
 	private List<Genotype> annotateGenotypes(VariantContextBuilder builder, VariantContext vc) {
-		ArrayList<Genotype> gts = new ArrayList<>();
-		for (Genotype gt : vc.getGenotypes())
-			gts.add(gtAnnotator.gtWithAppliedFilters(gt));
+		final GenotypesContext genotypes = vc.getGenotypes();
+		final GenotypeFilterValues values = this.values.get();
+		gtAnnotator.computeFilterMasks(genotypes, genotypes.size(), values);
+		// Keep genotypes of vc if no filter fails
+		if (!values.anyFiltered())
+			return genotypes;
+
+		ArrayList<Genotype> gts = new ArrayList<>(genotypes.size());
+		int i = 0;
+		for (Genotype gt : genotypes)
+			gts.add(gtAnnotator.gtWithAppliedFilters(gt, values.getFilterMask(i++)));
 		builder.genotypes(gts);
 		return gts;
 	}
@@ -26,6 +26,15 @@ public class BcftoolsGenotypeFilterImpl implements GenotypeFilterImpl {
 		return (getCoverage(gt) - Integer.parseInt(arr[0])) / (double) getCoverage(gt);
 	}
 
+	@Override
+	public void readValues(Genotype gt, GenotypeFilterValues values, int idx) {
+		final int coverage = gt.getDP();
+		final String strValue = (String) gt.getExtendedAttribute("DPR");
+		final int refEnd = strValue.indexOf(',');
+		final int refCount = Integer.parseInt((refEnd == -1) ? strValue : strValue.substring(0, refEnd));
+		values.set(idx, coverage, gt.getGQ(), (coverage - refCount) / (double) coverage);
+	}
+
 	@Override
 	public double getAlleleFraction(Genotype gt, int alleleNo) {
 		String strValue = (String) gt.getExtendedAttribute("DPR");
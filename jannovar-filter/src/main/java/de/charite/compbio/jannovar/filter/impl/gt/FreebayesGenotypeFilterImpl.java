@@ -28,6 +28,11 @@ public class FreebayesGenotypeFilterImpl implements GenotypeFilterImpl {
 		return ((double) altObs) / (refObs + altObs);
 	}
 
+	@Override
+	public void readValues(Genotype gt, GenotypeFilterValues values, int idx) {
+		values.set(idx, gt.getDP(), gt.getGQ(), getAlternativeAlleleFraction(gt));
+	}
+
 	/**
 	 * Note that the result is not exact as Freebayes does not report the number of observations for each allele
 	 */
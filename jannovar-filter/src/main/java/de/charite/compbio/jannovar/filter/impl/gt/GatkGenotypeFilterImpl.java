@@ -38,4 +38,18 @@ public class GatkGenotypeFilterImpl implements GenotypeFilterImpl {
 			return ((double) gt.getAD()[alleleNo]) / gt.getDP();
 	}
 
+	@Override
+	public void readValues(Genotype gt, GenotypeFilterValues values, int idx) {
+		final int coverage = gt.getDP();
+		final int[] ads = gt.getAD();
+		double aaf = 0.0;
+		if (ads != null) {
+			int sum = 0;
+			for (int i = 1; i < ads.length; ++i)
+				sum += ads[i];
+			aaf = ((double) sum) / coverage;
+		}
+		values.set(idx, coverage, gt.getGQ(), aaf);
+	}
+
 }
@@ -1,12 +1,10 @@
 package de.charite.compbio.jannovar.filter.impl.gt;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableList.Builder;
-import com.google.common.collect.ImmutableMap;
 
-import de.charite.compbio.jannovar.filter.facade.ThresholdFilterHeaderExtender;
 import de.charite.compbio.jannovar.filter.facade.ThresholdFilterOptions;
 import htsjdk.variant.variantcontext.Genotype;
 import htsjdk.variant.variantcontext.GenotypeBuilder;
@@ -14,35 +12,61 @@ import htsjdk.variant.variantcontext.GenotypeBuilder;
 /**
  * Facade class for performing annotation on a genotype-wide level
  *
+ * The thresholds are compiled into a {@link GenotypeFilterPlan}. For annotating all genotypes of a variant, the
+ * genotype values are read into a reusable {@link GenotypeFilterValues} buffer and the genotypes are only rebuilt if
+ * they fail a filter.
+ *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
 public class GenotypeFilterAnnotator {
 
 	/** Mapping from supported variant caller to the actual genotype filter implementation */
-	private final ImmutableMap<SupportedVarCaller, GenotypeFilterImpl> impls;
+	private final EnumMap<SupportedVarCaller, GenotypeFilterImpl> impls;
 
-	/** Threshold based filter configuration */
-	private final ThresholdFilterOptions options;
+	/** Threshold based filter configuration, compiled for evaluation */
+	private final GenotypeFilterPlan plan;
 
 	public GenotypeFilterAnnotator(ThresholdFilterOptions options) {
-		this.options = options;
-
-		ImmutableMap.Builder<SupportedVarCaller, GenotypeFilterImpl> builder = ImmutableMap.builder();
-		builder.put(SupportedVarCaller.GATK_CALLER, new GatkGenotypeFilterImpl());
-		builder.put(SupportedVarCaller.BCFTOOLS, new BcftoolsGenotypeFilterImpl());
-		builder.put(SupportedVarCaller.FREEBAYES, new FreebayesGenotypeFilterImpl());
-		builder.put(SupportedVarCaller.PLATYPUS, new PlatypusGenotypeFilterImpl());
-		impls = builder.build();
+		this.plan = new GenotypeFilterPlan(options);
+
+		impls = new EnumMap<>(SupportedVarCaller.class);
+		impls.put(SupportedVarCaller.GATK_CALLER, new GatkGenotypeFilterImpl());
+		impls.put(SupportedVarCaller.BCFTOOLS, new BcftoolsGenotypeFilterImpl());
+		impls.put(SupportedVarCaller.FREEBAYES, new FreebayesGenotypeFilterImpl());
+		impls.put(SupportedVarCaller.PLATYPUS, new PlatypusGenotypeFilterImpl());
+	}
+
+	/** @return the compiled thresholds */
+	public GenotypeFilterPlan getPlan() {
+		return plan;
 	}
 
 	/** Augment genotype with the given filters and return modified GenotypeBuilder */
 	public Genotype gtWithAppliedFilters(Genotype gt) {
+		final GenotypeFilterImpl impl = impls.get(SupportedVarCaller.guessFromGenotype(gt));
+		return gtWithAppliedFilters(gt, plan.evaluate(gt.isHet(), gt.isHomRef(), impl.getCoverage(gt),
+				impl.getGenotypeQuality(gt), impl.getAlternativeAlleleFraction(gt)));
+	}
+
+	/**
+	 * Augment genotype with the filters from <code>filterMask</code>
+	 *
+	 * @param gt
+	 *            the {@link Genotype} to augment
+	 * @param filterMask
+	 *            bit mask of failed filters, as returned by {@link GenotypeFilterPlan#evaluate}
+	 * @return <code>gt</code> if <code>filterMask</code> is empty, a modified copy otherwise
+	 */
+	public Genotype gtWithAppliedFilters(Genotype gt, int filterMask) {
+		if (filterMask == 0)
+			return gt;
+
 		GenotypeBuilder gtBuilder = new GenotypeBuilder(gt);
 
 		ArrayList<String> filters = new ArrayList<>();
 		if (gt.isFiltered())
 			filters.add(gt.getFilters());
-		filters.addAll(getFiltersFor(gt));
+		filters.addAll(plan.getNames(filterMask));
 		gtBuilder.filters(filters);
 
 		return gtBuilder.make();
@@ -50,42 +74,28 @@ public class GenotypeFilterAnnotator {
 
 	public ImmutableList<String> getFiltersFor(Genotype gt) {
 		GenotypeFilterImpl impl = impls.get(SupportedVarCaller.guessFromGenotype(gt));
-		ImmutableList.Builder<String> builder = ImmutableList.builder();
-		checkCoverage(gt, builder, impl);
-		checkGenotypeQuality(gt, builder, impl);
-		checkAaf(gt, builder, impl);
-		return builder.build();
-	}
-
-	private void checkCoverage(Genotype gt, Builder<String> builder, GenotypeFilterImpl impl) {
-		if (gt.isHet()) {
-			if (impl.getCoverage(gt) < options.getMinGtCovHet())
-				builder.add(ThresholdFilterHeaderExtender.FILTER_GT_MIN_COV_HET);
-		} else if (!gt.isHomRef()) {
-			if (impl.getCoverage(gt) < options.getMinGtCovHomAlt())
-				builder.add(ThresholdFilterHeaderExtender.FILTER_GT_MIN_COV_HOM_ALT);
-		}
-		if (impl.getCoverage(gt) > options.getMaxCov())
-			builder.add(ThresholdFilterHeaderExtender.FILTER_GT_MAX_COV);
-	}
-
-	private void checkGenotypeQuality(Genotype gt, Builder<String> builder, GenotypeFilterImpl impl) {
-		if (impl.getGenotypeQuality(gt) < options.getMinGtGq())
-			builder.add(ThresholdFilterHeaderExtender.FILTER_GT_MIN_GQ);
+		return plan.getNames(plan.evaluate(gt.isHet(), gt.isHomRef(), impl.getCoverage(gt),
+				impl.getGenotypeQuality(gt), impl.getAlternativeAlleleFraction(gt)));
 	}
 
-	private void checkAaf(Genotype gt, Builder<String> builder, GenotypeFilterImpl impl) {
-		if (gt.isHet()) {
-			if (impl.getAlternativeAlleleFraction(gt) < options.getMinGtAafHet())
-				builder.add(ThresholdFilterHeaderExtender.FILTER_GT_MIN_AAF_HET);
-			if (impl.getAlternativeAlleleFraction(gt) > options.getMaxGtAafHet())
-				builder.add(ThresholdFilterHeaderExtender.FILTER_GT_MAX_AAF_HET);
-		} else if (gt.isHomRef()) {
-			if (impl.getAlternativeAlleleFraction(gt) > options.getMaxGtAafHomRef())
-				builder.add(ThresholdFilterHeaderExtender.FILTER_GT_MAX_AAF_HOM_REF);
-		} else {
-			if (impl.getAlternativeAlleleFraction(gt) < options.getMinGtAafHomAlt())
-				builder.add(ThresholdFilterHeaderExtender.FILTER_GT_MIN_AAF_HOM_ALT);
+	/**
+	 * Evaluate the filters for all genotypes in <code>gts</code>
+	 *
+	 * @param gts
+	 *            the genotypes to evaluate, e.g., the genotypes of one variant
+	 * @param numGenotypes
+	 *            number of genotypes in <code>gts</code>
+	 * @param values
+	 *            reusable buffer to read the values to and to write the filter masks to
+	 */
+	public void computeFilterMasks(Iterable<Genotype> gts, int numGenotypes, GenotypeFilterValues values) {
+		values.reset(numGenotypes);
+		int i = 0;
+		for (Genotype gt : gts) {
+			impls.get(SupportedVarCaller.guessFromGenotype(gt)).readValues(gt, values, i);
+			values.filterMasks[i] = plan.evaluate(gt.isHet(), gt.isHomRef(), values.coverage[i],
+					values.genotypeQuality[i], values.alternativeAlleleFraction[i]);
+			++i;
 		}
 	}
 
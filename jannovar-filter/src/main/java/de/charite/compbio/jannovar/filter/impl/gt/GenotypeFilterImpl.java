@@ -21,4 +21,20 @@ public interface GenotypeFilterImpl {
 	/** @return allele fraction for the given <code>alleleNo</code> (0 is reference, 1.. alternative alleles) */
 	public double getAlleleFraction(Genotype gt, int alleleNo);
 
+	/**
+	 * Read coverage, genotype quality, and alternative allele fraction of <code>gt</code> into <code>values</code>
+	 *
+	 * Implementations should read each of the genotype's fields only once.
+	 *
+	 * @param gt
+	 *            the {@link Genotype} to read the values from
+	 * @param values
+	 *            the buffer to write to
+	 * @param idx
+	 *            index in <code>values</code> to write to
+	 */
+	public default void readValues(Genotype gt, GenotypeFilterValues values, int idx) {
+		values.set(idx, getCoverage(gt), getGenotypeQuality(gt), getAlternativeAlleleFraction(gt));
+	}
+
 }
@@ -0,0 +1,124 @@
+package de.charite.compbio.jannovar.filter.impl.gt;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.filter.facade.ThresholdFilterHeaderExtender;
+import de.charite.compbio.jannovar.filter.facade.ThresholdFilterOptions;
+
+/**
+ * The genotype thresholds from {@link ThresholdFilterOptions}, compiled into primitive comparisons
+ *
+ * The result of an evaluation is a bit mask of the failed filters, the names of the filters are in {@link #getNames()}
+ * with the bit index as the list index. The bits are ordered such that the names come in the order of the checks for
+ * coverage, genotype quality, and alternative allele fraction.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class GenotypeFilterPlan {
+
+	/** Bit for too low coverage of heterozygous call */
+	public static final int MIN_COV_HET = 1 << 0;
+	/** Bit for too low coverage of non-heterozygous, non-reference call */
+	public static final int MIN_COV_HOM_ALT = 1 << 1;
+	/** Bit for too high coverage */
+	public static final int MAX_COV = 1 << 2;
+	/** Bit for too low genotype quality */
+	public static final int MIN_GQ = 1 << 3;
+	/** Bit for too low alternative allele fraction of heterozygous call */
+	public static final int MIN_AAF_HET = 1 << 4;
+	/** Bit for too high alternative allele fraction of heterozygous call */
+	public static final int MAX_AAF_HET = 1 << 5;
+	/** Bit for too high alternative allele fraction of homozygous reference call */
+	public static final int MAX_AAF_HOM_REF = 1 << 6;
+	/** Bit for too low alternative allele fraction of other calls */
+	public static final int MIN_AAF_HOM_ALT = 1 << 7;
+
+	/** Filter names, indexed by bit */
+	private final ImmutableList<String> names;
+
+	private final int minGtCovHet;
+	private final int minGtCovHomAlt;
+	private final int maxCov;
+	private final int minGtGq;
+	private final double minGtAafHet;
+	private final double maxGtAafHet;
+	private final double minGtAafHomAlt;
+	private final double maxGtAafHomRef;
+
+	public GenotypeFilterPlan(ThresholdFilterOptions options) {
+		this.names = ImmutableList.of(ThresholdFilterHeaderExtender.FILTER_GT_MIN_COV_HET,
+				ThresholdFilterHeaderExtender.FILTER_GT_MIN_COV_HOM_ALT, ThresholdFilterHeaderExtender.FILTER_GT_MAX_COV,
+				ThresholdFilterHeaderExtender.FILTER_GT_MIN_GQ, ThresholdFilterHeaderExtender.FILTER_GT_MIN_AAF_HET,
+				ThresholdFilterHeaderExtender.FILTER_GT_MAX_AAF_HET,
+				ThresholdFilterHeaderExtender.FILTER_GT_MAX_AAF_HOM_REF,
+				ThresholdFilterHeaderExtender.FILTER_GT_MIN_AAF_HOM_ALT);
+		this.minGtCovHet = options.getMinGtCovHet();
+		this.minGtCovHomAlt = options.getMinGtCovHomAlt();
+		this.maxCov = options.getMaxCov();
+		this.minGtGq = options.getMinGtGq();
+		this.minGtAafHet = options.getMinGtAafHet();
+		this.maxGtAafHet = options.getMaxGtAafHet();
+		this.minGtAafHomAlt = options.getMinGtAafHomAlt();
+		this.maxGtAafHomRef = options.getMaxGtAafHomRef();
+	}
+
+	/** @return filter names, indexed by bit */
+	public ImmutableList<String> getNames() {
+		return names;
+	}
+
+	/**
+	 * Evaluate the thresholds for one genotype call
+	 *
+	 * @param isHet
+	 *            whether the call is heterozygous
+	 * @param isHomRef
+	 *            whether the call is homozygous reference
+	 * @param coverage
+	 *            coverage of the call
+	 * @param genotypeQuality
+	 *            genotype quality of the call
+	 * @param aaf
+	 *            alternative allele fraction of the call
+	 * @return bit mask of the failed filters
+	 */
+	public int evaluate(boolean isHet, boolean isHomRef, int coverage, int genotypeQuality, double aaf) {
+		int mask = 0;
+		if (isHet) {
+			if (coverage < minGtCovHet)
+				mask |= MIN_COV_HET;
+		} else if (!isHomRef) {
+			if (coverage < minGtCovHomAlt)
+				mask |= MIN_COV_HOM_ALT;
+		}
+		if (coverage > maxCov)
+			mask |= MAX_COV;
+
+		if (genotypeQuality < minGtGq)
+			mask |= MIN_GQ;
+
+		if (isHet) {
+			if (aaf < minGtAafHet)
+				mask |= MIN_AAF_HET;
+			if (aaf > maxGtAafHet)
+				mask |= MAX_AAF_HET;
+		} else if (isHomRef) {
+			if (aaf > maxGtAafHomRef)
+				mask |= MAX_AAF_HOM_REF;
+		} else {
+			if (aaf < minGtAafHomAlt)
+				mask |= MIN_AAF_HOM_ALT;
+		}
+		return mask;
+	}
+
+	/** @return names of the filters in <code>mask</code>, in bit order */
+	public ImmutableList<String> getNames(int mask) {
+		ImmutableList.Builder<String> builder = ImmutableList.builder();
+		for (int i = 0; i < names.size(); ++i)
+			if ((mask & (1 << i)) != 0)
+				builder.add(names.get(i));
+		return builder.build();
+	}
+
+}
@@ -0,0 +1,76 @@
+package de.charite.compbio.jannovar.filter.impl.gt;
+
+/**
+ * Reusable buffer with the values that the genotype threshold filters look at, one entry for each genotype of a variant
+ *
+ * The arrays are only grown, never shrunk, such that one object can be used for all variants processed by one thread.
+ * Entry <code>i</code> of each array corresponds to the <code>i</code>-th genotype of the variant.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class GenotypeFilterValues {
+
+	/** Number of genotypes in use */
+	private int size = 0;
+	/** Coverage of each genotype call */
+	int[] coverage = new int[0];
+	/** Genotype quality of each genotype call */
+	int[] genotypeQuality = new int[0];
+	/** Alternative allele fraction of each genotype call */
+	double[] alternativeAlleleFraction = new double[0];
+	/** Bit mask of failed filters for each genotype call, bits as in {@link GenotypeFilterPlan} */
+	int[] filterMasks = new int[0];
+
+	/** Prepare buffer for <code>size</code> genotypes, growing the arrays if necessary */
+	void reset(int size) {
+		if (coverage.length < size) {
+			final int capacity = Math.max(size, 2 * coverage.length);
+			coverage = new int[capacity];
+			genotypeQuality = new int[capacity];
+			alternativeAlleleFraction = new double[capacity];
+			filterMasks = new int[capacity];
+		}
+		this.size = size;
+	}
+
+	/** @return number of genotypes in use */
+	public int size() {
+		return size;
+	}
+
+	/** @return coverage of the <code>i</code>-th genotype call */
+	public int getCoverage(int i) {
+		return coverage[i];
+	}
+
+	/** @return genotype quality of the <code>i</code>-th genotype call */
+	public int getGenotypeQuality(int i) {
+		return genotypeQuality[i];
+	}
+
+	/** @return alternative allele fraction of the <code>i</code>-th genotype call */
+	public double getAlternativeAlleleFraction(int i) {
+		return alternativeAlleleFraction[i];
+	}
+
+	/** @return bit mask of the failed filters of the <code>i</code>-th genotype call */
+	public int getFilterMask(int i) {
+		return filterMasks[i];
+	}
+
+	/** Set the values of the <code>i</code>-th genotype call, the index must be below {@link #size()} */
+	public void set(int i, int coverage, int genotypeQuality, double alternativeAlleleFraction) {
+		this.coverage[i] = coverage;
+		this.genotypeQuality[i] = genotypeQuality;
+		this.alternativeAlleleFraction[i] = alternativeAlleleFraction;
+	}
+
+	/** @return whether any genotype call failed a filter */
+	public boolean anyFiltered() {
+		for (int i = 0; i < size; ++i)
+			if (filterMasks[i] != 0)
+				return true;
+		return false;
+	}
+
+}
@@ -27,6 +27,13 @@ public class PlatypusGenotypeFilterImpl implements GenotypeFilterImpl {
 		return ((double) numVar) / coverage;
 	}
 
+	@Override
+	public void readValues(Genotype gt, GenotypeFilterValues values, int idx) {
+		final int coverage = getCoverage(gt);
+		final int numVar = Integer.parseInt(((String) gt.getExtendedAttribute("NV")).split(",")[0]);
+		values.set(idx, coverage, gt.getGQ(), ((double) numVar) / coverage);
+	}
+
 	@Override
 	public double getAlleleFraction(Genotype gt, int alleleNo) {
 		int coverage = getCoverage(gt);
@@ -1,12 +1,10 @@
 package de.charite.compbio.jannovar.filter.impl.var;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
-import java.util.NoSuchElementException;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import de.charite.compbio.jannovar.filter.facade.ThresholdFilterHeaderExtender;
 import de.charite.compbio.jannovar.filter.facade.ThresholdFilterOptions;
@@ -21,18 +19,33 @@ import htsjdk.variant.variantcontext.VariantContextBuilder;
  */
 public class VariantFilterAnnotator {
 
-	/** Configuration for threshold-based filter */
-	private final ThresholdFilterOptions options;
-
 	/**
 	 * Names of samples of affected individuals; used for pushing information from genotype-level to
 	 * variant level
 	 */
-	private final ImmutableList<String> affecteds;
+	private final ImmutableSet<String> affecteds;
+
+	/** INFO key of the best EXAC frequency */
+	private final String keyExacBestAf;
+	/** INFO key of the dbSNP frequencies */
+	private final String keyDbSnpCaf;
+	/** INFO key of the gnomAD genomes population max frequency */
+	private final String keyGnomAdGenomesAfPopmax;
+	/** INFO key of the gnomAD exomes population max frequency */
+	private final String keyGnomAdExomesAfPopmax;
+	/** Maximal frequency for autosomal dominant inheritance */
+	private final double maxAlleleFrequencyAd;
+	/** Maximal frequency for autosomal recessive inheritance */
+	private final double maxAlleleFrequencyAr;
 
 	public VariantFilterAnnotator(ThresholdFilterOptions options, ImmutableList<String> affecteds) {
-		this.options = options;
-		this.affecteds = affecteds;
+		this.affecteds = ImmutableSet.copyOf(affecteds);
+		this.keyExacBestAf = options.getExacPrefix() + "BEST_AF";
+		this.keyDbSnpCaf = options.getDbSnpPrefix() + "CAF";
+		this.keyGnomAdGenomesAfPopmax = options.getGnomAdGenomesPrefix() + "AF_POPMAX";
+		this.keyGnomAdExomesAfPopmax = options.getGnomAdExomesPrefix() + "AF_POPMAX";
+		this.maxAlleleFrequencyAd = options.getMaxAlleleFrequencyAd();
+		this.maxAlleleFrequencyAr = options.getMaxAlleleFrequencyAr();
 	}
 
 	/**
@@ -52,52 +65,23 @@ public class VariantFilterAnnotator {
 		// If all genotype calls are filtered out then add filter to variant-level FILTER column
 		HashSet<String> filters = new HashSet<String>(vc.getFilters());
 		if (!affecteds.isEmpty()) {
-			HashSet<String> unfilteredAffecteds = new HashSet<>(affecteds);
+			int numFilteredAffecteds = 0;
 			for (Genotype gt : gts)
-				if (affecteds.contains(gt.getSampleName()) && gt.isFiltered())
-					unfilteredAffecteds.remove(gt.getSampleName());
-			if (unfilteredAffecteds.isEmpty())
+				if (gt.isFiltered() && affecteds.contains(gt.getSampleName()))
+					++numFilteredAffecteds;
+			if (numFilteredAffecteds == affecteds.size())
 				filters.add(ThresholdFilterHeaderExtender.FILTER_VAR_ALL_AFFECTED_GTS_FILTERED);
 		}
 
-		// Check best frequency from EXAC
-		final String keyExacBestAf = options.getExacPrefix() + "BEST_AF";
-		@SuppressWarnings("unchecked")
-		final ArrayList<Double> exacBestAfs = ((ArrayList<Double>) vc.getAttribute(keyExacBestAf));
-		final double exacBestAf = (exacBestAfs == null) ? -1 : Collections.max(exacBestAfs);
-		// Check best frequency from dbSNP
-		final String keyDbSnpCaf = options.getDbSnpPrefix() + "CAF";
-		@SuppressWarnings("unchecked")
-		final ArrayList<Double> dbSnpCaf = ((ArrayList<Double>) vc.getAttribute(keyDbSnpCaf));
-		double dbSnpBestAf;
-		try {
-			dbSnpBestAf =
-					(dbSnpCaf == null) ? -1 : Collections.max(dbSnpCaf.subList(1, dbSnpCaf.size()));
-		} catch (NoSuchElementException e) {
-			dbSnpBestAf = 0;
-			System.err.println("FOO");
-		}
-		// Check best frequency from gnomAD genomes
-		final String keyGnomAdGenomesAfPopmax = options.getGnomAdGenomesPrefix() + "AF_POPMAX";
-		@SuppressWarnings("unchecked")
-		final ArrayList<Double> gnomadGenomesAfs =
-				((ArrayList<Double>) vc.getAttribute(keyGnomAdGenomesAfPopmax));
-		final double gnomAdGenomesAf =
-				(gnomadGenomesAfs == null) ? -1 : Collections.max(gnomadGenomesAfs);
-		// Check best frequency from gnomAD exomes
-		final String keyGnomAdExomesAfPopmax = options.getGnomAdExomesPrefix() + "AF_POPMAX";
-		@SuppressWarnings("unchecked")
-		final ArrayList<Double> gnomadExomesAfs =
-				((ArrayList<Double>) vc.getAttribute(keyGnomAdExomesAfPopmax));
-		final double gnomAdExomesAf =
-				(gnomadExomesAfs == null) ? -1 : Collections.max(gnomadExomesAfs);
-		// Get maximum of all frequencies
-		final double highestAf = Collections
-				.max(ImmutableList.of(exacBestAf, dbSnpBestAf, gnomAdGenomesAf, gnomAdExomesAf));
+		// Get maximum of best frequency from EXAC, dbSNP (ignoring the reference allele), and gnomAD genomes/exomes
+		double highestAf = maxValue(vc.getAttribute(keyExacBestAf), 0, -1);
+		highestAf = max(highestAf, maxValue(vc.getAttribute(keyDbSnpCaf), 1, 0));
+		highestAf = max(highestAf, maxValue(vc.getAttribute(keyGnomAdGenomesAfPopmax), 0, -1));
+		highestAf = max(highestAf, maxValue(vc.getAttribute(keyGnomAdExomesAfPopmax), 0, -1));
 		if (highestAf > 0) {
-			if (highestAf > options.getMaxAlleleFrequencyAd())
+			if (highestAf > maxAlleleFrequencyAd)
 				filters.add(ThresholdFilterHeaderExtender.FILTER_VAR_MAX_FREQUENCY_AD);
-			if (highestAf > options.getMaxAlleleFrequencyAr())
+			if (highestAf > maxAlleleFrequencyAr)
 				filters.add(ThresholdFilterHeaderExtender.FILTER_VAR_MAX_FREQUENCY_AR);
 		}
 
@@ -105,4 +89,30 @@ public class VariantFilterAnnotator {
 		return builder;
 	}
 
+	/**
+	 * @param value
+	 *            the list of frequencies from the INFO field, <code>null</code> if not present
+	 * @param begin
+	 *            index of the first frequency to consider
+	 * @param noValue
+	 *            the result if there is no frequency from <code>begin</code> on
+	 * @return the largest frequency in <code>value</code>, <code>-1</code> if <code>value</code> is <code>null</code>
+	 */
+	private static double maxValue(Object value, int begin, double noValue) {
+		if (value == null)
+			return -1;
+		final List<?> values = (List<?>) value;
+		if (begin >= values.size())
+			return noValue;
+		double result = ((Number) values.get(begin)).doubleValue();
+		for (int i = begin + 1; i < values.size(); ++i)
+			result = max(result, ((Number) values.get(i)).doubleValue());
+		return result;
+	}
+
+	/** @return larger value of <code>lhs</code> and <code>rhs</code> in the order of {@link Double#compare} */
+	private static double max(double lhs, double rhs) {
+		return (Double.compare(lhs, rhs) >= 0) ? lhs : rhs;
+	}
+
 }
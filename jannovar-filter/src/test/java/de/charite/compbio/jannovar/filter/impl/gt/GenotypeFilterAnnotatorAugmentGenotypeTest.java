@@ -35,4 +35,32 @@ public class GenotypeFilterAnnotatorAugmentGenotypeTest extends GenotypeFilterTe
 				annotator.gtWithAppliedFilters(gt).toString());
 	}
 
+	@Test
+	public void testPassingGenotypeIsKept() throws Exception {
+		String headerLines = GATK_HEADER;
+		String vcfLine = "1\t17452\t.\tG\tA\t35.74\t.\t.\tGT:AD:DP:GQ:PL\t0/1:40,60:100:20:63,6,0\n";
+		VariantContext variant = writeAndReadVcfLine(vcfLine, headerLines);
+
+		Genotype gt = variant.getGenotype("individual");
+		Assert.assertSame(gt, annotator.gtWithAppliedFilters(gt));
+	}
+
+	@Test
+	public void testFilterMasks() throws Exception {
+		String headerLines = GATK_HEADER;
+		String vcfLine = "1\t17452\t.\tG\tA\t35.74\t.\t.\tGT:AD:DP:GQ:PL\t0/1:4,0:5:10:63,6,0\n";
+		VariantContext variant = writeAndReadVcfLine(vcfLine, headerLines);
+
+		GenotypeFilterValues values = new GenotypeFilterValues();
+		annotator.computeFilterMasks(variant.getGenotypes(), variant.getNSamples(), values);
+		Assert.assertEquals(1, values.size());
+		Assert.assertEquals(5, values.getCoverage(0));
+		Assert.assertEquals(10, values.getGenotypeQuality(0));
+		Assert.assertEquals(0.0, values.getAlternativeAlleleFraction(0), 1e-9);
+		Assert.assertEquals(GenotypeFilterPlan.MIN_COV_HET | GenotypeFilterPlan.MIN_GQ | GenotypeFilterPlan.MIN_AAF_HET,
+				values.getFilterMask(0));
+		Assert.assertEquals(annotator.getFiltersFor(variant.getGenotype("individual")),
+				annotator.getPlan().getNames(values.getFilterMask(0)));
+	}
+
 }
@@ -0,0 +1,190 @@
+package de.charite.compbio.jannovar.hgvs;
+
+import java.util.Arrays;
+
+/**
+ * Genetic codes as lookup tables for translating codons into amino acids (one-letter code)
+ *
+ * Codons are packed into 6-bit integers (two bits per base) which index a table of 64 amino acids, such that sequences
+ * can be translated from {@link CharSequence} or <code>byte[]</code> slices without building intermediate strings.
+ * Bases must be upper case. Codons containing <code>N</code> are translated to <code>X</code>, translation stops at
+ * codons containing any other character.
+ *
+ * The tables follow the NCBI translation tables, see https://www.ncbi.nlm.nih.gov/Taxonomy/Utils/wprintgc.cgi
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public enum GeneticCode {
+	/** the standard code (NCBI translation table 1) */
+	STANDARD("FFLLSSSSYY**CC*WLLLLPPPPHHQQRRRRIIIMTTTTNNKKSSRRVVVVAAAADDEEGGGG"),
+	/** the vertebrate mitochondrial code (NCBI translation table 2) */
+	VERTEBRATE_MITOCHONDRIAL("FFLLSSSSYY**CCWWLLLLPPPPHHQQRRRRIIMMTTTTNNKKSS**VVVVAAAADDEEGGGG");
+
+	/** return value of {@link #codonIndex} for codons that contain <code>N</code> */
+	public static final int CODON_WITH_N = -2;
+	/** return value of {@link #codonIndex} for invalid codons */
+	public static final int INVALID_CODON = -1;
+	/** return value of {@link #translateCodon} for invalid codons */
+	public static final char INVALID_AMINO_ACID = '\0';
+
+	/** code of <code>N</code> in {@link #BASE_CODES} */
+	private static final byte CODE_N = 4;
+	/** code of invalid characters in {@link #BASE_CODES} */
+	private static final byte CODE_INVALID = 8;
+	/** 2-bit codes of the bases, in the order of the NCBI tables (T, C, A, G) */
+	private static final byte[] BASE_CODES = new byte[128];
+
+	static {
+		Arrays.fill(BASE_CODES, CODE_INVALID);
+		BASE_CODES['T'] = 0;
+		BASE_CODES['C'] = 1;
+		BASE_CODES['A'] = 2;
+		BASE_CODES['G'] = 3;
+		BASE_CODES['N'] = CODE_N;
+	}
+
+	/** amino acids (one-letter code), indexed by codon index */
+	private final byte[] aminoAcids;
+
+	private GeneticCode(String table) {
+		this.aminoAcids = new byte[64];
+		for (int i = 0; i < 64; ++i)
+			this.aminoAcids[i] = (byte) table.charAt(i);
+	}
+
+	/**
+	 * @param c
+	 *            the character to get the code for
+	 * @return 2-bit code of <code>c</code>, {@link #CODE_N} or {@link #CODE_INVALID}
+	 */
+	private static int baseCode(int c) {
+		return (c >= 0 && c < 128) ? BASE_CODES[c] : CODE_INVALID;
+	}
+
+	/** @return codon index from the three base codes */
+	private static int codonIndex(int c1, int c2, int c3) {
+		final int flags = c1 | c2 | c3;
+		if (flags < CODE_N)
+			return (c1 << 4) | (c2 << 2) | c3;
+		else if (c1 == CODE_N || c2 == CODE_N || c3 == CODE_N)
+			return CODON_WITH_N;
+		else
+			return INVALID_CODON;
+	}
+
+	/**
+	 * @param seq
+	 *            the nucleotide sequence
+	 * @param pos
+	 *            position of the first base of the codon in <code>seq</code>
+	 * @return index of the codon in the translation tables (0-63), {@link #CODON_WITH_N}, or {@link #INVALID_CODON}
+	 */
+	public static int codonIndex(CharSequence seq, int pos) {
+		return codonIndex(baseCode(seq.charAt(pos)), baseCode(seq.charAt(pos + 1)), baseCode(seq.charAt(pos + 2)));
+	}
+
+	/**
+	 * @param seq
+	 *            the nucleotide sequence as ASCII bytes
+	 * @param pos
+	 *            position of the first base of the codon in <code>seq</code>
+	 * @return index of the codon in the translation tables (0-63), {@link #CODON_WITH_N}, or {@link #INVALID_CODON}
+	 */
+	public static int codonIndex(byte[] seq, int pos) {
+		return codonIndex(baseCode(seq[pos]), baseCode(seq[pos + 1]), baseCode(seq[pos + 2]));
+	}
+
+	/**
+	 * @param codonIndex
+	 *            the codon index as returned by {@link #codonIndex}
+	 * @return the amino acid, <code>X</code> for {@link #CODON_WITH_N}, and {@link #INVALID_AMINO_ACID} for
+	 *         {@link #INVALID_CODON}
+	 */
+	public char aminoAcid(int codonIndex) {
+		if (codonIndex >= 0)
+			return (char) aminoAcids[codonIndex];
+		else if (codonIndex == CODON_WITH_N)
+			return 'X';
+		else
+			return INVALID_AMINO_ACID;
+	}
+
+	/**
+	 * @param seq
+	 *            the nucleotide sequence
+	 * @param pos
+	 *            position of the first base of the codon in <code>seq</code>
+	 * @return the amino acid of the codon, <code>X</code> for codons with <code>N</code> and
+	 *         {@link #INVALID_AMINO_ACID} for invalid codons
+	 */
+	public char translateCodon(CharSequence seq, int pos) {
+		return aminoAcid(codonIndex(seq, pos));
+	}
+
+	/**
+	 * Translate <code>seq[begin, end)</code>, appending to <code>out</code>
+	 *
+	 * Trailing bases that do not form a complete codon are ignored, translation stops at the first invalid codon.
+	 *
+	 * @param seq
+	 *            the nucleotide sequence
+	 * @param begin
+	 *            begin position of the slice to translate
+	 * @param end
+	 *            end position of the slice to translate
+	 * @param out
+	 *            the {@link StringBuilder} to append the amino acids to
+	 * @return number of appended amino acids
+	 */
+	public int translate(CharSequence seq, int begin, int end, StringBuilder out) {
+		int count = 0;
+		for (int i = begin; i + 3 <= end; i += 3, ++count) {
+			final char aa = translateCodon(seq, i);
+			if (aa == INVALID_AMINO_ACID)
+				break;
+			out.append(aa);
+		}
+		return count;
+	}
+
+	/**
+	 * Translate <code>seq[begin, end)</code> into <code>out</code>, starting at <code>outPos</code>
+	 *
+	 * Trailing bases that do not form a complete codon are ignored, translation stops at the first invalid codon.
+	 *
+	 * @param seq
+	 *            the nucleotide sequence as ASCII bytes
+	 * @param begin
+	 *            begin position of the slice to translate
+	 * @param end
+	 *            end position of the slice to translate
+	 * @param out
+	 *            the array to write the amino acids to as ASCII bytes, must have space for
+	 *            <code>(end - begin) / 3</code> entries after <code>outPos</code>
+	 * @param outPos
+	 *            position in <code>out</code> to write the first amino acid to
+	 * @return number of written amino acids
+	 */
+	public int translate(byte[] seq, int begin, int end, byte[] out, int outPos) {
+		int count = 0;
+		for (int i = begin; i + 3 <= end; i += 3, ++count) {
+			final char aa = aminoAcid(codonIndex(seq, i));
+			if (aa == INVALID_AMINO_ACID)
+				break;
+			out[outPos + count] = (byte) aa;
+		}
+		return count;
+	}
+
+	/**
+	 * @param seq
+	 *            the nucleotide sequence
+	 * @return translation of <code>seq</code>, see {@link #translate(CharSequence, int, int, StringBuilder)}
+	 */
+	public String translate(CharSequence seq) {
+		final StringBuilder builder = new StringBuilder(seq.length() / 3);
+		translate(seq, 0, seq.length(), builder);
+		return builder.toString();
+	}
+
+}
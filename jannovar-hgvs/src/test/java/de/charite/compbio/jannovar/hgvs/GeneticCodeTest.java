@@ -0,0 +1,64 @@
+package de.charite.compbio.jannovar.hgvs;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GeneticCodeTest {
+
+	@Test
+	public void testTranslateCodonStandard() {
+		Assert.assertEquals('M', GeneticCode.STANDARD.translateCodon("ATG", 0));
+		Assert.assertEquals('F', GeneticCode.STANDARD.translateCodon("TTT", 0));
+		Assert.assertEquals('G', GeneticCode.STANDARD.translateCodon("GGG", 0));
+		Assert.assertEquals('K', GeneticCode.STANDARD.translateCodon("AAA", 0));
+		Assert.assertEquals('P', GeneticCode.STANDARD.translateCodon("CCC", 0));
+		Assert.assertEquals('R', GeneticCode.STANDARD.translateCodon("AGA", 0));
+		Assert.assertEquals('*', GeneticCode.STANDARD.translateCodon("TAA", 0));
+		Assert.assertEquals('*', GeneticCode.STANDARD.translateCodon("TAG", 0));
+		Assert.assertEquals('*', GeneticCode.STANDARD.translateCodon("TGA", 0));
+		Assert.assertEquals('I', GeneticCode.STANDARD.translateCodon("ATA", 0));
+	}
+
+	@Test
+	public void testTranslateCodonMitochondrial() {
+		Assert.assertEquals('M', GeneticCode.VERTEBRATE_MITOCHONDRIAL.translateCodon("ATG", 0));
+		Assert.assertEquals('W', GeneticCode.VERTEBRATE_MITOCHONDRIAL.translateCodon("TGA", 0));
+		Assert.assertEquals('M', GeneticCode.VERTEBRATE_MITOCHONDRIAL.translateCodon("ATA", 0));
+		Assert.assertEquals('*', GeneticCode.VERTEBRATE_MITOCHONDRIAL.translateCodon("AGA", 0));
+		Assert.assertEquals('*', GeneticCode.VERTEBRATE_MITOCHONDRIAL.translateCodon("AGG", 0));
+	}
+
+	@Test
+	public void testTranslateCodonSpecial() {
+		Assert.assertEquals(GeneticCode.CODON_WITH_N, GeneticCode.codonIndex("ANG", 0));
+		Assert.assertEquals('X', GeneticCode.STANDARD.translateCodon("ANG", 0));
+		Assert.assertEquals('X', GeneticCode.STANDARD.translateCodon("NZN", 0));
+		Assert.assertEquals(GeneticCode.INVALID_CODON, GeneticCode.codonIndex("AZG", 0));
+		Assert.assertEquals(GeneticCode.INVALID_AMINO_ACID, GeneticCode.STANDARD.translateCodon("atg", 0));
+	}
+
+	@Test
+	public void testTranslate() {
+		Assert.assertEquals("MAL*G", GeneticCode.STANDARD.translate("ATGGCCCTGTAAGGGGC"));
+		Assert.assertEquals("MXA", GeneticCode.STANDARD.translate("ATGNNNGCCAZAGCC"));
+		Assert.assertEquals("", GeneticCode.STANDARD.translate("AT"));
+	}
+
+	@Test
+	public void testTranslateSlice() {
+		StringBuilder builder = new StringBuilder("-");
+		Assert.assertEquals(2, GeneticCode.STANDARD.translate("CCATGGCCCT", 2, 9, builder));
+		Assert.assertEquals("-MA", builder.toString());
+	}
+
+	@Test
+	public void testTranslateBytes() {
+		byte[] seq = "CCATGGCCTGA".getBytes(StandardCharsets.US_ASCII);
+		byte[] out = new byte[4];
+		Assert.assertEquals(3, GeneticCode.VERTEBRATE_MITOCHONDRIAL.translate(seq, 2, seq.length, out, 1));
+		Assert.assertEquals("MAW", new String(out, 1, 3, StandardCharsets.US_ASCII));
+	}
+
+}
@@ -0,0 +1,65 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+
+/**
+ * Concatenation of BGZF files without decompression and recompression
+ *
+ * BGZF files are sequences of independent gzip blocks, terminated by an empty block. Thus, the concatenation of the
+ * data decompressed from a list of files is obtained by copying the blocks of each file, except for the terminating
+ * one, and writing one terminating block at the end. Each part must end at a block boundary, which holds for any file
+ * written by a {@link htsjdk.samtools.util.BlockCompressedOutputStream}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class BlockCompressedFileConcatenator {
+
+	private BlockCompressedFileConcatenator() {
+	}
+
+	/**
+	 * Concatenate BGZF files
+	 *
+	 * @param parts
+	 *            the BGZF files to concatenate, in order, each properly terminated
+	 * @param target
+	 *            path to the resulting BGZF file, overwritten if it exists
+	 * @throws IOException
+	 *             on problems with reading or writing, or if a part is not properly terminated
+	 */
+	public static void concatenate(List<File> parts, File target) throws IOException {
+		final byte[] terminator = BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK;
+		try (FileOutputStream outStream = new FileOutputStream(target); FileChannel out = outStream.getChannel()) {
+			for (File part : parts) {
+				try (FileInputStream inStream = new FileInputStream(part); FileChannel in = inStream.getChannel()) {
+					final long length = in.size() - terminator.length;
+					if (length < 0 || !isTerminator(in, length, terminator))
+						throw new IOException("File is not a properly terminated BGZF file: " + part);
+					long pos = 0;
+					while (pos < length)
+						pos += in.transferTo(pos, length - pos, out);
+				}
+			}
+			out.write(ByteBuffer.wrap(terminator));
+		}
+	}
+
+	/** @return whether the bytes at <code>pos</code> of <code>in</code> are <code>terminator</code> */
+	private static boolean isTerminator(FileChannel in, long pos, byte[] terminator) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(terminator.length);
+		while (buffer.hasRemaining())
+			if (in.read(buffer, pos + buffer.position()) < 0)
+				return false;
+		return Arrays.equals(buffer.array(), terminator);
+	}
+
+}
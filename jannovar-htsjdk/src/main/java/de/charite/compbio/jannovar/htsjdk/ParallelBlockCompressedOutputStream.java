@@ -0,0 +1,258 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+
+/**
+ * {@link OutputStream} writing BGZF, compressing the blocks in a pool of worker threads
+ *
+ * The data is cut into blocks of the same size as by {@link BlockCompressedOutputStream}. Full blocks are submitted to
+ * the worker pool and the compressed blocks are written to the underlying stream strictly in submission order. At most
+ * <code>2 * numThreads</code> blocks are in flight at any time, bounding memory usage. The stream is terminated by the
+ * empty BGZF block on closing.
+ *
+ * Unlike {@link BlockCompressedOutputStream}, this stream does not provide virtual file pointers and thus cannot be used
+ * for creating an index on the fly. Objects of this class are not thread-safe.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class ParallelBlockCompressedOutputStream extends OutputStream {
+
+	/** Maximal size of the compressed data in one block */
+	private static final int MAX_DEFLATED_SIZE = BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE
+			- BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH - BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+
+	/** The stream to write the compressed blocks to */
+	private final OutputStream out;
+
+	/** Maximal number of blocks being compressed or waiting for being written */
+	private final int maxPendingBlocks;
+
+	/** Thread pool for the compression */
+	private final ExecutorService executor;
+
+	/** Per-thread {@link Deflater}s */
+	private final ThreadLocal<Deflater> deflaters;
+
+	/** All {@link Deflater}s created for {@link #deflaters}, ended on closing */
+	final ConcurrentLinkedQueue<Deflater> createdDeflaters = new ConcurrentLinkedQueue<>();
+
+	/** Blocks submitted to the executor, in submission order */
+	private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+	/** Uncompressed data of the current block */
+	private byte[] buffer = new byte[BlockCompressedStreamConstants.DEFAULT_UNCOMPRESSED_BLOCK_SIZE];
+
+	/** Number of bytes in {@link #buffer} */
+	private int numBuffered = 0;
+
+	/** Whether or not the stream has been closed */
+	private boolean closed = false;
+
+	/**
+	 * Construct stream using the default compression level of {@link BlockCompressedOutputStream}
+	 *
+	 * @param out
+	 *            the stream to write the compressed blocks to, closed on closing this stream
+	 * @param numThreads
+	 *            number of threads to use for compression
+	 */
+	public ParallelBlockCompressedOutputStream(OutputStream out, int numThreads) {
+		this(out, numThreads, BlockCompressedOutputStream.getDefaultCompressionLevel());
+	}
+
+	/**
+	 * Construct stream
+	 *
+	 * @param out
+	 *            the stream to write the compressed blocks to, closed on closing this stream
+	 * @param numThreads
+	 *            number of threads to use for compression
+	 * @param compressionLevel
+	 *            compression level to use, from 0 to 9
+	 */
+	public ParallelBlockCompressedOutputStream(OutputStream out, int numThreads, int compressionLevel) {
+		if (numThreads < 1)
+			throw new IllegalArgumentException("Number of threads must be positive but was " + numThreads);
+		this.out = out;
+		this.maxPendingBlocks = 2 * numThreads;
+		this.executor = Executors.newFixedThreadPool(numThreads, r -> {
+			Thread thread = new Thread(r, "bgzf-deflate");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.deflaters = ThreadLocal.withInitial(() -> {
+			final Deflater deflater = new Deflater(compressionLevel, true);
+			createdDeflaters.add(deflater);
+			return deflater;
+		});
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		buffer[numBuffered++] = (byte) b;
+		if (numBuffered == buffer.length)
+			submitBlock();
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			final int count = Math.min(len, buffer.length - numBuffered);
+			System.arraycopy(b, off, buffer, numBuffered, count);
+			numBuffered += count;
+			off += count;
+			len -= count;
+			if (numBuffered == buffer.length)
+				submitBlock();
+		}
+	}
+
+	/** Compress and write out all buffered data, possibly creating a block smaller than the maximal size */
+	@Override
+	public void flush() throws IOException {
+		if (numBuffered > 0)
+			submitBlock();
+		while (!pending.isEmpty())
+			writeFirst();
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		try {
+			flush();
+			out.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+			out.close();
+		} finally {
+			shutdown();
+		}
+	}
+
+	/** Stop the worker pool, wait for running compressions, and release the native memory of the deflaters */
+	private void shutdown() throws IOException {
+		for (Future<byte[]> future : pending)
+			future.cancel(false);
+		pending.clear();
+		executor.shutdown();
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for compression threads", e);
+		} finally {
+			if (executor.isTerminated())
+				for (Deflater deflater : createdDeflaters)
+					deflater.end();
+		}
+	}
+
+	/** Submit current block to the worker pool, blocking on the oldest block if too many are pending */
+	private void submitBlock() throws IOException {
+		final byte[] data = buffer;
+		final int length = numBuffered;
+		buffer = new byte[BlockCompressedStreamConstants.DEFAULT_UNCOMPRESSED_BLOCK_SIZE];
+		numBuffered = 0;
+		pending.add(executor.submit(() -> compressBlock(deflaters.get(), data, length)));
+		while (pending.size() > maxPendingBlocks)
+			writeFirst();
+	}
+
+	/** Wait for the oldest pending block and write it out */
+	private void writeFirst() throws IOException {
+		try {
+			out.write(pending.removeFirst().get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for compression thread", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Problem compressing block", e.getCause());
+		}
+	}
+
+	/**
+	 * Compress data into a BGZF block
+	 *
+	 * @param deflater
+	 *            {@link Deflater} to use, is reset before use
+	 * @param data
+	 *            buffer with the uncompressed data
+	 * @param length
+	 *            number of bytes of <code>data</code> to compress
+	 * @return the BGZF block, including header and footer
+	 */
+	static byte[] compressBlock(Deflater deflater, byte[] data, int length) {
+		final byte[] deflated = new byte[MAX_DEFLATED_SIZE];
+		deflater.reset();
+		deflater.setInput(data, 0, length);
+		deflater.finish();
+		int deflatedSize = deflater.deflate(deflated, 0, deflated.length);
+		if (!deflater.finished()) {
+			// Incompressible data, store it instead (fits as the block size leaves room for the overhead)
+			final Deflater storer = new Deflater(Deflater.NO_COMPRESSION, true);
+			try {
+				storer.setInput(data, 0, length);
+				storer.finish();
+				deflatedSize = storer.deflate(deflated, 0, deflated.length);
+				if (!storer.finished())
+					throw new IllegalStateException("Stored block does not fit into BGZF block");
+			} finally {
+				storer.end();
+			}
+		}
+
+		final CRC32 crc = new CRC32();
+		crc.update(data, 0, length);
+
+		final int blockSize = BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH + deflatedSize
+				+ BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+		final byte[] result = new byte[blockSize];
+		int pos = 0;
+		result[pos++] = BlockCompressedStreamConstants.GZIP_ID1;
+		result[pos++] = (byte) BlockCompressedStreamConstants.GZIP_ID2;
+		result[pos++] = BlockCompressedStreamConstants.GZIP_CM_DEFLATE;
+		result[pos++] = (byte) BlockCompressedStreamConstants.GZIP_FLG;
+		pos = putInt(result, pos, 0); // modification time
+		result[pos++] = (byte) BlockCompressedStreamConstants.GZIP_XFL;
+		result[pos++] = (byte) BlockCompressedStreamConstants.GZIP_OS_UNKNOWN;
+		pos = putShort(result, pos, BlockCompressedStreamConstants.GZIP_XLEN);
+		result[pos++] = BlockCompressedStreamConstants.BGZF_ID1;
+		result[pos++] = BlockCompressedStreamConstants.BGZF_ID2;
+		pos = putShort(result, pos, BlockCompressedStreamConstants.BGZF_LEN);
+		pos = putShort(result, pos, blockSize - 1);
+		System.arraycopy(deflated, 0, result, pos, deflatedSize);
+		pos += deflatedSize;
+		pos = putInt(result, pos, (int) crc.getValue());
+		putInt(result, pos, length);
+		return result;
+	}
+
+	/** Write little-endian 16 bit value, return next position */
+	private static int putShort(byte[] buf, int pos, int value) {
+		buf[pos] = (byte) value;
+		buf[pos + 1] = (byte) (value >>> 8);
+		return pos + 2;
+	}
+
+	/** Write little-endian 32 bit value, return next position */
+	private static int putInt(byte[] buf, int pos, int value) {
+		putShort(buf, pos, value);
+		return putShort(buf, pos + 2, value >>> 16);
+	}
+
+}
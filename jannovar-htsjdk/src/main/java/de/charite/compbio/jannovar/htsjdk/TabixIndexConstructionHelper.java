@@ -0,0 +1,67 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndex;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
+import htsjdk.tribble.readers.LineIteratorImpl;
+import htsjdk.tribble.readers.SynchronousLineReader;
+import htsjdk.variant.vcf.VCFCodec;
+
+/**
+ * Helper for creating a tabix index for a BGZF-compressed VCF file
+ *
+ * In contrast to <code>IndexFactory.createTabixIndex</code>, the records are indexed by their virtual file pointers,
+ * such that the index is also valid for records beyond the first BGZF block.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class TabixIndexConstructionHelper {
+
+	private TabixIndexConstructionHelper() {
+	}
+
+	/**
+	 * Create tabix index for a BGZF-compressed VCF file
+	 *
+	 * @param file
+	 *            path to the BGZF-compressed and coordinate-sorted VCF file
+	 * @param seqDict
+	 *            {@link SAMSequenceDictionary} to use for the index, <code>null</code> for none
+	 * @return the {@link TabixIndex}, use <code>writeBasedOnFeatureFile</code> for writing it next to
+	 *         <code>file</code>
+	 * @throws IOException
+	 *             on problems with reading the file
+	 */
+	public static TabixIndex createTabixIndex(File file, SAMSequenceDictionary seqDict) throws IOException {
+		final VCFCodec codec = new VCFCodec();
+		final TabixIndexCreator creator = new TabixIndexCreator(seqDict, TabixFormat.VCF);
+		try (BlockCompressedInputStream in = new BlockCompressedInputStream(file)) {
+			// Read header, up to and including the #CHROM line
+			final StringBuilder header = new StringBuilder();
+			long filePointer = 0;
+			String line;
+			while ((line = in.readLine()) != null && line.startsWith("#")) {
+				header.append(line).append('\n');
+				filePointer = in.getFilePointer();
+			}
+			codec.readActualHeader(
+					new LineIteratorImpl(new SynchronousLineReader(new StringReader(header.toString()))));
+
+			// Add records with the virtual file pointers of their first characters
+			while (line != null) {
+				if (!line.isEmpty())
+					creator.addFeature(codec.decode(line), filePointer);
+				filePointer = in.getFilePointer();
+				line = in.readLine();
+			}
+			return (TabixIndex) creator.finalizeIndex(filePointer);
+		}
+	}
+
+}
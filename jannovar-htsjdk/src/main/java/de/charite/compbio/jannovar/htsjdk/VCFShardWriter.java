@@ -0,0 +1,86 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.RuntimeIOException;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFEncoder;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * {@link VariantContextWriter} that writes the records of one shard of a VCF file, without header, as a BGZF file
+ *
+ * The header is only used for encoding the records and {@link #writeHeader} does not write anything. The resulting
+ * files are meant to be joined with {@link BlockCompressedFileConcatenator}, after a part with the header written
+ * through {@link VariantContextWriterConstructionHelper}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class VCFShardWriter implements VariantContextWriter {
+
+	/** Path to the output file, for error messages */
+	private final File file;
+
+	/** Encoder for the records */
+	private final VCFEncoder encoder;
+
+	/** Writer on top of the BGZF output stream */
+	private final Writer writer;
+
+	/** Whether or not there was an error when writing */
+	private boolean error = false;
+
+	/**
+	 * Construct writer
+	 *
+	 * @param header
+	 *            {@link VCFHeader} to use for encoding the records, must be the one written to the header part, e.g.,
+	 *            extended through {@link VariantContextWriterConstructionHelper#extendHeaderFields}
+	 * @param file
+	 *            path to the BGZF output file
+	 */
+	public VCFShardWriter(VCFHeader header, File file) {
+		this.file = file;
+		this.encoder = new VCFEncoder(header, true, false);
+		this.writer = new BufferedWriter(
+				new OutputStreamWriter(new BlockCompressedOutputStream(file), VCFEncoder.VCF_CHARSET));
+	}
+
+	/** Ignored, the header is written with the first part only */
+	@Override
+	public void writeHeader(VCFHeader header) {
+	}
+
+	@Override
+	public void add(VariantContext vc) {
+		try {
+			writer.write(encoder.encode(vc));
+			writer.write('\n');
+		} catch (IOException e) {
+			error = true;
+			throw new RuntimeIOException("Unable to write the VCF object to " + file, e);
+		}
+	}
+
+	@Override
+	public boolean checkError() {
+		return error;
+	}
+
+	@Override
+	public void close() {
+		try {
+			writer.close();
+		} catch (IOException e) {
+			error = true;
+			throw new RuntimeIOException("Unable to close " + file, e);
+		}
+	}
+
+}
@@ -1,6 +1,5 @@
 package de.charite.compbio.jannovar.htsjdk;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -10,15 +9,16 @@ import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
 import de.charite.compbio.jannovar.annotation.Annotation;
 import de.charite.compbio.jannovar.annotation.AnnotationMessage;
+import de.charite.compbio.jannovar.annotation.VCFAnnotationEncoder;
 import de.charite.compbio.jannovar.annotation.VariantAnnotations;
 import de.charite.compbio.jannovar.annotation.VariantAnnotator;
+import de.charite.compbio.jannovar.annotation.VariantEffect;
 import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
 import de.charite.compbio.jannovar.data.Chromosome;
 import de.charite.compbio.jannovar.data.JannovarData;
@@ -71,6 +71,12 @@ public final class VariantContextAnnotator {
 		/** Whether or not non-consensus splice region counts as off-target */
 		private boolean offTargetFilterIntronicSpliceIsOffTarget;
 
+		/**
+		 * Whether or not to look up transcripts with a sweep that assumes coordinate-sorted input (defaults to
+		 * <code>true</code>), unsorted records are still annotated correctly
+		 */
+		private boolean sortedSweep = true;
+
 		/**
 		 * Constructor
 		 */
@@ -146,6 +152,22 @@ public final class VariantContextAnnotator {
 			return offTargetFilterIntronicSpliceIsOffTarget;
 		}
 
+		/**
+		 * @return whether or not to look up transcripts with a sweep that assumes coordinate-sorted input
+		 */
+		public boolean isSortedSweep() {
+			return sortedSweep;
+		}
+
+		/**
+		 * @param sortedSweep
+		 *            whether or not to look up transcripts with a sweep that assumes coordinate-sorted input, see
+		 *            {@link VariantAnnotator#buildAnnotationsSorted}
+		 */
+		public void setSortedSweep(boolean sortedSweep) {
+			this.sortedSweep = sortedSweep;
+		}
+
 	}
 
 	/** the {@link ReferenceDictionary} to use */
@@ -259,13 +281,9 @@ public final class VariantContextAnnotator {
 	 *            set of messages to write into the {@link VariantContext}
 	 */
 	public void putErrorAnnotation(VariantContext vc, Set<AnnotationMessage> messages) {
-		// TODO(holtgrewe): Do something more elegant way than 15 * "|", needs to be kept in sync with VCFAnnotationData
-		final String annotation = "|||||||||||||||" + Joiner.on('&').join(messages);
-
-		// If a VC builder is used before the attributes can be unmodifiable.
-		Map<String, Object> attributes = new HashMap<>(vc.getAttributes());
-		attributes.put("ANN", annotation);
-		vc.getCommonInfo().setAttributes(attributes);
+		putInfoAttribute(vc, "ANN",
+				VCFAnnotationEncoder.appendError(VCFAnnotationEncoder.getThreadLocalBuilder(), messages, true)
+						.toString());
 	}
 
 	/**
@@ -307,7 +325,8 @@ public final class VariantContextAnnotator {
 
 			// Build AnnotationList object for this allele.
 			try {
-				final VariantAnnotations lst = annotator.buildAnnotations(change);
+				final VariantAnnotations lst = options.sortedSweep ? annotator.buildAnnotationsSorted(change)
+						: annotator.buildAnnotations(change);
 				builder.add(lst);
 				LOGGER.trace("adding annotation list {}", new Object[] { lst });
 			} catch (Exception e) {
@@ -333,38 +352,52 @@ public final class VariantContextAnnotator {
 		// Whether or not variant is off-target in all annotations
 		boolean offTargetInAll = true;
 
-		ArrayList<String> annotations = new ArrayList<String>();
+		// The ANN value is written into the buffer of the current thread, without intermediate strings.
+		final StringBuilder annotations = VCFAnnotationEncoder.getThreadLocalBuilder();
+		int numAnnotations = 0;
 		for (int alleleID = 0; alleleID < vc.getAlternateAlleles().size(); ++alleleID) {
 			if (!annos.get(alleleID).getAnnotations().isEmpty()) {
+				final String alt = vc.getAlternateAllele(alleleID).getBaseString();
 				for (Annotation ann : annos.get(alleleID).getAnnotations()) {
-					boolean offTargetInThis = ann.getEffects().stream()
-							.allMatch(e -> e.isOffExome(options.offTargetFilterUtrIsOffTarget,
-									options.offTargetFilterIntronicSpliceIsOffTarget));
+					boolean offTargetInThis = true;
+					for (VariantEffect e : ann.getEffects())
+						offTargetInThis = offTargetInThis && e.isOffExome(options.offTargetFilterUtrIsOffTarget,
+								options.offTargetFilterIntronicSpliceIsOffTarget);
 					offTargetInAll = offTargetInAll && offTargetInThis;
 
-					if (!options.oneAnnotationOnly || annotations.isEmpty()) {
-						final String alt = vc.getAlternateAllele(alleleID).getBaseString();
-						annotations.add(ann.toVCFAnnoString(alt));
+					if (!options.oneAnnotationOnly || numAnnotations == 0) {
+						if (numAnnotations++ > 0)
+							annotations.append(',');
+						VCFAnnotationEncoder.append(annotations, ann, alt, true);
 					}
 				}
 			}
 		}
 
-		if (options.isOffTargetFilterEnabled() && (offTargetInAll && !annotations.isEmpty())) {
+		if (options.isOffTargetFilterEnabled() && (offTargetInAll && numAnnotations > 0)) {
 			Set<String> filters = new HashSet<>(vc.getFilters());
 			filters.add(VariantEffectHeaderExtender.FILTER_EFFECT_OFF_EXOME);
 			vc = new VariantContextBuilder(vc).filters(filters).make();
 		}
 
-		// If a VC builder is used before the attributes can be unmodifiable.
-		Map<String, Object> attributes = new HashMap<>(vc.getAttributes());
-		if (!annotations.isEmpty())
-			attributes.put("ANN", Joiner.on(',').join(annotations));
-		vc.getCommonInfo().setAttributes(attributes);
+		if (numAnnotations > 0)
+			putInfoAttribute(vc, "ANN", annotations.toString());
 
 		return vc;
 	}
 
+	/**
+	 * Set INFO attribute of <code>vc</code>, overwriting previous values
+	 *
+	 * The attributes of records created by a {@link VariantContextBuilder}, which includes all records read by htsjdk,
+	 * are unmodifiable. Thus, the attributes are copied into a new map on each call.
+	 */
+	private static void putInfoAttribute(VariantContext vc, String key, Object value) {
+		Map<String, Object> attributes = new HashMap<>(vc.getAttributes());
+		attributes.put(key, value);
+		vc.getCommonInfo().setAttributes(attributes);
+	}
+
 	/**
 	 * @param change
 	 *            {@link GenomeVariant} to build error annotation for
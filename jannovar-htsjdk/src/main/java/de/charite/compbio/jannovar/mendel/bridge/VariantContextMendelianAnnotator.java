@@ -112,8 +112,9 @@ public class VariantContextMendelianAnnotator {
 		// Create mapping from MOH to genotype calls and pre-filter if configured to do so
 		HashMap<SubModeOfInheritance, List<GenotypeCalls>> origCalls = new HashMap<>();
 		final List<GenotypeCalls> allCalls = buildGenotypeCalls(vcs);
-		final List<GenotypeCalls> recessiveCalls = buildGenotypeCalls(
-				vcs.stream().filter(keepFreqRecessive).collect(Collectors.toList()));
+		// Share the GenotypeCalls objects such that their genotype bit sets are only built once
+		final List<GenotypeCalls> recessiveCalls = allCalls.stream()
+				.filter(gc -> keepFreqRecessive.test(vcs.get((Integer) gc.getPayload()))).collect(Collectors.toList());
 		origCalls.put(SubModeOfInheritance.AUTOSOMAL_DOMINANT, allCalls);
 		origCalls.put(SubModeOfInheritance.X_DOMINANT, allCalls);
 		origCalls.put(SubModeOfInheritance.AUTOSOMAL_RECESSIVE_COMP_HET, recessiveCalls);
@@ -232,6 +233,29 @@ public class VariantContextMendelianAnnotator {
 	 */
 	public ImmutableMap<SubModeOfInheritance, ImmutableList<VariantContext>> computeCompatibleInheritanceSubModes(
 			List<VariantContext> vcs) throws CannotAnnotateMendelianInheritance {
+		ImmutableMap.Builder<SubModeOfInheritance, ImmutableList<VariantContext>> builder = new ImmutableMap.Builder<>();
+		for (Entry<SubModeOfInheritance, ImmutableList<Integer>> e : computeCompatibleInheritanceSubModeIndices(vcs)
+				.entrySet()) {
+			ImmutableList.Builder<VariantContext> listBuilder = new ImmutableList.Builder<>();
+			for (int idx : e.getValue())
+				listBuilder.add(vcs.get(idx));
+			builder.put(e.getKey(), listBuilder.build());
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Compute compatible modes of inheritance for a list of {@link VariantContext} objects, returning positions
+	 * 
+	 * @param vcs
+	 *            {@link VariantContext} objects to check for compatibility
+	 * @return A {@link Map} from {@link ModeOfInheritance} to the list of indices in <code>vcs</code> of the
+	 *         {@link VariantContext} objects that are compatible with each mode
+	 * @throws CannotAnnotateMendelianInheritance
+	 *             on problems with annotating mendelian inheritance
+	 */
+	public ImmutableMap<SubModeOfInheritance, ImmutableList<Integer>> computeCompatibleInheritanceSubModeIndices(
+			List<VariantContext> vcs) throws CannotAnnotateMendelianInheritance {
 		// Perform annotation, preceded by building GenotypeCalls list
 		List<GenotypeCalls> gcs = buildGenotypeCalls(vcs);
 		ImmutableMap<SubModeOfInheritance, ImmutableList<GenotypeCalls>> checkResult;
@@ -243,11 +267,11 @@ public class VariantContextMendelianAnnotator {
 		}
 
 		// Build final result
-		ImmutableMap.Builder<SubModeOfInheritance, ImmutableList<VariantContext>> builder = new ImmutableMap.Builder<>();
+		ImmutableMap.Builder<SubModeOfInheritance, ImmutableList<Integer>> builder = new ImmutableMap.Builder<>();
 		for (Entry<SubModeOfInheritance, ImmutableList<GenotypeCalls>> e : checkResult.entrySet()) {
-			ImmutableList.Builder<VariantContext> listBuilder = new ImmutableList.Builder<>();
+			ImmutableList.Builder<Integer> listBuilder = new ImmutableList.Builder<>();
 			for (GenotypeCalls gc : e.getValue())
-				listBuilder.add(vcs.get((Integer) gc.getPayload()));
+				listBuilder.add((Integer) gc.getPayload());
 			builder.put(e.getKey(), listBuilder.build());
 		}
 		return builder.build();
@@ -1,13 +1,17 @@
 package de.charite.compbio.jannovar.mendel.filter;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -29,9 +33,8 @@ import de.charite.compbio.jannovar.mendel.bridge.CannotAnnotateMendelianInherita
 import de.charite.compbio.jannovar.mendel.bridge.MendelVCFHeaderExtender;
 import de.charite.compbio.jannovar.mendel.bridge.VariantContextMendelianAnnotator;
 import de.charite.compbio.jannovar.pedigree.Pedigree;
-import de.charite.compbio.jannovar.reference.GenomeInterval;
-import de.charite.compbio.jannovar.reference.Strand;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 import htsjdk.variant.vcf.VCFHeader;
@@ -41,6 +44,17 @@ import htsjdk.variant.vcf.VCFHeader;
  * 
  * The variants put into the processor must be clustered by contig name and sorted by begin position
  * 
+ * The active genes are kept in a priority queue ordered by their end position, such that the genes left of the current
+ * variant can be popped without looking at the other active genes. The active variants are kept in input order with
+ * the number of their active genes, a variant is written out as soon as it and all variants before it have no active
+ * gene left.
+ * 
+ * When constructed with more than one thread, the compatible modes of the finished genes are computed in a pool of
+ * worker threads. The finished genes are collected into batches of about <code>batchSize</code> variants and the
+ * pending batches are kept in a FIFO. The results are applied strictly in submission order, and a variant is only
+ * written out when the results for all its genes have been applied, so the output is the same as when running with one
+ * thread. At most <code>2 * numThreads</code> batches are in flight at any time.
+ * 
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
 public class GeneWiseMendelianAnnotationProcessor implements VariantContextProcessor {
@@ -64,13 +78,29 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 	private final boolean interpretVariantFilters;
 
 	/** Currently active genes and variants assigned to them. */
-	HashMap<Gene, ArrayList<VariantContext>> activeGenes = new HashMap<>();
-	/** Currently buffered variants. */
-	HashMap<VariantContext, VariantContextCounter> activeVariants = new HashMap<>();
+	final HashMap<Gene, ArrayList<VariantContextCounter>> activeGenes = new HashMap<>();
+	/** The genes from {@link #activeGenes}, all on the same contig and ordered by end position */
+	final PriorityQueue<Gene> activeGeneEnds = new PriorityQueue<>(
+			Comparator.comparingInt((Gene gene) -> gene.getRegion().getEndPos()));
+	/** Currently buffered variants in input order, counter gives number of active genes */
+	final ArrayDeque<VariantContextCounter> activeVariants = new ArrayDeque<>();
 
 	/** List of genes, indexed by interval tree */
 	private final GeneList geneList;
 
+	/** Thread pool for computing the compatible modes of finished genes, <code>null</code> for inline computation */
+	private final ExecutorService executor;
+	/** Minimal number of variants in a batch of finished genes before submission to {@link #executor} */
+	private final int batchSize;
+	/** Maximal number of batches being processed or waiting for their results to be applied */
+	private final int maxPendingBatches;
+	/** Batches submitted to {@link #executor}, in submission order */
+	private final ArrayDeque<PendingBatch> pending = new ArrayDeque<>();
+	/** Variants of the finished genes for the next batch, one list per gene */
+	private ArrayList<ArrayList<VariantContextCounter>> batch = new ArrayList<>();
+	/** Number of variants in {@link #batch} */
+	private int batchVariants = 0;
+
 	/**
 	 * Construct processor with the path to the PED file to use
 	 * 
@@ -85,6 +115,32 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 	 */
 	public GeneWiseMendelianAnnotationProcessor(Pedigree pedigree, JannovarData jannovarData,
 			Consumer<VariantContext> sink, boolean interpretFilters) {
+		this(pedigree, jannovarData, sink, interpretFilters, 1, 1);
+	}
+
+	/**
+	 * Construct processor with the path to the PED file to use, computing the compatible modes in worker threads
+	 * 
+	 * @param pedigree
+	 *            the {@link Pedigree} object to use
+	 * @param jannovarData
+	 *            {@link JannovarData} object to use for getting the genes from
+	 * @param sink
+	 *            location to write the {@link VariantContext} to, only called from the thread calling {@link #put}
+	 *            and {@link #close}
+	 * @param interpretFilters
+	 *            whether or not to interpret genotype- or variant-wise filters
+	 * @param numThreads
+	 *            number of worker threads to use, <code>1</code> for computing the compatible modes inline
+	 * @param batchSize
+	 *            minimal number of variants of finished genes to submit to the worker pool at once
+	 */
+	public GeneWiseMendelianAnnotationProcessor(Pedigree pedigree, JannovarData jannovarData,
+			Consumer<VariantContext> sink, boolean interpretFilters, int numThreads, int batchSize) {
+		if (numThreads < 1)
+			throw new IllegalArgumentException("Number of threads must be positive but was " + numThreads);
+		if (batchSize < 1)
+			throw new IllegalArgumentException("Batch size must be positive but was " + batchSize);
 		this.pedigree = pedigree;
 		this.jannovarData = jannovarData;
 		this.sink = sink;
@@ -97,6 +153,10 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 				interpretVariantFilters);
 
 		this.contigInfoProvider = new ContigInfoProvider();
+
+		this.executor = (numThreads == 1) ? null : Executors.newFixedThreadPool(numThreads);
+		this.batchSize = batchSize;
+		this.maxPendingBatches = 2 * numThreads;
 	}
 
 	@Override
@@ -115,13 +175,12 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 						+ " before the second time");
 		}
 
-		// Resolve contig that we work on, trigger start of new contig if necessary
+		// Resolve contig that we work on, the contig name may not be known to the reference dictionary
 		final ReferenceDictionary refDict = jannovarData.getRefDict();
-		// The contig name may not be known to the
-		Optional<Integer> contigID = Optional.ofNullable(refDict.getContigNameToID().get(vc.getContig()));
-		Optional<IntervalArray<Gene>> iTree = contigID.map(x -> geneList.getGeneIntervalTree().get(x));
+		final Integer contigID = refDict.getContigNameToID().get(vc.getContig());
+		final IntervalArray<Gene> iTree = (contigID == null) ? null : geneList.getGeneIntervalTree().get(contigID);
 		// Unknown contig or contig with annotation, simply write out
-		if (!iTree.isPresent()) {
+		if (iTree == null) {
 			LOGGER.trace("Unknown contig or contig without annotation in " + vc.getContig()
 					+ ", flushing current contig and writing out.");
 			markDoneGenes(-1, -1);
@@ -129,62 +188,58 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 			return;
 		}
 
+		// Write out all genes and variants left of variant, this includes all genes of the previous contig such that
+		// all active genes are on the same contig
+		final int beginPos = vc.getStart() - 1;
+		final int endPos = vc.getEnd();
+		markDoneGenes(contigID, beginPos);
+
 		// Consider this variant for each affected gene
-		Optional<GenomeInterval> changeInterval = contigID
-				.map(x -> new GenomeInterval(refDict, Strand.FWD, x, vc.getStart() - 1, vc.getEnd()));
-		Optional<IntervalArray<Gene>.QueryResult> qr = Optional.empty();
-		if (changeInterval.isPresent()) {
-			if (changeInterval.get().length() == 0)
-				qr = iTree.map(x -> x.findOverlappingWithPoint(changeInterval.get().getBeginPos()));
-			else
-				qr = iTree.map(x -> x.findOverlappingWithInterval(changeInterval.get().getBeginPos(),
-						changeInterval.get().getEndPos()));
-		}
+		// Genotypes are decoded lazily, do this here instead of concurrently in the workers of the variant's genes
+		if (executor != null && vc.getGenotypes() instanceof LazyGenotypesContext)
+			((LazyGenotypesContext) vc.getGenotypes()).decode();
 
-		if (qr.isPresent()) {
-			if (qr.get().getEntries().isEmpty()) {
-				putVariantForGene(vc, null);
-			} else {
-				for (Gene gene : qr.get().getEntries())
-					if (isGeneAffectedByChange(gene, vc))
-						putVariantForGene(vc, gene);
-			}
+		final IntervalArray<Gene>.QueryResult qr;
+		if (beginPos == endPos)
+			qr = iTree.findOverlappingWithPoint(beginPos);
+		else
+			qr = iTree.findOverlappingWithInterval(beginPos, endPos);
+
+		final VariantContextCounter var = new VariantContextCounter(vc);
+		if (qr.getEntries().isEmpty()) {
+			putVariantForGene(var, null);
+		} else {
+			for (Gene gene : qr.getEntries())
+				if (isGeneAffectedByChange(gene, beginPos, endPos))
+					putVariantForGene(var, gene);
 		}
 
-		// Write out all variants left of variant. If contig ID not known then write out everything currently in cache
-		if (contigID.isPresent())
-			markDoneGenes(contigID.get(), vc.getStart() - 1);
-		else
-			markDoneGenes(-1, -1);
+		// Write out variant if it is not in any gene and there are no variants left of it
+		writeDoneVariants();
 	}
 
 	/**
-	 * @return <code>true</code> if <code>gene</code> is affected by <code>variantContext</code>
+	 * @return <code>true</code> if <code>gene</code> is affected by the change in <code>[beginPos, endPos)</code> on the
+	 *         gene's contig
 	 */
-	private boolean isGeneAffectedByChange(Gene gene, VariantContext vc) {
-		final ReferenceDictionary refDict = jannovarData.getRefDict();
-		final int contigID = refDict.getContigNameToID().get(vc.getContig());
-		final GenomeInterval changeInterval = new GenomeInterval(refDict, Strand.FWD, contigID, vc.getStart() - 1,
-				vc.getEnd());
-
-		if (changeInterval.length() == 0 && gene.getRegion().contains(changeInterval.getGenomeBeginPos())
-				&& gene.getRegion().contains(changeInterval.getGenomeBeginPos().shifted(-1)))
-			return false;
-		else if (changeInterval.length() != 0 && gene.getRegion().overlapsWith(changeInterval))
-			return true;
-		else
-			return false;
+	private static boolean isGeneAffectedByChange(Gene gene, int beginPos, int endPos) {
+		return beginPos < endPos && gene.getRegion().getBeginPos() < endPos && beginPos < gene.getRegion().getEndPos();
 	}
 
 	@Override
 	public void close() {
 		LOGGER.trace("Closing mendelian annotation processor");
-		markDoneGenes(-1, -1);
+		try {
+			markDoneGenes(-1, -1);
+		} finally {
+			if (executor != null)
+				executor.shutdownNow();
+		}
 
 		// There should be no more active variants or genes
 		if (!activeVariants.isEmpty())
 			throw new VariantContextFilterException("All variants should be inactive now");
-		if (!activeGenes.isEmpty())
+		if (!activeGenes.isEmpty() || !activeGeneEnds.isEmpty())
 			throw new VariantContextFilterException("All genes should be inactive now");
 	}
 
@@ -226,29 +281,37 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 	 * @throws UncheckedJannovarException
 	 *             on problems with annotation of the variant
 	 */
-	private void putVariantForGene(VariantContext vc, Gene gene) {
-		LOGGER.trace("Assigning variant {} to gene {}", new Object[] { vc, gene });
-		// Register VariantContext as active
-		activeVariants.computeIfAbsent(vc, x -> new VariantContextCounter(x, 0));
+	private void putVariantForGene(VariantContextCounter var, Gene gene) {
+		LOGGER.trace("Assigning variant {} to gene {}", new Object[] { var.getVariantContext(), gene });
+		// Register VariantContext as active, variants are put for all their genes directly after each other
+		if (activeVariants.peekLast() != var)
+			activeVariants.addLast(var);
 
 		if (gene == null) {
 			// Compute modes of inheritance on its own, don't assign to any gene, just marked as active
 			try {
-				annotator.annotateRecord(vc);
+				annotator.annotateRecord(var.getVariantContext());
 			} catch (CannotAnnotateMendelianInheritance e) {
 				throw new UncheckedJannovarException("Problem with mendelian variant annotation in variant context", e);
 			}
 			return;
 		}
 
-		activeVariants.get(vc).increment();
+		var.increment();
 		// Register VariantContext for gene
-		activeGenes.computeIfAbsent(gene, x -> new ArrayList<>());
-		activeGenes.get(gene).add(vc);
+		ArrayList<VariantContextCounter> vars = activeGenes.get(gene);
+		if (vars == null) {
+			vars = new ArrayList<>();
+			activeGenes.put(gene, vars);
+			activeGeneEnds.add(gene);
+		}
+		vars.add(var);
 	}
 
 	/**
-	 * Mark genes left of <code>(contigID, pos)</code> as done.
+	 * Mark genes left of <code>(contigID, pos)</code> as done and write out the variants that are done then.
+	 *
+	 * All genes on other contigs than <code>contigID</code> are done, so <code>-1</code> flushes all genes.
 	 *
 	 * @param contigID
 	 *            numeric contig ID, as taken from {@link JannovarDB#refDict} from {@link #jannovarDB}.
@@ -258,135 +321,203 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 	 *             on problems with filtration
 	 */
 	private void markDoneGenes(int contigID, int pos) throws VariantContextFilterException {
-		ArrayList<Gene> doneGenes = new ArrayList<Gene>();
-		for (Entry<Gene, ArrayList<VariantContext>> entry : activeGenes.entrySet()) {
-			Gene gene = entry.getKey();
-			if (gene.getRegion().getChr() != contigID)
-				doneGenes.add(gene);
-			else if (gene.getRegion().getEndPos() <= pos)
-				doneGenes.add(gene);
+		// All active genes are on the same contig, so the head is the next gene to be done
+		while (!activeGeneEnds.isEmpty()) {
+			final Gene gene = activeGeneEnds.peek();
+			if (gene.getRegion().getChr() == contigID && gene.getRegion().getEndPos() > pos)
+				break;
+			activeGeneEnds.poll();
+			processedGene(gene);
 		}
 
-		if (doneGenes.isEmpty()) {
-			processedGene(null);
-		} else {
-			for (Gene gene : doneGenes) {
-				processedGene(gene);
-				activeGenes.remove(gene);
-			}
+		if (executor != null) {
+			// Submit the last genes if no gene is active, otherwise the variants would wait for later genes
+			if (!batch.isEmpty() && (contigID == -1 || activeGenes.isEmpty()))
+				submitBatch();
+			// All results must be applied when flushing, otherwise only apply the ones that are available
+			while (!pending.isEmpty() && (contigID == -1 || pending.peekFirst().result.isDone()))
+				applyFirstBatch();
 		}
 
-		if (!doneGenes.isEmpty() && activeGenes.isEmpty() && !activeVariants.isEmpty())
+		writeDoneVariants();
+
+		if (activeGenes.isEmpty() && pending.isEmpty() && !activeVariants.isEmpty())
 			throw new RuntimeException("All genes inactive, there should be no active variant");
 	}
 
 	/**
 	 * Builds genotype call lists for variants in currently active genes, checks for compatibility, and in case of
-	 * compatibility, marks variants in <code>gene</code> as compatible.
+	 * compatibility, marks variants in <code>vars</code> as compatible; also decreases their counter.
 	 * 
 	 * @throws VariantContextFilterException
 	 *             in case of problems with processing the variant
 	 * @throws CannotAnnotateMendelianInheritance
 	 *             in case of problems with Mendelian inheritance annotation
 	 */
-	private void checkVariantsForGene(Gene gene)
+	private void checkVariantsForGene(List<VariantContextCounter> vars)
 			throws VariantContextFilterException, CannotAnnotateMendelianInheritance {
 		// Compute compatible modes for all variants in the gene
-		final ArrayList<VariantContext> variantsForGene = activeGenes.get(gene);
-		ImmutableMap<SubModeOfInheritance, ImmutableList<VariantContext>> compatibleMap = annotator
-				.computeCompatibleInheritanceSubModes(variantsForGene);
+		ImmutableMap<SubModeOfInheritance, ImmutableList<Integer>> compatibleMap = annotator
+				.computeCompatibleInheritanceSubModeIndices(getVariantContexts(vars));
+		applyCompatibleModes(vars, compatibleMap);
+	}
+
+	/** @return the {@link VariantContext} objects of <code>vars</code> */
+	private static List<VariantContext> getVariantContexts(List<VariantContextCounter> vars) {
+		final ArrayList<VariantContext> result = new ArrayList<>(vars.size());
+		for (VariantContextCounter var : vars)
+			result.add(var.getVariantContext());
+		return result;
+	}
+
+	/**
+	 * Annotate the variants of a gene with their compatible modes and decrease their counter
+	 * 
+	 * @param vars
+	 *            the variants of the gene
+	 * @param compatibleMap
+	 *            compatible modes with the indices of the compatible variants in <code>vars</code>
+	 */
+	private static void applyCompatibleModes(List<VariantContextCounter> vars,
+			ImmutableMap<SubModeOfInheritance, ImmutableList<Integer>> compatibleMap) {
 		// Annotate the variants with new compatible modes
-		for (Entry<SubModeOfInheritance, ImmutableList<VariantContext>> e : compatibleMap.entrySet()) {
-			for (VariantContext vc : e.getValue()) {
-				activeVariants.get(vc).addCompatibleMode(e.getKey());
+		for (Entry<SubModeOfInheritance, ImmutableList<Integer>> e : compatibleMap.entrySet()) {
+			for (int idx : e.getValue()) {
+				vars.get(idx).addCompatibleMode(e.getKey());
 			}
 		}
+		// Decrease count of variants that lie in gene (that is now ignored)
+		for (VariantContextCounter var : vars)
+			var.decrement();
 	}
 
 	/**
-	 * Decrease counter for all variants located in <code>gene</code>.
+	 * Compute compatible modes for the variants located in <code>gene</code> and decrease their counter.
+	 *
+	 * With a worker pool, the variants are added to the current batch instead and their counters are decreased when
+	 * the batch's results are applied.
 	 *
 	 * @param gene
-	 *            the {@link Gene} to mark the variants for, <code>null</code> to trigger processing variants without
-	 *            marking a gene as processed
+	 *            the {@link Gene} to mark the variants for
 	 */
 	private void processedGene(Gene gene) throws VariantContextFilterException {
+		final ArrayList<VariantContextCounter> vars = activeGenes.remove(gene);
+		LOGGER.trace("Gene done {}", new Object[] { gene.getName() });
+
+		if (executor != null) {
+			batch.add(vars);
+			batchVariants += vars.size();
+			if (batchVariants >= batchSize)
+				submitBatch();
+			return;
+		}
+
 		try {
-			if (gene != null)
-				checkVariantsForGene(gene);
+			checkVariantsForGene(vars);
 		} catch (CannotAnnotateMendelianInheritance e) {
-			if (e.getCause().getClass().equals(IncompatiblePedigreeException.class))
-				throw new VariantContextFilterException(
-						"Cannot annotate Mendelian inheritance, pedigree is incompatible to genotypes", e);
-			else
-				throw new VariantContextFilterException("Problem with annotating variant for Mendelian inheritance", e);
+			throw buildFilterException(e);
 		}
+	}
 
-		if (gene != null)
-			LOGGER.trace("Gene done {}", new Object[] { gene.getName() });
+	/** @return {@link VariantContextFilterException} to throw for <code>e</code> */
+	private static VariantContextFilterException buildFilterException(CannotAnnotateMendelianInheritance e) {
+		if (e.getCause().getClass().equals(IncompatiblePedigreeException.class))
+			return new VariantContextFilterException(
+					"Cannot annotate Mendelian inheritance, pedigree is incompatible to genotypes", e);
 		else
-			LOGGER.trace("Marking variants as done without any gene");
+			return new VariantContextFilterException("Problem with annotating variant for Mendelian inheritance", e);
+	}
 
-		// Decrease count of variants that lie in gene (that is now ignored)
-		for (VariantContextCounter var : activeVariants.values()) {
-			if (gene != null && isGeneAffectedByChange(gene, var.getVariantContext())) {
-				LOGGER.trace("Gene {} done for variant {}", new Object[] { gene.getName(),
-						var.getVariantContext().getContig() + ":" + var.getVariantContext().getStart() });
-				var.decrement();
-			}
+	/** Submit current batch to the worker pool, applying the oldest batch's results if too many are pending */
+	private void submitBatch() throws VariantContextFilterException {
+		final ArrayList<ArrayList<VariantContextCounter>> genes = batch;
+		batch = new ArrayList<>();
+		batchVariants = 0;
+
+		final ArrayList<List<VariantContext>> toProcess = new ArrayList<>(genes.size());
+		for (ArrayList<VariantContextCounter> vars : genes)
+			toProcess.add(getVariantContexts(vars));
+		LOGGER.trace("Submitting batch of {} genes", toProcess.size());
+		pending.add(new PendingBatch(genes, executor.submit(() -> {
+			final ArrayList<ImmutableMap<SubModeOfInheritance, ImmutableList<Integer>>> result = new ArrayList<>(
+					toProcess.size());
+			for (List<VariantContext> vcs : toProcess)
+				result.add(annotator.computeCompatibleInheritanceSubModeIndices(vcs));
+			return result;
+		})));
+
+		while (pending.size() > maxPendingBatches)
+			applyFirstBatch();
+	}
+
+	/** Wait for the oldest pending batch and apply its results to its variants */
+	private void applyFirstBatch() throws VariantContextFilterException {
+		final PendingBatch first = pending.removeFirst();
+		final List<ImmutableMap<SubModeOfInheritance, ImmutableList<Integer>>> result;
+		try {
+			result = first.result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new VariantContextFilterException("Interrupted while waiting for worker thread", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof CannotAnnotateMendelianInheritance)
+				throw buildFilterException((CannotAnnotateMendelianInheritance) e.getCause());
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new VariantContextFilterException("Problem in worker thread", e.getCause());
 		}
 
-		// Comparator for comparing two VariantContextCounter objects
-		Comparator<VariantContextCounter> cmp = new Comparator<VariantContextCounter>() {
-			@Override
-			public int compare(VariantContextCounter lhs, VariantContextCounter rhs) {
-				final int idxLhs = contigInfoProvider.getContigNoForName(lhs.getVariantContext().getContig());
-				final int idxRhs = contigInfoProvider.getContigNoForName(rhs.getVariantContext().getContig());
-				if (idxLhs != idxRhs)
-					return (idxLhs - idxRhs);
-				else
-					return (lhs.getVariantContext().getStart() - rhs.getVariantContext().getStart());
-			}
-		};
-
-		// Get leftmost variant that is not processed
-		Optional<VariantContextCounter> leftmost = activeVariants.values().stream().filter(x -> x.getCounter() != 0)
-				.min(cmp);
-		List<VariantContextCounter> done = activeVariants.values().stream()
-				.filter(x -> (!leftmost.isPresent() || cmp.compare(x, leftmost.get()) < 0))
-				.collect(Collectors.toList());
-
-		// Sort done by coordinate
-		Collections.sort(done, cmp);
-
-		// Remove completed variants and write out if passing
-		for (VariantContextCounter var : done) {
-			activeVariants.remove(var.getVariantContext());
-
-			ArrayList<String> modes = new ArrayList<>();
-			modes.addAll(var.getCompatibleModes().stream().map(m -> m.toModeOfInheritance().getAbbreviation())
-					.filter(m -> m != null).collect(Collectors.toList()));
-			ArrayList<String> arSubModes = new ArrayList<>();
-			arSubModes.addAll(var.getCompatibleModes().stream().filter(m -> m.isRecessive())
-					.map(m -> m.getAbbreviation()).filter(m -> m != null).collect(Collectors.toList()));
-
-			if (modes.isEmpty()) {
-				sink.accept(var.getVariantContext());
-			} else {
-				VariantContextBuilder vcBuilder = new VariantContextBuilder(var.getVariantContext());
-				if (!modes.isEmpty())
-					vcBuilder.attribute(MendelVCFHeaderExtender.key(), modes);
-				if (!arSubModes.isEmpty())
-					vcBuilder.attribute(MendelVCFHeaderExtender.keySub(), arSubModes);
-				sink.accept(vcBuilder.make());
-			}
+		for (int i = 0; i < result.size(); ++i)
+			applyCompatibleModes(first.genes.get(i), result.get(i));
+	}
+
+	/**
+	 * Remove the leading variants without active genes from {@link #activeVariants} and write them out
+	 */
+	private void writeDoneVariants() {
+		while (!activeVariants.isEmpty() && activeVariants.peekFirst().getCounter() == 0)
+			writeVariant(activeVariants.pollFirst());
+	}
+
+	/**
+	 * Write out <code>var</code>, annotated with its compatible modes
+	 */
+	private void writeVariant(VariantContextCounter var) {
+		ArrayList<String> modes = new ArrayList<>();
+		modes.addAll(var.getCompatibleModes().stream().map(m -> m.toModeOfInheritance().getAbbreviation())
+				.filter(m -> m != null).collect(Collectors.toList()));
+		ArrayList<String> arSubModes = new ArrayList<>();
+		arSubModes.addAll(var.getCompatibleModes().stream().filter(m -> m.isRecessive())
+				.map(m -> m.getAbbreviation()).filter(m -> m != null).collect(Collectors.toList()));
+
+		if (modes.isEmpty()) {
+			sink.accept(var.getVariantContext());
+		} else {
+			VariantContextBuilder vcBuilder = new VariantContextBuilder(var.getVariantContext());
+			if (!modes.isEmpty())
+				vcBuilder.attribute(MendelVCFHeaderExtender.key(), modes);
+			if (!arSubModes.isEmpty())
+				vcBuilder.attribute(MendelVCFHeaderExtender.keySub(), arSubModes);
+			sink.accept(vcBuilder.make());
 		}
+	}
 
-		if (gene != null) {
-			LOGGER.trace("Gene {} is inactive now", new Object[] { gene.getName() });
-			// Mark gene as done
-			activeGenes.remove(gene);
+	/**
+	 * Batch of finished genes submitted to the worker pool
+	 */
+	private static class PendingBatch {
+
+		/** Variants of the genes, one list per gene */
+		final List<ArrayList<VariantContextCounter>> genes;
+		/** Compatible modes for each gene, with indices into the gene's list */
+		final Future<? extends List<ImmutableMap<SubModeOfInheritance, ImmutableList<Integer>>>> result;
+
+		PendingBatch(List<ArrayList<VariantContextCounter>> genes,
+				Future<? extends List<ImmutableMap<SubModeOfInheritance, ImmutableList<Integer>>>> result) {
+			this.genes = genes;
+			this.result = result;
 		}
+
 	}
 
 	/**
@@ -0,0 +1,183 @@
+package de.charite.compbio.jannovar.mendel.filter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Apply a mapping function to {@link VariantContext} objects in a pool of worker threads, passing the results to the
+ * next pipeline step in input order
+ *
+ * Incoming records are collected into batches of <code>batchSize</code> records that are then submitted to the
+ * worker pool. The pending batches are kept in a FIFO and the results are passed to the sink strictly in submission
+ * order, such that the output is the same as when applying the function sequentially. At most
+ * <code>2 * numThreads</code> batches are in flight at any time, bounding memory usage.
+ *
+ * The mapping function is not required to be thread-safe: <code>workerFactory</code> is called once in each worker
+ * thread to construct the {@link Worker} used by this thread. The workers are closed after the worker threads have
+ * finished, such that they can release per-thread resources.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class ParallelMappingProcessor implements VariantContextProcessor {
+
+	/**
+	 * Mapping function used by one worker thread, closed when processing is done
+	 */
+	public interface Worker extends Function<VariantContext, VariantContext>, Closeable {
+
+		/** Release resources of the worker, does nothing by default */
+		@Override
+		default void close() throws IOException {
+		}
+
+	}
+
+	/** The logger object to use */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ParallelMappingProcessor.class);
+
+	/** Next pipeline step */
+	private final VariantContextProcessor sink;
+
+	/** Number of records to process in one batch */
+	private final int batchSize;
+
+	/** Maximal number of batches being processed or waiting for the sink */
+	private final int maxPendingBatches;
+
+	/** Thread pool for the workers */
+	private final ExecutorService executor;
+
+	/** Per-thread mapping function, constructed lazily using the worker factory */
+	private final ThreadLocal<Worker> workerFunction;
+
+	/** All workers constructed so far, for closing them */
+	private final List<Worker> workers = Collections.synchronizedList(new ArrayList<>());
+
+	/** Batches submitted to the executor, in submission order */
+	private final ArrayDeque<Future<List<VariantContext>>> pending = new ArrayDeque<>();
+
+	/** Batch currently being filled */
+	private ArrayList<VariantContext> batch;
+
+	/**
+	 * Initialize the processor
+	 *
+	 * @param workerFactory
+	 *            builds the {@link Worker} for a worker thread, called once per thread
+	 * @param sink
+	 *            next pipeline step, receives the mapped records in input order
+	 * @param numThreads
+	 *            number of worker threads to use
+	 * @param batchSize
+	 *            number of records to submit to the worker pool at once
+	 */
+	public ParallelMappingProcessor(Supplier<Worker> workerFactory,
+			VariantContextProcessor sink, int numThreads, int batchSize) {
+		if (numThreads < 1)
+			throw new IllegalArgumentException("Number of threads must be positive but was " + numThreads);
+		if (batchSize < 1)
+			throw new IllegalArgumentException("Batch size must be positive but was " + batchSize);
+		this.sink = sink;
+		this.batchSize = batchSize;
+		this.maxPendingBatches = 2 * numThreads;
+		this.executor = Executors.newFixedThreadPool(numThreads);
+		this.workerFunction = ThreadLocal.withInitial(() -> {
+			final Worker worker = workerFactory.get();
+			workers.add(worker);
+			return worker;
+		});
+		this.batch = new ArrayList<>(batchSize);
+	}
+
+	@Override
+	public void put(VariantContext vc) throws VariantContextFilterException {
+		batch.add(vc);
+		if (batch.size() >= batchSize)
+			submitBatch();
+	}
+
+	@Override
+	public void close() {
+		try {
+			try {
+				if (!batch.isEmpty())
+					submitBatch();
+				while (!pending.isEmpty())
+					drainFirst();
+			} finally {
+				executor.shutdownNow();
+				closeWorkers();
+			}
+		} finally {
+			sink.close();
+		}
+	}
+
+	/** Wait for the worker threads to terminate and close their {@link Worker}s */
+	private void closeWorkers() {
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (workers) {
+			for (Worker worker : workers) {
+				try {
+					worker.close();
+				} catch (IOException e) {
+					LOGGER.error("Problem closing worker", e);
+				}
+			}
+		}
+	}
+
+	/** Submit current batch to the worker pool, blocking on the oldest batch if too many are pending */
+	private void submitBatch() throws VariantContextFilterException {
+		final ArrayList<VariantContext> toProcess = batch;
+		batch = new ArrayList<>(batchSize);
+		LOGGER.trace("Submitting batch of {} records", toProcess.size());
+		pending.add(executor.submit(() -> {
+			final Worker fun = workerFunction.get();
+			final ArrayList<VariantContext> result = new ArrayList<>(toProcess.size());
+			for (VariantContext vc : toProcess)
+				result.add(fun.apply(vc));
+			return result;
+		}));
+		while (pending.size() > maxPendingBatches)
+			drainFirst();
+	}
+
+	/** Wait for the oldest pending batch and pass its records to the sink */
+	private void drainFirst() throws VariantContextFilterException {
+		final List<VariantContext> result;
+		try {
+			result = pending.removeFirst().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new VariantContextFilterException("Interrupted while waiting for worker thread", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new VariantContextFilterException("Problem in worker thread", e.getCause());
+		}
+		for (VariantContext vc : result)
+			sink.put(vc);
+	}
+
+}
@@ -0,0 +1,111 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLine;
+
+/**
+ * Tests for the {@link BlockCompressedFileConcatenator} together with the {@link VCFShardWriter}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class BlockCompressedFileConcatenatorTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	/** header of the input file */
+	VCFHeader header;
+	/** records of the input file */
+	List<VariantContext> records;
+
+	@Before
+	public void setUp() throws IOException {
+		File inputFile = tmpFolder.newFile("input.vcf");
+		ResourceUtils.copyResourceToFile("/inheritanceFilterTest.b37.vcf", inputFile);
+		try (VCFFileReader reader = new VCFFileReader(inputFile, false)) {
+			header = reader.getFileHeader();
+			records = ImmutableList.copyOf(reader.iterator());
+		}
+	}
+
+	/** Write header part and one part per contig, return the parts */
+	private List<File> writeParts() {
+		List<File> parts = new ArrayList<>();
+		File headerPart = new File(tmpFolder.getRoot(), "header.vcf.gz");
+		VariantContextWriterConstructionHelper.openVariantContextWriter(header, headerPart.toString(),
+				ImmutableList.<VCFHeaderLine> of()).close();
+		parts.add(headerPart);
+
+		VCFHeader shardHeader = VariantContextWriterConstructionHelper.extendHeaderFields(new VCFHeader(header));
+		for (String contig : ImmutableList.of("1", "10", "X")) {
+			File part = new File(tmpFolder.getRoot(), "shard-" + contig + ".vcf.gz");
+			try (VariantContextWriter writer = new VCFShardWriter(shardHeader, part)) {
+				for (VariantContext vc : records)
+					if (vc.getContig().equals(contig))
+						writer.add(vc);
+			}
+			parts.add(part);
+		}
+		return parts;
+	}
+
+	@Test
+	public void testConcatenate() throws IOException {
+		File target = new File(tmpFolder.getRoot(), "output.vcf.gz");
+		BlockCompressedFileConcatenator.concatenate(writeParts(), target);
+
+		try (VCFFileReader reader = new VCFFileReader(target, false)) {
+			Assert.assertEquals(header.getGenotypeSamples(), reader.getFileHeader().getGenotypeSamples());
+			Assert.assertNotNull(reader.getFileHeader().getInfoHeaderLine("ANN"));
+			List<VariantContext> actual = ImmutableList.copyOf(reader.iterator());
+			Assert.assertEquals(records.size(), actual.size());
+			for (int i = 0; i < records.size(); ++i)
+				Assert.assertEquals(records.get(i).toStringDecodeGenotypes(),
+						actual.get(i).toStringDecodeGenotypes());
+		}
+	}
+
+	@Test
+	public void testConcatenateAndIndex() throws IOException {
+		File target = new File(tmpFolder.getRoot(), "output.vcf.gz");
+		BlockCompressedFileConcatenator.concatenate(writeParts(), target);
+		TabixIndexConstructionHelper.createTabixIndex(target, header.getSequenceDictionary())
+				.writeBasedOnFeatureFile(target);
+
+		try (VCFFileReader reader = new VCFFileReader(target, true);
+				CloseableIterator<VariantContext> iter = reader.query("10", 1, 135534747)) {
+			List<VariantContext> actual = ImmutableList.copyOf(iter);
+			Assert.assertEquals(2, actual.size());
+			Assert.assertEquals(123239370, actual.get(0).getStart());
+			Assert.assertEquals(123357972, actual.get(1).getStart());
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testConcatenateUnterminated() throws IOException {
+		File part = tmpFolder.newFile("plain.vcf");
+		Files.write(new byte[] { 'A', 'C', 'G', 'T' }, part);
+		BlockCompressedFileConcatenator.concatenate(ImmutableList.of(part),
+				new File(tmpFolder.getRoot(), "output.vcf.gz"));
+	}
+
+}
@@ -0,0 +1,114 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.ByteStreams;
+
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+
+/**
+ * Tests for the {@link ParallelBlockCompressedOutputStream}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class ParallelBlockCompressedOutputStreamTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	/** @return VCF-like text spanning several blocks */
+	private static byte[] buildText() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 20000; ++i)
+			builder.append("1\t").append(1000 + i * 7).append("\t.\tA\tC\t100\tPASS\tDP=").append(i % 97)
+					.append('\n');
+		return builder.toString().getBytes();
+	}
+
+	/** Write <code>data</code> in chunks of varying size, flushing once in the middle */
+	private File write(byte[] data, int numThreads) throws IOException {
+		File file = tmpFolder.newFile();
+		try (ParallelBlockCompressedOutputStream out = new ParallelBlockCompressedOutputStream(
+				new FileOutputStream(file), numThreads)) {
+			int pos = 0;
+			for (int chunk = 1; pos < data.length; chunk = chunk * 3 % 100003) {
+				int len = Math.min(chunk, data.length - pos);
+				if (len == 1)
+					out.write(data[pos]);
+				else
+					out.write(data, pos, len);
+				pos += len;
+				if (pos > data.length / 2 && pos - len <= data.length / 2)
+					out.flush();
+			}
+		}
+		return file;
+	}
+
+	/** @return data decompressed from BGZF <code>file</code> */
+	private static byte[] read(File file) throws IOException {
+		try (BlockCompressedInputStream in = new BlockCompressedInputStream(file)) {
+			return ByteStreams.toByteArray(in);
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		byte[] data = buildText();
+		File file = write(data, 3);
+
+		Assert.assertArrayEquals(data, read(file));
+		Assert.assertEquals(BlockCompressedInputStream.FileTermination.HAS_TERMINATOR_BLOCK,
+				BlockCompressedInputStream.checkTermination(file));
+		Assert.assertTrue(file.length() < data.length / 2);
+	}
+
+	@Test
+	public void testRoundTripIncompressible() throws IOException {
+		byte[] data = new byte[5 * BlockCompressedStreamConstants.DEFAULT_UNCOMPRESSED_BLOCK_SIZE + 17];
+		new Random(42).nextBytes(data);
+
+		Assert.assertArrayEquals(data, read(write(data, 2)));
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		File file = tmpFolder.newFile();
+		new ParallelBlockCompressedOutputStream(new FileOutputStream(file), 1).close();
+
+		try (FileInputStream in = new FileInputStream(file)) {
+			Assert.assertArrayEquals(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK, ByteStreams.toByteArray(in));
+		}
+	}
+
+	@Test
+	public void testDeflatersEndedOnClose() throws IOException {
+		byte[] data = buildText();
+		ParallelBlockCompressedOutputStream out = new ParallelBlockCompressedOutputStream(
+				new FileOutputStream(tmpFolder.newFile()), 2);
+		out.write(data);
+		out.close();
+
+		Assert.assertFalse(out.createdDeflaters.isEmpty());
+		for (Deflater deflater : out.createdDeflaters) {
+			try {
+				deflater.getTotalIn();
+				Assert.fail("Deflater has not been ended");
+			} catch (NullPointerException e) {
+				// expected, the deflater has been ended
+			}
+		}
+	}
+
+}
@@ -0,0 +1,103 @@
+package de.charite.compbio.jannovar.mendel.bridge;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import de.charite.compbio.jannovar.pedigree.Disease;
+import de.charite.compbio.jannovar.pedigree.PedFileContents;
+import de.charite.compbio.jannovar.pedigree.PedParseException;
+import de.charite.compbio.jannovar.pedigree.PedPerson;
+import de.charite.compbio.jannovar.pedigree.Pedigree;
+import de.charite.compbio.jannovar.pedigree.Sex;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+
+/**
+ * Tests for the {@link VariantContextMendelianAnnotator}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class VariantContextMendelianAnnotatorTest {
+
+	static final Allele REF = Allele.create("A", true);
+	static final Allele ALT = Allele.create("C");
+
+	/** Trio with affected child */
+	Pedigree pedigree;
+
+	/**
+	 * Records of the trio, a record removed by frequency filter and a synonymous one come before a compound
+	 * heterozygous pair
+	 */
+	List<VariantContext> records;
+
+	@Before
+	public void setUp() throws PedParseException {
+		pedigree = new Pedigree(new PedFileContents(ImmutableList.of(),
+				ImmutableList.of(new PedPerson("fam", "father", "0", "0", Sex.MALE, Disease.UNAFFECTED),
+						new PedPerson("fam", "mother", "0", "0", Sex.FEMALE, Disease.UNAFFECTED),
+						new PedPerson("fam", "child", "father", "mother", Sex.MALE, Disease.AFFECTED))),
+				"fam");
+
+		records = ImmutableList.of(
+				new VariantContextBuilder(buildRecord(100, true, false)).filter("MaxFreqAr").make(),
+				new VariantContextBuilder(buildRecord(200, true, false))
+						.attribute("ANN", "C|synonymous_variant|LOW|GENE").make(),
+				buildRecord(300, true, false), buildRecord(400, false, true));
+	}
+
+	@Test
+	public void testCompHetWithVariantFilters() throws CannotAnnotateMendelianInheritance {
+		List<VariantContext> result = new VariantContextMendelianAnnotator(pedigree, false, true)
+				.annotateRecords(records);
+
+		Assert.assertEquals(4, result.size());
+		Assert.assertFalse(getSubModes(result.get(0)).contains(MendelVCFHeaderExtender.AR_COMP_HET));
+		Assert.assertFalse(getSubModes(result.get(1)).contains(MendelVCFHeaderExtender.AR_COMP_HET));
+		Assert.assertTrue(getSubModes(result.get(2)).contains(MendelVCFHeaderExtender.AR_COMP_HET));
+		Assert.assertTrue(getSubModes(result.get(3)).contains(MendelVCFHeaderExtender.AR_COMP_HET));
+	}
+
+	@Test
+	public void testCompHetWithoutVariantFilters() throws CannotAnnotateMendelianInheritance {
+		List<VariantContext> result = new VariantContextMendelianAnnotator(pedigree, false, false)
+				.annotateRecords(records);
+
+		Assert.assertEquals(4, result.size());
+		for (VariantContext vc : result)
+			Assert.assertTrue(getSubModes(vc).contains(MendelVCFHeaderExtender.AR_COMP_HET));
+	}
+
+	/** @return the sub modes of inheritance that <code>vc</code> was annotated with */
+	private static ImmutableSet<String> getSubModes(VariantContext vc) {
+		final Object value = vc.getAttribute(MendelVCFHeaderExtender.keySub());
+		if (value == null)
+			return ImmutableSet.of();
+		ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+		for (Object mode : (Collection<?>) value)
+			builder.add(mode.toString());
+		return builder.build();
+	}
+
+	/**
+	 * @return record on chromosome 1 that is heterozygous in the child and the given parents and hom. ref. in the
+	 *         other parents
+	 */
+	private static VariantContext buildRecord(int pos, boolean hetFather, boolean hetMother) {
+		return new VariantContextBuilder().chr("1").start(pos).stop(pos).alleles(ImmutableList.of(REF, ALT))
+				.genotypes(new GenotypeBuilder("father", ImmutableList.of(REF, hetFather ? ALT : REF)).make(),
+						new GenotypeBuilder("mother", ImmutableList.of(REF, hetMother ? ALT : REF)).make(),
+						new GenotypeBuilder("child", ImmutableList.of(REF, ALT)).make())
+				.make();
+	}
+
+}
@@ -0,0 +1,229 @@
+package de.charite.compbio.jannovar.mendel.filter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.pedigree.Disease;
+import de.charite.compbio.jannovar.pedigree.PedFileContents;
+import de.charite.compbio.jannovar.pedigree.PedParseException;
+import de.charite.compbio.jannovar.pedigree.PedPerson;
+import de.charite.compbio.jannovar.pedigree.Pedigree;
+import de.charite.compbio.jannovar.pedigree.Sex;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+
+/**
+ * Tests for the gene bookkeeping of {@link GeneWiseMendelianAnnotationProcessor}
+ *
+ * The genes overlap and are nested in each other, and some records arrive past the ends of several genes at once. The
+ * genes that are flushed on each record are compared with the rule of the previous implementation that scanned all
+ * active genes: a gene is done when it is on another contig than the record or ends left of it. Each gene must be
+ * flushed exactly once, and the records must be written in input order as soon as all their genes are done.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class GeneWiseMendelianAnnotationProcessorTest {
+
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	/** Gene regions, zero-based and half-open, by gene name */
+	static final Map<String, GenomeInterval> GENES = new HashMap<>();
+
+	static {
+		// A is made from two transcripts, B is nested in A, C overlaps with A, D is nested in A and C
+		GENES.put("A", new GenomeInterval(refDict, Strand.FWD, 1, 1000, 5000));
+		GENES.put("B", new GenomeInterval(refDict, Strand.FWD, 1, 2000, 3000));
+		GENES.put("C", new GenomeInterval(refDict, Strand.FWD, 1, 4000, 8000));
+		GENES.put("D", new GenomeInterval(refDict, Strand.FWD, 1, 4500, 4600));
+		GENES.put("E", new GenomeInterval(refDict, Strand.FWD, 1, 9000, 9500));
+		GENES.put("F", new GenomeInterval(refDict, Strand.FWD, 2, 1000, 2000));
+	}
+
+	/** Singleton pedigree */
+	Pedigree pedigree;
+	/** Jannovar DB with the genes from {@link #GENES} */
+	JannovarData jannovarData;
+	/** Records to put into the processor, sorted by coordinate */
+	List<VariantContext> records;
+
+	@Before
+	public void setUp() throws PedParseException {
+		pedigree = new Pedigree(new PedFileContents(ImmutableList.of(), ImmutableList
+				.of(new PedPerson("ped", "Seth", "0", "0", Sex.MALE, Disease.AFFECTED))), "ped");
+
+		ImmutableList.Builder<TranscriptModel> tms = ImmutableList.builder();
+		for (Map.Entry<String, GenomeInterval> e : GENES.entrySet()) {
+			final GenomeInterval region = e.getValue();
+			if (e.getKey().equals("A")) {
+				tms.add(buildTranscript("A", "tx_A1", region.getChr(), region.getBeginPos(), 3000));
+				tms.add(buildTranscript("A", "tx_A2", region.getChr(), 2500, region.getEndPos()));
+			} else {
+				tms.add(buildTranscript(e.getKey(), "tx_" + e.getKey(), region.getChr(), region.getBeginPos(),
+						region.getEndPos()));
+			}
+		}
+		jannovarData = new JannovarData(refDict, tms.build());
+
+		records = ImmutableList.of(buildRecord("1", 500), // no gene
+				buildRecord("1", 1500), // A
+				buildRecord("1", 2500), // A, B
+				buildRecord("1", 2501), // A, B
+				buildRecord("1", 4550), // A, C, D, past the end of B
+				buildRecord("1", 4800), // A, C, past the end of D
+				buildRecord("1", 7000), // C, past the end of A
+				buildRecord("1", 9200), // E, past the end of C
+				buildRecord("1", 9600), // no gene, past the end of E
+				buildRecord("2", 1500), // F
+				buildRecord("2", 1600), // F
+				buildRecord("3", 100)); // no gene, on other contig than F
+	}
+
+	@Test
+	public void testFlushGenesOnce() {
+		final ArrayList<VariantContext> result = new ArrayList<>();
+		final GeneWiseMendelianAnnotationProcessor proc = new GeneWiseMendelianAnnotationProcessor(pedigree,
+				jannovarData, vc -> result.add(vc), false);
+
+		final Set<String> expectedActive = new HashSet<>();
+		final Set<String> flushed = new HashSet<>();
+		final ArrayList<Set<String>> genesOfRecords = new ArrayList<>();
+		for (VariantContext vc : records) {
+			final int contigID = refDict.getContigNameToID().get(vc.getContig());
+			final int beginPos = vc.getStart() - 1;
+			final int endPos = vc.getEnd();
+
+			// Genes flushed by the previous implementation
+			final Set<String> expectedFlushed = new TreeSet<>();
+			for (String name : expectedActive) {
+				final GenomeInterval region = GENES.get(name);
+				if (region.getChr() != contigID || region.getEndPos() <= beginPos)
+					expectedFlushed.add(name);
+			}
+			expectedActive.removeAll(expectedFlushed);
+			final Set<String> genesOfRecord = new HashSet<>();
+			for (Map.Entry<String, GenomeInterval> e : GENES.entrySet())
+				if (e.getValue().getChr() == contigID && e.getValue().getBeginPos() < endPos
+						&& beginPos < e.getValue().getEndPos())
+					genesOfRecord.add(e.getKey());
+			expectedActive.addAll(genesOfRecord);
+			genesOfRecords.add(genesOfRecord);
+
+			final Set<String> before = getActiveGeneNames(proc);
+			proc.put(vc);
+			final Set<String> after = getActiveGeneNames(proc);
+
+			final Set<String> actualFlushed = new TreeSet<>(before);
+			actualFlushed.removeAll(after);
+			Assert.assertEquals(vc.toStringWithoutGenotypes(), expectedFlushed, actualFlushed);
+			Assert.assertEquals(vc.toStringWithoutGenotypes(), expectedActive, after);
+			for (String name : actualFlushed)
+				Assert.assertTrue("Gene flushed twice: " + name, flushed.add(name));
+
+			// The records are written as soon as all their genes and the genes of all records before are done
+			int numDone = 0;
+			while (numDone < genesOfRecords.size() && !containsAny(expectedActive, genesOfRecords.get(numDone)))
+				++numDone;
+			Assert.assertEquals(vc.toStringWithoutGenotypes(), numDone, result.size());
+		}
+
+		proc.close();
+		flushed.addAll(expectedActive);
+		Assert.assertEquals(GENES.keySet(), flushed);
+		assertSameRecords(records, result);
+	}
+
+	@Test
+	public void testFlushGenesOnceParallel() {
+		final ArrayList<VariantContext> expected = new ArrayList<>();
+		try (GeneWiseMendelianAnnotationProcessor proc = new GeneWiseMendelianAnnotationProcessor(pedigree,
+				jannovarData, vc -> expected.add(vc), false)) {
+			for (VariantContext vc : records)
+				proc.put(vc);
+		}
+
+		for (int batchSize : new int[] { 1, 2, 100 }) {
+			final ArrayList<VariantContext> result = new ArrayList<>();
+			try (GeneWiseMendelianAnnotationProcessor proc = new GeneWiseMendelianAnnotationProcessor(pedigree,
+					jannovarData, vc -> result.add(vc), false, 3, batchSize)) {
+				for (VariantContext vc : records)
+					proc.put(vc);
+			}
+
+			Assert.assertEquals(expected.size(), result.size());
+			for (int i = 0; i < expected.size(); ++i) {
+				Assert.assertEquals(expected.get(i).getContig(), result.get(i).getContig());
+				Assert.assertEquals(expected.get(i).getStart(), result.get(i).getStart());
+				Assert.assertEquals(expected.get(i).getAttributes(), result.get(i).getAttributes());
+			}
+		}
+	}
+
+	private static void assertSameRecords(List<VariantContext> expected, List<VariantContext> actual) {
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); ++i) {
+			Assert.assertEquals(expected.get(i).getContig(), actual.get(i).getContig());
+			Assert.assertEquals(expected.get(i).getStart(), actual.get(i).getStart());
+		}
+	}
+
+	private static Set<String> getActiveGeneNames(GeneWiseMendelianAnnotationProcessor proc) {
+		final Set<String> result = new TreeSet<>();
+		for (Gene gene : proc.activeGenes.keySet())
+			result.add(gene.getName());
+		Assert.assertEquals(ImmutableSet.copyOf(proc.activeGenes.keySet()), ImmutableSet.copyOf(proc.activeGeneEnds));
+		return result;
+	}
+
+	private static boolean containsAny(Set<String> set, Set<String> values) {
+		for (String value : values)
+			if (set.contains(value))
+				return true;
+		return false;
+	}
+
+	private static TranscriptModel buildTranscript(String geneSymbol, String accession, int chr, int beginPos,
+			int endPos) {
+		final GenomeInterval region = new GenomeInterval(refDict, Strand.FWD, chr, beginPos, endPos);
+		TranscriptModelBuilder builder = new TranscriptModelBuilder();
+		builder.setAccession(accession);
+		builder.setGeneSymbol(geneSymbol);
+		builder.setStrand(Strand.FWD);
+		builder.setTXRegion(region);
+		builder.setCDSRegion(region);
+		builder.addExonRegion(region);
+		StringBuilder seq = new StringBuilder();
+		for (int i = beginPos; i < endPos; ++i)
+			seq.append('A');
+		builder.setSequence(seq.toString());
+		return builder.build();
+	}
+
+	private static VariantContext buildRecord(String contig, int pos) {
+		final Allele ref = Allele.create("A", true);
+		final Allele alt = Allele.create("C");
+		return new VariantContextBuilder().chr(contig).start(pos).stop(pos).alleles(ImmutableList.of(ref, alt))
+				.genotypes(new GenotypeBuilder("Seth", ImmutableList.of(ref, alt)).make()).make();
+	}
+
+}
@@ -1,17 +1,23 @@
 package de.charite.compbio.jannovar.vardbs.base;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 
-import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
 import htsjdk.variant.vcf.VCFFileReader;
 
 /**
  * Abstract base class for annotation based on VCF files.
  * 
+ * Subclasses that pass a {@link FrequencyStoreConverter} to the constructor can also use a compiled
+ * {@link FrequencyStore} instead of the VCF file.
+ * 
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
 public abstract class AbstractDBAnnotationDriver<RecordType> implements DBAnnotationDriver {
@@ -24,8 +30,14 @@ public abstract class AbstractDBAnnotationDriver<RecordType> implements DBAnnota
 	protected final VariantContextToRecordConverter<RecordType> vcToRecord;
 	/** Configuration */
 	protected final DBAnnotationOptions options;
-	/** VCFReader to use for loading the VCF records */
+	/** VCFReader to use for loading the VCF records, <code>null</code> when using {@link #store} */
 	protected final VCFFileReader vcfReader;
+	/** Query helper streaming through {@link #vcfReader} for coordinate-sorted input */
+	protected final StreamingVCFQuery dbQuery;
+	/** Compiled allele frequency store to use instead of the VCF file, <code>null</code> if not used */
+	protected final FrequencyStore store;
+	/** Converter for the records from {@link #store} */
+	protected final FrequencyStoreConverter<RecordType> storeConverter;
 
 	/**
 	 * Create annotation driver for a coordinate-sorted, bgzip-compressed, VCF file
@@ -43,43 +55,122 @@ public abstract class AbstractDBAnnotationDriver<RecordType> implements DBAnnota
 	 */
 	public AbstractDBAnnotationDriver(String vcfPath, String fastaPath, DBAnnotationOptions options,
 			VariantContextToRecordConverter<RecordType> vcToRecord) throws JannovarVarDBException {
+		this(vcfPath, fastaPath, options, vcToRecord, null);
+	}
+
+	/**
+	 * Create annotation driver for a coordinate-sorted, bgzip-compressed, VCF file or a compiled
+	 * {@link FrequencyStore}
+	 * 
+	 * @param fastaPath
+	 *            FAI-indexed FASTA file with reference
+	 * @param vcfPath
+	 *            Path to VCF file or {@link FrequencyStore} file
+	 * @param options
+	 *            configuration
+	 * @param vcToRecord
+	 *            converter from {@link VariantContext} to record type
+	 * @param storeConverter
+	 *            converter from {@link FrequencyStoreRecord} to record type, <code>null</code> if compiled stores are
+	 *            not supported
+	 * @throws JannovarVarDBException
+	 *             on problems loading the reference FASTA/FAI file, incompatible database version or type
+	 */
+	public AbstractDBAnnotationDriver(String vcfPath, String fastaPath, DBAnnotationOptions options,
+			VariantContextToRecordConverter<RecordType> vcToRecord, FrequencyStoreConverter<RecordType> storeConverter)
+			throws JannovarVarDBException {
 		this.vcfPath = vcfPath;
-		this.matcher = new AlleleMatcher(fastaPath);
+		this.matcher = new AlleleMatcher(fastaPath, options);
 		this.vcToRecord = vcToRecord;
-		this.vcfReader = new VCFFileReader(new File(this.vcfPath), true);
+		this.storeConverter = storeConverter;
+		if (FrequencyStore.isFrequencyStore(vcfPath)) {
+			if (storeConverter == null)
+				throw new JannovarVarDBException(
+						"Compiled allele frequency stores are not supported for " + getClass().getSimpleName());
+			this.store = new FrequencyStore(vcfPath);
+			if (!store.getDBType().equals(storeConverter.getDBType()))
+				throw new JannovarVarDBException("Allele frequency store " + vcfPath + " has type "
+						+ store.getDBType() + " but expected " + storeConverter.getDBType());
+			this.vcfReader = null;
+			this.dbQuery = null;
+		} else {
+			this.store = null;
+			this.vcfReader = new VCFFileReader(new File(this.vcfPath), true);
+			this.dbQuery = new StreamingVCFQuery(this.vcfPath, this.vcfReader,
+					StreamingVCFQuery.DEFAULT_MAX_STREAM_GAP);
+		}
 		this.options = options;
 	}
 
 	@Override
 	public VariantContext annotateVariantContext(VariantContext obsVC) {
-		try (CloseableIterator<VariantContext> iter = vcfReader.query(obsVC.getContig(), obsVC.getStart(),
-				obsVC.getEnd())) {
-			// Fetch all overlapping and matching genotypes from database and pair them with the correct allele from vc.
-			List<GenotypeMatch> genotypeMatches = new ArrayList<>();
-			List<GenotypeMatch> positionOverlaps = new ArrayList<>();
-			while (iter.hasNext()) {
-				final VariantContext dbVC = iter.next();
-				if (!options.isReportOverlappingAsMatching()) // unnecessary in this case
-					genotypeMatches.addAll(matcher.matchGenotypes(obsVC, dbVC));
-				if (options.isReportOverlapping() || options.isReportOverlappingAsMatching())
-					positionOverlaps.addAll(matcher.positionOverlaps(obsVC, dbVC));
-			}
+		// Fetch all overlapping and matching genotypes from database and pair them with the correct allele from vc.
+		List<GenotypeMatch> genotypeMatches = new ArrayList<>();
+		List<GenotypeMatch> positionOverlaps = new ArrayList<>();
+		IdentityHashMap<VariantContext, RecordType> storeRecords = new IdentityHashMap<>();
+		for (VariantContext dbVC : queryDB(obsVC, storeRecords)) {
+			if (!options.isReportOverlappingAsMatching()) // unnecessary in this case
+				genotypeMatches.addAll(matcher.matchGenotypes(obsVC, dbVC));
+			if (options.isReportOverlapping() || options.isReportOverlappingAsMatching())
+				positionOverlaps.addAll(matcher.positionOverlaps(obsVC, dbVC));
+		}
+
+		// Pick best record for each alternative allele
+		HashMap<Integer, AnnotatingRecord<RecordType>> dbRecordsMatch = buildAnnotatingDBRecordsWrapper(
+				genotypeMatches, storeRecords, true);
+		HashMap<Integer, AnnotatingRecord<RecordType>> dbRecordsOverlap = buildAnnotatingDBRecordsWrapper(
+				positionOverlaps, storeRecords, false);
+		HashMap<Integer, AnnotatingRecord<RecordType>> emptyMap = new HashMap<>();
 
-			// Pick best record for each alternative allele
-			HashMap<Integer, AnnotatingRecord<RecordType>> dbRecordsMatch = buildAnnotatingDBRecordsWrapper(
-					genotypeMatches, true);
-			HashMap<Integer, AnnotatingRecord<RecordType>> dbRecordsOverlap = buildAnnotatingDBRecordsWrapper(
-					positionOverlaps, false);
-			HashMap<Integer, AnnotatingRecord<RecordType>> emptyMap = new HashMap<>();
-
-			// Use these records to annotate the variant call in obsVC (record-wise but also per alternative allele)
-			if (options.isReportOverlappingAsMatching())
-				return annotateWithDBRecords(obsVC, dbRecordsOverlap, emptyMap);
-			else if (options.isReportOverlapping())
-				return annotateWithDBRecords(obsVC, dbRecordsMatch, dbRecordsOverlap);
-			else
-				return annotateWithDBRecords(obsVC, dbRecordsMatch, emptyMap);
+		// Use these records to annotate the variant call in obsVC (record-wise but also per alternative allele)
+		if (options.isReportOverlappingAsMatching())
+			return annotateWithDBRecords(obsVC, dbRecordsOverlap, emptyMap);
+		else if (options.isReportOverlapping())
+			return annotateWithDBRecords(obsVC, dbRecordsMatch, dbRecordsOverlap);
+		else
+			return annotateWithDBRecords(obsVC, dbRecordsMatch, emptyMap);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (store != null)
+			store.close();
+		if (dbQuery != null)
+			dbQuery.close();
+		if (vcfReader != null)
+			vcfReader.close();
+		matcher.close();
+	}
+
+	/**
+	 * Query database for records overlapping with <code>obsVC</code>
+	 * 
+	 * When using the {@link #store}, the records are converted directly and a {@link VariantContext} with the alleles
+	 * only is returned for each record, for matching the alleles.
+	 * 
+	 * @param obsVC
+	 *            the observed {@link VariantContext}
+	 * @param storeRecords
+	 *            map to put the converted records from the {@link #store} into
+	 * @return overlapping database records
+	 */
+	private List<VariantContext> queryDB(VariantContext obsVC,
+			IdentityHashMap<VariantContext, RecordType> storeRecords) {
+		if (store == null)
+			return dbQuery.query(obsVC.getContig(), obsVC.getStart(), obsVC.getEnd());
+
+		List<VariantContext> result = new ArrayList<>();
+		for (FrequencyStoreRecord record : store.query(obsVC.getContig(), obsVC.getStart(), obsVC.getEnd())) {
+			List<Allele> alleles = new ArrayList<>();
+			alleles.add(Allele.create(record.getRef(), true));
+			for (String alt : record.getAlt())
+				alleles.add(Allele.create(alt, false));
+			VariantContext dbVC = new VariantContextBuilder().chr(record.getContig()).start(record.getPos() + 1)
+					.stop(record.getPos() + record.getRef().length()).alleles(alleles).make();
+			storeRecords.put(dbVC, storeConverter.fromStoreRecord(record));
+			result.add(dbVC);
 		}
+		return result;
 	}
 
 	/**
@@ -90,13 +181,16 @@ public abstract class AbstractDBAnnotationDriver<RecordType> implements DBAnnota
 	 * 
 	 * @param genotypeMatches
 	 *            List of {@link GenotypeMatch} objects to build the annotating database records from
+	 * @param storeRecords
+	 *            records converted from the {@link #store}, by their {@link VariantContext}
 	 * @param isMatch
 	 *            whether or not to consider true matching alleles (<code>true</code>) or only position-based overlaps
 	 *            (<code>false</code>)
 	 * @return Resulting map from alternative observed allele ID (starting with 1) to the database record to use
 	 */
 	private HashMap<Integer, AnnotatingRecord<RecordType>> buildAnnotatingDBRecordsWrapper(
-			List<GenotypeMatch> genotypeMatches, boolean isMatch) {
+			List<GenotypeMatch> genotypeMatches, IdentityHashMap<VariantContext, RecordType> storeRecords,
+			boolean isMatch) {
 		// Collect annotating variants for each allele
 		HashMap<Integer, ArrayList<GenotypeMatch>> annotatingRecords = new HashMap<>();
 		HashMap<GenotypeMatch, AnnotatingRecord<RecordType>> matchToRecord = new HashMap<>();
@@ -104,9 +198,12 @@ public abstract class AbstractDBAnnotationDriver<RecordType> implements DBAnnota
 			final int alleleNo = match.getObservedAllele();
 			annotatingRecords.putIfAbsent(alleleNo, new ArrayList<GenotypeMatch>());
 			annotatingRecords.get(alleleNo).add(match);
-			if (!matchToRecord.containsKey(match))
-				matchToRecord.put(match,
-						new AnnotatingRecord<RecordType>(vcToRecord.convert(match.getDBVC()), match.getDbAllele()));
+			if (!matchToRecord.containsKey(match)) {
+				RecordType record = storeRecords.get(match.getDBVC());
+				if (record == null)
+					record = vcToRecord.convert(match.getDBVC());
+				matchToRecord.put(match, new AnnotatingRecord<RecordType>(record, match.getDbAllele()));
+			}
 		}
 
 		return pickAnnotatingDBRecords(annotatingRecords, matchToRecord, isMatch);
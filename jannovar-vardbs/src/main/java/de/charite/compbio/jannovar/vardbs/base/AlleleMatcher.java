@@ -1,5 +1,7 @@
 package de.charite.compbio.jannovar.vardbs.base;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -11,15 +13,21 @@ import htsjdk.variant.variantcontext.VariantContext;
  * 
  * This class is an implementation detail and not part of the public interface.
  * 
+ * A matcher that created its own {@link NormalizationCache} closes it on {@link #close}, a cache passed in by the
+ * caller is left open.
+ * 
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
-public final class AlleleMatcher {
+public final class AlleleMatcher implements Closeable {
+
+	/** Memoized indel normalization */
+	private final NormalizationCache normalizationCache;
 
-	/** Helper to use for indel normalization */
-	private final VariantNormalizer normalizer;
+	/** Whether {@link #normalizationCache} was created by and is closed with this matcher */
+	private final boolean ownsNormalizationCache;
 
 	/**
-	 * Construct GenotypeMatcher
+	 * Construct GenotypeMatcher, using its own {@link NormalizationCache} with the default sizes
 	 * 
 	 * @param pathFasta
 	 *            Path to FAI-indexed FASTA file
@@ -27,7 +35,47 @@ public final class AlleleMatcher {
 	 *             On problems with loading the FASTA/FAI file
 	 */
 	public AlleleMatcher(String pathFasta) throws JannovarVarDBException {
-		this.normalizer = new VariantNormalizer(pathFasta);
+		this(NormalizationCache.create(pathFasta, DBAnnotationOptions.createDefaults()), true);
+	}
+
+	/**
+	 * Construct GenotypeMatcher, using the {@link NormalizationCache} from <code>options</code>
+	 * 
+	 * If <code>options</code> has no {@link NormalizationCache}, the matcher uses its own one with the sizes from
+	 * <code>options</code>.
+	 * 
+	 * @param pathFasta
+	 *            Path to FAI-indexed FASTA file
+	 * @param options
+	 *            {@link DBAnnotationOptions} with the cache or the cache sizes
+	 * @throws JannovarVarDBException
+	 *             On problems with loading the FASTA/FAI file
+	 */
+	public AlleleMatcher(String pathFasta, DBAnnotationOptions options) throws JannovarVarDBException {
+		this(options.getNormalizationCache() != null ? options.getNormalizationCache()
+				: NormalizationCache.create(pathFasta, options), options.getNormalizationCache() == null);
+	}
+
+	/**
+	 * Construct GenotypeMatcher
+	 * 
+	 * @param normalizationCache
+	 *            {@link NormalizationCache} to use for indel normalization
+	 */
+	public AlleleMatcher(NormalizationCache normalizationCache) {
+		this(normalizationCache, false);
+	}
+
+	private AlleleMatcher(NormalizationCache normalizationCache, boolean ownsNormalizationCache) {
+		this.normalizationCache = normalizationCache;
+		this.ownsNormalizationCache = ownsNormalizationCache;
+	}
+
+	/** Close the {@link NormalizationCache} if it was created by this matcher */
+	@Override
+	public void close() throws IOException {
+		if (ownsNormalizationCache)
+			normalizationCache.close();
 	}
 
 	/**
@@ -111,10 +159,7 @@ public final class AlleleMatcher {
 		for (int i = 1; i < vc.getNAlleles(); ++i) {
 			VariantDescription vd = new VariantDescription(vc.getContig(), vc.getStart() - 1,
 					vc.getAlleles().get(0).getBaseString(), vc.getAlleles().get(i).getBaseString());
-			VariantDescription nd = normalizer.normalizeVariant(vd);
-			if (nd.getRef().isEmpty()) // is insertion
-				nd = normalizer.normalizeInsertion(vd);
-			vars.add(nd);
+			vars.add(normalizationCache.normalize(vd));
 		}
 		return vars;
 	}
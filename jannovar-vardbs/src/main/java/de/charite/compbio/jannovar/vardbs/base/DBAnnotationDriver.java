@@ -1,13 +1,18 @@
 package de.charite.compbio.jannovar.vardbs.base;
 
+import java.io.Closeable;
+import java.io.IOException;
+
 import htsjdk.variant.variantcontext.VariantContext;
 
 /**
  * Interface for annotation drivers by variant databases.
  * 
+ * Drivers hold open handles to the database files, thus they have to be closed after use.
+ * 
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
-public interface DBAnnotationDriver {
+public interface DBAnnotationDriver extends Closeable {
 
 	/**
 	 * @return The {@link VCFHeaderExtender} to use.
@@ -26,4 +31,13 @@ public interface DBAnnotationDriver {
 	 */
 	public VariantContext annotateVariantContext(VariantContext vc);
 
+	/**
+	 * Close the database files used by the driver
+	 *
+	 * @throws IOException
+	 *             on problems closing the files
+	 */
+	@Override
+	void close() throws IOException;
+
 }
@@ -30,6 +30,14 @@ public class DBAnnotationOptions {
 	private String identifierPrefix;
 	/** Behaviour on multiple matching annotations */
 	private MultipleMatchBehaviour multiMatchBehaviour;
+	/** {@link NormalizationCache} shared by the drivers of one run, <code>null</code> for one per driver */
+	private NormalizationCache normalizationCache = null;
+	/** Number of bases per chunk of the {@link ReferenceWindowCache} */
+	private int refCacheChunkSize = ReferenceWindowCache.DEFAULT_CHUNK_SIZE;
+	/** Maximal number of chunks kept by the {@link ReferenceWindowCache} */
+	private int refCacheMaxChunks = ReferenceWindowCache.DEFAULT_MAX_CHUNKS;
+	/** Maximal number of alleles memoized by the {@link NormalizationCache} */
+	private int normalizationCacheMaxEntries = NormalizationCache.DEFAULT_MAX_ENTRIES;
 
 	public DBAnnotationOptions(boolean reportOverlapping, boolean reportOverlappingAsIdentical, String identifierPrefix,
 			MultipleMatchBehaviour multiMatchBehaviour) {
@@ -78,11 +86,52 @@ public class DBAnnotationOptions {
 		return identifierPrefix;
 	}
 
+	/** @return the {@link NormalizationCache} shared by the drivers, not closed by them, or <code>null</code> */
+	public NormalizationCache getNormalizationCache() {
+		return normalizationCache;
+	}
+
+	/**
+	 * Set {@link NormalizationCache} to share between drivers, the caller has to close it after the drivers
+	 *
+	 * @param normalizationCache
+	 *            the cache to use, the sizes in these options are ignored then, or <code>null</code> for each driver
+	 *            using its own cache
+	 */
+	public void setNormalizationCache(NormalizationCache normalizationCache) {
+		this.normalizationCache = normalizationCache;
+	}
+
+	public int getRefCacheChunkSize() {
+		return refCacheChunkSize;
+	}
+
+	public void setRefCacheChunkSize(int refCacheChunkSize) {
+		this.refCacheChunkSize = refCacheChunkSize;
+	}
+
+	public int getRefCacheMaxChunks() {
+		return refCacheMaxChunks;
+	}
+
+	public void setRefCacheMaxChunks(int refCacheMaxChunks) {
+		this.refCacheMaxChunks = refCacheMaxChunks;
+	}
+
+	public int getNormalizationCacheMaxEntries() {
+		return normalizationCacheMaxEntries;
+	}
+
+	public void setNormalizationCacheMaxEntries(int normalizationCacheMaxEntries) {
+		this.normalizationCacheMaxEntries = normalizationCacheMaxEntries;
+	}
+
 	@Override
 	public String toString() {
 		return "DBAnnotationOptions [reportOverlapping=" + reportOverlapping + ", reportOverlappingAsMatching="
 				+ reportOverlappingAsMatching + ", identifierPrefix=" + identifierPrefix + ", multiMatchBehaviour="
-				+ multiMatchBehaviour + "]";
+				+ multiMatchBehaviour + ", refCacheChunkSize=" + refCacheChunkSize + ", refCacheMaxChunks="
+				+ refCacheMaxChunks + ", normalizationCacheMaxEntries=" + normalizationCacheMaxEntries + "]";
 	}
 
 }
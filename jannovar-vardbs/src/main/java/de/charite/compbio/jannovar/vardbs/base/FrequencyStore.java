@@ -0,0 +1,277 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Read-only access to a binary allele frequency store, as written by {@link FrequencyStoreWriter}
+ *
+ * The index of each contig and the records are memory-mapped. Overlap queries binary search over the record positions
+ * of the contig and only decode the records in the result. Objects of this class are thread-safe.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class FrequencyStore implements Closeable {
+
+	/** Size of the memory-mapped segments of the file, consecutive segments overlap by the largest record length */
+	private static final long SEGMENT_SIZE = 1L << 30;
+
+	/** Path to the file */
+	private final String path;
+
+	/** Channel of the file */
+	private final FileChannel channel;
+
+	/** Name of the database type */
+	private final String dbType;
+
+	/** Names of the count columns */
+	private final ImmutableList<String> columnNames;
+
+	/** Index of each contig, by contig name */
+	private final HashMap<String, ContigIndex> contigs = new HashMap<>();
+
+	/** Memory-mapped segments of the file */
+	private final MappedByteBuffer[] segments;
+
+	/**
+	 * Memory-mapped index of one contig
+	 */
+	private static final class ContigIndex {
+		/** name of the contig */
+		final String name;
+		/** number of records on the contig */
+		final int numRecords;
+		/** largest reference allele length on the contig */
+		final int maxRefLength;
+		/** positions of the records */
+		final IntBuffer positions;
+		/** file offsets of the records */
+		final LongBuffer offsets;
+
+		ContigIndex(String name, int numRecords, int maxRefLength, IntBuffer positions, LongBuffer offsets) {
+			this.name = name;
+			this.numRecords = numRecords;
+			this.maxRefLength = maxRefLength;
+			this.positions = positions;
+			this.offsets = offsets;
+		}
+	}
+
+	/**
+	 * Open store
+	 *
+	 * @param path
+	 *            path to the store file
+	 * @throws JannovarVarDBException
+	 *             on problems opening or reading the file
+	 */
+	public FrequencyStore(String path) throws JannovarVarDBException {
+		this.path = path;
+		try {
+			this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+			final long fileSize = channel.size();
+
+			final ByteBuffer header = ByteBuffer.allocate(8);
+			channel.read(header, 0);
+			header.flip();
+			if (header.getInt() != FrequencyStoreWriter.MAGIC)
+				throw new JannovarVarDBException(path + " is not an allele frequency store file");
+			final int version = header.getInt();
+			if (version != FrequencyStoreWriter.VERSION)
+				throw new JannovarVarDBException("Unsupported allele frequency store version " + version);
+
+			final ByteBuffer tail = ByteBuffer.allocate(8);
+			channel.read(tail, fileSize - 8);
+			tail.flip();
+			final long footerOffset = tail.getLong();
+			final ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, footerOffset,
+					fileSize - 8 - footerOffset);
+
+			this.dbType = readString(footer);
+			final ImmutableList.Builder<String> namesBuilder = ImmutableList.builder();
+			final int numColumns = footer.getInt();
+			for (int i = 0; i < numColumns; ++i)
+				namesBuilder.add(readString(footer));
+			this.columnNames = namesBuilder.build();
+			final int maxRecordLength = footer.getInt();
+
+			final int numContigs = footer.getInt();
+			for (int i = 0; i < numContigs; ++i) {
+				final String name = readString(footer);
+				final int numRecords = footer.getInt();
+				final int maxRefLength = footer.getInt();
+				final long indexOffset = footer.getLong();
+				final IntBuffer positions = channel
+						.map(FileChannel.MapMode.READ_ONLY, indexOffset, 4L * numRecords).asIntBuffer();
+				final LongBuffer offsets = channel
+						.map(FileChannel.MapMode.READ_ONLY, indexOffset + 4L * numRecords, 8L * numRecords)
+						.asLongBuffer();
+				contigs.put(name, new ContigIndex(name, numRecords, maxRefLength, positions, offsets));
+			}
+
+			// Map records in segments that overlap by the largest record length, so each record is contained in the
+			// segment that its offset falls into
+			this.segments = new MappedByteBuffer[(int) ((footerOffset + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+			for (int i = 0; i < segments.length; ++i) {
+				final long begin = i * SEGMENT_SIZE;
+				final long end = Math.min(footerOffset, begin + SEGMENT_SIZE + maxRecordLength);
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, begin, end - begin);
+			}
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Problem reading allele frequency store " + path, e);
+		}
+	}
+
+	/**
+	 * @param path
+	 *            path to the file to check
+	 * @return whether the file at <code>path</code> is an allele frequency store, judging by the magic number
+	 */
+	public static boolean isFrequencyStore(String path) {
+		try (DataInputStream in = new DataInputStream(new FileInputStream(path))) {
+			return in.readInt() == FrequencyStoreWriter.MAGIC;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/** @return path to the file */
+	public String getPath() {
+		return path;
+	}
+
+	/** @return name of the database type */
+	public String getDBType() {
+		return dbType;
+	}
+
+	/** @return names of the count columns */
+	public ImmutableList<String> getColumnNames() {
+		return columnNames;
+	}
+
+	/**
+	 * Query for records overlapping with the given region
+	 *
+	 * @param contig
+	 *            name of the contig
+	 * @param start
+	 *            1-based start position
+	 * @param end
+	 *            1-based end position, inclusive
+	 * @return the records overlapping with <code>contig:start-end</code>, sorted by position
+	 */
+	public List<FrequencyStoreRecord> query(String contig, int start, int end) {
+		final List<FrequencyStoreRecord> result = new ArrayList<>();
+		final ContigIndex index = contigs.get(contig);
+		if (index == null)
+			return result;
+
+		// Records starting left of this cannot overlap with the query, positions are 0-based
+		final int minPos = start - index.maxRefLength;
+		for (int i = lowerBound(index, minPos); i < index.numRecords && index.positions.get(i) < end; ++i) {
+			final int pos = index.positions.get(i);
+			final FrequencyStoreRecord record = decodeRecord(index, index.offsets.get(i));
+			if (pos + Math.max(1, record.getRef().length()) >= start)
+				result.add(record);
+		}
+		return result;
+	}
+
+	/** @return index of the first record with position <code>&gt;= pos</code> */
+	private static int lowerBound(ContigIndex index, int pos) {
+		int lo = 0;
+		int hi = index.numRecords;
+		while (lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (index.positions.get(mid) < pos)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/** Decode the record at file offset <code>offset</code> */
+	private FrequencyStoreRecord decodeRecord(ContigIndex index, long offset) {
+		final ByteBuffer buf = segments[(int) (offset / SEGMENT_SIZE)].duplicate();
+		buf.position((int) (offset % SEGMENT_SIZE));
+
+		final int pos = readVarInt(buf);
+		final String id = readVarString(buf);
+		final String ref = readVarString(buf);
+		final List<String> alt = readVarStrings(buf);
+		final List<String> filter = readVarStrings(buf);
+		final List<String> popmax = readVarStrings(buf);
+		final int[][] columns = new int[columnNames.size()][];
+		for (int i = 0; i < columns.length; ++i) {
+			final int len = readVarInt(buf) - 1;
+			if (len < 0)
+				continue;
+			columns[i] = new int[len];
+			for (int j = 0; j < len; ++j) {
+				final int x = readVarInt(buf);
+				columns[i][j] = (x >>> 1) ^ -(x & 1);
+			}
+		}
+		return new FrequencyStoreRecord(index.name, pos, id, ref, alt, filter, popmax, columns);
+	}
+
+	/** Read list of strings, prefixed by their number */
+	private static List<String> readVarStrings(ByteBuffer buf) {
+		final int count = readVarInt(buf);
+		final List<String> result = new ArrayList<>(count);
+		for (int i = 0; i < count; ++i)
+			result.add(readVarString(buf));
+		return result;
+	}
+
+	/** Read UTF-8 string, prefixed by the byte count */
+	private static String readVarString(ByteBuffer buf) {
+		final byte[] bytes = new byte[readVarInt(buf)];
+		buf.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/** Read <code>int</code> with 7 bits per byte */
+	private static int readVarInt(ByteBuffer buf) {
+		int result = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buf.get();
+			result |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return result;
+	}
+
+	/** Read string with <code>int</code> length prefix */
+	private static String readString(ByteBuffer buf) {
+		final byte[] bytes = new byte[buf.getInt()];
+		buf.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
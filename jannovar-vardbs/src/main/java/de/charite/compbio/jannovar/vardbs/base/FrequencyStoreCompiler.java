@@ -0,0 +1,79 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.io.File;
+import java.io.IOException;
+
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+
+/**
+ * Compiles a coordinate-sorted database VCF file into a {@link FrequencyStore}
+ *
+ * Each VCF record is converted with the database's {@link VariantContextToRecordConverter} once, and the resulting
+ * counts are written in primitive columns using the {@link FrequencyStoreConverter}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class FrequencyStoreCompiler<RecordType> {
+
+	/** Converter from VCF records to database records */
+	private final VariantContextToRecordConverter<RecordType> vcToRecord;
+
+	/** Converter from database records to store records */
+	private final FrequencyStoreConverter<RecordType> storeConverter;
+
+	public FrequencyStoreCompiler(VariantContextToRecordConverter<RecordType> vcToRecord,
+			FrequencyStoreConverter<RecordType> storeConverter) {
+		this.vcToRecord = vcToRecord;
+		this.storeConverter = storeConverter;
+	}
+
+	/** @return name of the database type */
+	public String getDBType() {
+		return storeConverter.getDBType();
+	}
+
+	/** @return converter from VCF records to database records, for testing */
+	VariantContextToRecordConverter<RecordType> getVariantContextToRecordConverter() {
+		return vcToRecord;
+	}
+
+	/** @return converter from database records to store records, for testing */
+	FrequencyStoreConverter<RecordType> getStoreConverter() {
+		return storeConverter;
+	}
+
+	/**
+	 * Compile VCF file into store
+	 *
+	 * @param vcfPath
+	 *            path to the coordinate-sorted database VCF file, need not be indexed
+	 * @param outPath
+	 *            path to the store file to write
+	 * @return number of records written
+	 * @throws JannovarVarDBException
+	 *             on problems reading or writing the files, or if the VCF file is not sorted; the incomplete output
+	 *             file is removed in this case
+	 */
+	public long compile(String vcfPath, String outPath) throws JannovarVarDBException {
+		long count = 0;
+		boolean success = false;
+		try (VCFFileReader reader = new VCFFileReader(new File(vcfPath), false);
+				FrequencyStoreWriter writer = new FrequencyStoreWriter(outPath, storeConverter.getDBType(),
+						storeConverter.getColumnNames())) {
+			for (VariantContext vc : reader) {
+				writer.put(storeConverter.toStoreRecord(vcToRecord.convert(vc)));
+				count += 1;
+			}
+			writer.finish();
+			success = true;
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Problem writing allele frequency store " + outPath, e);
+		} finally {
+			if (!success)
+				new File(outPath).delete();
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,24 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.util.List;
+
+/**
+ * Conversion between the records of a database and {@link FrequencyStoreRecord}s
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public interface FrequencyStoreConverter<RecordType> {
+
+	/** @return name of the database type, stored in the file and checked on opening */
+	public String getDBType();
+
+	/** @return names of the count columns */
+	public List<String> getColumnNames();
+
+	/** @return {@link FrequencyStoreRecord} for writing <code>record</code> to the store */
+	public FrequencyStoreRecord toStoreRecord(RecordType record);
+
+	/** @return record constructed from the {@link FrequencyStoreRecord} read from the store */
+	public RecordType fromStoreRecord(FrequencyStoreRecord record);
+
+}
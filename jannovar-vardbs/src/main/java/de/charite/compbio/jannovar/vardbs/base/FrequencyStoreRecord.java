@@ -0,0 +1,154 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * One record in a {@link FrequencyStore}, corresponding to one line of the database VCF file
+ *
+ * Besides the VCF columns, a record has the primitive count columns of the store, e.g., the allele, hom, and hemi
+ * counts for each population. The meaning of the columns is defined by the {@link FrequencyStoreConverter} of the
+ * database.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class FrequencyStoreRecord {
+
+	/** Name of the chromosome */
+	private final String contig;
+	/** Position of the variant, 0-based */
+	private final int pos;
+	/** ID of the variant */
+	private final String id;
+	/** Reference sequence */
+	private final String ref;
+	/** Alternative alleles in cluster */
+	private final ImmutableList<String> alt;
+	/** Filters */
+	private final ImmutableList<String> filter;
+	/** Population with highest frequency for each alternative allele, empty if not given */
+	private final ImmutableList<String> popmax;
+	/** Values of the count columns, <code>null</code> entries for missing values */
+	private final int[][] columns;
+
+	public FrequencyStoreRecord(String contig, int pos, String id, String ref, List<String> alt, List<String> filter,
+			List<String> popmax, int[][] columns) {
+		this.contig = contig;
+		this.pos = pos;
+		this.id = id;
+		this.ref = ref;
+		this.alt = ImmutableList.copyOf(alt);
+		this.filter = ImmutableList.copyOf(filter);
+		this.popmax = ImmutableList.copyOf(popmax);
+		this.columns = columns;
+	}
+
+	public String getContig() {
+		return contig;
+	}
+
+	public int getPos() {
+		return pos;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getRef() {
+		return ref;
+	}
+
+	public ImmutableList<String> getAlt() {
+		return alt;
+	}
+
+	public ImmutableList<String> getFilter() {
+		return filter;
+	}
+
+	public ImmutableList<String> getPopmax() {
+		return popmax;
+	}
+
+	/** @return number of count columns */
+	public int getNumColumns() {
+		return columns.length;
+	}
+
+	/** @return values of the count column with index <code>i</code>, <code>null</code> if missing */
+	public int[] getColumn(int i) {
+		return columns[i];
+	}
+
+	@Override
+	public String toString() {
+		return "FrequencyStoreRecord [contig=" + contig + ", pos=" + pos + ", id=" + id + ", ref=" + ref + ", alt="
+				+ alt + ", filter=" + filter + ", popmax=" + popmax + ", columns=" + Arrays.deepToString(columns)
+				+ "]";
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((alt == null) ? 0 : alt.hashCode());
+		result = prime * result + Arrays.deepHashCode(columns);
+		result = prime * result + ((contig == null) ? 0 : contig.hashCode());
+		result = prime * result + ((filter == null) ? 0 : filter.hashCode());
+		result = prime * result + ((id == null) ? 0 : id.hashCode());
+		result = prime * result + ((popmax == null) ? 0 : popmax.hashCode());
+		result = prime * result + pos;
+		result = prime * result + ((ref == null) ? 0 : ref.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		FrequencyStoreRecord other = (FrequencyStoreRecord) obj;
+		if (alt == null) {
+			if (other.alt != null)
+				return false;
+		} else if (!alt.equals(other.alt))
+			return false;
+		if (!Arrays.deepEquals(columns, other.columns))
+			return false;
+		if (contig == null) {
+			if (other.contig != null)
+				return false;
+		} else if (!contig.equals(other.contig))
+			return false;
+		if (filter == null) {
+			if (other.filter != null)
+				return false;
+		} else if (!filter.equals(other.filter))
+			return false;
+		if (id == null) {
+			if (other.id != null)
+				return false;
+		} else if (!id.equals(other.id))
+			return false;
+		if (popmax == null) {
+			if (other.popmax != null)
+				return false;
+		} else if (!popmax.equals(other.popmax))
+			return false;
+		if (pos != other.pos)
+			return false;
+		if (ref == null) {
+			if (other.ref != null)
+				return false;
+		} else if (!ref.equals(other.ref))
+			return false;
+		return true;
+	}
+
+}
@@ -0,0 +1,261 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Writes {@link FrequencyStoreRecord}s to the binary allele frequency store format
+ *
+ * The file starts with the magic number and the format version. The records of each contig follow, sorted by
+ * position, each encoded with variable-length integers. After the records of a contig, its index is written: the
+ * positions of the records as <code>int</code> values and the offsets of the records in the file as <code>long</code>
+ * values, such that {@link FrequencyStore} can binary search over the memory-mapped index. The footer has the database
+ * type, the count column names, the largest record length, and the table of contigs with the offsets of their indices.
+ * The last 8 bytes of the file are the offset of the footer.
+ *
+ * The records must be written grouped by contig and sorted by position within each contig, as in a tabix-indexed VCF
+ * file.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class FrequencyStoreWriter implements Closeable {
+
+	/** Magic number at the beginning of the file, "JVFS" */
+	static final int MAGIC = 0x4A564653;
+
+	/** Version of the file format */
+	static final int VERSION = 1;
+
+	/** Output stream to the file */
+	private final DataOutputStream out;
+
+	/** Name of the database type */
+	private final String dbType;
+
+	/** Names of the count columns */
+	private final ImmutableList<String> columnNames;
+
+	/** Buffer for encoding one record */
+	private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream();
+
+	/** Current offset in the file */
+	private long offset = 0;
+
+	/** Largest record length so far */
+	private int maxRecordLength = 0;
+
+	/** Contigs written so far */
+	private final List<ContigEntry> contigs = new ArrayList<>();
+
+	/** Names of the contigs written so far */
+	private final HashSet<String> contigNames = new HashSet<>();
+
+	/** Contig that records are currently written for, <code>null</code> before the first record */
+	private ContigEntry current = null;
+
+	/** Positions of the records of {@link #current} */
+	private int[] positions = new int[1024];
+
+	/** File offsets of the records of {@link #current} */
+	private long[] offsets = new long[1024];
+
+	/**
+	 * Entry in the contig table
+	 */
+	static final class ContigEntry {
+		/** name of the contig */
+		final String name;
+		/** number of records on the contig */
+		int numRecords = 0;
+		/** largest reference allele length on the contig */
+		int maxRefLength = 0;
+		/** offset of the index of the contig in the file */
+		long indexOffset = -1;
+
+		ContigEntry(String name) {
+			this.name = name;
+		}
+	}
+
+	/**
+	 * Open file for writing
+	 *
+	 * @param path
+	 *            path to the file to write
+	 * @param dbType
+	 *            name of the database type
+	 * @param columnNames
+	 *            names of the count columns
+	 * @throws JannovarVarDBException
+	 *             on problems opening the file
+	 */
+	public FrequencyStoreWriter(String path, String dbType, List<String> columnNames) throws JannovarVarDBException {
+		this.dbType = dbType;
+		this.columnNames = ImmutableList.copyOf(columnNames);
+		try {
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1024 * 1024));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			offset = 8;
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Could not open " + path + " for writing", e);
+		}
+	}
+
+	/**
+	 * Write record
+	 *
+	 * @param record
+	 *            {@link FrequencyStoreRecord} to write
+	 * @throws JannovarVarDBException
+	 *             on problems writing the file or if the records are not sorted
+	 */
+	public void put(FrequencyStoreRecord record) throws JannovarVarDBException {
+		if (record.getNumColumns() != columnNames.size())
+			throw new JannovarVarDBException("Record has " + record.getNumColumns() + " columns but expected "
+					+ columnNames.size());
+		try {
+			if (current == null || !current.name.equals(record.getContig()))
+				startContig(record.getContig());
+			else if (current.numRecords > 0 && positions[current.numRecords - 1] > record.getPos())
+				throw new JannovarVarDBException("Records not sorted by position at " + record.getContig() + ":"
+						+ (record.getPos() + 1));
+
+			recordBuffer.reset();
+			encodeRecord(record, recordBuffer);
+
+			if (current.numRecords == positions.length) {
+				positions = Arrays.copyOf(positions, 2 * positions.length);
+				offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+			}
+			positions[current.numRecords] = record.getPos();
+			offsets[current.numRecords] = offset;
+			current.numRecords += 1;
+			current.maxRefLength = Math.max(current.maxRefLength, record.getRef().length());
+			maxRecordLength = Math.max(maxRecordLength, recordBuffer.size());
+
+			recordBuffer.writeTo(out);
+			offset += recordBuffer.size();
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Problem writing record " + record, e);
+		}
+	}
+
+	/** Finish the current contig, if any, and start writing records for <code>contig</code> */
+	private void startContig(String contig) throws IOException, JannovarVarDBException {
+		finishContig();
+		if (!contigNames.add(contig))
+			throw new JannovarVarDBException("Records not grouped by contig, seen " + contig + " before");
+		current = new ContigEntry(contig);
+		contigs.add(current);
+	}
+
+	/** Write index of the current contig */
+	private void finishContig() throws IOException {
+		if (current == null)
+			return;
+		current.indexOffset = offset;
+		for (int i = 0; i < current.numRecords; ++i)
+			out.writeInt(positions[i]);
+		for (int i = 0; i < current.numRecords; ++i)
+			out.writeLong(offsets[i]);
+		offset += 12L * current.numRecords;
+	}
+
+	/**
+	 * Write the index of the last contig and the footer
+	 *
+	 * Must be called after the last record has been written, a file closed without calling this is incomplete.
+	 *
+	 * @throws IOException
+	 *             on problems writing the file
+	 */
+	public void finish() throws IOException {
+		finishContig();
+		current = null;
+
+		final long footerOffset = offset;
+		writeString(out, dbType);
+		out.writeInt(columnNames.size());
+		for (String name : columnNames)
+			writeString(out, name);
+		out.writeInt(maxRecordLength);
+		out.writeInt(contigs.size());
+		for (ContigEntry e : contigs) {
+			writeString(out, e.name);
+			out.writeInt(e.numRecords);
+			out.writeInt(e.maxRefLength);
+			out.writeLong(e.indexOffset);
+		}
+		out.writeLong(footerOffset);
+	}
+
+	/** Close file, call {@link #finish} before for a complete file */
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	/** Encode <code>record</code> into <code>out</code>, the contig is stored in the contig table */
+	private static void encodeRecord(FrequencyStoreRecord record, OutputStream out) throws IOException {
+		writeVarInt(out, record.getPos());
+		writeVarString(out, record.getId());
+		writeVarString(out, record.getRef());
+		writeVarStrings(out, record.getAlt());
+		writeVarStrings(out, record.getFilter());
+		writeVarStrings(out, record.getPopmax());
+		for (int i = 0; i < record.getNumColumns(); ++i) {
+			final int[] values = record.getColumn(i);
+			if (values == null) {
+				writeVarInt(out, 0);
+			} else {
+				writeVarInt(out, values.length + 1);
+				for (int x : values)
+					writeVarInt(out, (x << 1) ^ (x >> 31)); // zig-zag encoding for negative values
+			}
+		}
+	}
+
+	/** Write list of strings, prefixed by their number */
+	private static void writeVarStrings(OutputStream out, List<String> strings) throws IOException {
+		writeVarInt(out, strings.size());
+		for (String s : strings)
+			writeVarString(out, s);
+	}
+
+	/** Write string as UTF-8 bytes, prefixed by the byte count, <code>null</code> is written as empty string */
+	private static void writeVarString(OutputStream out, String s) throws IOException {
+		final byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+		writeVarInt(out, bytes.length);
+		out.write(bytes);
+	}
+
+	/** Write non-negative <code>int</code> with 7 bits per byte, the highest bit marks continuation */
+	private static void writeVarInt(OutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	/** Write string with <code>int</code> length prefix */
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+}
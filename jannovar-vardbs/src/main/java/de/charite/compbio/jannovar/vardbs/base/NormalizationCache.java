@@ -0,0 +1,173 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Thread-safe memo of normalized alleles, as used by {@link AlleleMatcher}
+ *
+ * Alleles are keyed by (contig, position, reference, alternative). Alleles that cannot be shifted to the left (the
+ * last bases of reference and alternative allele differ) are recognized as normalized and only have their common
+ * prefix trimmed, without looking at the reference or the memo. For all other alleles, the result of
+ * {@link VariantNormalizer} is memoized in a concurrent cache, keeping at most <code>maxEntries</code> entries with
+ * LRU eviction. Lookups do not share a lock and normalization happens outside of the cache.
+ *
+ * Create one instance per run and FASTA file using {@link #create} and pass it to all database annotation drivers
+ * through {@link DBAnnotationOptions#setNormalizationCache}, such that the observed alleles and database records that
+ * are seen for neighbouring variants are only normalized once.
+ *
+ * The cache owns its {@link VariantNormalizer}, closing the cache closes the normalizer and with it the FASTA file.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class NormalizationCache implements Closeable {
+
+	/** Default maximal number of memoized alleles */
+	public static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+	/** Normalizer to use for alleles that are not normalized yet */
+	private final VariantNormalizer normalizer;
+
+	/** Maximal number of memoized alleles */
+	private final int maxEntries;
+
+	/** Memoized normalized alleles */
+	private final Cache<VariantDescription, VariantDescription> entries;
+
+	/** Number of lookups served from the memo */
+	private final AtomicLong hits = new AtomicLong();
+
+	/** Number of lookups that required normalization with the reference */
+	private final AtomicLong misses = new AtomicLong();
+
+	/** Number of lookups of alleles that were already normalized */
+	private final AtomicLong skipped = new AtomicLong();
+
+	/**
+	 * Construct cache
+	 *
+	 * @param normalizer
+	 *            {@link VariantNormalizer} to use on cache misses
+	 * @param maxEntries
+	 *            maximal number of memoized alleles
+	 */
+	public NormalizationCache(VariantNormalizer normalizer, int maxEntries) {
+		if (maxEntries < 1)
+			throw new IllegalArgumentException("Maximal number of entries must be positive");
+		this.normalizer = normalizer;
+		this.maxEntries = maxEntries;
+		this.entries = CacheBuilder.newBuilder().maximumSize(maxEntries).build();
+	}
+
+	/**
+	 * Construct cache with the sizes from <code>options</code> for the given FASTA file
+	 *
+	 * @param fastaPath
+	 *            path to FAI-indexed FASTA file
+	 * @param options
+	 *            {@link DBAnnotationOptions} with the sizes of this cache and the {@link ReferenceWindowCache}
+	 * @return the new cache, to be closed by the caller
+	 * @throws JannovarVarDBException
+	 *             on problems opening the FASTA/FAI file
+	 */
+	public static NormalizationCache create(String fastaPath, DBAnnotationOptions options)
+			throws JannovarVarDBException {
+		final ReferenceWindowCache refCache = new ReferenceWindowCache(fastaPath, options.getRefCacheChunkSize(),
+				options.getRefCacheMaxChunks());
+		return new NormalizationCache(new VariantNormalizer(refCache), options.getNormalizationCacheMaxEntries());
+	}
+
+	/**
+	 * Normalize allele
+	 *
+	 * The allele is shifted left and common bases are trimmed. Insertions keep their leftmost base such that they have
+	 * a reference base.
+	 *
+	 * @param desc
+	 *            {@link VariantDescription} with 0-based position to normalize
+	 * @return the normalized {@link VariantDescription}
+	 */
+	public VariantDescription normalize(VariantDescription desc) {
+		if (isLeftShifted(desc)) {
+			skipped.incrementAndGet();
+			return trim(desc);
+		}
+
+		VariantDescription result = entries.getIfPresent(desc);
+		if (result != null) {
+			hits.incrementAndGet();
+			return result;
+		}
+
+		misses.incrementAndGet();
+		result = normalizer.normalizeVariant(desc);
+		if (result.getRef().isEmpty()) // is insertion
+			result = normalizer.normalizeInsertion(desc);
+		entries.put(desc, result);
+		return result;
+	}
+
+	/**
+	 * @return whether <code>desc</code> cannot be shifted further to the left, i.e., both alleles are non-empty and
+	 *         their last bases differ
+	 */
+	private static boolean isLeftShifted(VariantDescription desc) {
+		final String ref = desc.getRef();
+		final String alt = desc.getAlt();
+		return ref.length() > 0 && alt.length() > 0 && ref.charAt(ref.length() - 1) != alt.charAt(alt.length() - 1);
+	}
+
+	/**
+	 * @return <code>desc</code> with common leading bases trimmed, keeping one base for insertions, same as
+	 *         {@link VariantNormalizer} for alleles that cannot be shifted left
+	 */
+	private static VariantDescription trim(VariantDescription desc) {
+		final String ref = desc.getRef();
+		final String alt = desc.getAlt();
+		int prefix = 0;
+		while (prefix < ref.length() && prefix < alt.length() && ref.charAt(prefix) == alt.charAt(prefix))
+			++prefix;
+		if (prefix == ref.length()) // is insertion, keep one reference base
+			prefix -= 1;
+		if (prefix == 0)
+			return desc;
+		return new VariantDescription(desc.getChrom(), desc.getPos(), ref.substring(prefix), alt.substring(prefix));
+	}
+
+	/** @return the {@link VariantNormalizer} used on cache misses */
+	public VariantNormalizer getNormalizer() {
+		return normalizer;
+	}
+
+	/** Close the {@link VariantNormalizer} */
+	@Override
+	public void close() throws IOException {
+		normalizer.close();
+	}
+
+	/** @return number of lookups served from the memo */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/** @return number of lookups that required normalization with the reference */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/** @return number of lookups of alleles that were recognized as normalized */
+	public long getSkipped() {
+		return skipped.get();
+	}
+
+	@Override
+	public String toString() {
+		return "NormalizationCache [maxEntries=" + maxEntries + ", hits=" + getHits() + ", misses=" + getMisses()
+				+ ", skipped=" + getSkipped() + "]";
+	}
+
+}
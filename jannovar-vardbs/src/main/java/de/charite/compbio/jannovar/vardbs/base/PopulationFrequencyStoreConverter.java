@@ -0,0 +1,97 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.primitives.Ints;
+
+/**
+ * Base class for {@link FrequencyStoreConverter}s of databases with per-population counts
+ *
+ * For each population, there are columns for the allele, het, hom, and hemi counts of each alternative allele and the
+ * chromosome counts, in the order of {@link CountColumn}. Subclasses convert the remaining fields and provide access
+ * to the counts of their record and builder types.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public abstract class PopulationFrequencyStoreConverter<RecordType, PopulationType extends Enum<PopulationType>,
+		BuilderType> implements FrequencyStoreConverter<RecordType> {
+
+	/** Count columns stored for each population, in file order */
+	public enum CountColumn {
+		/** Allele counts */
+		AC,
+		/** Heterozygous counts */
+		HET,
+		/** Homozygous counts */
+		HOM,
+		/** Hemizygous counts */
+		HEMI,
+		/** Chromosome counts */
+		AN;
+	}
+
+	/** Database type name */
+	private final String dbType;
+	/** Populations, in file order */
+	private final PopulationType[] populations;
+
+	/**
+	 * Construct converter
+	 *
+	 * @param dbType
+	 *            name of the database type
+	 * @param populationClass
+	 *            enum class of the populations
+	 */
+	protected PopulationFrequencyStoreConverter(String dbType, Class<PopulationType> populationClass) {
+		this.dbType = dbType;
+		this.populations = populationClass.getEnumConstants();
+	}
+
+	@Override
+	public String getDBType() {
+		return dbType;
+	}
+
+	@Override
+	public List<String> getColumnNames() {
+		List<String> result = new ArrayList<>();
+		for (PopulationType pop : populations)
+			for (CountColumn column : CountColumn.values())
+				result.add(column + "_" + pop);
+		return result;
+	}
+
+	/** @return count columns of <code>record</code>, for the {@link FrequencyStoreRecord} */
+	protected int[][] toColumns(RecordType record) {
+		final CountColumn[] countColumns = CountColumn.values();
+		final int[][] columns = new int[countColumns.length * populations.length][];
+		int i = 0;
+		for (PopulationType pop : populations)
+			for (CountColumn column : countColumns) {
+				final List<Integer> counts = getCounts(record, pop, column);
+				columns[i++] = (counts == null) ? null : Ints.toArray(counts);
+			}
+		return columns;
+	}
+
+	/** Put the count columns of <code>record</code> into <code>builder</code> */
+	protected void putColumns(FrequencyStoreRecord record, BuilderType builder) {
+		int i = 0;
+		for (PopulationType pop : populations)
+			for (CountColumn column : CountColumn.values()) {
+				final int[] counts = record.getColumn(i++);
+				if (counts != null)
+					putCounts(builder, pop, column, Ints.asList(counts));
+			}
+	}
+
+	/** @return counts of <code>column</code> for <code>pop</code> in <code>record</code>, <code>null</code> if none */
+	protected abstract List<Integer> getCounts(RecordType record, PopulationType pop, CountColumn column);
+
+	/** Put counts of <code>column</code> for <code>pop</code> into <code>builder</code> */
+	protected abstract void putCounts(BuilderType builder, PopulationType pop, CountColumn column,
+			List<Integer> counts);
+
+}
@@ -0,0 +1,241 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import htsjdk.samtools.SAMException;
+
+/**
+ * Thread-safe cache of reference sequence windows, backed by an FAI-indexed FASTA file
+ *
+ * The contigs are split into chunks of <code>chunkSize</code> bases. On a lookup, the whole chunk is loaded from the
+ * FASTA file and at most <code>maxChunks</code> chunks are kept, evicting the least recently used ones. The chunks are
+ * immutable and kept in a concurrent cache, such that lookups of loaded chunks do not block each other. A missing
+ * chunk is loaded by only one of the threads requesting it, without blocking lookups of other chunks. The file is
+ * read with positional reads that do not share any state between threads. The numbers of cache hits and misses are
+ * counted for sizing the cache.
+ *
+ * The cache keeps the FASTA file open until {@link #close} is called. Create one instance per run and FASTA file that
+ * is shared by all users, e.g., the {@link VariantNormalizer}s of all database annotation drivers. The sizes are
+ * configured through {@link DBAnnotationOptions}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class ReferenceWindowCache implements Closeable {
+
+	/** Default number of bases per chunk */
+	public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+	/** Default maximal number of chunks to keep, corresponds to 16 MB with the default chunk size */
+	public static final int DEFAULT_MAX_CHUNKS = 4096;
+
+	/** Path to the FASTA file */
+	private final String fastaPath;
+
+	/** Entries of the FAI file, by contig name */
+	private final ImmutableMap<String, IndexEntry> index;
+
+	/** Random access to the FASTA file, only used for positional reads */
+	private final FileChannel channel;
+
+	/** Number of bases per chunk */
+	private final int chunkSize;
+
+	/** Maximal number of chunks to keep */
+	private final int maxChunks;
+
+	/** Chunks, keyed by contig ID in the upper and chunk number in the lower 32 bits */
+	private final Cache<Long, byte[]> chunks;
+
+	/**
+	 * Construct cache
+	 *
+	 * @param fastaPath
+	 *            path to FAI-indexed FASTA file
+	 * @param chunkSize
+	 *            number of bases per chunk
+	 * @param maxChunks
+	 *            maximal number of chunks to keep
+	 * @throws JannovarVarDBException
+	 *             on problems opening the FASTA/FAI file
+	 */
+	public ReferenceWindowCache(String fastaPath, int chunkSize, int maxChunks) throws JannovarVarDBException {
+		if (chunkSize < 1 || maxChunks < 1)
+			throw new IllegalArgumentException("Chunk size and count must be positive");
+		this.fastaPath = fastaPath;
+		this.chunkSize = chunkSize;
+		this.maxChunks = maxChunks;
+		this.index = readIndex(fastaPath);
+		try {
+			this.channel = FileChannel.open(Paths.get(fastaPath), StandardOpenOption.READ);
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Could not open FASTA file " + fastaPath, e);
+		}
+		this.chunks = CacheBuilder.newBuilder().maximumSize(maxChunks).recordStats().build();
+	}
+
+	/** @return the entries of the FAI file for <code>fastaPath</code>, by contig name */
+	private static ImmutableMap<String, IndexEntry> readIndex(String fastaPath) throws JannovarVarDBException {
+		ImmutableMap.Builder<String, IndexEntry> builder = ImmutableMap.builder();
+		try {
+			int contigID = 0;
+			for (String line : Files.readAllLines(Paths.get(fastaPath + ".fai"), StandardCharsets.UTF_8)) {
+				if (line.isEmpty())
+					continue;
+				final String[] fields = line.split("\t");
+				if (fields.length < 5)
+					throw new JannovarVarDBException("Invalid line in FAI file " + fastaPath + ".fai: " + line);
+				builder.put(fields[0], new IndexEntry(contigID++, Long.parseLong(fields[1]),
+						Long.parseLong(fields[2]), Integer.parseInt(fields[3]), Integer.parseInt(fields[4])));
+			}
+			return builder.build();
+		} catch (IOException | IllegalArgumentException e) {
+			throw new JannovarVarDBException("Could not read FAI file " + fastaPath + ".fai", e);
+		}
+	}
+
+	/**
+	 * Get base from the reference
+	 *
+	 * @param contig
+	 *            name of the contig
+	 * @param pos
+	 *            1-based position on the contig
+	 * @return the base at the given position, as stored in the FASTA file
+	 * @throws SAMException
+	 *             if the contig is unknown, the position is out of range, or on problems reading the FASTA file, as
+	 *             {@link htsjdk.samtools.reference.IndexedFastaSequenceFile}
+	 */
+	public char getBase(String contig, int pos) {
+		final IndexEntry entry = index.get(contig);
+		if (entry == null)
+			throw new SAMException("Unable to find entry for contig: " + contig);
+		if (pos < 1 || pos > entry.length)
+			throw new SAMException("Position " + pos + " is out of range for contig " + contig);
+
+		final int chunkNo = (pos - 1) / chunkSize;
+		final byte[] chunk = getChunk(entry, chunkNo);
+		return (char) chunk[(pos - 1) % chunkSize];
+	}
+
+	/** @return the chunk with the given number on the contig of <code>entry</code>, loading it if necessary */
+	private byte[] getChunk(final IndexEntry entry, final int chunkNo) {
+		final Long key = ((long) entry.contigID << 32) | chunkNo;
+		try {
+			return chunks.get(key, new Callable<byte[]>() {
+				@Override
+				public byte[] call() throws IOException {
+					return loadChunk(entry, chunkNo);
+				}
+			});
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			if (e.getCause() instanceof SAMException)
+				throw (SAMException) e.getCause();
+			throw new SAMException("Could not read from FASTA file " + fastaPath, e.getCause());
+		}
+	}
+
+	/** @return the bases of the chunk with the given number on the contig of <code>entry</code>, read from the file */
+	private byte[] loadChunk(IndexEntry entry, int chunkNo) throws IOException {
+		final long begin = (long) chunkNo * chunkSize; // 0-based, inclusive
+		final long end = Math.min(begin + chunkSize, entry.length); // 0-based, exclusive
+		final long beginOffset = entry.getFileOffset(begin);
+		final ByteBuffer buffer = ByteBuffer.allocate((int) (entry.getFileOffset(end - 1) + 1 - beginOffset));
+		while (buffer.hasRemaining())
+			if (channel.read(buffer, beginOffset + buffer.position()) < 0)
+				throw new IOException("Unexpected end of FASTA file " + fastaPath);
+
+		// copy bases, skipping the line breaks
+		final byte[] result = new byte[(int) (end - begin)];
+		int count = 0;
+		for (byte b : buffer.array())
+			if (b != '\n' && b != '\r')
+				result[count++] = b;
+		if (count != result.length)
+			throw new IOException("FASTA file " + fastaPath + " does not match its FAI file");
+		return result;
+	}
+
+	/** Close the FASTA file and drop all chunks, subsequent lookups of chunks that were not loaded fail */
+	@Override
+	public void close() throws IOException {
+		chunks.invalidateAll();
+		channel.close();
+	}
+
+	/** @return path to the FASTA file */
+	public String getFastaPath() {
+		return fastaPath;
+	}
+
+	/** @return number of bases per chunk */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/** @return maximal number of chunks to keep */
+	public int getMaxChunks() {
+		return maxChunks;
+	}
+
+	/** @return number of lookups served from the cache */
+	public long getHits() {
+		return chunks.stats().hitCount();
+	}
+
+	/** @return number of lookups that required loading a chunk from the FASTA file */
+	public long getMisses() {
+		return chunks.stats().missCount();
+	}
+
+	@Override
+	public String toString() {
+		return "ReferenceWindowCache [fastaPath=" + fastaPath + ", chunkSize=" + chunkSize + ", maxChunks="
+				+ maxChunks + ", hits=" + getHits() + ", misses=" + getMisses() + "]";
+	}
+
+	/** Entry of the FAI file */
+	private static final class IndexEntry {
+
+		/** Numeric ID of the contig, used in the chunk keys */
+		final int contigID;
+		/** Number of bases in the contig */
+		final long length;
+		/** Offset of the first base in the FASTA file */
+		final long offset;
+		/** Number of bases per line */
+		final int lineBases;
+		/** Number of bytes per line, including the line break */
+		final int lineWidth;
+
+		IndexEntry(int contigID, long length, long offset, int lineBases, int lineWidth) {
+			if (lineBases < 1 || lineWidth < lineBases)
+				throw new IllegalArgumentException("Invalid line lengths " + lineBases + " and " + lineWidth);
+			this.contigID = contigID;
+			this.length = length;
+			this.offset = offset;
+			this.lineBases = lineBases;
+			this.lineWidth = lineWidth;
+		}
+
+		/** @return the offset of the base with the given 0-based position in the FASTA file */
+		long getFileOffset(long pos) {
+			return offset + (pos / lineBases) * lineWidth + pos % lineBases;
+		}
+
+	}
+
+}
@@ -0,0 +1,145 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+
+/**
+ * Overlap queries to a tabix-indexed VCF file, optimized for queries sorted by coordinate
+ *
+ * For each contig, the database file is read forward in lockstep with the queries, and only a sliding window of the
+ * database records that can overlap with the current or a later query is kept. When a query starts left of the
+ * previous one (unsorted input), the query is answered using a random-access query instead. When a query is on another
+ * contig or more than <code>maxStreamGap</code> bases right of the previous one, the stream is repositioned using the
+ * index instead of reading over the gap.
+ *
+ * The result is the same as for {@link VCFFileReader#query}, in the same order. Objects of this class are not
+ * thread-safe. Closing the query closes the reader used for streaming but not the random-access reader passed to the
+ * constructor, which remains owned by the caller.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class StreamingVCFQuery implements Closeable {
+
+	/** Default value for the largest gap between queries that is read over instead of repositioning the stream */
+	public static final int DEFAULT_MAX_STREAM_GAP = 10_000;
+
+	/** Reader to use for random-access queries */
+	private final VCFFileReader randomAccessReader;
+
+	/** Separate reader for streaming since htsjdk readers do not support concurrent iterators */
+	private final VCFFileReader streamReader;
+
+	/** Largest gap between queries to read over, instead of repositioning the stream */
+	private final int maxStreamGap;
+
+	/** Database records that can overlap with the current or a later query, in file order */
+	private final ArrayList<VariantContext> window = new ArrayList<>();
+
+	/** Iterator over the database records of {@link #contig}, <code>null</code> if not streaming */
+	private CloseableIterator<VariantContext> stream = null;
+
+	/** Next record from {@link #stream} that has not been put into {@link #window} yet */
+	private VariantContext next = null;
+
+	/** Contig of the previous streamed query */
+	private String contig = null;
+
+	/** Start position of the previous streamed query */
+	private int lastStart = 0;
+
+	/**
+	 * Construct query object
+	 *
+	 * @param vcfPath
+	 *            path to tabix-indexed VCF file
+	 * @param randomAccessReader
+	 *            reader for <code>vcfPath</code> to use for random-access queries
+	 * @param maxStreamGap
+	 *            largest gap between queries to read over, instead of repositioning the stream
+	 */
+	public StreamingVCFQuery(String vcfPath, VCFFileReader randomAccessReader, int maxStreamGap) {
+		this.randomAccessReader = randomAccessReader;
+		this.streamReader = new VCFFileReader(new File(vcfPath), true);
+		this.maxStreamGap = maxStreamGap;
+	}
+
+	/**
+	 * Query for records overlapping with the given region
+	 *
+	 * @param contig
+	 *            name of the contig
+	 * @param start
+	 *            1-based start position
+	 * @param end
+	 *            1-based end position, inclusive
+	 * @return the records overlapping with <code>contig:start-end</code>, in file order
+	 */
+	public List<VariantContext> query(String contig, int start, int end) {
+		if (contig.equals(this.contig) && start < lastStart)
+			return randomAccessQuery(contig, start, end); // unsorted, keep stream position
+		if (!contig.equals(this.contig) || start - lastStart > maxStreamGap)
+			reposition(contig, start);
+		lastStart = start;
+
+		// Remove records that end left of the query, they cannot overlap with this or later queries
+		window.removeIf(vc -> vc.getEnd() < start);
+
+		// Read forward until the first record starting right of the query
+		while (next != null && next.getStart() <= end) {
+			if (next.getEnd() >= start)
+				window.add(next);
+			next = stream.hasNext() ? stream.next() : null;
+		}
+
+		final List<VariantContext> result = new ArrayList<>();
+		for (VariantContext vc : window)
+			if (vc.getStart() <= end)
+				result.add(vc);
+		return result;
+	}
+
+	/** @return result of random-access query to {@link #randomAccessReader} */
+	private List<VariantContext> randomAccessQuery(String contig, int start, int end) {
+		final List<VariantContext> result = new ArrayList<>();
+		try (CloseableIterator<VariantContext> iter = randomAccessReader.query(contig, start, end)) {
+			while (iter.hasNext())
+				result.add(iter.next());
+		}
+		return result;
+	}
+
+	/** Start streaming the records of <code>contig</code> that end at or right of <code>start</code> */
+	private void reposition(String contig, int start) {
+		closeStream();
+		window.clear();
+		this.contig = contig;
+		stream = streamReader.query(contig, start, Integer.MAX_VALUE);
+		next = stream.hasNext() ? stream.next() : null;
+	}
+
+	/** Close {@link #stream} if open */
+	private void closeStream() {
+		if (stream != null)
+			stream.close();
+		stream = null;
+		next = null;
+	}
+
+	/** @return number of records in the sliding window, for testing */
+	int getWindowSize() {
+		return window.size();
+	}
+
+	@Override
+	public void close() {
+		closeStream();
+		streamReader.close();
+	}
+
+}
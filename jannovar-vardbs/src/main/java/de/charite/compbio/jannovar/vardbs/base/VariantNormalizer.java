@@ -1,9 +1,7 @@
 package de.charite.compbio.jannovar.vardbs.base;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-
-import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import java.io.Closeable;
+import java.io.IOException;
 
 /**
  * Helper class for normalizing two variants
@@ -14,17 +12,19 @@ import htsjdk.samtools.reference.IndexedFastaSequenceFile;
  * Tan, Adrian, Gonçalo R. Abecasis, and Hyun Min Kang. "Unified representation of genetic variants." Bioinformatics
  * (2015): btv112.
  *
+ * The normalizer owns its {@link ReferenceWindowCache}, closing the normalizer closes the cache.
+ *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
-public final class VariantNormalizer {
+public final class VariantNormalizer implements Closeable {
 
 	/** Path to indexed FASTA path to use */
 	final String fastaPath;
-	/** Random access in FASTA files using FAI */
-	final IndexedFastaSequenceFile fai;
+	/** Cached random access to the reference sequence */
+	final ReferenceWindowCache refCache;
 
 	/**
-	 * Construct new variant normalizer object
+	 * Construct new variant normalizer object, using a {@link ReferenceWindowCache} with the default sizes
 	 *
 	 * @param fastaPath
 	 *            Path to indexed FASTA file
@@ -32,12 +32,30 @@ public final class VariantNormalizer {
 	 *             On problems with opening the FASTA/FAI file
 	 */
 	public VariantNormalizer(String fastaPath) throws JannovarVarDBException {
-		this.fastaPath = fastaPath;
-		try {
-			this.fai = new IndexedFastaSequenceFile(new File(fastaPath));
-		} catch (FileNotFoundException e) {
-			throw new JannovarVarDBException("Could not find FASTA/FAI file", e);
-		}
+		this(new ReferenceWindowCache(fastaPath, ReferenceWindowCache.DEFAULT_CHUNK_SIZE,
+				ReferenceWindowCache.DEFAULT_MAX_CHUNKS));
+	}
+
+	/**
+	 * Construct new variant normalizer object
+	 *
+	 * @param refCache
+	 *            {@link ReferenceWindowCache} to use for accessing the reference
+	 */
+	public VariantNormalizer(ReferenceWindowCache refCache) {
+		this.fastaPath = refCache.getFastaPath();
+		this.refCache = refCache;
+	}
+
+	/** @return the {@link ReferenceWindowCache} used for accessing the reference */
+	public ReferenceWindowCache getRefCache() {
+		return refCache;
+	}
+
+	/** Close the {@link ReferenceWindowCache} and with it the FASTA file */
+	@Override
+	public void close() throws IOException {
+		refCache.close();
 	}
 
 	/**
@@ -79,7 +97,7 @@ public final class VariantNormalizer {
 			}
 			// Extend alleles to the left if there is an empty allele
 			if (ref.length() == 0 || alt.length() == 0) {
-				char extension = (char) fai.getSubsequenceAt(desc.getChrom(), pos, pos).getBases()[0];
+				char extension = refCache.getBase(desc.getChrom(), pos);
 				ref = extension + ref;
 				alt = extension + alt;
 				pos -= 1;
@@ -1,6 +1,7 @@
 package de.charite.compbio.jannovar.vardbs.clinvar;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
@@ -15,9 +16,9 @@ import de.charite.compbio.jannovar.vardbs.base.DBAnnotationDriver;
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
 import de.charite.compbio.jannovar.vardbs.base.GenotypeMatch;
 import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import de.charite.compbio.jannovar.vardbs.base.StreamingVCFQuery;
 import de.charite.compbio.jannovar.vardbs.base.VCFHeaderExtender;
 import de.charite.compbio.jannovar.vardbs.base.VariantContextToRecordConverter;
-import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 import htsjdk.variant.vcf.VCFFileReader;
@@ -41,6 +42,8 @@ public class ClinVarAnnotationDriver implements DBAnnotationDriver {
 	protected final DBAnnotationOptions options;
 	/** VCFReader to use for loading the VCF records */
 	protected final VCFFileReader vcfReader;
+	/** Query helper streaming through {@link #vcfReader} for coordinate-sorted input */
+	protected final StreamingVCFQuery dbQuery;
 
 	/**
 	 * Create annotation driver for a coordinate-sorted, bgzip-compressed, VCF file
@@ -57,9 +60,10 @@ public class ClinVarAnnotationDriver implements DBAnnotationDriver {
 	public ClinVarAnnotationDriver(String vcfPath, String fastaPath, DBAnnotationOptions options)
 			throws JannovarVarDBException {
 		this.vcfPath = vcfPath;
-		this.matcher = new AlleleMatcher(fastaPath);
+		this.matcher = new AlleleMatcher(fastaPath, options);
 		this.vcToRecord = new ClinVarVariantContextToRecordConverter();
 		this.vcfReader = new VCFFileReader(new File(this.vcfPath), true);
+		this.dbQuery = new StreamingVCFQuery(this.vcfPath, this.vcfReader, StreamingVCFQuery.DEFAULT_MAX_STREAM_GAP);
 		this.options = options;
 	}
 
@@ -68,31 +72,34 @@ public class ClinVarAnnotationDriver implements DBAnnotationDriver {
 		return new ClinVarVCFHeaderExtender(options);
 	}
 
+	@Override
+	public void close() throws IOException {
+		dbQuery.close();
+		vcfReader.close();
+		matcher.close();
+	}
+
 	@Override
 	public VariantContext annotateVariantContext(VariantContext obsVC) {
-		try (CloseableIterator<VariantContext> iter = vcfReader.query(obsVC.getContig(), obsVC.getStart(),
-				obsVC.getEnd())) {
-			// Fetch all overlapping and matching genotypes from database and pair them with the correct allele from vc.
-			List<GenotypeMatch> genotypeMatches = new ArrayList<>();
-			List<GenotypeMatch> positionOverlaps = new ArrayList<>();
-			while (iter.hasNext()) {
-				final VariantContext dbVC = iter.next();
-				genotypeMatches.addAll(matcher.matchGenotypes(obsVC, dbVC));
-				// TODO: what to do about non-reference/non-alt ClinVar annotation "-1"?
-				if (options.isReportOverlapping() || options.isReportOverlappingAsMatching())
-					positionOverlaps.addAll(matcher.positionOverlaps(obsVC, dbVC));
-			}
+		// Fetch all overlapping and matching genotypes from database and pair them with the correct allele from vc.
+		List<GenotypeMatch> genotypeMatches = new ArrayList<>();
+		List<GenotypeMatch> positionOverlaps = new ArrayList<>();
+		for (VariantContext dbVC : dbQuery.query(obsVC.getContig(), obsVC.getStart(), obsVC.getEnd())) {
+			genotypeMatches.addAll(matcher.matchGenotypes(obsVC, dbVC));
+			// TODO: what to do about non-reference/non-alt ClinVar annotation "-1"?
+			if (options.isReportOverlapping() || options.isReportOverlappingAsMatching())
+				positionOverlaps.addAll(matcher.positionOverlaps(obsVC, dbVC));
+		}
 
-			List<GenotypeMatch> emptyList = new ArrayList<>();
+		List<GenotypeMatch> emptyList = new ArrayList<>();
 
-			// Use these records to annotate the variant call in obsVC (record-wise but also per alternative allele)
-			if (options.isReportOverlappingAsMatching())
-				return annotateWithDBRecords(obsVC, positionOverlaps, emptyList);
-			else if (options.isReportOverlapping())
-				return annotateWithDBRecords(obsVC, genotypeMatches, positionOverlaps);
-			else
-				return annotateWithDBRecords(obsVC, genotypeMatches, emptyList);
-		}
+		// Use these records to annotate the variant call in obsVC (record-wise but also per alternative allele)
+		if (options.isReportOverlappingAsMatching())
+			return annotateWithDBRecords(obsVC, positionOverlaps, emptyList);
+		else if (options.isReportOverlapping())
+			return annotateWithDBRecords(obsVC, genotypeMatches, positionOverlaps);
+		else
+			return annotateWithDBRecords(obsVC, genotypeMatches, emptyList);
 	}
 
 	/**
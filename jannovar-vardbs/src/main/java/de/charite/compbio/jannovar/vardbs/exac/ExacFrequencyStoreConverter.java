@@ -0,0 +1,83 @@
+package de.charite.compbio.jannovar.vardbs.exac;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.vardbs.base.FrequencyStoreRecord;
+import de.charite.compbio.jannovar.vardbs.base.PopulationFrequencyStoreConverter;
+
+/**
+ * Conversion between {@link ExacRecord} and {@link FrequencyStoreRecord} objects
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class ExacFrequencyStoreConverter
+		extends PopulationFrequencyStoreConverter<ExacRecord, ExacPopulation, ExacRecordBuilder> {
+
+	/** Database type name */
+	public static final String DB_TYPE = "exac";
+
+	public ExacFrequencyStoreConverter() {
+		super(DB_TYPE, ExacPopulation.class);
+	}
+
+	@Override
+	public FrequencyStoreRecord toStoreRecord(ExacRecord record) {
+		return new FrequencyStoreRecord(record.getChrom(), record.getPos(), record.getId(), record.getRef(),
+				record.getAlt(), record.getFilter(), ImmutableList.<String>of(), toColumns(record));
+	}
+
+	@Override
+	public ExacRecord fromStoreRecord(FrequencyStoreRecord record) {
+		ExacRecordBuilder builder = new ExacRecordBuilder();
+		builder.setContig(record.getContig());
+		builder.setPos(record.getPos());
+		builder.setID(record.getId());
+		builder.setRef(record.getRef());
+		builder.getAlt().addAll(record.getAlt());
+		builder.getFilter().addAll(record.getFilter());
+		putColumns(record, builder);
+		return builder.build();
+	}
+
+	@Override
+	protected List<Integer> getCounts(ExacRecord record, ExacPopulation pop, CountColumn column) {
+		switch (column) {
+		case AC:
+			return record.getAlleleCounts(pop);
+		case HET:
+			return record.getAlleleHetCounts(pop);
+		case HOM:
+			return record.getAlleleHomCounts(pop);
+		case HEMI:
+			return record.getAlleleHemiCounts(pop);
+		default: // AN
+			final Integer chromCount = record.getChromCounts().get(pop);
+			return (chromCount == null) ? null : ImmutableList.of(chromCount);
+		}
+	}
+
+	@Override
+	protected void putCounts(ExacRecordBuilder builder, ExacPopulation pop, CountColumn column,
+			List<Integer> counts) {
+		switch (column) {
+		case AC:
+			builder.getAlleleCounts().put(pop, counts);
+			break;
+		case HET:
+			builder.getAlleleHetCounts().put(pop, counts);
+			break;
+		case HOM:
+			builder.getAlleleHomCounts().put(pop, counts);
+			break;
+		case HEMI:
+			builder.getAlleleHemiCounts().put(pop, counts);
+			break;
+		default: // AN
+			builder.getChromCounts().put(pop, counts.get(0));
+			break;
+		}
+	}
+
+}
@@ -1,5 +1,7 @@
 package de.charite.compbio.jannovar.vardbs.facade;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Collection;
 
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationDriver;
@@ -11,9 +13,11 @@ import htsjdk.variant.vcf.VCFHeader;
 /**
  * Facade class for easy annotation of {@link VariantContext} objects using databases
  * 
+ * Closing the annotator closes the underlying {@link DBAnnotationDriver}.
+ * 
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
-final public class DBVariantContextAnnotator {
+final public class DBVariantContextAnnotator implements Closeable {
 
 	/** The DB annotation driver to use */
 	final private DBAnnotationDriver driver;
@@ -64,4 +68,9 @@ final public class DBVariantContextAnnotator {
 			annotateVariantContext(vc);
 	}
 
+	@Override
+	public void close() throws IOException {
+		driver.close();
+	}
+
 }
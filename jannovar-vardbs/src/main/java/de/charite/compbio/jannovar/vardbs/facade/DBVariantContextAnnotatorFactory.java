@@ -2,16 +2,26 @@ package de.charite.compbio.jannovar.vardbs.facade;
 
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
 import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import de.charite.compbio.jannovar.vardbs.base.VCFHeaderExtender;
 import de.charite.compbio.jannovar.vardbs.clinvar.ClinVarAnnotationDriver;
+import de.charite.compbio.jannovar.vardbs.clinvar.ClinVarVCFHeaderExtender;
 import de.charite.compbio.jannovar.vardbs.cosmic.CosmicAnnotationDriver;
+import de.charite.compbio.jannovar.vardbs.cosmic.CosmicVCFHeaderExtender;
 import de.charite.compbio.jannovar.vardbs.dbsnp.DBSNPAnnotationDriver;
+import de.charite.compbio.jannovar.vardbs.dbsnp.DBSNPVCFHeaderExtender;
 import de.charite.compbio.jannovar.vardbs.exac.ExacAnnotationDriver;
+import de.charite.compbio.jannovar.vardbs.exac.ExacVCFHeaderExtender;
 import de.charite.compbio.jannovar.vardbs.gnomad.GnomadAnnotationDriver;
+import de.charite.compbio.jannovar.vardbs.gnomad.GnomadVCFHeaderExtender;
 import htsjdk.variant.variantcontext.VariantContext;
 
 /**
  * Factory for generating {@link DBVariantContextAnnotator} objects
  * 
+ * The <code>construct*HeaderExtender()</code> methods return the {@link VCFHeaderExtender} that the corresponding
+ * annotator uses in {@link DBVariantContextAnnotator#extendHeader}, for extending the header without opening the
+ * database and reference files.
+ * 
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
 public class DBVariantContextAnnotatorFactory {
@@ -124,4 +134,70 @@ public class DBVariantContextAnnotatorFactory {
 		return new DBVariantContextAnnotator(new CosmicAnnotationDriver(vcfDBPath, fastaRefPath, options), options);
 	}
 
+	/**
+	 * Construct {@link VCFHeaderExtender} of the dbSNP annotator
+	 * 
+	 * @param options
+	 *            Configuration for the variant context annotation
+	 * @return {@link VCFHeaderExtender} as used by {@link #constructDBSNP}
+	 */
+	public VCFHeaderExtender constructDBSNPHeaderExtender(DBAnnotationOptions options) {
+		return new DBSNPVCFHeaderExtender(options);
+	}
+
+	/**
+	 * Construct {@link VCFHeaderExtender} of the ExAC annotator
+	 * 
+	 * @param options
+	 *            Configuration for the variant context annotation
+	 * @return {@link VCFHeaderExtender} as used by {@link #constructExac}
+	 */
+	public VCFHeaderExtender constructExacHeaderExtender(DBAnnotationOptions options) {
+		return new ExacVCFHeaderExtender(options);
+	}
+
+	/**
+	 * Construct {@link VCFHeaderExtender} of the gnomAD annotator
+	 * 
+	 * @param options
+	 *            Configuration for the variant context annotation
+	 * @return {@link VCFHeaderExtender} as used by {@link #constructGnomad}
+	 */
+	public VCFHeaderExtender constructGnomadHeaderExtender(DBAnnotationOptions options) {
+		return new GnomadVCFHeaderExtender(options);
+	}
+
+	/**
+	 * Construct {@link VCFHeaderExtender} of the UK10K annotator
+	 * 
+	 * @param options
+	 *            Configuration for the variant context annotation
+	 * @return {@link VCFHeaderExtender} as used by {@link #constructUK10K}, which uses the COSMIC driver
+	 */
+	public VCFHeaderExtender constructUK10KHeaderExtender(DBAnnotationOptions options) {
+		return new CosmicVCFHeaderExtender(options);
+	}
+
+	/**
+	 * Construct {@link VCFHeaderExtender} of the ClinVar annotator
+	 * 
+	 * @param options
+	 *            Configuration for the variant context annotation
+	 * @return {@link VCFHeaderExtender} as used by {@link #constructClinVar}
+	 */
+	public VCFHeaderExtender constructClinVarHeaderExtender(DBAnnotationOptions options) {
+		return new ClinVarVCFHeaderExtender(options);
+	}
+
+	/**
+	 * Construct {@link VCFHeaderExtender} of the COSMIC annotator
+	 * 
+	 * @param options
+	 *            Configuration for the variant context annotation
+	 * @return {@link VCFHeaderExtender} as used by {@link #constructCosmic}
+	 */
+	public VCFHeaderExtender constructCosmicHeaderExtender(DBAnnotationOptions options) {
+		return new CosmicVCFHeaderExtender(options);
+	}
+
 }
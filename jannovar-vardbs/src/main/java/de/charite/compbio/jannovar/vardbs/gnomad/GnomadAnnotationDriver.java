@@ -9,6 +9,8 @@ import java.util.Map.Entry;
 import de.charite.compbio.jannovar.vardbs.base.AbstractDBAnnotationDriver;
 import de.charite.compbio.jannovar.vardbs.base.AnnotatingRecord;
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.base.FrequencyStore;
+import de.charite.compbio.jannovar.vardbs.base.FrequencyStoreCompiler;
 import de.charite.compbio.jannovar.vardbs.base.GenotypeMatch;
 import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
 import de.charite.compbio.jannovar.vardbs.base.VCFHeaderExtender;
@@ -26,7 +28,17 @@ public class GnomadAnnotationDriver extends AbstractDBAnnotationDriver<GnomadRec
 
 	public GnomadAnnotationDriver(String vcfPath, String fastaPath, DBAnnotationOptions options)
 			throws JannovarVarDBException {
-		super(vcfPath, fastaPath, options, new GnomadVariantContextToRecordConverter());
+		super(vcfPath, fastaPath, options, new GnomadVariantContextToRecordConverter(),
+				new GnomadFrequencyStoreConverter());
+	}
+
+	/**
+	 * @return {@link FrequencyStoreCompiler} for compiling a gnomAD VCF file into a {@link FrequencyStore} that can be
+	 *         used instead of the VCF file
+	 */
+	public static FrequencyStoreCompiler<GnomadRecord> constructFrequencyStoreCompiler() {
+		return new FrequencyStoreCompiler<>(new GnomadVariantContextToRecordConverter(),
+				new GnomadFrequencyStoreConverter());
 	}
 
 	@Override
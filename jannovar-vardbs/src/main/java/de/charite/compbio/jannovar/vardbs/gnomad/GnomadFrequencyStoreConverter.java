@@ -0,0 +1,83 @@
+package de.charite.compbio.jannovar.vardbs.gnomad;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.vardbs.base.FrequencyStoreRecord;
+import de.charite.compbio.jannovar.vardbs.base.PopulationFrequencyStoreConverter;
+
+/**
+ * Conversion between {@link GnomadRecord} and {@link FrequencyStoreRecord} objects
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class GnomadFrequencyStoreConverter
+		extends PopulationFrequencyStoreConverter<GnomadRecord, GnomadPopulation, GnomadRecordBuilder> {
+
+	/** Database type name */
+	public static final String DB_TYPE = "gnomad";
+
+	public GnomadFrequencyStoreConverter() {
+		super(DB_TYPE, GnomadPopulation.class);
+	}
+
+	@Override
+	public FrequencyStoreRecord toStoreRecord(GnomadRecord record) {
+		return new FrequencyStoreRecord(record.getChrom(), record.getPos(), record.getId(), record.getRef(),
+				record.getAlt(), record.getFilter(), record.getPopmax(), toColumns(record));
+	}
+
+	@Override
+	public GnomadRecord fromStoreRecord(FrequencyStoreRecord record) {
+		GnomadRecordBuilder builder = new GnomadRecordBuilder();
+		builder.setContig(record.getContig());
+		builder.setPos(record.getPos());
+		builder.setID(record.getId());
+		builder.setRef(record.getRef());
+		builder.getAlt().addAll(record.getAlt());
+		builder.getFilter().addAll(record.getFilter());
+		builder.getPopmax().addAll(record.getPopmax());
+		putColumns(record, builder);
+		return builder.build();
+	}
+
+	@Override
+	protected List<Integer> getCounts(GnomadRecord record, GnomadPopulation pop, CountColumn column) {
+		switch (column) {
+		case AC:
+			return record.getAlleleCounts(pop);
+		case HET:
+			return record.getAlleleHetCounts(pop);
+		case HOM:
+			return record.getAlleleHomCounts(pop);
+		case HEMI:
+			return record.getAlleleHemiCounts(pop);
+		default: // AN
+			return record.getChromCount(pop);
+		}
+	}
+
+	@Override
+	protected void putCounts(GnomadRecordBuilder builder, GnomadPopulation pop, CountColumn column,
+			List<Integer> counts) {
+		switch (column) {
+		case AC:
+			builder.getAlleleCounts().put(pop, counts);
+			break;
+		case HET:
+			builder.getAlleleHetCounts().put(pop, counts);
+			break;
+		case HOM:
+			builder.getAlleleHomCounts().put(pop, counts);
+			break;
+		case HEMI:
+			builder.getAlleleHemiCounts().put(pop, counts);
+			break;
+		default: // AN
+			builder.getChromCounts().put(pop, ImmutableList.copyOf(counts));
+			break;
+		}
+	}
+
+}
@@ -139,4 +139,26 @@ public class AlleleMatcherTest {
 		Assert.assertEquals(2, second.getDbAllele());
 	}
 
+	/**
+	 * Test that the {@link NormalizationCache} from the options is shared and left open by the matchers
+	 */
+	@Test
+	public void testNormalizationCacheFromOptions() throws Exception {
+		DBAnnotationOptions options = DBAnnotationOptions.createDefaults();
+		try (NormalizationCache cache = NormalizationCache.create(fastaPath, options)) {
+			options.setNormalizationCache(cache);
+			try (AlleleMatcher first = new AlleleMatcher(fastaPath, options);
+					AlleleMatcher second = new AlleleMatcher(fastaPath, options)) {
+				assertEquals(1, first.matchGenotypes(vcSingle, vcSingle).size());
+				assertEquals(1, second.matchGenotypes(vcSingle, vcSingle).size());
+			}
+			assertEquals(4, cache.getSkipped());
+
+			// still usable after closing the matchers
+			assertEquals(new VariantDescription("1", 11021, "G", "A"),
+					cache.normalize(new VariantDescription("1", 11021, "G", "A")));
+			cache.getNormalizer().getRefCache().getBase("1", 11022);
+		}
+	}
+
 }
@@ -0,0 +1,170 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Collection;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import de.charite.compbio.jannovar.vardbs.exac.ExacAnnotationDriver;
+import de.charite.compbio.jannovar.vardbs.exac.ExacFrequencyStoreConverter;
+import de.charite.compbio.jannovar.vardbs.gnomad.GnomadAnnotationDriver;
+import de.charite.compbio.jannovar.vardbs.gnomad.GnomadFrequencyStoreConverter;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+
+/**
+ * Test for annotation using a compiled {@link FrequencyStore}, for each database type that supports it
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@RunWith(Parameterized.class)
+public class FrequencyStoreTest {
+
+	/** Construction of annotation driver for a database path */
+	private interface DriverFactory {
+		DBAnnotationDriver construct(String vcfPath, String fastaPath, DBAnnotationOptions options)
+				throws JannovarVarDBException;
+	}
+
+	@Parameters(name = "{0}")
+	public static Collection<Object[]> data() {
+		return ImmutableList.of(
+				new Object[] { ExacFrequencyStoreConverter.DB_TYPE, "/ExAC.r0.3.sites.vep.head.vcf.gz",
+						ExacAnnotationDriver.constructFrequencyStoreCompiler(), (DriverFactory) ExacAnnotationDriver::new },
+				new Object[] { GnomadFrequencyStoreConverter.DB_TYPE, "/gnomad.exomes.r2.0.1.sites.head.vcf.gz",
+						GnomadAnnotationDriver.constructFrequencyStoreCompiler(), (DriverFactory) GnomadAnnotationDriver::new });
+	}
+
+	@Parameter(0)
+	public String dbType;
+	@Parameter(1)
+	public String vcfResource;
+	@Parameter(2)
+	public FrequencyStoreCompiler<?> compiler;
+	@Parameter(3)
+	public DriverFactory driverFactory;
+
+	private String dbVCFPath;
+	private String fastaPath;
+	private String testVCFPath;
+	private DBAnnotationOptions options;
+
+	@Before
+	public void setUp() throws Exception {
+		options = DBAnnotationOptions.createDefaults();
+
+		File tmpDir = Files.createTempDir();
+
+		// Setup database VCF file
+		dbVCFPath = tmpDir + "/db.vcf.gz";
+		ResourceUtils.copyResourceToFile(vcfResource, new File(dbVCFPath));
+		ResourceUtils.copyResourceToFile(vcfResource + ".tbi", new File(dbVCFPath + ".tbi"));
+
+		// Setup reference FASTA file
+		fastaPath = tmpDir + "/chr1.fasta";
+		ResourceUtils.copyResourceToFile("/chr1.fasta", new File(fastaPath));
+		ResourceUtils.copyResourceToFile("/chr1.fasta.fai", new File(fastaPath + ".fai"));
+
+		// Write out file to use in the test
+		testVCFPath = tmpDir + "/test_var.vcf";
+		try (PrintWriter writer = new PrintWriter(testVCFPath)) {
+			writer.write("##fileformat=VCFv4.0\n");
+			writer.write("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tindividual\n");
+			writer.write("1\t13482\t.\tG\tA,C,T\t.\t.\t.\tGT\t0/1\n");
+		}
+	}
+
+	@Test
+	public void testRecordsRoundTrip() throws Exception {
+		checkRecordsRoundTrip(compiler, compile());
+	}
+
+	/** Check that each record from the VCF file is found in the store at <code>storePath</code> */
+	private <RecordType> void checkRecordsRoundTrip(FrequencyStoreCompiler<RecordType> compiler, String storePath)
+			throws Exception {
+		final VariantContextToRecordConverter<RecordType> vcToRecord = compiler.getVariantContextToRecordConverter();
+		final FrequencyStoreConverter<RecordType> storeConverter = compiler.getStoreConverter();
+		try (FrequencyStore store = new FrequencyStore(storePath);
+				VCFFileReader reader = new VCFFileReader(new File(dbVCFPath), false)) {
+			Assert.assertEquals(dbType, store.getDBType());
+			int count = 0;
+			for (VariantContext vc : reader) {
+				final RecordType expected = vcToRecord.convert(vc);
+				boolean found = false;
+				for (FrequencyStoreRecord record : store.query(vc.getContig(), vc.getStart(), vc.getStart()))
+					found = found || expected.equals(storeConverter.fromStoreRecord(record));
+				Assert.assertTrue(expected.toString(), found);
+				count += 1;
+			}
+			Assert.assertTrue(count > 0);
+		}
+	}
+
+	@Test
+	public void testAnnotateSameAsVCF() throws Exception {
+		final String storePath = compile();
+		for (boolean reportOverlapping : new boolean[] { false, true }) {
+			options.setReportOverlapping(reportOverlapping);
+			try (DBAnnotationDriver vcfDriver = driverFactory.construct(dbVCFPath, fastaPath, options);
+					DBAnnotationDriver storeDriver = driverFactory.construct(storePath, fastaPath, options)) {
+				for (String path : new String[] { dbVCFPath, testVCFPath }) {
+					try (VCFFileReader reader = new VCFFileReader(new File(path), false)) {
+						for (VariantContext vc : reader) {
+							final VariantContext expected = vcfDriver.annotateVariantContext(vc);
+							final VariantContext actual = storeDriver.annotateVariantContext(vc);
+							Assert.assertEquals(expected.getAttributes().toString(),
+									actual.getAttributes().toString());
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testQueryUnknownContig() throws Exception {
+		try (FrequencyStore store = new FrequencyStore(compile())) {
+			Assert.assertTrue(store.query("22", 1, 100_000_000).isEmpty());
+		}
+	}
+
+	@Test
+	public void testCompileUnsortedRemovesOutput() throws Exception {
+		final String unsortedPath = testVCFPath + ".unsorted.vcf";
+		try (PrintWriter writer = new PrintWriter(unsortedPath)) {
+			writer.write("##fileformat=VCFv4.0\n");
+			writer.write("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n");
+			writer.write("1\t13482\t.\tG\tA\t.\tPASS\t.\n");
+			writer.write("1\t13417\t.\tC\tCGAGA\t.\tPASS\t.\n");
+		}
+		final String storePath = unsortedPath + ".jfs";
+		try {
+			compiler.compile(unsortedPath, storePath);
+			Assert.fail("Expected exception for unsorted input");
+		} catch (JannovarVarDBException e) {
+			// expected
+		}
+		Assert.assertFalse(new File(storePath).exists());
+	}
+
+	/** @return path to store compiled from the database VCF file */
+	private String compile() throws Exception {
+		final String storePath = dbVCFPath + ".jfs";
+		compiler.compile(dbVCFPath, storePath);
+		Assert.assertTrue(FrequencyStore.isFrequencyStore(storePath));
+		Assert.assertFalse(FrequencyStore.isFrequencyStore(dbVCFPath));
+		return storePath;
+	}
+
+}
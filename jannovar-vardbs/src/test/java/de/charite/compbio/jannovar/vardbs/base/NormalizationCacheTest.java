@@ -0,0 +1,111 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.io.File;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+
+/**
+ * Tests for {@link NormalizationCache}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class NormalizationCacheTest {
+
+	static String fastaPath;
+	static VariantNormalizer normalizer;
+
+	@BeforeClass
+	public static void setUpClass() throws Exception {
+		File tmpDir = Files.createTempDir();
+		fastaPath = tmpDir + "/braf.fasta";
+		ResourceUtils.copyResourceToFile("/braf.fasta", new File(fastaPath));
+		ResourceUtils.copyResourceToFile("/braf.fasta.fai", new File(fastaPath + ".fai"));
+
+		normalizer = new VariantNormalizer(new ReferenceWindowCache(fastaPath, 100, 10));
+	}
+
+	@Test
+	public void testSkipNormalized() throws JannovarVarDBException {
+		ReferenceWindowCache refCache = new ReferenceWindowCache(fastaPath, 100, 10);
+		NormalizationCache cache = new NormalizationCache(new VariantNormalizer(refCache), 10);
+
+		Assert.assertEquals(new VariantDescription("braf", 19, "G", "C"),
+				cache.normalize(new VariantDescription("braf", 19, "G", "C")));
+		Assert.assertEquals(new VariantDescription("braf", 19, "G", "GCT"),
+				cache.normalize(new VariantDescription("braf", 19, "G", "GCT")));
+
+		Assert.assertEquals(2, cache.getSkipped());
+		Assert.assertEquals(0, cache.getHits() + cache.getMisses());
+		Assert.assertEquals(0, refCache.getHits() + refCache.getMisses());
+	}
+
+	@Test
+	public void testCreateBySizes() throws Exception {
+		DBAnnotationOptions options = DBAnnotationOptions.createDefaults();
+		options.setNormalizationCacheMaxEntries(10);
+		options.setRefCacheChunkSize(100);
+		options.setRefCacheMaxChunks(10);
+
+		try (NormalizationCache cache = NormalizationCache.create(fastaPath, options)) {
+			Assert.assertEquals(100, cache.getNormalizer().getRefCache().getChunkSize());
+			Assert.assertEquals(10, cache.getNormalizer().getRefCache().getMaxChunks());
+		}
+	}
+
+	@Test
+	public void testMemoizeShifted() throws JannovarVarDBException {
+		NormalizationCache cache = new NormalizationCache(normalizer, 10);
+
+		final VariantDescription expected = new VariantDescription("braf", 175, "TG", "");
+		Assert.assertEquals(expected, cache.normalize(new VariantDescription("braf", 180, "TGT", "T")));
+		Assert.assertEquals(expected, cache.normalize(new VariantDescription("braf", 180, "TGT", "T")));
+
+		Assert.assertEquals(1, cache.getMisses());
+		Assert.assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	public void testSameAsNormalizer() throws Exception {
+		final byte[] seq = new IndexedFastaSequenceFile(new File(fastaPath)).getSubsequenceAt("braf", 1, 2000)
+				.getBases();
+		NormalizationCache cache = new NormalizationCache(normalizer, 50);
+
+		Random rng = new Random(42);
+		for (int i = 0; i < 5000; ++i) {
+			// VCF-style alleles, starting with the reference base left of the indel
+			final int pos = 100 + rng.nextInt(1800);
+			final int len = 1 + rng.nextInt(4);
+			final String ref;
+			final String alt;
+			switch (rng.nextInt(3)) {
+			case 0: // deletion
+				ref = new String(seq, pos, len + 1);
+				alt = ref.substring(0, 1);
+				break;
+			case 1: // insertion, duplicating the following bases
+				ref = new String(seq, pos, 1);
+				alt = ref + new String(seq, pos + 1, len);
+				break;
+			default: // substitution
+				ref = new String(seq, pos, len);
+				alt = "A" + ref.substring(1) + "C";
+				break;
+			}
+			final VariantDescription desc = new VariantDescription("braf", pos, ref, alt);
+
+			VariantDescription expected = normalizer.normalizeVariant(desc);
+			if (expected.getRef().isEmpty())
+				expected = normalizer.normalizeInsertion(desc);
+			Assert.assertEquals(desc.toString(), expected, cache.normalize(desc));
+		}
+	}
+
+}
@@ -0,0 +1,125 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import htsjdk.samtools.SAMException;
+import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+
+/**
+ * Tests for {@link ReferenceWindowCache}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class ReferenceWindowCacheTest {
+
+	static String fastaPath;
+	static IndexedFastaSequenceFile fai;
+
+	@BeforeClass
+	public static void setUpClass() throws Exception {
+		File tmpDir = Files.createTempDir();
+		fastaPath = tmpDir + "/braf.fasta";
+		ResourceUtils.copyResourceToFile("/braf.fasta", new File(fastaPath));
+		ResourceUtils.copyResourceToFile("/braf.fasta.fai", new File(fastaPath + ".fai"));
+
+		fai = new IndexedFastaSequenceFile(new File(fastaPath));
+	}
+
+	@Test
+	public void testSequentialLookups() throws JannovarVarDBException {
+		ReferenceWindowCache cache = new ReferenceWindowCache(fastaPath, 100, 3);
+		for (int pos = 1; pos <= 1000; ++pos)
+			Assert.assertEquals((char) fai.getSubsequenceAt("braf", pos, pos).getBases()[0], cache.getBase("braf", pos));
+
+		Assert.assertEquals(10, cache.getMisses());
+		Assert.assertEquals(990, cache.getHits());
+	}
+
+	@Test
+	public void testRandomLookupsWithEviction() throws JannovarVarDBException {
+		final int length = 23149;
+		final byte[] expected = fai.getSubsequenceAt("braf", 1, length).getBases();
+
+		ReferenceWindowCache cache = new ReferenceWindowCache(fastaPath, 64, 2);
+		Random rng = new Random(42);
+		for (int i = 0; i < 10000; ++i) {
+			final int pos = 1 + rng.nextInt(length);
+			Assert.assertEquals((char) expected[pos - 1], cache.getBase("braf", pos));
+		}
+		// last base is in a partial chunk
+		Assert.assertEquals((char) expected[length - 1], cache.getBase("braf", length));
+
+		Assert.assertEquals(10001, cache.getHits() + cache.getMisses());
+	}
+
+	@Test(expected = SAMException.class)
+	public void testOutOfRange() throws JannovarVarDBException {
+		ReferenceWindowCache cache = new ReferenceWindowCache(fastaPath, 100, 3);
+		cache.getBase("braf", 23140);
+		cache.getBase("braf", 23150);
+	}
+
+	@Test(expected = SAMException.class)
+	public void testUnknownContig() throws JannovarVarDBException {
+		new ReferenceWindowCache(fastaPath, 100, 3).getBase("chr1", 1);
+	}
+
+	@Test
+	public void testConcurrentLookups() throws Exception {
+		final int length = 23149;
+		final byte[] expected = fai.getSubsequenceAt("braf", 1, length).getBases();
+
+		final ReferenceWindowCache cache = new ReferenceWindowCache(fastaPath, 64, 8);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<Integer>> futures = new ArrayList<>();
+		for (int t = 0; t < 4; ++t) {
+			final int seed = t;
+			futures.add(executor.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() {
+					Random rng = new Random(seed);
+					int mismatches = 0;
+					for (int i = 0; i < 10000; ++i) {
+						final int pos = 1 + rng.nextInt(length);
+						if (cache.getBase("braf", pos) != (char) expected[pos - 1])
+							++mismatches;
+					}
+					return mismatches;
+				}
+			}));
+		}
+		for (Future<Integer> future : futures)
+			Assert.assertEquals(0, (int) future.get());
+		executor.shutdown();
+
+		Assert.assertEquals(40000, cache.getHits() + cache.getMisses());
+	}
+
+	@Test
+	public void testClose() throws Exception {
+		ReferenceWindowCache cache = new ReferenceWindowCache(fastaPath, 100, 3);
+		Assert.assertEquals((char) fai.getSubsequenceAt("braf", 1, 1).getBases()[0], cache.getBase("braf", 1));
+		cache.close();
+		try {
+			cache.getBase("braf", 1);
+			Assert.fail("Expected SAMException after closing");
+		} catch (SAMException e) {
+			// expected, the file is closed and the chunk was dropped
+		}
+	}
+
+}
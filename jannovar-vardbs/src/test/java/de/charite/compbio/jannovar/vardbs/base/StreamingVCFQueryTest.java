@@ -0,0 +1,97 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+
+/**
+ * Tests for {@link StreamingVCFQuery}, comparing to the results of random-access queries
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class StreamingVCFQueryTest {
+
+	String dbSNPVCFPath;
+	VCFFileReader vcfReader;
+
+	@Before
+	public void setUp() throws Exception {
+		File tmpDir = Files.createTempDir();
+		dbSNPVCFPath = tmpDir + "/dbsnp.vcf.gz";
+		ResourceUtils.copyResourceToFile("/dbSNP147.head.vcf.gz", new File(dbSNPVCFPath));
+		String tbiPath = tmpDir + "/dbsnp.vcf.gz.tbi";
+		ResourceUtils.copyResourceToFile("/dbSNP147.head.vcf.gz.tbi", new File(tbiPath));
+
+		vcfReader = new VCFFileReader(new File(dbSNPVCFPath), true);
+	}
+
+	@After
+	public void tearDown() {
+		vcfReader.close();
+	}
+
+	@Test
+	public void testSortedQueries() {
+		try (StreamingVCFQuery query = new StreamingVCFQuery(dbSNPVCFPath, vcfReader, 1000)) {
+			for (int pos = 9900; pos < 13600; pos += 7) {
+				assertSameResult(query, "1", pos, pos);
+				assertSameResult(query, "1", pos, pos + 20);
+			}
+			// the window only keeps records that can overlap with later queries
+			Assert.assertTrue(query.getWindowSize() < 5);
+		}
+	}
+
+	@Test
+	public void testUnsortedQueries() {
+		try (StreamingVCFQuery query = new StreamingVCFQuery(dbSNPVCFPath, vcfReader, 1000)) {
+			assertSameResult(query, "1", 13110, 13110);
+			assertSameResult(query, "1", 10019, 10025);
+			assertSameResult(query, "1", 10055, 10055);
+			assertSameResult(query, "1", 13110, 13120);
+			assertSameResult(query, "1", 13529, 13529);
+		}
+	}
+
+	@Test
+	public void testJumpsAndContigs() {
+		try (StreamingVCFQuery query = new StreamingVCFQuery(dbSNPVCFPath, vcfReader, 100)) {
+			assertSameResult(query, "1", 10019, 10019);
+			assertSameResult(query, "1", 12000, 13200);
+			assertSameResult(query, "1", 13529, 13529);
+			assertSameResult(query, "2", 13529, 13529);
+			assertSameResult(query, "1", 10055, 10055);
+		}
+	}
+
+	private void assertSameResult(StreamingVCFQuery query, String contig, int start, int end) {
+		final List<VariantContext> expected = new ArrayList<>();
+		try (CloseableIterator<VariantContext> iter = vcfReader.query(contig, start, end)) {
+			while (iter.hasNext())
+				expected.add(iter.next());
+		}
+		final List<VariantContext> actual = query.query(contig, start, end);
+
+		Assert.assertEquals(contig + ":" + start + "-" + end, toStrings(expected), toStrings(actual));
+	}
+
+	private static List<String> toStrings(List<VariantContext> vcs) {
+		final List<String> result = new ArrayList<>();
+		for (VariantContext vc : vcs)
+			result.add(vc.getContig() + ":" + vc.getStart() + "-" + vc.getEnd() + ":" + vc.getID());
+		return result;
+	}
+
+}
@@ -123,4 +123,20 @@ public class DBVariantContextAnnotatorFactoryTest {
 				outStream.toString());
 	}
 
+	@Test
+	public void testHeaderExtenderWithoutDatabase() throws Exception {
+		options.setIdentifierPrefix("DBSNP_");
+		VCFHeader expected = new VCFHeader(vcfReader.getFileHeader());
+		try (DBVariantContextAnnotator annotator = new DBVariantContextAnnotatorFactory().constructDBSNP(pathDBVCF,
+				pathRefFASTA, options)) {
+			annotator.extendHeader(expected);
+		}
+
+		VCFHeader actual = new VCFHeader(vcfReader.getFileHeader());
+		new DBVariantContextAnnotatorFactory().constructDBSNPHeaderExtender(options).addHeaders(actual,
+				options.getVCFIdentifierPrefix());
+
+		Assert.assertEquals(expected.getMetaDataInInputOrder(), actual.getMetaDataInInputOrder());
+	}
+
 }